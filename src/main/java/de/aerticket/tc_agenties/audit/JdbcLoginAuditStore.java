@@ -0,0 +1,62 @@
+package de.aerticket.tc_agenties.audit;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Writes audit batches to lmxdb.aer_tc_login_audit with a JDBC batch insert
+ */
+@Repository
+@RequiredArgsConstructor
+public class JdbcLoginAuditStore implements LoginAuditStore {
+
+    private static final int MAX_REASON_LENGTH = 255;
+
+    private static final String INSERT_SQL = "INSERT INTO lmxdb.aer_tc_login_audit "
+            + "(occurred_at, outcome, failure_reason, microsite, company_code, agency_number, job_id, "
+            + "agency_status, agency_action, user_action, jwt_ms, mapping_ms, agency_ms, user_ms, total_ms) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertBatch(List<LoginAuditEvent> events) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                LoginAuditEvent event = events.get(i);
+                ps.setTimestamp(1, Timestamp.from(event.getOccurredAt()));
+                ps.setString(2, event.getOutcome());
+                ps.setString(3, truncate(event.getFailureReason()));
+                ps.setString(4, event.getMicrosite());
+                ps.setString(5, event.getCompanyCode());
+                ps.setString(6, event.getAgencyNumber());
+                ps.setString(7, event.getJobId());
+                ps.setString(8, event.getAgencyStatus());
+                ps.setString(9, event.getAgencyAction().name());
+                ps.setString(10, event.getUserAction().name());
+                ps.setInt(11, event.getJwtMs());
+                ps.setInt(12, event.getMappingMs());
+                ps.setInt(13, event.getAgencyMs());
+                ps.setInt(14, event.getUserMs());
+                ps.setInt(15, event.getTotalMs());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return events.size();
+            }
+        });
+    }
+
+    private static String truncate(String value) {
+        return value == null || value.length() <= MAX_REASON_LENGTH ? value : value.substring(0, MAX_REASON_LENGTH);
+    }
+}
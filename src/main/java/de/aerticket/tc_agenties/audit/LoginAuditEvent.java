@@ -0,0 +1,47 @@
+package de.aerticket.tc_agenties.audit;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One authentication attempt, as written to lmxdb.aer_tc_login_audit
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LoginAuditEvent {
+
+    public static final String OUTCOME_SUCCESS = "SUCCESS";
+    public static final String OUTCOME_FAILURE = "FAILURE";
+
+    private Instant occurredAt;
+    private String outcome;
+    private String failureReason;
+
+    private String microsite;
+    private String companyCode;
+    private String agencyNumber;
+    private String jobId;
+
+    private String agencyStatus;
+    @Builder.Default
+    private ProvisioningAction agencyAction = ProvisioningAction.NONE;
+    @Builder.Default
+    private ProvisioningAction userAction = ProvisioningAction.NONE;
+
+    // Step timings in milliseconds (-1 = step not reached)
+    @Builder.Default
+    private int jwtMs = -1;
+    @Builder.Default
+    private int mappingMs = -1;
+    @Builder.Default
+    private int agencyMs = -1;
+    @Builder.Default
+    private int userMs = -1;
+    private int totalMs;
+}
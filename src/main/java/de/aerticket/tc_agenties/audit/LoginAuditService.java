@@ -0,0 +1,99 @@
+package de.aerticket.tc_agenties.audit;
+
+import de.aerticket.tc_agenties.config.AuditConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Login audit trail. Logins only publish events into a lock-free ring buffer;
+ * a background writer persists them with JDBC batch inserts, so the database
+ * never sits on the login path.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LoginAuditService {
+
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final AuditConfig auditConfig;
+    private final LoginAuditStore loginAuditStore;
+    private final AtomicLong dropped = new AtomicLong();
+
+    private LoginAuditRingBuffer buffer;
+    private LoginAuditWriter writer;
+    private Thread writerThread;
+
+    @PostConstruct
+    public void start() {
+        if (!auditConfig.isEnabled()) {
+            log.info("Login audit disabled");
+            return;
+        }
+        buffer = new LoginAuditRingBuffer(auditConfig.getCapacity());
+        writer = new LoginAuditWriter(buffer, loginAuditStore, auditConfig.getBatchSize(),
+                auditConfig.getFlushIntervalMs());
+        writerThread = new Thread(writer, "login-audit-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("Login audit started with buffer capacity {} and {} policy", buffer.capacity(),
+                auditConfig.getOverflowPolicy());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer != null) {
+            writer.stop();
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    /**
+     * Queue an event for writing; never throws and, with the DROP policy, never waits
+     */
+    public void record(LoginAuditEvent event) {
+        if (buffer == null || event == null) {
+            return;
+        }
+        if (buffer.offer(event)) {
+            writer.signal();
+            return;
+        }
+        if (auditConfig.getOverflowPolicy() == AuditConfig.OverflowPolicy.BLOCK) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(auditConfig.getOfferTimeoutMs());
+            while (System.nanoTime() < deadline) {
+                LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                if (buffer.offer(event)) {
+                    writer.signal();
+                    return;
+                }
+            }
+        }
+        if (dropped.incrementAndGet() % 1000 == 1) {
+            log.warn("Login audit buffer full, {} events dropped so far", dropped.get());
+        }
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getWritten() {
+        return writer != null ? writer.getWritten() : 0;
+    }
+
+    public long getFailed() {
+        return writer != null ? writer.getFailed() : 0;
+    }
+
+    public int getPending() {
+        return buffer != null ? buffer.size() : 0;
+    }
+}
@@ -0,0 +1,14 @@
+package de.aerticket.tc_agenties.audit;
+
+import java.util.List;
+
+/**
+ * Destination of flushed audit batches
+ */
+public interface LoginAuditStore {
+
+    /**
+     * Persist a batch of events in one round trip
+     */
+    void insertBatch(List<LoginAuditEvent> events);
+}
@@ -0,0 +1,125 @@
+package de.aerticket.tc_agenties.audit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single consumer of the audit ring buffer: drains it in batches and hands
+ * them to the store. A batch is written as soon as it is full, a partial one
+ * a flush interval after its first event.
+ *
+ * The writer parks while there is nothing to do; producers call signal()
+ * after each offer, which costs one volatile read unless the writer is
+ * parked and the event is the one it waits for (the first one, or the one
+ * that fills the batch).
+ */
+@Slf4j
+public class LoginAuditWriter implements Runnable {
+
+    private final LoginAuditRingBuffer buffer;
+    private final LoginAuditStore store;
+    private static final int RUNNING = 0;
+    private static final int AWAITING_EVENT = 1;
+    private static final int AWAITING_BATCH = 2;
+
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicInteger state = new AtomicInteger(RUNNING);
+    private volatile boolean running = true;
+    private volatile Thread thread;
+
+    public LoginAuditWriter(LoginAuditRingBuffer buffer, LoginAuditStore store, int batchSize,
+            long flushIntervalMs) {
+        this.buffer = buffer;
+        this.store = store;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushIntervalMs));
+    }
+
+    @Override
+    public void run() {
+        thread = Thread.currentThread();
+        List<LoginAuditEvent> batch = new ArrayList<>(batchSize);
+        while (true) {
+            awaitBatch();
+            int drained = buffer.drainTo(batch, batchSize);
+            if (drained > 0) {
+                flush(batch);
+                batch.clear();
+            } else if (!running && buffer.size() == 0) {
+                return;
+            }
+        }
+    }
+
+    private void awaitBatch() {
+        if (buffer.size() == 0) {
+            // Publish the state before re-checking, so an offer in between either
+            // is seen here or sees the state and unparks
+            state.set(AWAITING_EVENT);
+            while (running && buffer.size() == 0) {
+                LockSupport.park(this);
+            }
+            state.set(RUNNING);
+        }
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        state.set(AWAITING_BATCH);
+        long remaining;
+        while (running && buffer.size() < batchSize && (remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+        }
+        state.set(RUNNING);
+    }
+
+    /**
+     * Called by producers after a successful offer: wakes the writer if it
+     * waits for the first event or for the batch to fill
+     */
+    public void signal() {
+        int current = state.get();
+        if (current == RUNNING || (current == AWAITING_BATCH && buffer.size() < batchSize)) {
+            return;
+        }
+        Thread writerThread = thread;
+        if (writerThread != null && state.compareAndSet(current, RUNNING)) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    /**
+     * Stop after the events already in the buffer have been written
+     */
+    public void stop() {
+        running = false;
+        Thread current = thread;
+        if (current != null) {
+            LockSupport.unpark(current);
+        }
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    private void flush(List<LoginAuditEvent> batch) {
+        try {
+            store.insertBatch(batch);
+            written.addAndGet(batch.size());
+        } catch (Exception e) {
+            failed.addAndGet(batch.size());
+            log.warn("Failed to write {} login audit events: {}", batch.size(), e.getMessage());
+        }
+    }
+}
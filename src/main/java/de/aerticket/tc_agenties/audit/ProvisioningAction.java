@@ -0,0 +1,47 @@
+package de.aerticket.tc_agenties.audit;
+
+/**
+ * What a login did to an agency or user in TravelCompositor
+ */
+public enum ProvisioningAction {
+    /**
+     * Not checked (e.g. login failed earlier)
+     */
+    NONE,
+
+    /**
+     * Existence confirmed by the provisioning ledger
+     */
+    LEDGER,
+
+    /**
+     * Existence confirmed by TravelCompositor
+     */
+    CONFIRMED,
+
+    /**
+     * Created from Cockpit data
+     */
+    CREATED,
+
+    /**
+     * Updated from Cockpit data
+     */
+    UPDATED,
+
+    /**
+     * Sync found nothing to write
+     */
+    UNCHANGED,
+
+    /**
+     * Still running when the login stopped waiting; it records its own
+     * result in the provisioning ledger
+     */
+    PENDING,
+
+    /**
+     * Check, create or update failed
+     */
+    FAILED
+}
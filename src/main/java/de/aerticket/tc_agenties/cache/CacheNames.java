@@ -0,0 +1,20 @@
+package de.aerticket.tc_agenties.cache;
+
+/**
+ * Names of the shared caches used across the application
+ */
+public final class CacheNames {
+
+    private CacheNames() {
+        // Utility class - prevent instantiation
+    }
+
+    // TravelCompositor auth token per microsite
+    public static final String TRAVELC_TOKENS = "travelc-tokens";
+
+    // PEM public key per key URL
+    public static final String PUBLIC_KEYS = "public-keys";
+
+    // AgencyStatus per microsite and agency number
+    public static final String AGENCY_STATUS = "agency-status";
+}
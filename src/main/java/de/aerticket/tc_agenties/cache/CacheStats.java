@@ -0,0 +1,16 @@
+package de.aerticket.tc_agenties.cache;
+
+/**
+ * Point-in-time statistics of one cache, as shown by the admin API.
+ * oldestEntryAgeMs is null when the cache cannot tell.
+ */
+public record CacheStats(String name, long size, long hits, long misses, double hitRatio, long evictions,
+        Long oldestEntryAgeMs) {
+
+    public static CacheStats of(String name, long size, long hits, long misses, long evictions,
+            Long oldestEntryAgeMs) {
+        long lookups = hits + misses;
+        return new CacheStats(name, size, hits, misses, lookups == 0 ? 0 : (double) hits / lookups, evictions,
+                oldestEntryAgeMs);
+    }
+}
@@ -0,0 +1,24 @@
+package de.aerticket.tc_agenties.cache;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single-node cache backend. Invalidation only affects this node.
+ */
+public class InMemoryCacheManager implements SharedCacheManager {
+
+    private final Map<String, InMemorySharedCache> caches = new ConcurrentHashMap<>();
+
+    @Override
+    public SharedCache getCache(String name) {
+        return caches.computeIfAbsent(name, InMemorySharedCache::new);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+}
@@ -0,0 +1,113 @@
+package de.aerticket.tc_agenties.cache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * In-process cache with per-entry expiry, checked lazily on read. Entries
+ * dropped because they expired are not counted as evictions.
+ */
+public class InMemorySharedCache implements SharedCache {
+
+    private final String name;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public InMemorySharedCache(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            entries.remove(key, entry);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    @Override
+    public void put(String key, String value, Duration ttl) {
+        if (value == null) {
+            entries.remove(key);
+            return;
+        }
+        long expiresAt = ttl == null || ttl.isZero() || ttl.isNegative()
+                ? Long.MAX_VALUE
+                : System.currentTimeMillis() + ttl.toMillis();
+        entries.put(key, new Entry(value, System.currentTimeMillis(), expiresAt));
+    }
+
+    @Override
+    public boolean evict(String key) {
+        if (entries.remove(key) == null) {
+            return false;
+        }
+        evictions.increment();
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        evictions.add(entries.size());
+        entries.clear();
+    }
+
+    @Override
+    public int evictMatching(Predicate<String> keyFilter) {
+        int removed = 0;
+        for (String key : entries.keySet()) {
+            if (keyFilter.test(key) && entries.remove(key) != null) {
+                removed++;
+            }
+        }
+        evictions.add(removed);
+        return removed;
+    }
+
+    @Override
+    public CacheStats stats() {
+        long now = System.currentTimeMillis();
+        long oldestAge = -1;
+        for (Entry entry : entries.values()) {
+            if (!entry.isExpired(now)) {
+                oldestAge = Math.max(oldestAge, now - entry.createdAt);
+            }
+        }
+        return CacheStats.of(name, entries.size(), hits.sum(), misses.sum(), evictions.sum(),
+                oldestAge < 0 ? null : oldestAge);
+    }
+
+    private static class Entry {
+        private final String value;
+        private final long createdAt;
+        private final long expiresAt;
+
+        Entry(String value, long createdAt, long expiresAt) {
+            this.value = value;
+            this.createdAt = createdAt;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package de.aerticket.tc_agenties.cache;
+
+import de.aerticket.tc_agenties.config.CacheConfig;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache backend shared between nodes through a Redis-protocol server.
+ *
+ * Every cache keeps a short-lived near copy on the node. Writes and evictions
+ * are published on the invalidation channel so the other nodes drop their
+ * near copies. When the server is unreachable the caches degrade to the near
+ * copy instead of failing logins.
+ */
+@Slf4j
+public class RedisCacheManager implements SharedCacheManager {
+
+    static final String CLEAR_ALL = "*";
+
+    // After a connection failure, skip the server for this long instead of
+    // paying the connect timeout on every cache read
+    private static final long BACKOFF_MS = 5000;
+
+    private final CacheConfig.Redis config;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final BlockingQueue<RespConnection> idle;
+    private final Map<String, RedisSharedCache> caches = new ConcurrentHashMap<>();
+    private Thread subscriber;
+    private volatile boolean running = true;
+    private volatile RespConnection subscription;
+    private volatile long unavailableUntil;
+
+    public RedisCacheManager(CacheConfig.Redis config) {
+        this.config = config;
+        this.idle = new ArrayBlockingQueue<>(Math.max(1, config.getPoolSize()));
+    }
+
+    /**
+     * Start listening for invalidations from other nodes; separate from the
+     * constructor so the listener never sees a partly constructed manager
+     */
+    public synchronized RedisCacheManager start() {
+        if (subscriber == null) {
+            subscriber = new Thread(this::listenForInvalidations, "cache-invalidation-listener");
+            subscriber.setDaemon(true);
+            subscriber.start();
+        }
+        return this;
+    }
+
+    @Override
+    public SharedCache getCache(String name) {
+        return caches.computeIfAbsent(name, n -> new RedisSharedCache(n, this, config.getNearCacheTtlMs()));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        RespConnection current = subscription;
+        if (current != null) {
+            current.close();
+        }
+        Thread listener;
+        synchronized (this) {
+            listener = subscriber;
+        }
+        if (listener != null) {
+            listener.interrupt();
+        }
+        RespConnection connection;
+        while ((connection = idle.poll()) != null) {
+            connection.close();
+        }
+    }
+
+    String redisKey(String cache, String key) {
+        return config.getKeyPrefix() + ":" + cache + ":" + key;
+    }
+
+    /**
+     * Run a command on a pooled connection
+     */
+    Object execute(String... args) throws IOException {
+        if (System.currentTimeMillis() < unavailableUntil) {
+            throw new IOException("Shared cache server unavailable");
+        }
+        RespConnection connection;
+        try {
+            connection = borrow();
+        } catch (IOException e) {
+            unavailableUntil = System.currentTimeMillis() + BACKOFF_MS;
+            throw e;
+        }
+        try {
+            Object reply = connection.command(args);
+            release(connection);
+            return reply;
+        } catch (RespConnection.RespException e) {
+            release(connection);
+            throw e;
+        } catch (IOException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Keys of a cache, without the prefix (SCAN, never KEYS)
+     */
+    List<String> keys(String cache) throws IOException {
+        String prefix = redisKey(cache, "");
+        List<String> keys = new ArrayList<>();
+        String cursor = "0";
+        do {
+            List<?> reply = (List<?>) execute("SCAN", cursor, "MATCH", prefix + "*", "COUNT", "500");
+            cursor = (String) reply.get(0);
+            for (Object key : (List<?>) reply.get(1)) {
+                keys.add(((String) key).substring(prefix.length()));
+            }
+        } while (!"0".equals(cursor));
+        return keys;
+    }
+
+    /**
+     * Delete every key of a cache (SCAN + DEL, never KEYS)
+     */
+    void deleteAll(String cache) throws IOException {
+        String pattern = redisKey(cache, "*");
+        String cursor = "0";
+        do {
+            List<?> reply = (List<?>) execute("SCAN", cursor, "MATCH", pattern, "COUNT", "500");
+            cursor = (String) reply.get(0);
+            List<?> keys = (List<?>) reply.get(1);
+            if (!keys.isEmpty()) {
+                List<String> command = new ArrayList<>(keys.size() + 1);
+                command.add("DEL");
+                keys.forEach(k -> command.add((String) k));
+                execute(command.toArray(new String[0]));
+            }
+        } while (!"0".equals(cursor));
+    }
+
+    /**
+     * Tell the other nodes to drop their near copy of a key
+     */
+    void publishInvalidation(String cache, String key) {
+        try {
+            execute("PUBLISH", config.getChannel(), nodeId + "|" + cache + "|" + key);
+        } catch (IOException e) {
+            log.warn("Failed to publish cache invalidation for {}/{}: {}", cache, key, e.getMessage());
+        }
+    }
+
+    void handleInvalidation(String message) {
+        String[] parts = message.split("\\|", 3);
+        if (parts.length != 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        RedisSharedCache cache = caches.get(parts[1]);
+        if (cache == null) {
+            return;
+        }
+        log.debug("Cache invalidation received for {}/{}", parts[1], parts[2]);
+        if (CLEAR_ALL.equals(parts[2])) {
+            cache.clearNear();
+        } else {
+            cache.evictNear(parts[2]);
+        }
+    }
+
+    private RespConnection borrow() throws IOException {
+        RespConnection connection = idle.poll();
+        return connection != null ? connection : connect();
+    }
+
+    private void release(RespConnection connection) {
+        if (!running || !idle.offer(connection)) {
+            connection.close();
+        }
+    }
+
+    private RespConnection connect() throws IOException {
+        RespConnection connection = new RespConnection(config.getHost(), config.getPort(), config.getTimeoutMs());
+        try {
+            if (config.getPassword() != null && !config.getPassword().isEmpty()) {
+                connection.command("AUTH", config.getPassword());
+            }
+            if (config.getDatabase() != 0) {
+                connection.command("SELECT", Integer.toString(config.getDatabase()));
+            }
+            return connection;
+        } catch (IOException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    private void listenForInvalidations() {
+        while (running) {
+            try (RespConnection connection = connect()) {
+                subscription = connection;
+                connection.send("SUBSCRIBE", config.getChannel());
+                connection.read(); // subscribe confirmation
+                connection.setReadTimeout(0);
+                // Entries written while we were disconnected may be stale
+                caches.values().forEach(RedisSharedCache::clearNear);
+                log.info("Listening for cache invalidations on channel {}", config.getChannel());
+                while (running) {
+                    Object reply = connection.read();
+                    if (reply instanceof List<?> message && message.size() == 3
+                            && "message".equals(message.get(0))) {
+                        handleInvalidation((String) message.get(2));
+                    }
+                }
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Cache invalidation subscription lost: {}", e.getMessage());
+                    sleepBeforeReconnect();
+                }
+            } finally {
+                subscription = null;
+            }
+        }
+    }
+
+    private void sleepBeforeReconnect() {
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
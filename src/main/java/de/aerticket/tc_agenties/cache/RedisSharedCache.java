@@ -0,0 +1,141 @@
+package de.aerticket.tc_agenties.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Cache stored on the Redis-protocol server with a near copy on this node.
+ * Statistics count this node's lookups; size and entry age describe the near
+ * copy.
+ */
+@Slf4j
+class RedisSharedCache implements SharedCache {
+
+    private final String name;
+    private final RedisCacheManager manager;
+    private final InMemorySharedCache near;
+    private final Duration nearTtl;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    RedisSharedCache(String name, RedisCacheManager manager, long nearCacheTtlMs) {
+        this.name = name;
+        this.manager = manager;
+        this.near = new InMemorySharedCache(name);
+        this.nearTtl = Duration.ofMillis(nearCacheTtlMs);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String get(String key) {
+        String value = near.get(key);
+        if (value != null) {
+            hits.increment();
+            return value;
+        }
+        try {
+            value = (String) manager.execute("GET", manager.redisKey(name, key));
+            if (value != null) {
+                near.put(key, value, nearTtl);
+                hits.increment();
+            } else {
+                misses.increment();
+            }
+            return value;
+        } catch (IOException e) {
+            log.warn("Shared cache read failed for {}/{}: {}", name, key, e.getMessage());
+            misses.increment();
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String key, String value, Duration ttl) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        boolean expires = ttl != null && !ttl.isZero() && !ttl.isNegative();
+        near.put(key, value, expires && ttl.compareTo(nearTtl) < 0 ? ttl : nearTtl);
+        try {
+            if (expires) {
+                manager.execute("SET", manager.redisKey(name, key), value, "PX", Long.toString(ttl.toMillis()));
+            } else {
+                manager.execute("SET", manager.redisKey(name, key), value);
+            }
+            manager.publishInvalidation(name, key);
+        } catch (IOException e) {
+            log.warn("Shared cache write failed for {}/{}: {}", name, key, e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean evict(String key) {
+        boolean removed = near.evict(key);
+        try {
+            removed = manager.execute("DEL", manager.redisKey(name, key)) instanceof Long deleted && deleted > 0
+                    || removed;
+        } catch (IOException e) {
+            log.warn("Shared cache eviction failed for {}/{}: {}", name, key, e.getMessage());
+        }
+        manager.publishInvalidation(name, key);
+        if (removed) {
+            evictions.increment();
+        }
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        near.clear();
+        try {
+            manager.deleteAll(name);
+        } catch (IOException e) {
+            log.warn("Shared cache clear failed for {}: {}", name, e.getMessage());
+        }
+        manager.publishInvalidation(name, RedisCacheManager.CLEAR_ALL);
+    }
+
+    @Override
+    public int evictMatching(Predicate<String> keyFilter) {
+        near.evictMatching(keyFilter);
+        int removed = 0;
+        try {
+            for (String key : manager.keys(name)) {
+                if (keyFilter.test(key)) {
+                    manager.execute("DEL", manager.redisKey(name, key));
+                    manager.publishInvalidation(name, key);
+                    removed++;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Shared cache eviction failed for {}: {}", name, e.getMessage());
+        }
+        evictions.add(removed);
+        return removed;
+    }
+
+    @Override
+    public CacheStats stats() {
+        CacheStats nearStats = near.stats();
+        return CacheStats.of(name, nearStats.size(), hits.sum(), misses.sum(), evictions.sum(),
+                nearStats.oldestEntryAgeMs());
+    }
+
+    void evictNear(String key) {
+        near.evict(key);
+    }
+
+    void clearNear() {
+        near.clear();
+    }
+}
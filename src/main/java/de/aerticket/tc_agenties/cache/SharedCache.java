@@ -0,0 +1,50 @@
+package de.aerticket.tc_agenties.cache;
+
+import java.time.Duration;
+import java.util.function.Predicate;
+
+/**
+ * A named string cache that may be shared between nodes.
+ *
+ * Values are plain strings so that every backend (in-process or networked)
+ * can store them without a serializer.
+ */
+public interface SharedCache {
+
+    /**
+     * Cache name, e.g. "travelc-tokens"
+     */
+    String getName();
+
+    /**
+     * Get value for key, or null if absent or expired
+     */
+    String get(String key);
+
+    /**
+     * Store value for key; a null or non-positive ttl means no expiry
+     */
+    void put(String key, String value, Duration ttl);
+
+    /**
+     * Remove key on this node and, for shared backends, on every node;
+     * returns true if it was present
+     */
+    boolean evict(String key);
+
+    /**
+     * Remove all keys of this cache on every node
+     */
+    void clear();
+
+    /**
+     * Remove every key accepted by the filter, on every node; returns the
+     * number of keys removed
+     */
+    int evictMatching(Predicate<String> keyFilter);
+
+    /**
+     * Hit, miss and size statistics of this node
+     */
+    CacheStats stats();
+}
@@ -0,0 +1,23 @@
+package de.aerticket.tc_agenties.cache;
+
+import java.util.Collection;
+
+/**
+ * Hands out named shared caches for the configured backend.
+ */
+public interface SharedCacheManager extends AutoCloseable {
+
+    /**
+     * Get or create the cache with the given name
+     */
+    SharedCache getCache(String name);
+
+    /**
+     * Names of all caches created so far
+     */
+    Collection<String> getCacheNames();
+
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,66 @@
+package de.aerticket.tc_agenties.capture;
+
+import de.aerticket.tc_agenties.audit.ProvisioningAction;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One authenticate request of a capture trace (one JSON line).
+ *
+ * Identifiers are HMAC pseudonyms: stable within a capture, so repeat logins
+ * and shared agencies stay recognizable, but not reversible without the key.
+ * Agent names and the token itself are never written.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CapturedLogin {
+
+    /**
+     * What the JWT looked like, as far as the login got with it
+     */
+    public enum TokenShape {
+        EMPTY,
+        MALFORMED,
+        UNSUPPORTED_ALG,
+        REJECTED,
+        VALID
+    }
+
+    // Milliseconds since the capture started
+    private long offsetMs;
+
+    private TokenShape token;
+    // Key server environment the issuer selects: qa, stg or prod
+    private String issuer;
+    private String kid;
+
+    private String companyCode;
+    // false if the company code fell back to the default microsite
+    private boolean mapped;
+    private String microsite;
+    private String agencyNumber;
+    private String jobId;
+    private String language;
+    private String type;
+
+    private String outcome;
+    private String agencyStatus;
+    private ProvisioningAction agencyAction;
+    private ProvisioningAction userAction;
+
+    // Stages answered from a cache (true), from the remote system (false), or not reached (null)
+    private Boolean keyCached;
+    private Boolean agencyCached;
+    private Boolean userCached;
+
+    // Step timings in milliseconds (-1 = step not reached)
+    private int jwtMs;
+    private int mappingMs;
+    private int agencyMs;
+    private int userMs;
+    private int totalMs;
+}
@@ -0,0 +1,305 @@
+package de.aerticket.tc_agenties.capture;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.aerticket.tc_agenties.audit.LoginAuditEvent;
+import de.aerticket.tc_agenties.config.CaptureConfig;
+import de.aerticket.tc_agenties.service.MicrositeMappingService;
+import de.aerticket.tc_agenties.util.RequestTimings;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records an anonymized trace of authenticate requests for replay
+ * benchmarks: token shape, claim pseudonyms, timing and the downstream
+ * outcomes the login saw (agency status, provisioning actions, cache hits).
+ *
+ * Logins only hand their audit event, and whatever else must be read at
+ * login time, to a bounded queue; a writer thread classifies the token,
+ * derives the pseudonyms and appends JSON lines. When
+ * the queue is full the login is left out of the trace, never delayed.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TrafficCaptureService {
+
+    private static final String ALG_ES256 = "ES256";
+    private static final String HMAC = "HmacSHA256";
+    private static final int PSEUDONYM_BYTES = 6;
+    private static final int MAX_PARAM_LENGTH = 32;
+
+    private final CaptureConfig captureConfig;
+    private final MicrositeMappingService micrositeMappingService;
+    private final ObjectMapper objectMapper;
+
+    private volatile Capture capture;
+
+    @PostConstruct
+    public void startIfEnabled() throws IOException, GeneralSecurityException, InterruptedException {
+        if (captureConfig.isEnabled()) {
+            start();
+        }
+    }
+
+    /**
+     * Start a new capture, replacing the previous trace file once the
+     * previous writer has drained
+     */
+    public synchronized Map<String, Object> start()
+            throws IOException, GeneralSecurityException, InterruptedException {
+        if (capture != null && capture.running) {
+            throw new IllegalStateException("A capture is already running");
+        }
+        if (capture != null) {
+            capture.writer.join(TimeUnit.SECONDS.toMillis(5));
+            if (capture.writer.isAlive()) {
+                throw new IllegalStateException("The previous capture is still writing its trace");
+            }
+        }
+        Path file = Path.of(captureConfig.getPath());
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Capture started = new Capture(file, captureConfig.getCapacity(), captureConfig.getMaxRecords(), mac());
+        started.writer.start();
+        capture = started;
+        log.info("Started traffic capture to {}", file);
+        return status();
+    }
+
+    /**
+     * Stop the capture and flush the trace
+     */
+    public synchronized Map<String, Object> stop() throws InterruptedException {
+        if (capture == null) {
+            throw new IllegalStateException("No capture to stop");
+        }
+        capture.running = false;
+        capture.writer.join(TimeUnit.SECONDS.toMillis(5));
+        log.info("Stopped traffic capture, {} logins written, {} dropped", capture.written, capture.dropped.get());
+        return status();
+    }
+
+    /**
+     * Trace file of the current or last capture
+     */
+    public synchronized Path trace() {
+        if (capture == null || !Files.exists(capture.file)) {
+            throw new IllegalStateException("No capture available");
+        }
+        return capture.file;
+    }
+
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("state", capture == null ? "NONE" : capture.running ? "RUNNING" : "STOPPED");
+        if (capture != null) {
+            status.put("startedAt", capture.startedAt);
+            status.put("path", capture.file.toString());
+            status.put("written", capture.written);
+            status.put("dropped", capture.dropped.get());
+        }
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (capture != null && capture.running) {
+            stop();
+        }
+    }
+
+    /**
+     * Hand a finished login to the capture; a no-op unless one is running.
+     * Called on the login thread while its timings are still current.
+     */
+    public void record(String jwtToken, String language, String type, LoginAuditEvent event,
+            RequestTimings timings) {
+        Capture current = capture;
+        if (current == null || !current.running || event == null) {
+            return;
+        }
+        if (current.accepted.incrementAndGet() > current.maxRecords) {
+            return;
+        }
+        Pending pending = new Pending(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - current.startedAtNanos),
+                jwtToken, language, type, event,
+                event.getCompanyCode() != null
+                        && micrositeMappingService.hasCompanyCodeMapping(event.getCompanyCode()),
+                timings != null ? timings.cached(RequestTimings.Stage.JWT) : null,
+                timings != null ? timings.cached(RequestTimings.Stage.AGENCY) : null,
+                timings != null ? timings.cached(RequestTimings.Stage.USER) : null);
+        if (!current.queue.offer(pending)) {
+            current.dropped.incrementAndGet();
+        }
+    }
+
+    private Mac mac() throws GeneralSecurityException {
+        byte[] key;
+        if (captureConfig.getPseudonymKey().isBlank()) {
+            key = new byte[32];
+            new SecureRandom().nextBytes(key);
+        } else {
+            key = captureConfig.getPseudonymKey().getBytes(StandardCharsets.UTF_8);
+        }
+        Mac mac = Mac.getInstance(HMAC);
+        mac.init(new SecretKeySpec(key, HMAC));
+        return mac;
+    }
+
+    private record Pending(long offsetMs, String jwtToken, String language, String type, LoginAuditEvent event,
+            boolean mapped, Boolean keyCached, Boolean agencyCached, Boolean userCached) {
+    }
+
+    /**
+     * One capture: its queue, writer thread and counters
+     */
+    private final class Capture implements Runnable {
+
+        private final Path file;
+        private final Instant startedAt = Instant.now();
+        private final long startedAtNanos = System.nanoTime();
+        private final BlockingQueue<Pending> queue;
+        private final long maxRecords;
+        private final Mac mac;
+        private final Thread writer;
+        private final AtomicLong accepted = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile boolean running = true;
+        private volatile long written;
+
+        Capture(Path file, int capacity, long maxRecords, Mac mac) {
+            this.file = file;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.maxRecords = maxRecords;
+            this.mac = mac;
+            this.writer = new Thread(this, "traffic-capture-writer");
+            this.writer.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                while (written < maxRecords) {
+                    Pending pending = queue.poll(200, TimeUnit.MILLISECONDS);
+                    if (pending == null) {
+                        out.flush();
+                        if (!running) {
+                            break;
+                        }
+                        continue;
+                    }
+                    out.write(objectMapper.writeValueAsString(toCapturedLogin(pending)));
+                    out.newLine();
+                    written++;
+                }
+                if (written >= maxRecords) {
+                    log.info("Traffic capture reached {} logins, stopping", maxRecords);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                log.error("Error writing traffic capture {}: {}", file, e.getMessage());
+            } finally {
+                running = false;
+            }
+        }
+
+        private CapturedLogin toCapturedLogin(Pending pending) {
+            LoginAuditEvent event = pending.event();
+            CapturedLogin.CapturedLoginBuilder login = CapturedLogin.builder()
+                    .offsetMs(pending.offsetMs())
+                    .companyCode(pseudonym(event.getCompanyCode()))
+                    .mapped(pending.mapped())
+                    .microsite(event.getMicrosite())
+                    .agencyNumber(pseudonym(event.getAgencyNumber()))
+                    .jobId(pseudonym(event.getJobId()))
+                    .language(truncate(pending.language()))
+                    .type(truncate(pending.type()))
+                    .outcome(event.getOutcome())
+                    .agencyStatus(event.getAgencyStatus())
+                    .agencyAction(event.getAgencyAction())
+                    .userAction(event.getUserAction())
+                    .keyCached(pending.keyCached())
+                    .agencyCached(pending.agencyCached())
+                    .userCached(pending.userCached())
+                    .jwtMs(event.getJwtMs())
+                    .mappingMs(event.getMappingMs())
+                    .agencyMs(event.getAgencyMs())
+                    .userMs(event.getUserMs())
+                    .totalMs(event.getTotalMs());
+            classifyToken(pending.jwtToken(), event, login);
+            return login.build();
+        }
+
+        /**
+         * Token shape and key server coordinates, read without verifying the
+         * signature; the JWT stage only has a duration if validation passed
+         */
+        private void classifyToken(String jwtToken, LoginAuditEvent event,
+                CapturedLogin.CapturedLoginBuilder login) {
+            if (jwtToken == null || jwtToken.isBlank()) {
+                login.token(CapturedLogin.TokenShape.EMPTY);
+                return;
+            }
+            String[] parts = jwtToken.split("\\.");
+            JsonNode header;
+            JsonNode body;
+            try {
+                if (parts.length != 3) {
+                    throw new IllegalArgumentException("not three parts");
+                }
+                header = objectMapper.readTree(Base64.getUrlDecoder().decode(parts[0]));
+                body = objectMapper.readTree(Base64.getUrlDecoder().decode(parts[1]));
+            } catch (IOException | RuntimeException e) {
+                login.token(CapturedLogin.TokenShape.MALFORMED);
+                return;
+            }
+            String issuer = body.path("iss").asText("");
+            login.issuer(issuer.startsWith("qa-") ? "qa" : issuer.startsWith("stg-") ? "stg" : "prod")
+                    .kid(pseudonym(header.path("kid").asText(null)));
+            if (!ALG_ES256.equalsIgnoreCase(header.path("alg").asText(""))) {
+                login.token(CapturedLogin.TokenShape.UNSUPPORTED_ALG);
+            } else {
+                login.token(event.getJwtMs() >= 0 ? CapturedLogin.TokenShape.VALID
+                        : CapturedLogin.TokenShape.REJECTED);
+            }
+        }
+
+        private String pseudonym(String value) {
+            if (value == null || value.isEmpty()) {
+                return value;
+            }
+            byte[] digest = mac.doFinal(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, PSEUDONYM_BYTES);
+        }
+
+        private static String truncate(String value) {
+            return value != null && value.length() > MAX_PARAM_LENGTH ? value.substring(0, MAX_PARAM_LENGTH) : value;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package de.aerticket.tc_agenties.client;
+
+/**
+ * Outcome of a downstream call. Expected statuses (found, not found) are
+ * values, not exceptions; Failed carries what went wrong for logging.
+ */
+public sealed interface ClientResult<T> permits ClientResult.Found, ClientResult.NotFound, ClientResult.Failed {
+
+    record Found<T>(T value) implements ClientResult<T> {
+    }
+
+    record NotFound<T>() implements ClientResult<T> {
+    }
+
+    record Failed<T>(String reason, Throwable cause) implements ClientResult<T> {
+    }
+
+    static <T> ClientResult<T> found(T value) {
+        return new Found<>(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> ClientResult<T> notFound() {
+        return (ClientResult<T>) Shared.NOT_FOUND;
+    }
+
+    static <T> ClientResult<T> failed(String reason, Throwable cause) {
+        return new Failed<>(reason, cause);
+    }
+
+    default boolean isFound() {
+        return this instanceof Found;
+    }
+
+    /**
+     * Value if found, otherwise null
+     */
+    default T orNull() {
+        return this instanceof Found<T> found ? found.value() : null;
+    }
+
+    // Holder so the interface does not expose the singleton as a constant
+    final class Shared {
+        private static final NotFound<?> NOT_FOUND = new NotFound<>();
+
+        private Shared() {
+        }
+    }
+}
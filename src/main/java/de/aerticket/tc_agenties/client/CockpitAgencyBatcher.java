@@ -0,0 +1,197 @@
+package de.aerticket.tc_agenties.client;
+
+import de.aerticket.tc_agenties.config.CockpitConfig;
+import de.aerticket.tc_agenties.model.CockpitAgency;
+import de.aerticket.tc_agenties.util.Deadline;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cockpit agency lookups, micro-batched.
+ *
+ * The first lookup of a batch opens a window of batchWindowMs; lookups
+ * arriving meanwhile join it, and concurrent lookups of the same agency
+ * share one slot. The batch goes out as one filtered collection request
+ * when the window closes or batchMaxSize is reached, and the result is
+ * fanned out to the waiting callers. A batch of one, a batch the collection
+ * request could not answer and agencies missing from its answer are handed
+ * back: each of those callers then does its own single lookup, exactly as
+ * without batching. Agency numbers that cannot be part of the filter (a
+ * comma) always go the single way.
+ *
+ * Windows are timed on their own thread, so they close on time even while
+ * every sender thread is blocked on a batch request.
+ * Metric: tc.cockpit.batch.size
+ */
+@Component
+@Slf4j
+public class CockpitAgencyBatcher {
+
+    private final CockpitConfig cockpitConfig;
+    private final CockpitClient cockpitClient;
+    private final DistributionSummary batchSizes;
+    private final ScheduledThreadPoolExecutor timer;
+    private final ThreadPoolExecutor senders;
+
+    private final Object lock = new Object();
+    // Batch being collected; replaced (not cleared) when it is sent
+    private Map<String, CompletableFuture<ClientResult<CockpitAgency>>> pending = new LinkedHashMap<>();
+
+    public CockpitAgencyBatcher(CockpitConfig cockpitConfig, CockpitClient cockpitClient,
+            MeterRegistry meterRegistry) {
+        this.cockpitConfig = cockpitConfig;
+        this.cockpitClient = cockpitClient;
+        this.batchSizes = DistributionSummary.builder("tc.cockpit.batch.size")
+                .description("Agencies per Cockpit batch request")
+                .register(meterRegistry);
+        this.timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "cockpit-batch-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        int threads = Math.max(1, cockpitConfig.getBatchThreads());
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.senders = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "cockpit-batch-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void stop() {
+        timer.shutdownNow();
+        senders.shutdownNow();
+    }
+
+    /**
+     * Same contract as CockpitClient.agency
+     */
+    public ClientResult<CockpitAgency> agency(String agencyNumber) {
+        if (!cockpitConfig.isBatchEnabled() || agencyNumber == null || agencyNumber.indexOf(',') >= 0) {
+            return cockpitClient.agency(agencyNumber);
+        }
+
+        CompletableFuture<ClientResult<CockpitAgency>> result;
+        Map<String, CompletableFuture<ClientResult<CockpitAgency>>> full = null;
+        synchronized (lock) {
+            result = pending.get(agencyNumber);
+            if (result == null) {
+                result = new CompletableFuture<>();
+                pending.put(agencyNumber, result);
+                if (pending.size() == 1) {
+                    Map<String, CompletableFuture<ClientResult<CockpitAgency>>> batch = pending;
+                    submit(batch, () -> timer.schedule(() -> closeWindow(batch),
+                            cockpitConfig.getBatchWindowMs(), TimeUnit.MILLISECONDS));
+                }
+                if (pending.size() >= Math.max(2, cockpitConfig.getBatchMaxSize())) {
+                    full = pending;
+                    pending = new LinkedHashMap<>();
+                }
+            }
+        }
+        if (full != null) {
+            Map<String, CompletableFuture<ClientResult<CockpitAgency>>> batch = full;
+            submit(batch, () -> senders.execute(() -> send(batch)));
+        }
+
+        ClientResult<CockpitAgency> batched = await(agencyNumber, result);
+        // null: not answered by a batch request, look up individually
+        return batched != null ? batched : cockpitClient.agency(agencyNumber);
+    }
+
+    /**
+     * On the timer thread: take the batch out of collection and hand it to a
+     * sender
+     */
+    private void closeWindow(Map<String, CompletableFuture<ClientResult<CockpitAgency>>> batch) {
+        synchronized (lock) {
+            if (pending != batch) {
+                // Already sent because it filled up
+                return;
+            }
+            pending = new LinkedHashMap<>();
+        }
+        submit(batch, () -> senders.execute(() -> send(batch)));
+    }
+
+    private void send(Map<String, CompletableFuture<ClientResult<CockpitAgency>>> batch) {
+        try {
+            if (batch.size() == 1) {
+                handBack(batch);
+                return;
+            }
+            batchSizes.record(batch.size());
+            ClientResult<List<CockpitAgency>> result = cockpitClient.agencies(new ArrayList<>(batch.keySet()));
+            if (!(result instanceof ClientResult.Found<List<CockpitAgency>> found)) {
+                log.warn("Cockpit batch lookup of {} agencies not answered ({}), looking them up one by one",
+                        batch.size(), result instanceof ClientResult.Failed<?> failed ? failed.reason() : "not found");
+                handBack(batch);
+                return;
+            }
+
+            Map<String, CockpitAgency> byNumber = new HashMap<>();
+            for (CockpitAgency agency : found.value()) {
+                if (agency != null && agency.getAgencyNumber() != null) {
+                    byNumber.put(agency.getAgencyNumber(), agency);
+                }
+            }
+            // Missing from the answer: the single lookup tells not found from not returned
+            batch.forEach((agencyNumber, future) -> {
+                CockpitAgency agency = byNumber.get(agencyNumber);
+                future.complete(agency != null ? ClientResult.found(agency) : null);
+            });
+        } catch (RuntimeException e) {
+            log.error("Cockpit batch lookup failed: {}", e.getMessage());
+            handBack(batch);
+        }
+    }
+
+    private void submit(Map<String, CompletableFuture<ClientResult<CockpitAgency>>> batch, Runnable submission) {
+        try {
+            submission.run();
+        } catch (RejectedExecutionException e) {
+            // Shutting down: callers fall back to single lookups
+            handBack(batch);
+        }
+    }
+
+    private static void handBack(Map<String, CompletableFuture<ClientResult<CockpitAgency>>> batch) {
+        batch.values().forEach(future -> future.complete(null));
+    }
+
+    private ClientResult<CockpitAgency> await(String agencyNumber,
+            CompletableFuture<ClientResult<CockpitAgency>> result) {
+        long waitMs = Math.min(cockpitConfig.getBatchMaxWaitMs(), Math.max(0, Deadline.remainingMillis()));
+        try {
+            return result.get(waitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return ClientResult.failed("Cockpit batch lookup of agency " + agencyNumber + " timed out after "
+                    + waitMs + " ms", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ClientResult.failed("Interrupted waiting for Cockpit batch lookup", e);
+        } catch (ExecutionException e) {
+            return ClientResult.failed("Cockpit batch lookup failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package de.aerticket.tc_agenties.client;
+
+import de.aerticket.tc_agenties.config.CockpitConfig;
+import de.aerticket.tc_agenties.jfr.DownstreamCallEvent;
+import de.aerticket.tc_agenties.model.CockpitAgency;
+import de.aerticket.tc_agenties.model.CockpitAgent;
+import de.aerticket.tc_agenties.retry.Idempotency;
+import de.aerticket.tc_agenties.retry.RetryExecutor;
+import de.aerticket.tc_agenties.util.JwtTokenGenerator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Typed Cockpit REST client; an unknown agency is NotFound, not an exception.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CockpitClient {
+
+    private static final String CLIENT_NAME = "Cockpit";
+    private static final ParameterizedTypeReference<List<CockpitAgent>> AGENTS = new ParameterizedTypeReference<>() {
+    };
+    private static final ParameterizedTypeReference<List<CockpitAgency>> AGENCIES =
+            new ParameterizedTypeReference<>() {
+            };
+
+    private final RestClient restClient;
+    private final CockpitConfig cockpitConfig;
+    private final JwtTokenGenerator jwtTokenGenerator;
+    private final RetryExecutor retryExecutor;
+
+    public ClientResult<CockpitAgency> agency(String agencyNumber) {
+        DownstreamCallEvent event = DownstreamCallEvent.start();
+        ClientResult<CockpitAgency> result = fetchAgency(agencyNumber);
+        event.finish(CLIENT_NAME, "agency", null, agencyNumber, result);
+        return result;
+    }
+
+    private ClientResult<CockpitAgency> fetchAgency(String agencyNumber) {
+        String url = UriComponentsBuilder.fromUriString(cockpitConfig.getBaseUrl())
+                .pathSegment(agencyNumber)
+                .toUriString();
+        return get(url, body -> {
+            CockpitAgency agency = body.bodyTo(CockpitAgency.class);
+            return agency != null ? ClientResult.found(agency) : ClientResult.notFound();
+        });
+    }
+
+    /**
+     * Several agencies in one request, filtering the agency collection:
+     * {baseUrl}?{batchFilterParam}=a,b,c. Agencies Cockpit does not know are
+     * missing from the list. An agency number with a comma cannot be
+     * filtered for and fails the request without sending it.
+     */
+    public ClientResult<List<CockpitAgency>> agencies(List<String> agencyNumbers) {
+        for (String agencyNumber : agencyNumbers) {
+            if (agencyNumber == null || agencyNumber.indexOf(',') >= 0) {
+                return ClientResult.failed("Cockpit agency filter cannot hold agency number " + agencyNumber, null);
+            }
+        }
+        String url = UriComponentsBuilder.fromUriString(cockpitConfig.getBaseUrl())
+                .queryParam(cockpitConfig.getBatchFilterParam(), String.join(",", agencyNumbers))
+                .toUriString();
+        DownstreamCallEvent event = DownstreamCallEvent.start();
+        ClientResult<List<CockpitAgency>> result = get(url, body -> {
+            List<CockpitAgency> agencies = body.bodyTo(AGENCIES);
+            return agencies != null ? ClientResult.found(agencies) : ClientResult.notFound();
+        });
+        event.finish(CLIENT_NAME, "agencies", null, null, result);
+        return result;
+    }
+
+    private <T> ClientResult<T> get(String url, StatusHandler.BodyMapper<T> mapper) {
+        try {
+            log.debug("Making API call to Cockpit: {}", url);
+            HttpHeaders headers = createCockpitHeaders();
+            return retryExecutor.execute(RetryExecutor.CLIENT_COCKPIT, Idempotency.IDEMPOTENT,
+                    () -> restClient.get()
+                            .uri(url)
+                            .headers(target -> target.addAll(headers))
+                            .exchange((request, response) -> StatusHandler.handle(response, mapper)));
+        } catch (RuntimeException e) {
+            return StatusHandler.failed(CLIENT_NAME, e);
+        }
+    }
+
+    /**
+     * Agent roster of an agency
+     */
+    public ClientResult<List<CockpitAgent>> agents(String agencyNumber) {
+        String url = UriComponentsBuilder.fromUriString(cockpitConfig.getBaseUrl())
+                .pathSegment(agencyNumber, cockpitConfig.getAgentsPath())
+                .toUriString();
+        DownstreamCallEvent event = DownstreamCallEvent.start();
+        ClientResult<List<CockpitAgent>> result = get(url, body -> {
+            List<CockpitAgent> agents = body.bodyTo(AGENTS);
+            return agents != null ? ClientResult.found(agents) : ClientResult.notFound();
+        });
+        event.finish(CLIENT_NAME, "agents", null, agencyNumber, result);
+        return result;
+    }
+
+    /**
+     * Create HTTP headers for Cockpit API calls
+     */
+    private HttpHeaders createCockpitHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
+        headers.set("Authorization", "Bearer " + jwtTokenGenerator.generateToken());
+        return headers;
+    }
+}
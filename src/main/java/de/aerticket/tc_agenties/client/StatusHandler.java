@@ -0,0 +1,61 @@
+package de.aerticket.tc_agenties.client;
+
+import de.aerticket.tc_agenties.exception.DeadlineExceededException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestClient.RequestHeadersSpec.ConvertibleClientHttpResponse;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.io.IOException;
+
+/**
+ * Maps responses to ClientResult inside RestClient.exchange, so that 404 never
+ * becomes an exception. Other error statuses are still thrown as
+ * HttpStatusCodeException for the RetryExecutor to classify, and turned into
+ * Failed once retries are over.
+ */
+final class StatusHandler {
+
+    @FunctionalInterface
+    interface BodyMapper<T> {
+        ClientResult<T> map(ConvertibleClientHttpResponse response) throws IOException;
+    }
+
+    private StatusHandler() {
+    }
+
+    static <T> ClientResult<T> handle(ConvertibleClientHttpResponse response, BodyMapper<T> mapper)
+            throws IOException {
+        HttpStatusCode status = response.getStatusCode();
+        if (status.is2xxSuccessful()) {
+            return mapper.map(response);
+        }
+        if (status.value() == HttpStatus.NOT_FOUND.value()) {
+            return ClientResult.notFound();
+        }
+        if (status.is5xxServerError()) {
+            throw HttpServerErrorException.create(status, response.getStatusText(), response.getHeaders(), null,
+                    null);
+        }
+        throw HttpClientErrorException.create(status, response.getStatusText(), response.getHeaders(), null, null);
+    }
+
+    /**
+     * Failed result for an exception that survived retries. A spent deadline
+     * is a Failed result too, so every caller keeps its contract (ERROR, null,
+     * false); the login pipeline aborts at its next Deadline.check.
+     */
+    static <T> ClientResult<T> failed(String client, RuntimeException e) {
+        String reason;
+        if (e instanceof RestClientResponseException responseException) {
+            reason = client + " returned " + responseException.getStatusCode().value();
+        } else if (e instanceof DeadlineExceededException) {
+            reason = client + " call abandoned: " + e.getMessage();
+        } else {
+            reason = client + " call failed: " + e.getMessage();
+        }
+        return ClientResult.failed(reason, e);
+    }
+}
@@ -0,0 +1,197 @@
+package de.aerticket.tc_agenties.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import de.aerticket.tc_agenties.config.TravelcConfig;
+import de.aerticket.tc_agenties.jfr.DownstreamCallEvent;
+import de.aerticket.tc_agenties.model.AgencyStatus;
+import de.aerticket.tc_agenties.model.TCAgencydata;
+import de.aerticket.tc_agenties.model.TravelcAgencyRequest;
+import de.aerticket.tc_agenties.model.TravelcUserRequest;
+import de.aerticket.tc_agenties.ratelimit.EndpointClass;
+import de.aerticket.tc_agenties.ratelimit.TravelcRateLimiter;
+import de.aerticket.tc_agenties.retry.Idempotency;
+import de.aerticket.tc_agenties.retry.RetryExecutor;
+import de.aerticket.tc_agenties.service.TravelcAuthManager;
+import de.aerticket.tc_agenties.service.TravelcCredentialRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClient.RequestHeadersSpec.ConvertibleClientHttpResponse;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Typed TravelCompositor REST client.
+ *
+ * Every call runs within the microsite's rate and concurrency limits and the
+ * retry policy, and reports its outcome as a ClientResult: 404 is NotFound,
+ * not an exception. Writes return Found(true) on success. Each call is also
+ * a DownstreamCallEvent for JFR recordings.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TravelcClient {
+
+    private static final String CLIENT_NAME = "TravelCompositor";
+    private static final String LANGUAGE = "DE";
+    private static final String ACTIVE_FIELD = "active";
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    // Immutable results shared between calls
+    private static final ClientResult<AgencyStatus> ACTIVE = ClientResult.found(AgencyStatus.ACTIVE);
+    private static final ClientResult<AgencyStatus> INACTIVE = ClientResult.found(AgencyStatus.INACTIVE);
+    private static final ClientResult<Boolean> OK = ClientResult.found(Boolean.TRUE);
+
+    private final RestClient restClient;
+    private final TravelcConfig travelcConfig;
+    private final TravelcAuthManager authManager;
+    private final TravelcCredentialRegistry credentialRegistry;
+    private final RetryExecutor retryExecutor;
+    private final TravelcRateLimiter rateLimiter;
+
+    /**
+     * Lean status probe: streams the agency response and stops reading as soon
+     * as the active flag is found, without binding the full TCAgencydata.
+     */
+    public ClientResult<AgencyStatus> agencyStatus(String microsite, String agencyNumber) {
+        return call("agencyStatus", microsite, agencyNumber, Idempotency.IDEMPOTENT, HttpMethod.GET,
+                agencyUrl(microsite, agencyNumber), null, TravelcClient::readActiveFlag);
+    }
+
+    /**
+     * Full agency data (used to verify and diff syncs)
+     */
+    public ClientResult<TCAgencydata> agency(String microsite, String agencyNumber) {
+        return call("agency", microsite, agencyNumber, Idempotency.IDEMPOTENT, HttpMethod.GET,
+                agencyUrl(microsite, agencyNumber), null, response -> {
+                    TCAgencydata agency = response.bodyTo(TCAgencydata.class);
+                    return agency != null ? ClientResult.found(agency) : ClientResult.notFound();
+                });
+    }
+
+    public ClientResult<Boolean> createAgency(TravelcAgencyRequest agency, String microsite) {
+        return call("createAgency", microsite, agency.getExternalId(), Idempotency.NON_IDEMPOTENT,
+                HttpMethod.POST, agenciesUrl(microsite), agency, response -> OK);
+    }
+
+    public ClientResult<Boolean> updateAgency(TravelcAgencyRequest agency, String microsite) {
+        return call("updateAgency", microsite, agency.getExternalId(), Idempotency.IDEMPOTENT, HttpMethod.PUT,
+                agenciesUrl(microsite), agency, response -> OK);
+    }
+
+    /**
+     * Found(true) if the user exists, NotFound if not
+     */
+    public ClientResult<Boolean> user(String microsite, String agencyNumber, String userId) {
+        String url = UriComponentsBuilder.fromUriString(travelcConfig.getBaseUrl())
+                .pathSegment("user", microsite, agencyNumber, userId)
+                .toUriString();
+        return call("user", microsite, agencyNumber, Idempotency.IDEMPOTENT, HttpMethod.GET, url, null,
+                response -> OK);
+    }
+
+    public ClientResult<Boolean> createUser(TravelcUserRequest user, String microsite) {
+        return call("createUser", microsite, user.getAgency(), Idempotency.NON_IDEMPOTENT, HttpMethod.POST,
+                usersUrl(microsite, user), user, response -> OK);
+    }
+
+    public ClientResult<Boolean> updateUser(TravelcUserRequest user, String microsite) {
+        return call("updateUser", microsite, user.getAgency(), Idempotency.IDEMPOTENT, HttpMethod.PUT,
+                usersUrl(microsite, user), user, response -> OK);
+    }
+
+    private <T> ClientResult<T> call(String operation, String microsite, String agencyNumber,
+            Idempotency idempotency, HttpMethod method, String url, Object body, StatusHandler.BodyMapper<T> mapper) {
+        DownstreamCallEvent event = DownstreamCallEvent.start();
+        ClientResult<T> result = call(microsite, idempotency, method, url, body, mapper);
+        event.finish(CLIENT_NAME, operation, microsite, agencyNumber, result);
+        return result;
+    }
+
+    private <T> ClientResult<T> call(String microsite, Idempotency idempotency, HttpMethod method, String url,
+            Object body, StatusHandler.BodyMapper<T> mapper) {
+        try {
+            log.debug("TravelCompositor {} {}", method, url);
+            HttpHeaders headers = createAuthHeaders(microsite);
+            EndpointClass endpoint = method == HttpMethod.GET ? EndpointClass.READ : EndpointClass.WRITE;
+            // Every attempt needs a rate permit; backoff happens outside the concurrency limit
+            return retryExecutor.execute(RetryExecutor.CLIENT_TRAVELC, idempotency, () -> {
+                rateLimiter.acquire(microsite, endpoint);
+                return credentialRegistry.callWithinLimit(microsite, () -> {
+                    RestClient.RequestBodySpec request = restClient.method(method)
+                            .uri(url)
+                            .headers(target -> target.addAll(headers));
+                    if (body != null) {
+                        request.body(body);
+                    }
+                    return request.exchange((clientRequest, response) -> StatusHandler.handle(response, mapper));
+                });
+            });
+        } catch (RuntimeException e) {
+            return StatusHandler.failed(CLIENT_NAME, e);
+        }
+    }
+
+    /**
+     * Read top-level fields until "active", skipping nested objects unparsed.
+     * Mirrors TCAgencydata: an empty body is NotFound and a missing flag is
+     * INACTIVE.
+     */
+    private static ClientResult<AgencyStatus> readActiveFlag(ConvertibleClientHttpResponse response)
+            throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(response.getBody())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                log.warn("Empty response from TravelCompositor API");
+                return ClientResult.notFound();
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if (ACTIVE_FIELD.equals(field)) {
+                    return "true".equalsIgnoreCase(parser.getValueAsString()) ? ACTIVE : INACTIVE;
+                }
+                parser.skipChildren();
+            }
+            return INACTIVE;
+        }
+    }
+
+    private String agencyUrl(String microsite, String agencyNumber) {
+        return UriComponentsBuilder.fromUriString(travelcConfig.getBaseUrl())
+                .pathSegment("agency", microsite, agencyNumber)
+                .queryParam("lang", LANGUAGE)
+                .toUriString();
+    }
+
+    private String agenciesUrl(String microsite) {
+        return UriComponentsBuilder.fromUriString(travelcConfig.getBaseUrl())
+                .pathSegment("agency", microsite, "")
+                .queryParam("plainfees", true)
+                .toUriString();
+    }
+
+    private String usersUrl(String microsite, TravelcUserRequest user) {
+        return UriComponentsBuilder.fromUriString(travelcConfig.getBaseUrl())
+                .pathSegment("user", microsite, user.getAgency())
+                .toUriString();
+    }
+
+    /**
+     * Create HTTP headers with authentication token
+     */
+    private HttpHeaders createAuthHeaders(String microsite) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("Accept", "application/json");
+        headers.set("auth-token", authManager.getToken(microsite));
+        return headers;
+    }
+}
@@ -0,0 +1,37 @@
+package de.aerticket.tc_agenties.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "audit")
+@Data
+public class AuditConfig {
+
+    private boolean enabled = true;
+
+    // Ring buffer slots, rounded up to a power of two
+    private int capacity = 8192;
+
+    private int batchSize = 200;
+
+    private long flushIntervalMs = 1000;
+
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+    // BLOCK only: how long a login may wait for a free slot before the event is dropped
+    private long offerTimeoutMs = 5;
+
+    public enum OverflowPolicy {
+        /**
+         * Drop the event immediately when the buffer is full
+         */
+        DROP,
+
+        /**
+         * Wait up to offerTimeoutMs for the writer to free a slot, then drop
+         */
+        BLOCK
+    }
+}
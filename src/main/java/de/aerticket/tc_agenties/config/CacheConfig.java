@@ -0,0 +1,47 @@
+package de.aerticket.tc_agenties.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "cache")
+@Data
+public class CacheConfig {
+
+    // "memory" (per node) or "redis" (shared between nodes)
+    private String backend = "memory";
+
+    // Soft TTL: older ACTIVE entries are still served, but revalidated in the background
+    private long agencyStatusTtlSeconds = 5 * 60; // 5 minutes
+
+    // Hard TTL: after this a login waits for a live status check again
+    private long agencyStatusHardTtlSeconds = 60 * 60; // 1 hour
+
+    private long publicKeyTtlSeconds = 12 * 60 * 60; // 12 hours
+
+    private Redis redis = new Redis();
+
+    @Data
+    public static class Redis {
+
+        private String host = "localhost";
+
+        private int port = 6379;
+
+        private String password;
+
+        private int database = 0;
+
+        private int timeoutMs = 500;
+
+        private int poolSize = 8;
+
+        private String keyPrefix = "tc_agenties";
+
+        private String channel = "tc_agenties:invalidate";
+
+        // Short local copy in front of Redis, dropped on invalidation messages
+        private long nearCacheTtlMs = 5000;
+    }
+}
@@ -0,0 +1,26 @@
+package de.aerticket.tc_agenties.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "capture")
+@Data
+public class CaptureConfig {
+
+    // Capture authenticate traffic from startup (otherwise start it via /admin/capture)
+    private boolean enabled = false;
+
+    // JSON lines trace, replaced by every new capture
+    private String path = "data/capture/authenticate-trace.jsonl";
+
+    // Logins waiting for the writer; beyond this they are not captured
+    private int capacity = 4096;
+
+    // A capture stops by itself after this many logins
+    private long maxRecords = 1_000_000;
+
+    // HMAC key for identifier pseudonyms; blank uses a random key per capture
+    private String pseudonymKey = "";
+}
@@ -0,0 +1,35 @@
+package de.aerticket.tc_agenties.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "cockpit")
+@Data
+public class CockpitConfig {
+
+    // Agency resource; the agency number is appended as path segment
+    private String baseUrl = "https://cockpit.aerticket.fr/api/aer360/agencies";
+
+    // Agency roster resource below the agency: {baseUrl}/{agencyNumber}/{agentsPath}
+    private String agentsPath = "agents";
+
+    // Shared secret Cockpit sends in X-Event-Token with agency change events; blank disables the endpoint
+    private String eventsToken = "";
+
+    // Collect concurrent agency lookups into one filtered collection request:
+    // GET {baseUrl}?{batchFilterParam}=a,b,c answered with an array of agencies
+    private boolean batchEnabled = false;
+    private String batchFilterParam = "agencyNumber";
+
+    // First lookup of a batch waits this long for others; a full batch is sent at once
+    private long batchWindowMs = 10;
+    private int batchMaxSize = 50;
+
+    // Batch requests in flight at the same time
+    private int batchThreads = 2;
+
+    // Longest a lookup waits for its batch (also bounded by the login deadline)
+    private long batchMaxWaitMs = 15000;
+}
@@ -0,0 +1,16 @@
+package de.aerticket.tc_agenties.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "deadline")
+@Data
+public class DeadlineConfig {
+
+    private boolean enabled = true;
+
+    // Total time a login may take, across all downstream calls
+    private long loginBudgetMs = 15000;
+}
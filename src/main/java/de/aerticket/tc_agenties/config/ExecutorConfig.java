@@ -0,0 +1,28 @@
+package de.aerticket.tc_agenties.config;
+
+import de.aerticket.tc_agenties.util.RequestContextTaskDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Provisioning bulkhead: Cockpit syncs and user creation run on their own
+ * bounded pool, so slow onboarding cannot exhaust the request threads that
+ * serve logins of already provisioned users.
+ */
+@Configuration
+public class ExecutorConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor provisioningExecutor(ProvisioningConfig provisioningConfig) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(provisioningConfig.getExecutorThreads());
+        executor.setMaxPoolSize(provisioningConfig.getExecutorThreads());
+        executor.setQueueCapacity(provisioningConfig.getExecutorQueueCapacity());
+        executor.setThreadNamePrefix("provisioning-");
+        executor.setTaskDecorator(new RequestContextTaskDecorator());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
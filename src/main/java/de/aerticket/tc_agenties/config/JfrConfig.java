@@ -0,0 +1,22 @@
+package de.aerticket.tc_agenties.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "jfr")
+@Data
+public class JfrConfig {
+
+    // Allow /admin/jfr to start recordings
+    private boolean enabled = true;
+
+    // JFR settings the recording starts from (default or profile)
+    private String settings = "profile";
+
+    // Upper bounds for one recording; it stops by itself after maxDurationSeconds
+    private long maxDurationSeconds = 900;
+
+    private long maxSizeMb = 200;
+}
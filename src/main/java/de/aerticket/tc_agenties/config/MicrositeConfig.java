@@ -15,4 +15,11 @@ public class MicrositeConfig {
 
     private String fallbackMicrositeAPI = "aer360";
 
+    // Serve mappings from memory, seeded from a local snapshot and refreshed from the database
+    private boolean mappingSnapshotEnabled = true;
+
+    private String mappingSnapshotPath = "data/microsite-mappings.json";
+
+    private long mappingRefreshIntervalSeconds = 300;
+
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package de.aerticket.tc_agenties.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "provisioning")
+@Data
+public class ProvisioningConfig {
+
+    // Check lmxdb.aer_tc_provisioning_ledger before calling TravelCompositor
+    private boolean ledgerEnabled = true;
+
+    // Entries older than this are re-checked against TravelCompositor
+    private long ledgerMaxAgeSeconds = 24 * 60 * 60; // 24 hours
+
+    // Longest a login waits for a ledger lookup (also bounded by the login deadline) before asking TravelCompositor
+    private long ledgerLookupTimeoutMs = 300;
+    private int ledgerLookupThreads = 4;
+
+    // Confirmations waiting for the ledger writer; beyond this only the snapshot keeps them
+    private int ledgerWriteQueueCapacity = 10_000;
+
+    // Bulkhead for Cockpit syncs and user creation, apart from the request threads
+    private int executorThreads = 8;
+
+    // Onboarding logins beyond threads + queue fail fast instead of waiting
+    private int executorQueueCapacity = 50;
+
+    // Longest a login waits for its provisioning task (also bounded by the login deadline)
+    private long maxWaitMs = 12000;
+
+    // Budget of a provisioning task itself, which may outlive the login's wait
+    private long taskBudgetMs = 30000;
+
+    // Memory-mapped index of confirmed entries that survives restarts
+    private boolean snapshotEnabled = true;
+    private String snapshotPath = "data/provisioned.idx";
+    private long snapshotIntervalSeconds = 60;
+    private int snapshotExpectedEntries = 100_000;
+
+    // Pre-create the other agents of an agency after it was first created in TravelCompositor
+    private boolean speculativeEnabled = false;
+    private int speculativeBatchSize = 10;
+    private long speculativeBatchPauseMs = 1000;
+    private int speculativeMaxUsers = 200;
+}
@@ -0,0 +1,45 @@
+package de.aerticket.tc_agenties.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "ratelimit")
+@Data
+public class RateLimitConfig {
+
+    private boolean enabled = true;
+
+    // Per microsite budgets of TravelCompositor calls
+    private Budget reads = new Budget(20, 40);
+
+    private Budget writes = new Budget(5, 10);
+
+    // authentication/authenticate
+    private Budget auth = new Budget(1, 3);
+
+    // Share of each burst only login traffic may use; background calls leave it untouched
+    private double interactiveReserve = 0.25;
+
+    // Longest a login call waits for a permit (also bounded by the login deadline)
+    private long interactiveMaxWaitMs = 1000;
+
+    private long backgroundMaxWaitMs = 5000;
+
+    @Data
+    public static class Budget {
+
+        private double permitsPerSecond;
+
+        private int burst;
+
+        public Budget() {
+        }
+
+        public Budget(double permitsPerSecond, int burst) {
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+        }
+    }
+}
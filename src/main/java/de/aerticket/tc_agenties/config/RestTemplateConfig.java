@@ -1,21 +1,54 @@
 package de.aerticket.tc_agenties.config;
 
+import de.aerticket.tc_agenties.util.Deadline;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.net.HttpURLConnection;
+
 @Configuration
 public class RestTemplateConfig {
 
+    // Upper bounds; within a request the remaining deadline lowers them
+    private static final int CONNECT_TIMEOUT_MS = 10000; // 10 seconds
+    private static final int READ_TIMEOUT_MS = 30000; // 30 seconds
+
     @Bean
     public RestTemplate restTemplate() {
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        DeadlineAwareRequestFactory factory = new DeadlineAwareRequestFactory();
 
         // Set timeouts (in milliseconds)
-        factory.setConnectTimeout(10000); // 10 seconds
-        factory.setReadTimeout(30000); // 30 seconds
+        factory.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        factory.setReadTimeout(READ_TIMEOUT_MS);
 
         return new RestTemplate(factory);
     }
-}
\ No newline at end of file
+
+    /**
+     * RestClient on top of the RestTemplate (same request factory and
+     * converters), used by the typed downstream clients
+     */
+    @Bean
+    public RestClient restClient(RestTemplate restTemplate) {
+        return RestClient.create(restTemplate);
+    }
+
+    /**
+     * Derives connect and read timeout of every connection from the deadline
+     * of the calling request
+     */
+    private static class DeadlineAwareRequestFactory extends SimpleClientHttpRequestFactory {
+
+        @Override
+        protected void prepareConnection(HttpURLConnection connection, String httpMethod) throws IOException {
+            super.prepareConnection(connection, httpMethod);
+            String step = httpMethod + " " + connection.getURL().getHost();
+            connection.setConnectTimeout(Deadline.timeoutFor(step, CONNECT_TIMEOUT_MS));
+            connection.setReadTimeout(Deadline.timeoutFor(step, READ_TIMEOUT_MS));
+        }
+    }
+}
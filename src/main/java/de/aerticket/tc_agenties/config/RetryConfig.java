@@ -0,0 +1,26 @@
+package de.aerticket.tc_agenties.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "retry")
+@Data
+public class RetryConfig {
+
+    private boolean enabled = true;
+
+    // Including the first call
+    private int maxAttempts = 3;
+
+    private long initialBackoffMs = 100;
+
+    private long maxBackoffMs = 2000;
+
+    // Retry tokens earned per call: 0.1 allows retries for about 10% of traffic
+    private double budgetRatio = 0.1;
+
+    // Retry tokens a client may save up for a burst of failures
+    private int budgetMaxTokens = 10;
+}
@@ -2,6 +2,7 @@ package de.aerticket.tc_agenties.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.web.SecurityFilterChain;
@@ -15,7 +16,12 @@ public class SecurityConfig {
         http.csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(authz -> authz
                         .requestMatchers("/aerwebservice/user/**").permitAll()
-                        .anyRequest().authenticated());
+                        // Checked against cockpit.events-token by the controller
+                        .requestMatchers("/events/cockpit/**").permitAll()
+                        .requestMatchers("/admin/**").hasRole("ADMIN")
+                        .anyRequest().authenticated())
+                // Admin and actuator access; credentials from spring.security.user.*
+                .httpBasic(Customizer.withDefaults());
 
         return http.build();
     }
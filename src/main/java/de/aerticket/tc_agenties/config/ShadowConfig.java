@@ -0,0 +1,23 @@
+package de.aerticket.tc_agenties.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "shadow")
+@Data
+public class ShadowConfig {
+
+    // Re-check a sample of cached login decisions against the live systems
+    private boolean enabled = false;
+
+    // Share of cache-served decisions that are re-checked (0..1)
+    private double sampleRate = 0.01;
+
+    // Upper bound for shadow checks across all caches; excess samples are skipped
+    private double maxChecksPerSecond = 2;
+
+    // Checks waiting for the shadow thread
+    private int queueCapacity = 100;
+}
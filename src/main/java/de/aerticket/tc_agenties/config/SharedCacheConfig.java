@@ -0,0 +1,24 @@
+package de.aerticket.tc_agenties.config;
+
+import de.aerticket.tc_agenties.cache.InMemoryCacheManager;
+import de.aerticket.tc_agenties.cache.RedisCacheManager;
+import de.aerticket.tc_agenties.cache.SharedCacheManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Slf4j
+public class SharedCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public SharedCacheManager sharedCacheManager(CacheConfig cacheConfig) {
+        if ("redis".equalsIgnoreCase(cacheConfig.getBackend())) {
+            CacheConfig.Redis redis = cacheConfig.getRedis();
+            log.info("Using Redis cache backend at {}:{}", redis.getHost(), redis.getPort());
+            return new RedisCacheManager(redis).start();
+        }
+        log.info("Using in-memory cache backend");
+        return new InMemoryCacheManager();
+    }
+}
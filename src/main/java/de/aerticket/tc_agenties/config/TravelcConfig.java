@@ -0,0 +1,53 @@
+package de.aerticket.tc_agenties.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "travelc")
+@Data
+public class TravelcConfig {
+
+    private String baseUrl = "https://kombireisen.suntrips.de/resources";
+
+    private String authEndpoint = "authentication/authenticate";
+
+    private int tokenTimeoutSeconds = 30 * 60; // 30 minutes
+
+    // Refresh tokens this long before they expire so logins never wait on a fetch
+    private int tokenRefreshAheadSeconds = 5 * 60; // 5 minutes
+
+    // Never refresh a token sooner than this (or half its remaining lifetime if shorter)
+    private int tokenMinRefreshSeconds = 30;
+
+    private int tokenRetrySeconds = 30;
+
+    // Default per-microsite limit of concurrent TravelCompositor calls (0 = unlimited)
+    private int maxConcurrentRequests = 0;
+
+    private long permitTimeoutMs = 2000;
+
+    // Also load microsite credentials from lmxdb.aer_tc_microsite_credentials
+    private boolean credentialsFromDatabase = false;
+
+    /**
+     * Credentials and limits per microsite id (e.g. travelc.microsites.aer360.username)
+     */
+    private Map<String, Tenant> microsites = new LinkedHashMap<>();
+
+    @Data
+    public static class Tenant {
+
+        private String username;
+
+        private String password;
+
+        private Integer maxConcurrentRequests;
+
+        private Integer tokenTimeoutSeconds;
+    }
+}
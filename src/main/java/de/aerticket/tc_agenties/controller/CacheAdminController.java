@@ -0,0 +1,55 @@
+package de.aerticket.tc_agenties.controller;
+
+import de.aerticket.tc_agenties.cache.CacheStats;
+import de.aerticket.tc_agenties.service.CacheAdminService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Admin API to inspect and invalidate caches (ROLE_ADMIN)
+ */
+@RestController
+@RequestMapping("/admin/caches")
+@RequiredArgsConstructor
+@Slf4j
+public class CacheAdminController {
+
+	private final CacheAdminService cacheAdminService;
+
+	@GetMapping
+	public List<CacheStats> list() {
+		return cacheAdminService.listCaches();
+	}
+
+	@DeleteMapping("/{name}")
+	public ResponseEntity<Void> clear(@PathVariable("name") String name) {
+		cacheAdminService.clear(name);
+		return ResponseEntity.noContent().build();
+	}
+
+	@PostMapping("/invalidate")
+	public Map<String, Integer> invalidate(@RequestParam(value = "microsite", required = false) String microsite,
+			@RequestParam(value = "agency", required = false) String agency,
+			@RequestParam(value = "kid", required = false) String kid,
+			@RequestParam(value = "user", required = false) String user) {
+		return cacheAdminService.invalidate(microsite, agency, kid, user);
+	}
+
+	@ExceptionHandler(IllegalArgumentException.class)
+	public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+		log.warn("Cache admin request rejected: {}", e.getMessage());
+		return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+	}
+}
@@ -0,0 +1,63 @@
+package de.aerticket.tc_agenties.controller;
+
+import de.aerticket.tc_agenties.capture.TrafficCaptureService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Admin API for authenticate traffic captures (ROLE_ADMIN)
+ */
+@RestController
+@RequestMapping("/admin/capture")
+@RequiredArgsConstructor
+@Slf4j
+public class CaptureAdminController {
+
+	private final TrafficCaptureService trafficCaptureService;
+
+	@GetMapping
+	public Map<String, Object> status() {
+		return trafficCaptureService.status();
+	}
+
+	@PostMapping("/start")
+	public Map<String, Object> start() throws Exception {
+		return trafficCaptureService.start();
+	}
+
+	@PostMapping("/stop")
+	public Map<String, Object> stop() throws Exception {
+		return trafficCaptureService.stop();
+	}
+
+	@GetMapping("/trace")
+	public ResponseEntity<Resource> download() throws Exception {
+		FileSystemResource file = new FileSystemResource(trafficCaptureService.trace());
+		return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_OCTET_STREAM)
+				.contentLength(file.contentLength())
+				.header(HttpHeaders.CONTENT_DISPOSITION,
+						ContentDisposition.attachment().filename("authenticate-trace.jsonl").build().toString())
+				.body(file);
+	}
+
+	@ExceptionHandler(IllegalStateException.class)
+	public ResponseEntity<Map<String, String>> conflict(IllegalStateException e) {
+		log.warn("Capture admin request rejected: {}", e.getMessage());
+		return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+	}
+}
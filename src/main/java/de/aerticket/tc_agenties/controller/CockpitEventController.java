@@ -0,0 +1,58 @@
+package de.aerticket.tc_agenties.controller;
+
+import de.aerticket.tc_agenties.config.CockpitConfig;
+import de.aerticket.tc_agenties.model.AgencyChangeEvent;
+import de.aerticket.tc_agenties.service.AgencyEventService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+
+/**
+ * Inbound agency change notifications from Cockpit, authenticated with the
+ * shared cockpit.events-token
+ */
+@RestController
+@RequestMapping("/events/cockpit")
+@RequiredArgsConstructor
+@Slf4j
+public class CockpitEventController {
+
+	private static final String TOKEN_HEADER = "X-Event-Token";
+
+	private final AgencyEventService agencyEventService;
+	private final CockpitConfig cockpitConfig;
+
+	@PostMapping("/agency")
+	public ResponseEntity<Map<String, String>> agencyChanged(
+			@RequestHeader(value = TOKEN_HEADER, required = false) String token,
+			@RequestBody AgencyChangeEvent event) {
+		String expected = cockpitConfig.getEventsToken();
+		if (expected == null || expected.isBlank()) {
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+					.body(Map.of("error", "Agency change events are not enabled"));
+		}
+		if (token == null || !MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8),
+				token.getBytes(StandardCharsets.UTF_8))) {
+			log.warn("Rejected Cockpit event with missing or wrong {}", TOKEN_HEADER);
+			return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+		}
+		agencyEventService.accept(event);
+		return ResponseEntity.accepted().body(Map.of("status", "accepted"));
+	}
+
+	@ExceptionHandler(IllegalArgumentException.class)
+	public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+		return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+	}
+}
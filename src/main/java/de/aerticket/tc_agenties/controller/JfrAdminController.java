@@ -0,0 +1,65 @@
+package de.aerticket.tc_agenties.controller;
+
+import de.aerticket.tc_agenties.jfr.JfrRecordingService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Admin API for on-demand JFR recordings (ROLE_ADMIN)
+ */
+@RestController
+@RequestMapping("/admin/jfr")
+@RequiredArgsConstructor
+@Slf4j
+public class JfrAdminController {
+
+	private final JfrRecordingService jfrRecordingService;
+
+	@GetMapping
+	public Map<String, Object> status() {
+		return jfrRecordingService.status();
+	}
+
+	@PostMapping("/start")
+	public Map<String, Object> start(@RequestParam(value = "durationSeconds", required = false) Long durationSeconds)
+			throws Exception {
+		return jfrRecordingService.start(durationSeconds);
+	}
+
+	@PostMapping("/stop")
+	public Map<String, Object> stop() throws Exception {
+		return jfrRecordingService.stop();
+	}
+
+	@GetMapping("/recording")
+	public ResponseEntity<Resource> download() throws Exception {
+		FileSystemResource file = new FileSystemResource(jfrRecordingService.download());
+		return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_OCTET_STREAM)
+				.contentLength(file.contentLength())
+				.header(HttpHeaders.CONTENT_DISPOSITION,
+						ContentDisposition.attachment().filename("tc-agencies.jfr").build().toString())
+				.body(file);
+	}
+
+	@ExceptionHandler(IllegalStateException.class)
+	public ResponseEntity<Map<String, String>> conflict(IllegalStateException e) {
+		log.warn("JFR admin request rejected: {}", e.getMessage());
+		return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+	}
+}
@@ -1,10 +1,16 @@
 package de.aerticket.tc_agenties.controller;
 
+import de.aerticket.tc_agenties.config.DeadlineConfig;
+import de.aerticket.tc_agenties.exception.DeadlineExceededException;
 import de.aerticket.tc_agenties.model.AuthenticationResponse;
 import de.aerticket.tc_agenties.service.AuthenticationService;
+import de.aerticket.tc_agenties.util.Deadline;
+import de.aerticket.tc_agenties.util.RequestTimings;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -15,7 +21,10 @@ import org.springframework.web.bind.annotation.*;
 @Slf4j
 public class UserController {
 
+	private static final String SERVER_TIMING = "Server-Timing";
+
 	private final AuthenticationService authenticationService;
+	private final DeadlineConfig deadlineConfig;
 	private final static String ERRORHTML = """
 			<!DOCTYPE html>
 			<html lang="en">
@@ -62,8 +71,11 @@ public class UserController {
 
 	@GetMapping("/authenticate")
 	public ResponseEntity<String> authenticate(@RequestParam("jwt") String jwtToken,
-			@RequestParam("lang") String language, @RequestParam("type") String type) {
+			@RequestParam("lang") String language, @RequestParam("type") String type,
+			HttpServletResponse servletResponse) {
 
+		RequestTimings timings = RequestTimings.begin();
+		beginDeadline();
 		log.info("Received authentication request with language: {} and type: {}", language, type);
 
 		try {
@@ -78,17 +90,25 @@ public class UserController {
 				return ResponseEntity.badRequest().contentType(MediaType.TEXT_HTML).body(ERRORHTML);
 			}
 
+		} catch (DeadlineExceededException e) {
+			log.warn("Authentication aborted: {}", e.getMessage());
+			return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).contentType(MediaType.TEXT_HTML).body(ERRORHTML);
 		} catch (Exception e) {
 			log.error("Error during authentication: {}", e.getMessage());
 			AuthenticationResponse errorResponse = AuthenticationResponse.builder().success(false)
 					.message("Internal server error: " + e.getMessage()).build();
 			return ResponseEntity.badRequest().contentType(MediaType.TEXT_HTML).body(ERRORHTML);
+		} finally {
+			endRequest(timings, servletResponse);
 		}
 	}
 
 	@GetMapping("/authenticatetest")
 	public ResponseEntity<AuthenticationResponse> authenticateTest(@RequestParam("jwt") String jwtToken,
-			@RequestParam("lang") String language, @RequestParam("type") String type) {
+			@RequestParam("lang") String language, @RequestParam("type") String type,
+			HttpServletResponse servletResponse) {
+		RequestTimings timings = RequestTimings.begin();
+		beginDeadline();
 		log.info("Received authentication request with language: {} and type: {}", language, type);
 		try {
 			AuthenticationResponse response = authenticationService.authenticateUser(jwtToken, language, type);
@@ -100,11 +120,36 @@ public class UserController {
 				log.warn("Authentication failed: {}", response.getMessage());
 				return ResponseEntity.badRequest().body(response);
 			}
+		} catch (DeadlineExceededException e) {
+			log.warn("Authentication aborted: {}", e.getMessage());
+			return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+					.body(AuthenticationResponse.builder().success(false).message(e.getMessage()).build());
 		} catch (Exception e) {
 			log.error("Error during authentication: {}", e.getMessage());
 			AuthenticationResponse errorResponse = AuthenticationResponse.builder().success(false)
 					.message("Internal server error: " + e.getMessage()).build();
 			return ResponseEntity.internalServerError().body(errorResponse);
+		} finally {
+			endRequest(timings, servletResponse);
+		}
+	}
+
+	/**
+	 * Give this login its time budget; every downstream call is bounded by it
+	 */
+	private void beginDeadline() {
+		if (deadlineConfig.isEnabled()) {
+			Deadline.begin(deadlineConfig.getLoginBudgetMs());
 		}
 	}
+
+	/**
+	 * Expose the step timings of this request as Server-Timing header and drop
+	 * its context
+	 */
+	private static void endRequest(RequestTimings timings, HttpServletResponse servletResponse) {
+		servletResponse.setHeader(SERVER_TIMING, timings.toServerTimingHeader());
+		RequestTimings.end();
+		Deadline.end();
+	}
 }
\ No newline at end of file
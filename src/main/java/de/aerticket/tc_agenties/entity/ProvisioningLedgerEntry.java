@@ -0,0 +1,53 @@
+package de.aerticket.tc_agenties.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Agencies (job_id = '') and users that are known to exist in TravelCompositor
+ */
+@Entity
+@Table(name = "aer_tc_provisioning_ledger", schema = "lmxdb",
+        uniqueConstraints = @UniqueConstraint(name = "uk_ledger_entry",
+                columnNames = { "microsite", "agency_number", "job_id" }),
+        indexes = @Index(name = "idx_ledger_lookup",
+                columnList = "microsite, agency_number, job_id, confirmed_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProvisioningLedgerEntry {
+
+    // job_id value of agency rows (NULL would defeat the unique key)
+    public static final String AGENCY_ROW = "";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "microsite", nullable = false)
+    private String microsite;
+
+    @Column(name = "agency_number", nullable = false)
+    private String agencyNumber;
+
+    @Column(name = "job_id", nullable = false)
+    private String jobId;
+
+    // CONFIRMED, CREATED or UPDATED when the row was first written
+    @Column(name = "origin", nullable = false)
+    private String origin;
+
+    // Hash of the last TravelcAgencyRequest synced from Cockpit (agency rows only)
+    @Column(name = "content_hash")
+    private String contentHash;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "confirmed_at", nullable = false)
+    private LocalDateTime confirmedAt;
+}
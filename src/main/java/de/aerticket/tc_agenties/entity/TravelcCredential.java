@@ -0,0 +1,36 @@
+package de.aerticket.tc_agenties.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Entity
+@Table(name = "aer_tc_microsite_credentials", schema = "lmxdb")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TravelcCredential {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "microsite", nullable = false)
+    private String microsite;
+
+    @Column(name = "username", nullable = false)
+    private String username;
+
+    @Column(name = "password", nullable = false)
+    private String password;
+
+    @Column(name = "max_concurrent_requests")
+    private Integer maxConcurrentRequests;
+
+    @Column(name = "token_timeout_seconds")
+    private Integer tokenTimeoutSeconds;
+
+    @Column(name = "active")
+    private boolean active;
+}
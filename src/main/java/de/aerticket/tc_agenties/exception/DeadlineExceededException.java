@@ -0,0 +1,13 @@
+package de.aerticket.tc_agenties.exception;
+
+/**
+ * Exception thrown when a request has used up its time budget
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,13 @@
+package de.aerticket.tc_agenties.exception;
+
+/**
+ * Exception thrown when an outbound call would exceed its rate limit
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public RateLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,48 @@
+package de.aerticket.tc_agenties.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A token or public key cache miss, lasting as long as the value took to load
+ */
+@Name("de.aerticket.tc_agenties.CacheMiss")
+@Label("Cache Miss")
+@Category({"TC Agencies", "Cache"})
+@Description("Load of a TravelCompositor token or JWT public key after a cache miss")
+@StackTrace(false)
+public class CacheMissEvent extends Event {
+
+    @Label("Cache")
+    String cache;
+
+    @Label("Microsite")
+    String microsite;
+
+    @Label("Key")
+    String key;
+
+    @Label("Status")
+    String status;
+
+    public static CacheMissEvent start() {
+        CacheMissEvent event = new CacheMissEvent();
+        event.begin();
+        return event;
+    }
+
+    public void finish(String cache, String microsite, String key, boolean loaded) {
+        end();
+        if (shouldCommit()) {
+            this.cache = cache;
+            this.microsite = microsite;
+            this.key = key;
+            this.status = loaded ? "LOADED" : "FAILED";
+            commit();
+        }
+    }
+}
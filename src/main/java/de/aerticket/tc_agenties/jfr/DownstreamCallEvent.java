@@ -0,0 +1,58 @@
+package de.aerticket.tc_agenties.jfr;
+
+import de.aerticket.tc_agenties.client.ClientResult;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One outbound TravelCompositor or Cockpit call, including its retries and
+ * rate-limit waits
+ */
+@Name("de.aerticket.tc_agenties.DownstreamCall")
+@Label("Downstream Call")
+@Category({"TC Agencies", "Downstream"})
+@Description("Duration and outcome of one TravelCompositor or Cockpit call")
+@StackTrace(false)
+public class DownstreamCallEvent extends Event {
+
+    @Label("Client")
+    String client;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Microsite")
+    String microsite;
+
+    @Label("Agency")
+    String agency;
+
+    @Label("Status")
+    String status;
+
+    public static DownstreamCallEvent start() {
+        DownstreamCallEvent event = new DownstreamCallEvent();
+        event.begin();
+        return event;
+    }
+
+    public void finish(String client, String operation, String microsite, String agency, ClientResult<?> result) {
+        end();
+        if (shouldCommit()) {
+            this.client = client;
+            this.operation = operation;
+            this.microsite = microsite;
+            this.agency = agency;
+            this.status = switch (result) {
+                case ClientResult.Found<?> found -> "FOUND";
+                case ClientResult.NotFound<?> notFound -> "NOT_FOUND";
+                case ClientResult.Failed<?> failed -> "FAILED";
+            };
+            commit();
+        }
+    }
+}
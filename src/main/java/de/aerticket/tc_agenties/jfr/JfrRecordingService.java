@@ -0,0 +1,144 @@
+package de.aerticket.tc_agenties.jfr;
+
+import de.aerticket.tc_agenties.config.JfrConfig;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * On-demand flight recording for the admin API. At most one recording runs
+ * at a time, bounded in duration and size by JfrConfig; it records the JVM
+ * settings profile plus this application's events.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class JfrRecordingService {
+
+    private static final String RECORDING_NAME = "tc-agencies-admin";
+
+    private final JfrConfig jfrConfig;
+
+    private Recording recording;
+    private Path lastDump;
+
+    /**
+     * Start a recording; durationSeconds is capped at the configured maximum
+     */
+    public synchronized Map<String, Object> start(Long durationSeconds) throws IOException, ParseException {
+        if (!jfrConfig.isEnabled()) {
+            throw new IllegalStateException("JFR recordings are disabled");
+        }
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new IllegalStateException("A recording is already running");
+        }
+        discard();
+
+        long seconds = durationSeconds == null || durationSeconds <= 0
+                ? jfrConfig.getMaxDurationSeconds()
+                : Math.min(durationSeconds, jfrConfig.getMaxDurationSeconds());
+        Recording started = new Recording(Configuration.getConfiguration(jfrConfig.getSettings()));
+        started.setName(RECORDING_NAME);
+        started.setToDisk(true);
+        started.setDuration(Duration.ofSeconds(seconds));
+        started.setMaxSize(jfrConfig.getMaxSizeMb() * 1024 * 1024);
+        started.enable(LoginStageEvent.class);
+        started.enable(DownstreamCallEvent.class);
+        started.enable(CacheMissEvent.class);
+        started.start();
+        recording = started;
+        log.info("Started JFR recording for {} s with {} settings", seconds, jfrConfig.getSettings());
+        return status();
+    }
+
+    /**
+     * Stop the recording and keep its data for download
+     */
+    public synchronized Map<String, Object> stop() throws IOException {
+        if (recording == null) {
+            throw new IllegalStateException("No recording to stop");
+        }
+        if (recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+        }
+        Path dump = dump();
+        recording.close();
+        recording = null;
+        log.info("Stopped JFR recording, {} bytes kept for download", Files.size(dump));
+        return status();
+    }
+
+    /**
+     * Recorded data so far: a snapshot of the current recording, or the
+     * last stopped one
+     */
+    public synchronized Path download() throws IOException {
+        if (recording != null) {
+            return dump();
+        }
+        if (lastDump == null) {
+            throw new IllegalStateException("No recording available");
+        }
+        return lastDump;
+    }
+
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("state", recording != null ? recording.getState().name() : "NONE");
+        if (recording != null) {
+            status.put("startedAt", recording.getStartTime());
+            status.put("durationSeconds", recording.getDuration().toSeconds());
+            status.put("maxSizeBytes", recording.getMaxSize());
+        }
+        status.put("downloadAvailable", recording != null || lastDump != null);
+        return status;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+        deleteLastDump();
+    }
+
+    private Path dump() throws IOException {
+        Path file = Files.createTempFile(RECORDING_NAME + "-", ".jfr");
+        recording.dump(file);
+        deleteLastDump();
+        lastDump = file;
+        return file;
+    }
+
+    private void discard() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+        deleteLastDump();
+    }
+
+    private void deleteLastDump() {
+        if (lastDump != null) {
+            try {
+                Files.deleteIfExists(lastDump);
+            } catch (IOException e) {
+                log.warn("Could not delete JFR dump {}: {}", lastDump, e.getMessage());
+            }
+            lastDump = null;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package de.aerticket.tc_agenties.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One stage of AuthenticationService.authenticateUser. Like all events in
+ * this package it costs next to nothing while no recording enables it: the
+ * fields are only set after shouldCommit().
+ */
+@Name("de.aerticket.tc_agenties.LoginStage")
+@Label("Login Stage")
+@Category({"TC Agencies", "Login"})
+@Description("Duration and outcome of one login stage")
+@StackTrace(false)
+public class LoginStageEvent extends Event {
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Microsite")
+    String microsite;
+
+    @Label("Agency")
+    String agency;
+
+    @Label("Status")
+    String status;
+
+    public static LoginStageEvent start() {
+        LoginStageEvent event = new LoginStageEvent();
+        event.begin();
+        return event;
+    }
+
+    public void finish(String stage, String microsite, String agency, String status) {
+        end();
+        if (shouldCommit()) {
+            this.stage = stage;
+            this.microsite = microsite;
+            this.agency = agency;
+            this.status = status;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package de.aerticket.tc_agenties.logging;
+
+import org.slf4j.MDC;
+
+/**
+ * MDC keys of a login, so log lines carry agency and microsite as fields
+ * instead of repeating them in every message.
+ *
+ * Set by AuthenticationService as the values become known and cleared when
+ * the login ends; RequestContextTaskDecorator copies them onto the
+ * provisioning threads. LoginLogSampler decides by the agency key.
+ */
+public final class LoginLogContext {
+
+    public static final String AGENCY = "agency";
+    public static final String MICROSITE = "microsite";
+
+    private LoginLogContext() {
+    }
+
+    public static void agency(String agencyNumber) {
+        if (agencyNumber != null) {
+            MDC.put(AGENCY, agencyNumber);
+        }
+    }
+
+    public static void microsite(String microsite) {
+        if (microsite != null) {
+            MDC.put(MICROSITE, microsite);
+        }
+    }
+
+    public static void clear() {
+        MDC.remove(AGENCY);
+        MDC.remove(MICROSITE);
+    }
+
+    /**
+     * Stable per agency: the same agencies are logged in full on every login
+     */
+    static boolean isSampled(String agencyNumber, int percent) {
+        return Math.floorMod(agencyNumber.hashCode() * 0x9E3779B9, 100) < percent;
+    }
+}
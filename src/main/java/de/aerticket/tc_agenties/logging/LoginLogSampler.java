@@ -0,0 +1,42 @@
+package de.aerticket.tc_agenties.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+/**
+ * Keeps success-path detail (INFO and below) of this application only for a
+ * share of agencies; warnings, errors and lines with a throwable always
+ * pass, as does anything logged outside a login.
+ *
+ * As a turbo filter it runs before the logging event is created, so a
+ * denied line costs an MDC lookup and no message formatting. Configured in
+ * logback-spring.xml from logging.sampling.success-percent.
+ */
+public class LoginLogSampler extends TurboFilter {
+
+    private static final String APPLICATION_PACKAGE = "de.aerticket.tc_agenties";
+
+    private int percent = 100;
+
+    public void setPercent(int percent) {
+        this.percent = Math.max(0, Math.min(100, percent));
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+            Throwable t) {
+        if (percent >= 100 || t != null || level == null || level.isGreaterOrEqual(Level.WARN)
+                || !logger.getName().startsWith(APPLICATION_PACKAGE)) {
+            return FilterReply.NEUTRAL;
+        }
+        String agencyNumber = MDC.get(LoginLogContext.AGENCY);
+        if (agencyNumber == null || LoginLogContext.isSampled(agencyNumber, percent)) {
+            return FilterReply.NEUTRAL;
+        }
+        return FilterReply.DENY;
+    }
+}
@@ -0,0 +1,30 @@
+package de.aerticket.tc_agenties.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+import java.time.Instant;
+
+/**
+ * Change notification sent by Cockpit for one agency
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AgencyChangeEvent {
+
+    public enum Type {
+        AGENCY_CHANGED,
+        AGENCY_DEACTIVATED
+    }
+
+    private Type type;
+    private String agencyNumber;
+
+    // Optional, for logging
+    private String eventId;
+    private Instant occurredAt;
+}
@@ -59,4 +59,7 @@ public class CockpitAgency {
     private String chain;
 
     private Integer branch;
+
+    // null when Cockpit does not say; only an explicit false means deactivated
+    private Boolean active;
 }
\ No newline at end of file
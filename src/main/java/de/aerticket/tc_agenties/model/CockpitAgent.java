@@ -0,0 +1,28 @@
+package de.aerticket.tc_agenties.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One agent of an agency roster in Cockpit
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CockpitAgent {
+
+    @JsonProperty("jobId")
+    private String jobId;
+
+    @JsonProperty("firstName")
+    private String firstName;
+
+    @JsonProperty("lastName")
+    private String lastName;
+
+    private String email;
+}
@@ -0,0 +1,20 @@
+package de.aerticket.tc_agenties.ratelimit;
+
+/**
+ * TravelCompositor endpoints with separate rate budgets
+ */
+public enum EndpointClass {
+    READ("read"),
+    WRITE("write"),
+    AUTH("auth");
+
+    private final String tagValue;
+
+    EndpointClass(String tagValue) {
+        this.tagValue = tagValue;
+    }
+
+    public String getTagValue() {
+        return tagValue;
+    }
+}
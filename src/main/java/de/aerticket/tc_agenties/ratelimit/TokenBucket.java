@@ -0,0 +1,55 @@
+package de.aerticket.tc_agenties.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket with reservations and a reserve for priority callers.
+ *
+ * A caller takes a token now, or reserves the next one and is told how long
+ * to wait for it (the balance may go negative, which queues later callers
+ * behind it). Low-priority callers must leave `reserve` tokens in the
+ * bucket, so they are the first to wait and the first to be rejected.
+ */
+public class TokenBucket {
+
+    private final double permitsPerNano;
+    private final double capacity;
+    private final double reserve;
+    private double tokens;
+    private long refilledAt;
+
+    public TokenBucket(double permitsPerSecond, int burst, double reserveShare) {
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = Math.max(1, burst);
+        this.reserve = capacity * Math.min(Math.max(reserveShare, 0), 1);
+        this.tokens = capacity;
+        this.refilledAt = System.nanoTime();
+    }
+
+    /**
+     * Reserve one token. Returns the nanos to wait before using it, or -1 if
+     * that would take longer than maxWaitNanos (nothing is reserved then).
+     */
+    public synchronized long reserve(boolean priority, long maxWaitNanos) {
+        refill();
+        double floor = priority ? 0 : reserve;
+        double missing = floor + 1 - tokens;
+        long waitNanos = missing <= 0 ? 0 : (long) Math.ceil(missing / permitsPerNano);
+        if (waitNanos > maxWaitNanos) {
+            return -1;
+        }
+        tokens -= 1;
+        return waitNanos;
+    }
+
+    public synchronized double available() {
+        refill();
+        return tokens;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * permitsPerNano);
+        refilledAt = now;
+    }
+}
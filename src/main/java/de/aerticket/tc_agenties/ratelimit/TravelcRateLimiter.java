@@ -0,0 +1,98 @@
+package de.aerticket.tc_agenties.ratelimit;
+
+import de.aerticket.tc_agenties.config.RateLimitConfig;
+import de.aerticket.tc_agenties.exception.RateLimitExceededException;
+import de.aerticket.tc_agenties.util.Deadline;
+import de.aerticket.tc_agenties.util.RequestTimings;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Outbound rate limits for TravelCompositor, one token bucket per microsite
+ * and endpoint class.
+ *
+ * Calls made while a login is in progress on the thread (an active
+ * RequestTimings) are interactive: they may use the whole bucket and wait up
+ * to the login deadline. Everything else (token refresh, revalidation, sync
+ * jobs) is background and must leave the interactive reserve untouched.
+ * Metrics:
+ * - tc.ratelimit.wait{microsite, endpoint, priority}
+ * - tc.ratelimit.rejected{microsite, endpoint, priority}
+ */
+@Component
+@Slf4j
+public class TravelcRateLimiter {
+
+    private static final String INTERACTIVE = "interactive";
+    private static final String BACKGROUND = "background";
+
+    private final RateLimitConfig rateLimitConfig;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    public TravelcRateLimiter(RateLimitConfig rateLimitConfig, MeterRegistry meterRegistry) {
+        this.rateLimitConfig = rateLimitConfig;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Wait for a permit; throws RateLimitExceededException if none is
+     * available within the caller's wait limit, IllegalStateException if the
+     * thread is interrupted while waiting (the interrupt flag stays set)
+     */
+    public void acquire(String microsite, EndpointClass endpoint) {
+        if (!rateLimitConfig.isEnabled() || microsite == null) {
+            return;
+        }
+        String key = microsite.toLowerCase(Locale.ROOT);
+        boolean interactive = RequestTimings.current() != null;
+        String priority = interactive ? INTERACTIVE : BACKGROUND;
+        long maxWaitMs = interactive
+                ? Math.min(rateLimitConfig.getInteractiveMaxWaitMs(), Math.max(0, Deadline.remainingMillis()))
+                : rateLimitConfig.getBackgroundMaxWaitMs();
+
+        long waitNanos = bucket(key, endpoint).reserve(interactive, TimeUnit.MILLISECONDS.toNanos(maxWaitMs));
+        if (waitNanos < 0) {
+            meterRegistry.counter("tc.ratelimit.rejected",
+                    "microsite", key, "endpoint", endpoint.getTagValue(), "priority", priority).increment();
+            log.warn("TravelCompositor {} rate limit reached for microsite {} ({})", endpoint.getTagValue(), key,
+                    priority);
+            throw new RateLimitExceededException("TravelCompositor " + endpoint.getTagValue()
+                    + " rate limit reached for microsite: " + key);
+        }
+        meterRegistry.timer("tc.ratelimit.wait",
+                "microsite", key, "endpoint", endpoint.getTagValue(), "priority", priority)
+                .record(waitNanos, TimeUnit.NANOSECONDS);
+        awaitNanos(waitNanos);
+    }
+
+    // parkNanos may return early; an interrupt aborts the call instead of letting it through unpaced
+    private static void awaitNanos(long waitNanos) {
+        long until = System.nanoTime() + waitNanos;
+        for (long remaining = waitNanos; remaining > 0; remaining = until - System.nanoTime()) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.currentThread().isInterrupted()) {
+                throw new IllegalStateException("Interrupted waiting for TravelCompositor rate permit");
+            }
+        }
+    }
+
+    private TokenBucket bucket(String microsite, EndpointClass endpoint) {
+        return buckets.computeIfAbsent(microsite + '|' + endpoint.name(), key -> {
+            RateLimitConfig.Budget budget = switch (endpoint) {
+                case READ -> rateLimitConfig.getReads();
+                case WRITE -> rateLimitConfig.getWrites();
+                case AUTH -> rateLimitConfig.getAuth();
+            };
+            return new TokenBucket(budget.getPermitsPerSecond(), budget.getBurst(),
+                    rateLimitConfig.getInteractiveReserve());
+        });
+    }
+}
@@ -0,0 +1,58 @@
+package de.aerticket.tc_agenties.repository;
+
+import de.aerticket.tc_agenties.entity.ProvisioningLedgerEntry;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ProvisioningLedgerRepository extends JpaRepository<ProvisioningLedgerEntry, Long> {
+
+    // Milliseconds; lookups and writes run on ledger threads, which must not hang on a slow lmxdb
+    String QUERY_TIMEOUT_MS = "2000";
+
+    /**
+     * Last confirmation time of an entry (served from idx_ledger_lookup alone)
+     */
+    @Query("SELECT e.confirmedAt FROM ProvisioningLedgerEntry e "
+            + "WHERE e.microsite = :microsite AND e.agencyNumber = :agencyNumber AND e.jobId = :jobId")
+    @QueryHints(@QueryHint(name = "jakarta.persistence.query.timeout", value = QUERY_TIMEOUT_MS))
+    Optional<LocalDateTime> findConfirmedAt(@Param("microsite") String microsite,
+            @Param("agencyNumber") String agencyNumber, @Param("jobId") String jobId);
+
+    /**
+     * Find complete ledger entry
+     */
+    Optional<ProvisioningLedgerEntry> findByMicrositeAndAgencyNumberAndJobId(String microsite, String agencyNumber,
+            String jobId);
+
+    /**
+     * All entries of an agency (agency row and users), across microsites
+     */
+    List<ProvisioningLedgerEntry> findByAgencyNumber(String agencyNumber);
+
+    /**
+     * Insert entry or refresh its confirmation time; the origin of an existing
+     * row is kept and a null content hash does not overwrite a stored one
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = "jakarta.persistence.query.timeout", value = QUERY_TIMEOUT_MS))
+    @Query(value = "INSERT INTO lmxdb.aer_tc_provisioning_ledger "
+            + "(microsite, agency_number, job_id, origin, content_hash, created_at, confirmed_at) "
+            + "VALUES (:microsite, :agencyNumber, :jobId, :origin, :contentHash, :now, :now) "
+            + "ON DUPLICATE KEY UPDATE confirmed_at = VALUES(confirmed_at), "
+            + "content_hash = COALESCE(VALUES(content_hash), content_hash)", nativeQuery = true)
+    int upsert(@Param("microsite") String microsite, @Param("agencyNumber") String agencyNumber,
+            @Param("jobId") String jobId, @Param("origin") String origin, @Param("contentHash") String contentHash,
+            @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,16 @@
+package de.aerticket.tc_agenties.repository;
+
+import de.aerticket.tc_agenties.entity.TravelcCredential;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TravelcCredentialRepository extends JpaRepository<TravelcCredential, Long> {
+
+    /**
+     * Find all credentials that are enabled
+     */
+    List<TravelcCredential> findByActiveTrue();
+}
@@ -0,0 +1,19 @@
+package de.aerticket.tc_agenties.retry;
+
+/**
+ * Whether a downstream call may be sent twice
+ */
+public enum Idempotency {
+
+    /**
+     * Reads and full-replacement writes (GET, PUT): retried on any transient
+     * failure
+     */
+    IDEMPOTENT,
+
+    /**
+     * Creating writes (POST): retried only if the request never reached the
+     * server, so a lost response cannot create a duplicate
+     */
+    NON_IDEMPOTENT
+}
@@ -0,0 +1,56 @@
+package de.aerticket.tc_agenties.retry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket that caps retries as a share of traffic.
+ *
+ * Every call deposits ratio tokens (up to maxTokens) and every retry takes
+ * one whole token. During an outage the bucket drains after a short burst and
+ * further failures are returned immediately instead of multiplying the load
+ * on the struggling system. Tokens are kept in thousandths so the bucket is
+ * a single atomic long.
+ */
+public class RetryBudget {
+
+    private static final long SCALE = 1000;
+
+    private final long deposit;
+    private final long capacity;
+    private final AtomicLong balance;
+
+    public RetryBudget(double ratio, int maxTokens) {
+        this.deposit = Math.max(0, Math.round(ratio * SCALE));
+        this.capacity = Math.max(1, maxTokens) * SCALE;
+        this.balance = new AtomicLong(capacity);
+    }
+
+    /**
+     * Credit the budget for one call
+     */
+    public void onCall() {
+        balance.accumulateAndGet(deposit, (current, amount) -> Math.min(capacity, current + amount));
+    }
+
+    /**
+     * Take one retry token; false if the budget is spent
+     */
+    public boolean tryAcquireRetry() {
+        while (true) {
+            long current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current - SCALE)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Whole and fractional retries currently available
+     */
+    public double available() {
+        return balance.get() / (double) SCALE;
+    }
+}
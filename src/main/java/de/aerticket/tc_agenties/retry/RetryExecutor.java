@@ -0,0 +1,153 @@
+package de.aerticket.tc_agenties.retry;
+
+import de.aerticket.tc_agenties.config.RetryConfig;
+import de.aerticket.tc_agenties.util.Deadline;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Retries transient downstream failures with exponential backoff and full
+ * jitter, within a per-client retry budget.
+ *
+ * Retryable are I/O errors, 429 and 5xx gateway/availability statuses; for
+ * non-idempotent calls only failures to connect, where the request cannot
+ * have been processed. Metrics:
+ * - tc.downstream.attempts{client, attempt=first|retry, outcome=success|failure}
+ * - tc.downstream.retry.budget.exhausted{client}
+ * - tc.downstream.retry.budget.tokens{client}
+ */
+@Component
+@Slf4j
+public class RetryExecutor {
+
+    public static final String CLIENT_TRAVELC = "travelc";
+    public static final String CLIENT_COCKPIT = "cockpit";
+
+    private final RetryConfig retryConfig;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, RetryBudget> budgets = new ConcurrentHashMap<>();
+
+    public RetryExecutor(RetryConfig retryConfig, MeterRegistry meterRegistry) {
+        this.retryConfig = retryConfig;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Run a downstream call, retrying transient failures. The last failure is
+     * rethrown unchanged when attempts or budget run out.
+     */
+    public <T> T execute(String client, Idempotency idempotency, Supplier<T> call) {
+        RetryBudget budget = budget(client);
+        budget.onCall();
+
+        int attempt = 1;
+        while (true) {
+            try {
+                T result = call.get();
+                countAttempt(client, attempt, "success");
+                return result;
+            } catch (RuntimeException e) {
+                countAttempt(client, attempt, "failure");
+                if (!retryConfig.isEnabled() || attempt >= retryConfig.getMaxAttempts()
+                        || !isRetryable(e, idempotency)) {
+                    throw e;
+                }
+                if (!budget.tryAcquireRetry()) {
+                    meterRegistry.counter("tc.downstream.retry.budget.exhausted", "client", client).increment();
+                    log.warn("Retry budget of {} exhausted, not retrying: {}", client, e.getMessage());
+                    throw e;
+                }
+                long delayMs = backoffMs(attempt);
+                if (delayMs >= Deadline.remainingMillis()) {
+                    log.warn("No time left for a retry of {}: {}", client, e.getMessage());
+                    throw e;
+                }
+                log.info("Transient {} failure (attempt {}), retrying in {} ms: {}", client, attempt, delayMs,
+                        e.getMessage());
+                if (!sleep(delayMs)) {
+                    throw e;
+                }
+                attempt++;
+            }
+        }
+    }
+
+    /**
+     * Retry tokens left for a client
+     */
+    public double availableRetries(String client) {
+        return budget(client).available();
+    }
+
+    static boolean isRetryable(RuntimeException e, Idempotency idempotency) {
+        if (e instanceof ResourceAccessException) {
+            return idempotency == Idempotency.IDEMPOTENT || isConnectFailure(e);
+        }
+        if (e instanceof HttpStatusCodeException statusException && idempotency == Idempotency.IDEMPOTENT) {
+            int status = statusException.getStatusCode().value();
+            return status == HttpStatus.TOO_MANY_REQUESTS.value()
+                    || status == HttpStatus.INTERNAL_SERVER_ERROR.value()
+                    || status == HttpStatus.BAD_GATEWAY.value()
+                    || status == HttpStatus.SERVICE_UNAVAILABLE.value()
+                    || status == HttpStatus.GATEWAY_TIMEOUT.value();
+        }
+        return false;
+    }
+
+    private static boolean isConnectFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof UnknownHostException
+                    || cause instanceof NoRouteToHostException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Full jitter: uniform in [0, min(max, initial * 2^(attempt-1))]
+    private long backoffMs(int attempt) {
+        long ceiling = retryConfig.getInitialBackoffMs() << Math.min(attempt - 1, 20);
+        ceiling = Math.min(retryConfig.getMaxBackoffMs(), Math.max(0, ceiling));
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private RetryBudget budget(String client) {
+        return budgets.computeIfAbsent(client, name -> {
+            RetryBudget budget = new RetryBudget(retryConfig.getBudgetRatio(), retryConfig.getBudgetMaxTokens());
+            Gauge.builder("tc.downstream.retry.budget.tokens", budget, RetryBudget::available)
+                    .tag("client", name)
+                    .register(meterRegistry);
+            return budget;
+        });
+    }
+
+    private void countAttempt(String client, int attempt, String outcome) {
+        meterRegistry.counter("tc.downstream.attempts",
+                "client", client,
+                "attempt", attempt == 1 ? "first" : "retry",
+                "outcome", outcome).increment();
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package de.aerticket.tc_agenties.service;
+
+import de.aerticket.tc_agenties.model.TCAgencydata;
+import de.aerticket.tc_agenties.model.TravelcAgencyRequest;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Decides whether an agency update actually needs to be sent to
+ * TravelCompositor.
+ *
+ * contentHash gives a stable SHA-256 of every TravelcAgencyRequest field, so
+ * an unchanged Cockpit record can be recognized without a remote call. diff
+ * compares a request with the agency as stored in TravelCompositor, for the
+ * fields both models share.
+ */
+@Component
+public class AgencyChangeDetector {
+
+    // Separates fields and marks nulls so that ("ab", "c") and ("a", "bc") differ
+    private static final char FIELD_SEPARATOR = '\u001f';
+    private static final char NULL_MARKER = '\u0000';
+
+    /**
+     * Stable content hash of all request fields, in declaration order
+     */
+    public String contentHash(TravelcAgencyRequest request) {
+        StringBuilder content = new StringBuilder(512);
+        append(content, request.getExternalId());
+        append(content, request.getCompanyname());
+        append(content, request.getAddressText());
+        append(content, request.getCity());
+        append(content, request.getPostalCode());
+        append(content, request.getCountry());
+        append(content, request.getEmail());
+        append(content, request.getPhoneNumber());
+        append(content, request.getTaxes());
+        append(content, request.getActive());
+        append(content, request.getDocumentNumber());
+        append(content, request.getContactPersonName());
+        append(content, request.getContactPersonLastName());
+        append(content, request.getBusinessName());
+        append(content, request.getInvoiceType());
+        append(content, request.getBIC());
+        append(content, request.getIBAN());
+        append(content, request.getBankName());
+        append(content, request.getCollectionMethod());
+        append(content, request.getCompanyShortCode());
+        append(content, request.getChain());
+        append(content, request.getTaxNumber());
+        append(content, request.getValueAddedTaxId());
+        return sha256(content.toString());
+    }
+
+    /**
+     * Names of shared fields whose values differ between the request and the
+     * agency in TravelCompositor (empty if a write would change nothing visible)
+     */
+    public List<String> diff(TravelcAgencyRequest request, TCAgencydata current) {
+        List<String> changed = new ArrayList<>();
+        compare(changed, "companyname", request.getCompanyname(), current.getName());
+        compare(changed, "addressText", request.getAddressText(), current.getAddressText());
+        compare(changed, "postalCode", request.getPostalCode(), current.getPostalCode());
+        compare(changed, "city", request.getCity(), current.getCity());
+        compare(changed, "country", request.getCountry(), current.getCountry());
+        compare(changed, "email", request.getEmail(), current.getEmail());
+        compare(changed, "phoneNumber", request.getPhoneNumber(), current.getPhoneNumber());
+        compare(changed, "taxes", request.getTaxes(), current.getTaxes());
+        compare(changed, "invoiceType", request.getInvoiceType(), current.getInvoiceType());
+        compare(changed, "documentNumber", request.getDocumentNumber(), current.getDocumentNumber());
+        compare(changed, "contactPersonName", request.getContactPersonName(), current.getContactPersonName());
+        compare(changed, "contactPersonLastName", request.getContactPersonLastName(),
+                current.getContactPersonLastName());
+        compare(changed, "businessName", request.getBusinessName(), current.getBusinessName());
+        if (!normalize(request.getActive()).equalsIgnoreCase(normalize(current.getActive()))) {
+            changed.add("active");
+        }
+        return changed;
+    }
+
+    private static void compare(List<String> changed, String field, String requested, String current) {
+        if (!Objects.equals(normalize(requested), normalize(current))) {
+            changed.add(field);
+        }
+    }
+
+    // TravelCompositor returns absent values as null or "", and may pad values
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim();
+    }
+
+    private static void append(StringBuilder content, String value) {
+        if (value == null) {
+            content.append(NULL_MARKER);
+        } else {
+            content.append(value);
+        }
+        content.append(FIELD_SEPARATOR);
+    }
+
+    private static String sha256(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package de.aerticket.tc_agenties.service;
+
+import de.aerticket.tc_agenties.cache.CacheNames;
+import de.aerticket.tc_agenties.cache.SharedCacheManager;
+import de.aerticket.tc_agenties.entity.ProvisioningLedgerEntry;
+import de.aerticket.tc_agenties.model.AgencyChangeEvent;
+import de.aerticket.tc_agenties.model.CockpitAgency;
+import de.aerticket.tc_agenties.model.TravelcAgencyRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Applies Cockpit agency change events, so cached agency state does not have
+ * to wait for its TTL:
+ * - AGENCY_CHANGED evicts the agency status and pushes the new Cockpit data
+ *   to every microsite the agency is provisioned in
+ * - AGENCY_DEACTIVATED evicts the agency status and its ledger entries, so
+ *   the next login re-checks TravelCompositor, and sets the agency inactive
+ *   in every microsite it was provisioned in (the login sync then leaves it
+ *   inactive as long as Cockpit reports it deactivated)
+ *
+ * Ledger rows are keyed by the microsite TravelCompositor writes go to, so
+ * each entry's microsite is where the update is sent.
+ *
+ * Evictions happen before accept returns; TravelCompositor updates run on
+ * the provisioning executor.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AgencyEventService {
+
+    private final SharedCacheManager cacheManager;
+    private final ProvisioningLedgerService provisioningLedgerService;
+    private final CockpitService cockpitService;
+    private final TravelCompositorService travelCompositorService;
+    private final AgencyChangeDetector agencyChangeDetector;
+    private final ThreadPoolTaskExecutor provisioningExecutor;
+
+    public void accept(AgencyChangeEvent event) {
+        if (event == null || event.getType() == null || event.getAgencyNumber() == null
+                || event.getAgencyNumber().isBlank()) {
+            throw new IllegalArgumentException("Event needs a type and an agency number");
+        }
+        String agencyNumber = event.getAgencyNumber().trim();
+        log.info("Cockpit event {} for agency {} (id {})", event.getType(), agencyNumber, event.getEventId());
+
+        evictStatus(agencyNumber);
+
+        switch (event.getType()) {
+            case AGENCY_DEACTIVATED -> {
+                // Read before invalidating: these are the microsites to deactivate it in
+                List<ProvisioningLedgerEntry> entries = provisioningLedgerService.getAgencyEntries(agencyNumber);
+                provisioningLedgerService.invalidate(null, agencyNumber, null);
+                submit(agencyNumber, () -> deactivateInTravelCompositor(agencyNumber, entries));
+            }
+            case AGENCY_CHANGED -> submit(agencyNumber, () -> pushToTravelCompositor(agencyNumber));
+        }
+    }
+
+    private void evictStatus(String agencyNumber) {
+        int evicted = cacheManager.getCache(CacheNames.AGENCY_STATUS)
+                .evictMatching(key -> key.endsWith(":" + agencyNumber));
+        log.debug("Evicted {} agency status entries for agency {}", evicted, agencyNumber);
+    }
+
+    private void submit(String agencyNumber, Runnable update) {
+        try {
+            provisioningExecutor.execute(update);
+        } catch (RejectedExecutionException e) {
+            // Status is evicted already; the next login syncs the agency
+            log.warn("Provisioning executor saturated, not updating agency {} now", agencyNumber);
+        }
+    }
+
+    /**
+     * Update the agency in each microsite it was provisioned to, unless the
+     * Cockpit data is unchanged since the last sync
+     */
+    void pushToTravelCompositor(String agencyNumber) {
+        List<ProvisioningLedgerEntry> entries = provisioningLedgerService.getAgencyEntries(agencyNumber);
+        if (entries.isEmpty()) {
+            log.debug("Agency {} not provisioned on any microsite, nothing to update", agencyNumber);
+            return;
+        }
+        try {
+            CockpitAgency cockpitAgency = cockpitService.getAgency(agencyNumber);
+            if (cockpitAgency == null) {
+                log.warn("Agency {} from change event not found in Cockpit", agencyNumber);
+                return;
+            }
+            TravelcAgencyRequest tcRequest = cockpitService.convertToTravelcRequest(cockpitAgency);
+            String contentHash = agencyChangeDetector.contentHash(tcRequest);
+            for (ProvisioningLedgerEntry entry : entries) {
+                if (contentHash.equals(entry.getContentHash())) {
+                    log.debug("Agency {} unchanged for microsite {}, skipping update", agencyNumber,
+                            entry.getMicrosite());
+                    continue;
+                }
+                if (Boolean.TRUE.equals(travelCompositorService.updateAgency(tcRequest, entry.getMicrosite()))) {
+                    provisioningLedgerService.recordAgency(entry.getMicrosite(), agencyNumber,
+                            ProvisioningLedgerService.ORIGIN_UPDATED, contentHash);
+                    log.info("Updated agency {} in microsite {} after Cockpit change", agencyNumber,
+                            entry.getMicrosite());
+                } else {
+                    log.warn("Failed to update agency {} in microsite {} after Cockpit change", agencyNumber,
+                            entry.getMicrosite());
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error applying Cockpit change of agency {}: {}", agencyNumber, e.getMessage());
+        }
+    }
+
+    /**
+     * Set the agency inactive in each given microsite. The update carries the
+     * Cockpit data, as TravelCompositor replaces the whole agency.
+     */
+    void deactivateInTravelCompositor(String agencyNumber, List<ProvisioningLedgerEntry> entries) {
+        if (entries.isEmpty()) {
+            log.debug("Agency {} not provisioned on any microsite, nothing to deactivate", agencyNumber);
+            return;
+        }
+        try {
+            CockpitAgency cockpitAgency = cockpitService.getAgency(agencyNumber);
+            if (cockpitAgency == null) {
+                log.warn("Agency {} from deactivation event not found in Cockpit, cannot deactivate it",
+                        agencyNumber);
+                return;
+            }
+            TravelcAgencyRequest tcRequest = cockpitService.convertToTravelcRequest(cockpitAgency);
+            tcRequest.setActive("false");
+            for (ProvisioningLedgerEntry entry : entries) {
+                if (Boolean.TRUE.equals(travelCompositorService.updateAgency(tcRequest, entry.getMicrosite()))) {
+                    log.info("Deactivated agency {} in microsite {} after Cockpit event", agencyNumber,
+                            entry.getMicrosite());
+                } else {
+                    log.warn("Failed to deactivate agency {} in microsite {} after Cockpit event", agencyNumber,
+                            entry.getMicrosite());
+                }
+            }
+            // A login between the event and the update may have confirmed the agency again
+            evictStatus(agencyNumber);
+            provisioningLedgerService.invalidate(null, agencyNumber, null);
+        } catch (Exception e) {
+            log.error("Error applying Cockpit deactivation of agency {}: {}", agencyNumber, e.getMessage());
+        }
+    }
+}
@@ -1,10 +1,18 @@
 package de.aerticket.tc_agenties.service;
 
+import de.aerticket.tc_agenties.audit.LoginAuditEvent;
+import de.aerticket.tc_agenties.audit.LoginAuditService;
+import de.aerticket.tc_agenties.audit.ProvisioningAction;
+import de.aerticket.tc_agenties.capture.TrafficCaptureService;
 import de.aerticket.tc_agenties.config.MicrositeConfig;
+import de.aerticket.tc_agenties.config.ProvisioningConfig;
 import de.aerticket.tc_agenties.constants.ApplicationConstants;
 import de.aerticket.tc_agenties.entity.MicrositeMapping;
 import de.aerticket.tc_agenties.exception.AuthenticationException;
+import de.aerticket.tc_agenties.exception.DeadlineExceededException;
 import de.aerticket.tc_agenties.exception.JwtValidationException;
+import de.aerticket.tc_agenties.jfr.LoginStageEvent;
+import de.aerticket.tc_agenties.logging.LoginLogContext;
 import de.aerticket.tc_agenties.model.AgencyStatus;
 import de.aerticket.tc_agenties.model.AuthenticationResponse;
 import de.aerticket.tc_agenties.model.CockpitAgency;
@@ -12,14 +20,25 @@ import de.aerticket.tc_agenties.model.JwtClaims;
 import de.aerticket.tc_agenties.model.TCAgencydata;
 import de.aerticket.tc_agenties.model.TravelcAgencyRequest;
 import de.aerticket.tc_agenties.model.TravelcUserRequest;
+import de.aerticket.tc_agenties.util.Deadline;
+import de.aerticket.tc_agenties.util.RequestTimings;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
-import org.springframework.web.util.UriComponentsBuilder;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.Locale;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 
 /**
@@ -30,6 +49,10 @@ import java.util.regex.Pattern;
  * - Resolve microsite configuration
  * - Ensure agency and user exist/synchronized in TravelCompositor
  * - Build a consistent response for the caller
+ *
+ * Provisioning branches (Cockpit sync, user creation) run on the bounded
+ * provisioning executor, so a wave of onboarding logins queues there instead
+ * of tying up the request threads that serve existing users.
  */
 @Service
 @RequiredArgsConstructor
@@ -38,7 +61,8 @@ public class AuthenticationService {
 
 	private static final String DEFAULT_LANGUAGE = "DE";
 	private static final Pattern LANGUAGE_PATTERN = Pattern.compile("^[A-Za-z]{2}$");
-	private static final Pattern TYPE_PATTERN = Pattern.compile("^[A-Za-z0-9_-]{1,30}$");
+	private static final int MAX_TYPE_LENGTH = 30;
+	private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^A-Za-z0-9]");
 
 	private final JwtService jwtService;
 	private final MicrositeMappingService micrositeMappingService;
@@ -46,11 +70,56 @@ public class AuthenticationService {
 	private final PasswordService passwordService;
 	private final TravelCompositorService travelCompositorService;
 	private final CockpitService cockpitService;
+	private final ProvisioningLedgerService provisioningLedgerService;
+	private final AgencyChangeDetector agencyChangeDetector;
+	private final LoginAuditService loginAuditService;
+	private final ThreadPoolTaskExecutor provisioningExecutor;
+	private final ProvisioningConfig provisioningConfig;
+	private final SpeculativeProvisioningService speculativeProvisioningService;
+	private final TrafficCaptureService trafficCaptureService;
+	private final ShadowVerificationService shadowVerificationService;
 
 	/**
-	 * Authenticate user and prepare redirect data to microsite.
+	 * Authenticate user and prepare redirect data to microsite. Every attempt,
+	 * successful or not, is recorded in the login audit trail (and in the
+	 * traffic capture, while one runs).
+	 *
+	 * Step durations are recorded into the caller's RequestTimings (the
+	 * controller turns them into a Server-Timing header); without one, a
+	 * timing context is opened just for the audit event. Agency and microsite
+	 * are put into the logging MDC for the duration of the login.
 	 */
 	public AuthenticationResponse authenticateUser(String jwtToken, String language, String type) {
+		final long startedAt = System.nanoTime();
+		final boolean ownsTimings = RequestTimings.current() == null;
+		RequestTimings timings = ownsTimings ? RequestTimings.begin() : RequestTimings.current();
+		LoginAuditEvent.LoginAuditEventBuilder audit = LoginAuditEvent.builder().occurredAt(Instant.now());
+		try {
+			AuthenticationResponse response = authenticate(jwtToken, language, type, audit);
+			LoginAuditEvent event = withTimings(audit, timings).outcome(LoginAuditEvent.OUTCOME_SUCCESS)
+					.totalMs(elapsedMs(startedAt))
+					.build();
+			loginAuditService.record(event);
+			trafficCaptureService.record(jwtToken, language, type, event, timings);
+			return response;
+		} catch (RuntimeException e) {
+			LoginAuditEvent event = withTimings(audit, timings).outcome(LoginAuditEvent.OUTCOME_FAILURE)
+					.failureReason(e.getMessage())
+					.totalMs(elapsedMs(startedAt))
+					.build();
+			loginAuditService.record(event);
+			trafficCaptureService.record(jwtToken, language, type, event, timings);
+			throw e;
+		} finally {
+			if (ownsTimings) {
+				RequestTimings.end();
+			}
+			LoginLogContext.clear();
+		}
+	}
+
+	private AuthenticationResponse authenticate(String jwtToken, String language, String type,
+			LoginAuditEvent.LoginAuditEventBuilder audit) {
 		validateInputToken(jwtToken);
 
 		// Normalize simple inputs early to avoid spreading sanitation logic
@@ -60,22 +129,42 @@ public class AuthenticationService {
 		log.info("Authenticating user - lang={}, type={}", normalizedLanguage, normalizedType);
 
 		// Parse and validate JWT token
-		JwtClaims claims = parseAndValidateJwtToken(jwtToken);
-		log.info("JWT validated - agent: {} {}, company: {}, agency: {}",
-				claims.getAgentFirstName(), claims.getAgentLastName(), claims.getCompanyCode(),
-				claims.getAgencyNumber());
+		JwtClaims claims = runStage(RequestTimings.Stage.JWT, null, null, () -> parseAndValidateJwtToken(jwtToken),
+				parsed -> "VALID");
+		audit.companyCode(claims.getCompanyCode())
+				.agencyNumber(claims.getAgencyNumber())
+				.jobId(claims.getJobId());
+		LoginLogContext.agency(claims.getAgencyNumber());
+		log.info("JWT validated - agent: {} {}, company: {}",
+				claims.getAgentFirstName(), claims.getAgentLastName(), claims.getCompanyCode());
 
 		// Resolve microsite info
-		MicrositeInfo micrositeInfo = resolveMicrositeInfo(claims.getCompanyCode());
+		Deadline.check("microsite lookup");
+		MicrositeInfo micrositeInfo = runStage(RequestTimings.Stage.MAPPING, null, claims.getAgencyNumber(),
+				() -> resolveMicrositeInfo(claims.getCompanyCode()), resolved -> "RESOLVED");
+		audit.microsite(micrositeInfo.microsite);
+		LoginLogContext.microsite(micrositeInfo.microsite);
 
 		// Generate encrypted password
 		String encryptedPassword = generateUserPassword(claims);
 
 		// Ensure agency is active or try to sync from Cockpit
-		AgencyStatus agencyStatus = ensureAgencyActive(claims.getAgencyNumber(), micrositeInfo);
+		Deadline.check("agency check");
+		AgencyStatus agencyStatus = runStage(RequestTimings.Stage.AGENCY, micrositeInfo.microsite,
+				claims.getAgencyNumber(),
+				() -> ensureAgencyActive(claims.getAgencyNumber(), claims.getJobId(), micrositeInfo, audit),
+				AgencyStatus::name);
+		audit.agencyStatus(agencyStatus.name());
 
 		// Ensure user exists or try to create via Cockpit mapping
-		boolean userExists = ensureUserExists(claims, micrositeInfo.microsite);
+		Deadline.check("user check");
+		boolean userExists = runStage(RequestTimings.Stage.USER, micrositeInfo.microsite, claims.getAgencyNumber(),
+				() -> ensureUserExists(claims, micrositeInfo.microsite, audit),
+				exists -> exists ? "EXISTS" : "MISSING");
+
+		// Downstream services report failures as status values; do not
+		// answer with a half-provisioned login once the budget is spent
+		Deadline.check("response");
 
 		// Build final redirect URL
 		String returnUrl = buildReturnUrl(
@@ -98,6 +187,32 @@ public class AuthenticationService {
 				returnUrl);
 	}
 
+	/**
+	 * Run one login stage, recording its duration and a LoginStageEvent with
+	 * the stage's outcome: the status derived from its result, or DEADLINE,
+	 * INVALID or ERROR when it throws.
+	 */
+	private static <T> T runStage(RequestTimings.Stage stage, String microsite, String agencyNumber, Supplier<T> step,
+			Function<T, String> outcome) {
+		long startedAt = System.nanoTime();
+		LoginStageEvent event = LoginStageEvent.start();
+		String status = "ERROR";
+		try {
+			T result = step.get();
+			status = outcome.apply(result);
+			return result;
+		} catch (DeadlineExceededException e) {
+			status = "DEADLINE";
+			throw e;
+		} catch (JwtValidationException e) {
+			status = "INVALID";
+			throw e;
+		} finally {
+			RequestTimings.record(stage, startedAt);
+			event.finish(stage.name(), microsite, agencyNumber, status);
+		}
+	}
+
 	// ---------- Public flow helpers ----------
 
 	private void validateInputToken(String jwtToken) {
@@ -117,7 +232,7 @@ public class AuthenticationService {
 			}
 			return claims;
 		} catch (Exception e) {
-			if (e instanceof JwtValidationException) {
+			if (e instanceof JwtValidationException || e instanceof DeadlineExceededException) {
 				throw e;
 			}
 			throw new JwtValidationException("Failed to parse JWT token: " + e.getMessage(), e);
@@ -166,25 +281,47 @@ public class AuthenticationService {
 	}
 
 	/**
-	 * Ensure agency status is ACTIVE. If not, try to sync from Cockpit.
+	 * Ensure agency status is ACTIVE. If not, try to sync from Cockpit. A fresh
+	 * provisioning ledger entry skips the TravelCompositor check. A newly
+	 * created agency gets its other agents pre-created in the background.
 	 */
-	private AgencyStatus ensureAgencyActive(String agencyNumber, MicrositeInfo micrositeInfo) {
-		AgencyStatus currentStatus = travelCompositorService.checkAgencyStatus(micrositeInfo.micrositeApi,
-				agencyNumber);
+	private AgencyStatus ensureAgencyActive(String agencyNumber, String loginJobId, MicrositeInfo micrositeInfo,
+			LoginAuditEvent.LoginAuditEventBuilder audit) {
+		if (provisioningLedgerService.isAgencyConfirmed(micrositeInfo.microsite, agencyNumber)) {
+			log.debug("Agency {} confirmed by provisioning ledger", agencyNumber);
+			RequestTimings.hit(RequestTimings.Stage.AGENCY);
+			if (shadowVerificationService.isEnabled()) {
+				shadowVerificationService.sample(ShadowVerificationService.LEDGER_AGENCIES,
+						micrositeInfo.microsite, "agency=" + agencyNumber,
+						() -> travelCompositorService.isAgencyActiveLive(micrositeInfo.micrositeApi, agencyNumber));
+			}
+			audit.agencyAction(ProvisioningAction.LEDGER);
+			return AgencyStatus.ACTIVE;
+		}
+
+		AgencyStatus currentStatus = travelCompositorService.checkAgencyStatus(micrositeInfo.microsite,
+				micrositeInfo.micrositeApi, agencyNumber);
 
 		if (currentStatus == AgencyStatus.ACTIVE) {
 			log.debug("Agency {} is ACTIVE", agencyNumber);
+			provisioningLedgerService.recordAgency(micrositeInfo.microsite, agencyNumber,
+					ProvisioningLedgerService.ORIGIN_CONFIRMED, null);
+			audit.agencyAction(ProvisioningAction.CONFIRMED);
 			return currentStatus;
 		}
 
 		if (currentStatus == AgencyStatus.INACTIVE || currentStatus == AgencyStatus.NOT_FOUND) {
 			log.debug("Agency {} is {}, attempting Cockpit sync", agencyNumber, currentStatus);
-			boolean synced = syncAgencyFromCockpit(agencyNumber, micrositeInfo.microsite, currentStatus);
-			if (synced) {
-				log.info("Successfully synchronized agency {} from Cockpit", agencyNumber);
-			} else {
+			ProvisioningAction action = provision("agency " + agencyNumber,
+					() -> syncAgencyFromCockpit(agencyNumber, loginJobId, micrositeInfo, currentStatus));
+			audit.agencyAction(action);
+			if (action == ProvisioningAction.FAILED) {
 				log.warn("Failed to synchronize agency {} from Cockpit", agencyNumber);
+			} else if (action != ProvisioningAction.PENDING) {
+				log.info("Successfully synchronized agency {} from Cockpit", agencyNumber);
 			}
+		} else {
+			audit.agencyAction(ProvisioningAction.FAILED);
 		}
 
 		return currentStatus;
@@ -192,47 +329,143 @@ public class AuthenticationService {
 
 	/**
 	 * Ensure user exists in TravelCompositor. If not, attempt to create using
-	 * Cockpit data.
+	 * Cockpit data. A fresh provisioning ledger entry skips the lookup.
 	 */
-	private boolean ensureUserExists(JwtClaims claims, String microsite) {
+	private boolean ensureUserExists(JwtClaims claims, String microsite,
+			LoginAuditEvent.LoginAuditEventBuilder audit) {
+		if (provisioningLedgerService.isUserConfirmed(microsite, claims.getAgencyNumber(), claims.getJobId())) {
+			log.debug("User {} confirmed by provisioning ledger", claims.getJobId());
+			RequestTimings.hit(RequestTimings.Stage.USER);
+			if (shadowVerificationService.isEnabled()) {
+				shadowVerificationService.sample(ShadowVerificationService.LEDGER_USERS, microsite,
+						"agency=" + claims.getAgencyNumber() + ", user=" + claims.getJobId(),
+						() -> travelCompositorService.userExistsLive(microsite, claims.getAgencyNumber(),
+								claims.getJobId()));
+			}
+			audit.userAction(ProvisioningAction.LEDGER);
+			return true;
+		}
+
+		RequestTimings.miss(RequestTimings.Stage.USER);
 		Boolean exists = travelCompositorService.getUser(microsite, claims.getAgencyNumber(), claims.getJobId());
 		if (Boolean.TRUE.equals(exists)) {
 			log.debug("User {} exists for agency {}", claims.getJobId(), claims.getAgencyNumber());
+			provisioningLedgerService.recordUser(microsite, claims.getAgencyNumber(), claims.getJobId(),
+					ProvisioningLedgerService.ORIGIN_CONFIRMED);
+			audit.userAction(ProvisioningAction.CONFIRMED);
 			return true;
 		}
 
 		log.debug("User {} for agency {} not found, attempting Cockpit sync", claims.getJobId(),
 				claims.getAgencyNumber());
 
+		ProvisioningAction action = provision("user " + claims.getJobId(),
+				() -> createUserFromCockpit(claims, microsite));
+		audit.userAction(action);
+		return action == ProvisioningAction.CREATED;
+	}
+
+	/**
+	 * Create the user in TravelCompositor from Cockpit agency data
+	 */
+	private ProvisioningAction createUserFromCockpit(JwtClaims claims, String microsite) {
 		CockpitAgency cockpitAgency = cockpitService.getAgency(claims.getAgencyNumber());
 		TravelcUserRequest userRequest = cockpitService.convertToTravelcUserRequest(claims, cockpitAgency);
-		if (userRequest != null) {
-			boolean created = Boolean.TRUE.equals(travelCompositorService.createUser(userRequest, microsite));
-			if (created) {
-				log.info("Successfully synchronized user {} from Cockpit", claims.getJobId());
-			} else {
-				log.warn("Failed to create user {} in TravelCompositor", claims.getJobId());
-			}
-			return created;
+		if (userRequest == null) {
+			log.warn("Failed to build TravelCompositor user from Cockpit for jobId {}", claims.getJobId());
+			return ProvisioningAction.FAILED;
 		}
 
-		log.warn("Failed to build TravelCompositor user from Cockpit for jobId {}", claims.getJobId());
-		return false;
+		boolean created = Boolean.TRUE.equals(travelCompositorService.createUser(userRequest, microsite));
+		if (created) {
+			log.info("Successfully synchronized user {} from Cockpit", claims.getJobId());
+			provisioningLedgerService.recordUser(microsite, claims.getAgencyNumber(), claims.getJobId(),
+					ProvisioningLedgerService.ORIGIN_CREATED);
+			return ProvisioningAction.CREATED;
+		}
+		log.warn("Failed to create user {} in TravelCompositor", claims.getJobId());
+		return ProvisioningAction.FAILED;
+	}
+
+	/**
+	 * Run a provisioning branch on the provisioning executor and wait for it
+	 * within the login deadline. A full queue fails the branch at once instead
+	 * of blocking the request thread.
+	 *
+	 * The task runs under its own deadline (taskBudgetMs), not the login's, so
+	 * one that outlives the wait is PENDING rather than FAILED: it keeps
+	 * running and records its own result in the ledger. Stage timings the task
+	 * recorded are merged into the login's when it finishes within the wait.
+	 */
+	private ProvisioningAction provision(String subject, Supplier<ProvisioningAction> task) {
+		Future<Provisioned> result;
+		try {
+			result = provisioningExecutor.submit(() -> {
+				Deadline.begin(provisioningConfig.getTaskBudgetMs());
+				ProvisioningAction action = task.get();
+				RequestTimings timings = RequestTimings.current();
+				return new Provisioned(action, timings != null ? timings.copy() : null);
+			});
+		} catch (RejectedExecutionException e) {
+			log.warn("Provisioning executor saturated, not provisioning {}", subject);
+			return ProvisioningAction.FAILED;
+		}
+
+		long waitMs = Math.min(provisioningConfig.getMaxWaitMs(), Math.max(0, Deadline.remainingMillis()));
+		try {
+			Provisioned provisioned = result.get(waitMs, TimeUnit.MILLISECONDS);
+			RequestTimings timings = RequestTimings.current();
+			if (timings != null && provisioned.timings() != null) {
+				timings.merge(provisioned.timings());
+			}
+			return provisioned.action();
+		} catch (TimeoutException e) {
+			log.warn("Provisioning of {} did not finish within {} ms, leaving it to run on", subject, waitMs);
+			return ProvisioningAction.PENDING;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return ProvisioningAction.FAILED;
+		} catch (ExecutionException e) {
+			// Same failure semantics as running the branch inline
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			if (e.getCause() instanceof Error error) {
+				throw error;
+			}
+			throw new AuthenticationException("Provisioning of " + subject + " failed", e.getCause());
+		}
 	}
 
 	/**
 	 * Synchronize agency data from Cockpit to TravelCompositor.
+	 *
+	 * An update of an INACTIVE agency is skipped when TravelCompositor already
+	 * holds the same field values, including the active flag. An agency that
+	 * Cockpit reports deactivated is neither created nor reactivated.
 	 */
-	private boolean syncAgencyFromCockpit(String agencyNumber, String microsite, AgencyStatus currentStatus) {
+	private ProvisioningAction syncAgencyFromCockpit(String agencyNumber, String loginJobId,
+			MicrositeInfo micrositeInfo, AgencyStatus currentStatus) {
+		String microsite = micrositeInfo.microsite;
 		try {
 			CockpitAgency cockpitAgency = cockpitService.getAgency(agencyNumber);
 			if (cockpitAgency == null) {
 				log.warn("Agency {} not found in Cockpit", agencyNumber);
-				return false;
+				return ProvisioningAction.FAILED;
 			}
 
 			// Convert Cockpit data to TravelCompositor format
 			TravelcAgencyRequest tcRequest = cockpitService.convertToTravelcRequest(cockpitAgency);
+			if ("false".equalsIgnoreCase(tcRequest.getActive())) {
+				log.warn("Agency {} is deactivated in Cockpit, not syncing it to TravelCompositor", agencyNumber);
+				return ProvisioningAction.UNCHANGED;
+			}
+			String contentHash = agencyChangeDetector.contentHash(tcRequest);
+
+			if (currentStatus == AgencyStatus.INACTIVE && !isUpdateNeeded(agencyNumber, micrositeInfo, tcRequest,
+					contentHash)) {
+				return ProvisioningAction.UNCHANGED;
+			}
 
 			// Create or update depending on current status
 			Boolean ok = (currentStatus == AgencyStatus.NOT_FOUND)
@@ -242,13 +475,47 @@ public class AuthenticationService {
 			if (Boolean.TRUE.equals(ok)) {
 				// Verify by fetching the just-created/updated agency
 				TCAgencydata tcAgency = travelCompositorService.getAgencyData(microsite, agencyNumber);
-				return tcAgency != null;
+				if (tcAgency != null) {
+					provisioningLedgerService.recordAgency(micrositeInfo.microsite, agencyNumber,
+							currentStatus == AgencyStatus.NOT_FOUND
+									? ProvisioningLedgerService.ORIGIN_CREATED
+									: ProvisioningLedgerService.ORIGIN_UPDATED,
+							contentHash);
+					if (currentStatus == AgencyStatus.NOT_FOUND) {
+						speculativeProvisioningService.schedule(microsite, cockpitAgency, loginJobId);
+						return ProvisioningAction.CREATED;
+					}
+					return ProvisioningAction.UPDATED;
+				}
 			}
-			return false;
+			return ProvisioningAction.FAILED;
 		} catch (Exception e) {
 			log.error("Error syncing agency {} from Cockpit: {}", agencyNumber, e.getMessage());
+			return ProvisioningAction.FAILED;
+		}
+	}
+
+	/**
+	 * Decide whether an existing agency must be written: not if
+	 * TravelCompositor already matches. The content hash of the last sync is
+	 * no shortcut here: this path runs because TravelCompositor reported the
+	 * agency INACTIVE, so its state may have changed since that sync.
+	 */
+	private boolean isUpdateNeeded(String agencyNumber, MicrositeInfo micrositeInfo, TravelcAgencyRequest tcRequest,
+			String contentHash) {
+		TCAgencydata current = travelCompositorService.getAgencyData(micrositeInfo.microsite, agencyNumber);
+		if (current == null) {
+			return true;
+		}
+		List<String> changedFields = agencyChangeDetector.diff(tcRequest, current);
+		if (changedFields.isEmpty()) {
+			log.info("Agency {} already up to date in TravelCompositor, skipping update", agencyNumber);
+			provisioningLedgerService.recordAgency(micrositeInfo.microsite, agencyNumber,
+					ProvisioningLedgerService.ORIGIN_CONFIRMED, contentHash);
 			return false;
 		}
+		log.debug("Agency {} differs from Cockpit in fields {}", agencyNumber, changedFields);
+		return true;
 	}
 
 	/**
@@ -260,15 +527,7 @@ public class AuthenticationService {
 			String user,
 			String encryptedPassword,
 			String agency) {
-		return UriComponentsBuilder
-				.fromHttpUrl(baseMicrositeUrl)
-				.pathSegment(language, "home")
-				.queryParam("tripType", type)
-				.queryParam("submit", true)
-				.queryParam("user", user)
-				.queryParam("password", encryptedPassword)
-				.queryParam("agency", agency)
-				.toUriString();
+		return ReturnUrlBuilder.build(baseMicrositeUrl, language, type, user, encryptedPassword, agency);
 	}
 
 	/**
@@ -308,11 +567,36 @@ public class AuthenticationService {
 
 	// ---------- Small utilities ----------
 
-	private String normalizeLanguage(String language) {
+	private static LoginAuditEvent.LoginAuditEventBuilder withTimings(LoginAuditEvent.LoginAuditEventBuilder audit,
+			RequestTimings timings) {
+		return audit.jwtMs(timings.millis(RequestTimings.Stage.JWT))
+				.mappingMs(timings.millis(RequestTimings.Stage.MAPPING))
+				.agencyMs(timings.millis(RequestTimings.Stage.AGENCY))
+				.userMs(timings.millis(RequestTimings.Stage.USER));
+	}
+
+	private static int elapsedMs(long startedAtNanos) {
+		return (int) TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAtNanos);
+	}
+
+	/**
+	 * Two uppercase letters, else DE. The common ASCII case is checked by hand
+	 * and returns the trimmed input as is when it is already normalized.
+	 */
+	static String normalizeLanguage(String language) {
 		if (!StringUtils.hasText(language)) {
 			return DEFAULT_LANGUAGE;
 		}
 		String candidate = language.trim();
+		if (candidate.length() >= 2 && isAsciiLetter(candidate.charAt(0)) && isAsciiLetter(candidate.charAt(1))) {
+			char first = Character.toUpperCase(candidate.charAt(0));
+			char second = Character.toUpperCase(candidate.charAt(1));
+			if (candidate.length() == 2 && first == candidate.charAt(0) && second == candidate.charAt(1)) {
+				return candidate;
+			}
+			return new String(new char[] { first, second });
+		}
+		// Anything else (short, non-letters, non-ASCII case mappings) takes the original route
 		if (candidate.length() > 2) {
 			candidate = candidate.substring(0, 2);
 		}
@@ -320,18 +604,36 @@ public class AuthenticationService {
 		return LANGUAGE_PATTERN.matcher(candidate).matches() ? candidate : DEFAULT_LANGUAGE;
 	}
 
-	private String normalizeType(String type) {
+	static String normalizeType(String type) {
 		if (!StringUtils.hasText(type)) {
 			return ""; // keep empty if not provided to preserve original behavior
 		}
 		String candidate = type.trim();
-		if (!TYPE_PATTERN.matcher(candidate).matches()) {
+		if (!isPlainType(candidate)) {
 			// Fallback to a conservative variant (alphanumeric only)
-			candidate = candidate.replaceAll("[^A-Za-z0-9]", "");
+			candidate = NON_ALPHANUMERIC.matcher(candidate).replaceAll("");
 		}
 		return candidate;
 	}
 
+	// Same as TYPE_PATTERN, without a Matcher per call
+	private static boolean isPlainType(String candidate) {
+		if (candidate.isEmpty() || candidate.length() > MAX_TYPE_LENGTH) {
+			return false;
+		}
+		for (int i = 0; i < candidate.length(); i++) {
+			char c = candidate.charAt(i);
+			if (!isAsciiLetter(c) && !(c >= '0' && c <= '9') && c != '_' && c != '-') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isAsciiLetter(char c) {
+		return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+	}
+
 	/**
 	 * Inner value object to hold microsite information.
 	 */
@@ -348,4 +650,10 @@ public class AuthenticationService {
 			this.micrositeApi = micrositeApi;
 		}
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Result of a provisioning task with the stage timings it recorded
+	 */
+	private record Provisioned(ProvisioningAction action, RequestTimings timings) {
+	}
+}
@@ -0,0 +1,116 @@
+package de.aerticket.tc_agenties.service;
+
+import de.aerticket.tc_agenties.cache.CacheNames;
+import de.aerticket.tc_agenties.cache.CacheStats;
+import de.aerticket.tc_agenties.cache.SharedCacheManager;
+import de.aerticket.tc_agenties.config.JwtConfig;
+import de.aerticket.tc_agenties.snapshot.ProvisionedSnapshotService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Inspection and targeted invalidation of every cache in the application, for
+ * the admin API. Shared caches are invalidated on all nodes; the token pools,
+ * JWT verifiers, provisioned index and mappings on this node.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CacheAdminService {
+
+    public static final String PROVISIONING_LEDGER = "provisioning-ledger";
+
+    private final SharedCacheManager cacheManager;
+    private final TravelcAuthManager authManager;
+    private final ProvisioningLedgerService provisioningLedgerService;
+    private final ProvisionedSnapshotService snapshotService;
+    private final MicrositeMappingService micrositeMappingService;
+    private final JwtService jwtService;
+    private final JwtConfig jwtConfig;
+
+    public List<CacheStats> listCaches() {
+        List<CacheStats> caches = new ArrayList<>();
+        cacheManager.getCacheNames().stream()
+                .sorted()
+                .forEach(name -> caches.add(cacheManager.getCache(name).stats()));
+        caches.add(authManager.tokenPoolStats());
+        caches.add(jwtService.verifierStats());
+        caches.add(snapshotService.stats());
+        caches.add(micrositeMappingService.stats());
+        return caches;
+    }
+
+    /**
+     * Empty one cache; the microsite mappings are reloaded instead
+     */
+    public void clear(String name) {
+        log.info("Clearing cache {} on admin request", name);
+        switch (name) {
+            case CacheNames.TRAVELC_TOKENS, TravelcAuthManager.TOKEN_POOLS -> authManager.clearAllTokens();
+            case JwtService.VERIFIER_CACHE -> jwtService.clearVerifiers();
+            case ProvisionedSnapshotService.CACHE_NAME -> snapshotService.clear();
+            case MicrositeMappingService.CACHE_NAME -> micrositeMappingService.refresh();
+            default -> {
+                if (!cacheManager.getCacheNames().contains(name)) {
+                    throw new IllegalArgumentException("Unknown cache: " + name);
+                }
+                cacheManager.getCache(name).clear();
+            }
+        }
+    }
+
+    /**
+     * Evict what matches the given selectors and return the number of
+     * entries removed per cache:
+     * - kid: the JWT public key in every environment, and the verifiers
+     *   built from cached keys
+     * - microsite: its TravelCompositor token and agency statuses
+     * - agency (optionally within microsite): its status and ledger entries
+     * - user (needs agency): that user's ledger entry
+     */
+    public Map<String, Integer> invalidate(String microsite, String agency, String kid, String user) {
+        if (microsite == null && agency == null && kid == null && user == null) {
+            throw new IllegalArgumentException("Give at least one of microsite, agency, kid or user");
+        }
+        if (user != null && agency == null) {
+            throw new IllegalArgumentException("Invalidating a user needs its agency");
+        }
+        log.info("Invalidating caches on admin request: microsite={}, agency={}, kid={}, user={}", microsite,
+                agency, kid, user);
+
+        Map<String, Integer> removed = new LinkedHashMap<>();
+        if (kid != null) {
+            Set<String> keyUrls = Stream.of(jwtConfig.getQaPublicKeyUrl(), jwtConfig.getStgPublicKeyUrl(),
+                            jwtConfig.getProdPublicKeyUrl())
+                    .map(template -> template.replace("{kid}", kid))
+                    .collect(Collectors.toSet());
+            removed.put(CacheNames.PUBLIC_KEYS,
+                    cacheManager.getCache(CacheNames.PUBLIC_KEYS).evictMatching(keyUrls::contains));
+            // Verifiers are keyed by the key text, not the kid
+            removed.put(JwtService.VERIFIER_CACHE, jwtService.clearVerifiers());
+        }
+        if (microsite != null && agency == null) {
+            removed.put(CacheNames.TRAVELC_TOKENS, authManager.evictToken(microsite));
+        }
+        if ((microsite != null || agency != null) && user == null) {
+            String prefix = microsite != null ? microsite.toLowerCase(Locale.ROOT) + ":" : "";
+            String suffix = agency != null ? ":" + agency : "";
+            removed.put(CacheNames.AGENCY_STATUS, cacheManager.getCache(CacheNames.AGENCY_STATUS)
+                    .evictMatching(key -> key.toLowerCase(Locale.ROOT).startsWith(prefix) && key.endsWith(suffix)));
+        }
+        if (agency != null) {
+            removed.put(PROVISIONING_LEDGER, provisioningLedgerService.invalidate(microsite, agency, user));
+        }
+        return removed;
+    }
+}
@@ -1,33 +1,31 @@
 package de.aerticket.tc_agenties.service;
 
+import de.aerticket.tc_agenties.client.ClientResult;
+import de.aerticket.tc_agenties.client.CockpitAgencyBatcher;
+import de.aerticket.tc_agenties.client.CockpitClient;
 import de.aerticket.tc_agenties.model.CockpitAgency;
+import de.aerticket.tc_agenties.model.CockpitAgent;
 import de.aerticket.tc_agenties.model.JwtClaims;
 import de.aerticket.tc_agenties.model.TravelcAgencyRequest;
 import de.aerticket.tc_agenties.model.TravelcUserRequest;
-import de.aerticket.tc_agenties.util.JwtTokenGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.Collections;
-
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.ResourceAccessException;
+
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class CockpitService {
 
-	private final RestTemplate restTemplate;
-    private final JwtTokenGenerator jwtTokenGenerator; 
-
-	private static final String COCKPIT_API_BASE_URL = "https://cockpit.aerticket.fr/api/aer360/agencies/";
+	private final CockpitClient cockpitClient;
+	private final CockpitAgencyBatcher cockpitAgencyBatcher;
 
 	/**
-	 * Get agency data from Cockpit API
+	 * Get agency data from Cockpit API; concurrent lookups may share one
+	 * batch request (cockpit.batch-enabled)
 	 */
 	public CockpitAgency getAgency(String agencyNumber) {
 		if (agencyNumber == null || agencyNumber.trim().isEmpty()) {
@@ -35,38 +33,34 @@ public class CockpitService {
 			return null;
 		}
 
-		try {
-			String url = COCKPIT_API_BASE_URL + agencyNumber;
-			log.debug("Making API call to Cockpit: {}", url);
-
-			HttpHeaders headers = createCockpitHeaders();
-			HttpEntity<?> entity = new HttpEntity<>(headers);
-
-			ResponseEntity<CockpitAgency> response = restTemplate.exchange(url, HttpMethod.GET, entity,
-					CockpitAgency.class);
-
-			if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-				log.debug("Successfully retrieved agency data from Cockpit for agency: {}", agencyNumber);
-				return response.getBody();
-			} else {
-				log.warn("Empty response from Cockpit API for agency: {}", agencyNumber);
-				return null;
-			}
-
-		} catch (HttpClientErrorException.NotFound e) {
+		ClientResult<CockpitAgency> result = cockpitAgencyBatcher.agency(agencyNumber);
+		if (result instanceof ClientResult.Failed<CockpitAgency> failed) {
+			log.error("Error calling Cockpit API for agency {}: {}", agencyNumber, failed.reason());
+			throw new RuntimeException("Cockpit API error: " + failed.reason(), failed.cause());
+		}
+		if (!result.isFound()) {
 			log.info("Agency not found in Cockpit: agencyNumber={}", agencyNumber);
 			return null;
-		} catch (HttpClientErrorException e) {
-			log.error("HTTP error calling Cockpit API for agency {}: {} - {}", agencyNumber, e.getStatusCode(),
-					e.getMessage());
-			throw new RuntimeException("Cockpit API error: " + e.getMessage(), e);
-		} catch (ResourceAccessException e) {
-			log.error("Network error calling Cockpit API for agency {}: {}", agencyNumber, e.getMessage());
-			throw new RuntimeException("Network error accessing Cockpit: " + e.getMessage(), e);
-		} catch (Exception e) {
-			log.error("Unexpected error calling Cockpit API for agency {}: {}", agencyNumber, e.getMessage());
-			throw new RuntimeException("Unexpected error: " + e.getMessage(), e);
 		}
+		log.debug("Successfully retrieved agency data from Cockpit for agency: {}", agencyNumber);
+		return result.orNull();
+	}
+
+	/**
+	 * Agent roster of an agency; empty if Cockpit has none or cannot be reached
+	 */
+	public List<CockpitAgent> getAgents(String agencyNumber) {
+		if (agencyNumber == null || agencyNumber.trim().isEmpty()) {
+			return List.of();
+		}
+
+		ClientResult<List<CockpitAgent>> result = cockpitClient.agents(agencyNumber);
+		if (result instanceof ClientResult.Failed<List<CockpitAgent>> failed) {
+			log.warn("Could not load agents of agency {} from Cockpit: {}", agencyNumber, failed.reason());
+			return List.of();
+		}
+		List<CockpitAgent> agents = result.orNull();
+		return agents != null ? agents : List.of();
 	}
 
 	/**
@@ -82,24 +76,9 @@ public class CockpitService {
 		}
 	}
 
-	/**
-	 * Create HTTP headers for Cockpit API calls
-	 */
-	private HttpHeaders createCockpitHeaders() {
-		String token = jwtTokenGenerator.generateToken();
-		
-		log.info("token: " , token);
-		HttpHeaders headers = new HttpHeaders();
-		headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
-		headers.set("accept", "application/json");
-		headers.set("Authorization", "Bearer " + token);
-
-		return headers;
-	}
-
 	/**
 	 * Convert CockpitAgency to TravelcAgencyRequest for creating/updating in
-	 * TravelCompositor
+	 * TravelCompositor; active unless Cockpit reports the agency deactivated
 	 */
 	public TravelcAgencyRequest convertToTravelcRequest(CockpitAgency cockpitAgency) {
 		if (cockpitAgency == null) {
@@ -113,9 +92,8 @@ public class CockpitService {
 				.taxNumber(cockpitAgency.getTaxNumber()).valueAddedTaxId(cockpitAgency.getValueAddedTaxId())
 				.IBAN(cockpitAgency.getIban()).BIC(cockpitAgency.getBic()).bankName(cockpitAgency.getBankName())
 				.collectionMethod(cockpitAgency.getCollectionMethod())
-				.companyShortCode(cockpitAgency.getCompanyShortCode()).chain(cockpitAgency.getChain()).active("true") // Default
-																														// to
-																														// active
+				.companyShortCode(cockpitAgency.getCompanyShortCode()).chain(cockpitAgency.getChain())
+				.active(Boolean.FALSE.equals(cockpitAgency.getActive()) ? "false" : "true")
 				.taxes("0") // Default tax setting
 				.invoiceType("NET") // Default invoice type
 				.documentNumber("-").contactPersonName("-").contactPersonLastName("-")
@@ -131,9 +109,28 @@ public class CockpitService {
 			return null;
 		}
 
+		return userRequest(claims.getJobId().toString(), claims.getAgentFirstName(), claims.getAgentLastName(),
+				cockpitAgency.getEmail(), cockpitAgency);
+	}
+
+	/**
+	 * Convert a roster agent to TravelcUserRequest; agents without their own
+	 * email get the agency's, as logged-in agents do
+	 */
+	public TravelcUserRequest convertToTravelcUserRequest(CockpitAgent agent, CockpitAgency cockpitAgency) {
+		if (agent == null || cockpitAgency == null) {
+			return null;
+		}
+
+		String email = agent.getEmail() != null && !agent.getEmail().isBlank() ? agent.getEmail()
+				: cockpitAgency.getEmail();
+		return userRequest(agent.getJobId(), agent.getFirstName(), agent.getLastName(), email, cockpitAgency);
+	}
+
+	private TravelcUserRequest userRequest(String username, String firstName, String lastName, String email,
+			CockpitAgency cockpitAgency) {
 		String[] roles = new String[] { "user", "agent" };
-		return TravelcUserRequest.builder().username(claims.getJobId().toString()).name(claims.getAgentFirstName())
-				.surname(claims.getAgentLastName()).email(cockpitAgency.getEmail())
+		return TravelcUserRequest.builder().username(username).name(firstName).surname(lastName).email(email)
 				.agency(cockpitAgency.getAgencyNumber()).password("").active("true").roles(roles).build();
 	}
 }
\ No newline at end of file
@@ -1,7 +1,13 @@
 package de.aerticket.tc_agenties.service;
 
+import de.aerticket.tc_agenties.cache.CacheNames;
+import de.aerticket.tc_agenties.cache.SharedCache;
+import de.aerticket.tc_agenties.cache.SharedCacheManager;
+import de.aerticket.tc_agenties.config.CacheConfig;
+import de.aerticket.tc_agenties.jfr.CacheMissEvent;
+import de.aerticket.tc_agenties.util.Deadline;
+import de.aerticket.tc_agenties.util.RequestTimings;
 import de.aerticket.tc_agenties.config.JwtConfig;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -10,33 +16,60 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URL;
-import java.util.concurrent.ConcurrentHashMap;
+import java.time.Duration;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class HttpClientService {
 
     private final JwtConfig jwtConfig;
-    private final ConcurrentHashMap<String, String> publicKeyCache = new ConcurrentHashMap<>();
+    private final SharedCache publicKeyCache;
+    private final Duration publicKeyTtl;
+    private final ShadowVerificationService shadowVerificationService;
+
+    public HttpClientService(JwtConfig jwtConfig, CacheConfig cacheConfig, SharedCacheManager cacheManager,
+            ShadowVerificationService shadowVerificationService) {
+        this.jwtConfig = jwtConfig;
+        this.shadowVerificationService = shadowVerificationService;
+        this.publicKeyCache = cacheManager.getCache(CacheNames.PUBLIC_KEYS);
+        this.publicKeyTtl = Duration.ofSeconds(cacheConfig.getPublicKeyTtlSeconds());
+    }
 
     public String getPublicKey(String keyUrl) {
         // Check cache first
         String cachedKey = publicKeyCache.get(keyUrl);
         if (cachedKey != null) {
             log.debug("Retrieved public key from cache for URL: {}", keyUrl);
+            RequestTimings.hit(RequestTimings.Stage.JWT);
+            if (shadowVerificationService.isEnabled()) {
+                shadowVerificationService.sample(CacheNames.PUBLIC_KEYS, null, "url=" + keyUrl, () -> {
+                    String liveKey = downloadPublicKey(keyUrl);
+                    return liveKey != null ? liveKey.equals(cachedKey) : null;
+                });
+            }
             return cachedKey;
         }
 
+        RequestTimings.miss(RequestTimings.Stage.JWT);
+        CacheMissEvent event = CacheMissEvent.start();
+        String publicKey = downloadPublicKey(keyUrl);
+        if (publicKey != null) {
+            publicKeyCache.put(keyUrl, publicKey, publicKeyTtl);
+        }
+        event.finish(CacheNames.PUBLIC_KEYS, null, keyUrl, publicKey != null);
+        return publicKey;
+    }
+
+    private String downloadPublicKey(String keyUrl) {
         try {
             log.info("Fetching public key from URL: {}", keyUrl);
 
             URL url = new URL(keyUrl);
             HttpURLConnection connection = (HttpURLConnection) url.openConnection();
 
-            // Set timeouts
-            connection.setConnectTimeout(jwtConfig.getConnectionTimeout());
-            connection.setReadTimeout(jwtConfig.getReadTimeout());
+            // Set timeouts, bounded by the deadline of the login
+            connection.setConnectTimeout(Deadline.timeoutFor("public key fetch", jwtConfig.getConnectionTimeout()));
+            connection.setReadTimeout(Deadline.timeoutFor("public key fetch", jwtConfig.getReadTimeout()));
             connection.setRequestMethod("GET");
             connection.setRequestProperty("User-Agent", "AER-TC-Agencies/1.0");
 
@@ -54,10 +87,7 @@ public class HttpClientService {
 
                 String publicKey = response.toString();
 
-                // Cache the public key
-                publicKeyCache.put(keyUrl, publicKey);
-
-                log.info("Successfully retrieved and cached public key from: {}", keyUrl);
+                log.info("Successfully retrieved public key from: {}", keyUrl);
                 return publicKey;
 
             } else {
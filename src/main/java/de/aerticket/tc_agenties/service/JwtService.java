@@ -3,15 +3,20 @@ package de.aerticket.tc_agenties.service;
 import com.nimbusds.jose.JWSObject;
 import com.nimbusds.jose.JWSVerifier;
 import com.nimbusds.jose.crypto.ECDSAVerifier;
-import com.nimbusds.jwt.JWTClaimsSet;
-import com.nimbusds.jwt.JWTParser;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import de.aerticket.tc_agenties.cache.CacheStats;
 import de.aerticket.tc_agenties.config.JwtConfig;
+import de.aerticket.tc_agenties.exception.DeadlineExceededException;
 import de.aerticket.tc_agenties.model.JwtClaims;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.json.JSONObject;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyFactory;
 import java.security.interfaces.ECPublicKey;
 import java.security.spec.X509EncodedKeySpec;
@@ -19,6 +24,7 @@ import java.util.Base64;
 import java.util.Date;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * JWT utilities: parsing, signature validation, and minimal claims checks.
@@ -32,31 +38,41 @@ import java.util.concurrent.ConcurrentHashMap;
 @Slf4j
 public class JwtService {
 
+    public static final String VERIFIER_CACHE = "jwt-verifiers";
+
     private static final String ALG_ES256 = "ES256";
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final int MAX_CACHED_VERIFIERS = 64;
 
     private final JwtConfig jwtConfig;
     private final HttpClientService httpClientService;
 
-    // Simple cache for public keys by URL to avoid repeated network calls
-    private final Map<String, String> publicKeyCache = new ConcurrentHashMap<>();
+    // Verifiers by PEM; the key text itself comes from the shared key cache
+    private final Map<String, JWSVerifier> verifiers = new ConcurrentHashMap<>();
+    private final LongAdder verifierHits = new LongAdder();
+    private final LongAdder verifierMisses = new LongAdder();
+    private final LongAdder verifierEvictions = new LongAdder();
 
     /**
      * Parse and validate JWT token (ES256), then convert to JwtClaims.
      */
     public JwtClaims parseJwtToken(String token) {
         try {
-            String[] tokenParts = token.split("\\.");
-            if (tokenParts.length != 3) {
+            int headerEnd = token.indexOf('.');
+            int bodyEnd = headerEnd < 0 ? -1 : token.indexOf('.', headerEnd + 1);
+            if (bodyEnd < 0 || token.indexOf('.', bodyEnd + 1) >= 0 || headerEnd == 0
+                    || bodyEnd == headerEnd + 1 || bodyEnd == token.length() - 1) {
                 throw new IllegalArgumentException("Invalid JWT token format");
             }
 
-            // Decode header and body
-            JSONObject headerObject = decodeBase64ToJSON(tokenParts[0]);
-            JSONObject bodyObject = decodeBase64ToJSON(tokenParts[1]);
+            // Decode header and body straight from the token, without intermediate JSON trees
+            byte[] tokenBytes = token.getBytes(StandardCharsets.ISO_8859_1);
+            JwtHeader header = readHeader(tokenBytes, 0, headerEnd);
+            JwtClaims claims = readClaims(tokenBytes, headerEnd + 1, bodyEnd - headerEnd - 1);
 
-            String algorithm = headerObject.optString("alg");
-            String kid = headerObject.optString("kid", null);
-            String iss = bodyObject.optString("iss", null);
+            String algorithm = header.algorithm();
+            String kid = header.kid();
+            String iss = claims.getIss();
 
             log.debug("JWT alg={}, kid={}, iss={} detected", algorithm, kid, iss);
 
@@ -87,8 +103,10 @@ public class JwtService {
             }
 
             log.info("ES256 JWT token validation successful");
-            return convertJSONToJwtClaims(bodyObject);
+            return claims;
 
+        } catch (DeadlineExceededException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error parsing JWT token: {}", e.getMessage());
             throw new IllegalArgumentException("Invalid JWT token", e);
@@ -96,52 +114,39 @@ public class JwtService {
     }
 
     /**
-     * Retrieve public key with a small in-memory cache by URL.
+     * Retrieve public key; HttpClientService keeps it in the shared key cache.
      */
     private String getPublicKey(String url) {
-        return publicKeyCache.computeIfAbsent(url, k -> {
-            try {
-                return httpClientService.getPublicKey(k);
-            } catch (Exception e) {
-                log.error("Error fetching public key from {}: {}", k, e.getMessage());
-                return null;
-            }
-        });
+        try {
+            return httpClientService.getPublicKey(url);
+        } catch (DeadlineExceededException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Error fetching public key from {}: {}", url, e.getMessage());
+            return null;
+        }
     }
 
     /**
-     * Validate ES256 JWT token signature with PEM-encoded public key.
+     * Validate ES256 JWT token signature with PEM-encoded public key. The
+     * verifier is kept per key, so key decoding only happens once per key.
      */
     private boolean validateES256JWT(String jwtToken, String publicKeyPEM) {
         try {
-            // Clean the PEM format
-            String cleanedPEM = publicKeyPEM
-                    .replaceAll("-----BEGIN PUBLIC KEY-----", "")
-                    .replaceAll("-----END PUBLIC KEY-----", "")
-                    .replaceAll("\\s", "");
-
-            // Decode the public key
-            byte[] publicKeyBytes = Base64.getDecoder().decode(cleanedPEM);
-            KeyFactory keyFactory = KeyFactory.getInstance("EC");
-            ECPublicKey publicKey = (ECPublicKey) keyFactory.generatePublic(new X509EncodedKeySpec(publicKeyBytes));
-
-            // Create verifier and validate
-            JWSVerifier verifier = new ECDSAVerifier(publicKey);
-            JWSObject jwsObject = JWSObject.parse(jwtToken);
-
-            boolean isValid = jwsObject.verify(verifier);
-
-            if (isValid) {
-                // Optional expiration check (disabled to keep behavior)
-                JWTClaimsSet claimsSet = JWTParser.parse(jwtToken).getJWTClaimsSet();
-                Date expirationTime = claimsSet.getExpirationTime();
-                // if (expirationTime != null && expirationTime.before(new Date())) {
-                // log.warn("JWT token is expired");
-                // return false;
-                // }
+            JWSVerifier verifier = verifiers.get(publicKeyPEM);
+            if (verifier == null) {
+                verifierMisses.increment();
+                verifier = createVerifier(publicKeyPEM);
+                if (verifiers.size() >= MAX_CACHED_VERIFIERS) {
+                    clearVerifiers();
+                }
+                verifiers.put(publicKeyPEM, verifier);
+            } else {
+                verifierHits.increment();
             }
 
-            return isValid;
+            // Expiration (exp) is not checked here, to keep behavior
+            return JWSObject.parse(jwtToken).verify(verifier);
 
         } catch (Exception e) {
             log.error("Error validating ES256 JWT: {}", e.getMessage());
@@ -149,6 +154,42 @@ public class JwtService {
         }
     }
 
+    /**
+     * Statistics of the verifier cache, for the admin API
+     */
+    public CacheStats verifierStats() {
+        return CacheStats.of(VERIFIER_CACHE, verifiers.size(), verifierHits.sum(), verifierMisses.sum(),
+                verifierEvictions.sum(), null);
+    }
+
+    /**
+     * Drop all cached verifiers; returns the number removed
+     */
+    public int clearVerifiers() {
+        int removed = 0;
+        for (String publicKeyPEM : verifiers.keySet()) {
+            if (verifiers.remove(publicKeyPEM) != null) {
+                removed++;
+            }
+        }
+        verifierEvictions.add(removed);
+        return removed;
+    }
+
+    private static JWSVerifier createVerifier(String publicKeyPEM) throws Exception {
+        // Clean the PEM format
+        String cleanedPEM = publicKeyPEM
+                .replace("-----BEGIN PUBLIC KEY-----", "")
+                .replace("-----END PUBLIC KEY-----", "")
+                .replaceAll("\\s", "");
+
+        // Decode the public key
+        byte[] publicKeyBytes = Base64.getDecoder().decode(cleanedPEM);
+        KeyFactory keyFactory = KeyFactory.getInstance("EC");
+        ECPublicKey publicKey = (ECPublicKey) keyFactory.generatePublic(new X509EncodedKeySpec(publicKeyBytes));
+        return new ECDSAVerifier(publicKey);
+    }
+
     /**
      * Determine public key URL based on issuer.
      */
@@ -167,49 +208,103 @@ public class JwtService {
     }
 
     /**
-     * Decode Base64URL string to JSON object.
+     * Read alg and kid from the Base64URL-encoded header part.
      */
-    private JSONObject decodeBase64ToJSON(String base64) {
-        byte[] decodedBytes = Base64.getUrlDecoder().decode(base64);
-        String decodedString = new String(decodedBytes);
-        return new JSONObject(decodedString);
+    private static JwtHeader readHeader(byte[] token, int offset, int length) throws IOException {
+        String algorithm = "";
+        String kid = null;
+        try (JsonParser parser = openPart(token, offset, length)) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("alg".equals(field)) {
+                    algorithm = stringValue(parser, value, "");
+                } else if ("kid".equals(field)) {
+                    kid = stringValue(parser, value, null);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return new JwtHeader(algorithm, kid);
     }
 
     /**
-     * Convert JSONObject to JwtClaims POJO.
+     * Read the Base64URL-encoded body part into JwtClaims. Missing string
+     * claims are empty, as before; iss stays null if absent.
      */
-    private JwtClaims convertJSONToJwtClaims(JSONObject jsonObject) {
+    private static JwtClaims readClaims(byte[] token, int offset, int length) throws IOException {
         JwtClaims jwtClaims = new JwtClaims();
-
-        jwtClaims.setSub(jsonObject.optString("sub"));
-        jwtClaims.setAgencyNumber(jsonObject.optString("agencyNumber"));
-        jwtClaims.setCompanyCode(jsonObject.optString("companyCode"));
-
-        // Handle jobId safely
-        if (jsonObject.has("jobId")) {
-            Object jobIdObj = jsonObject.get("jobId");
-            jwtClaims.setJobId(jobIdObj.toString());
+        jwtClaims.setSub("");
+        jwtClaims.setAgencyNumber("");
+        jwtClaims.setCompanyCode("");
+        jwtClaims.setRole("");
+        jwtClaims.setAud("");
+        jwtClaims.setJti("");
+        jwtClaims.setAgentFirstName("");
+        jwtClaims.setAgentLastName("");
+
+        try (JsonParser parser = openPart(token, offset, length)) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "sub" -> jwtClaims.setSub(stringValue(parser, value, ""));
+                    case "agencyNumber" -> jwtClaims.setAgencyNumber(stringValue(parser, value, ""));
+                    case "companyCode" -> jwtClaims.setCompanyCode(stringValue(parser, value, ""));
+                    // Handle jobId safely: numbers and strings both become their text
+                    case "jobId" -> jwtClaims.setJobId(value == JsonToken.VALUE_NULL ? "null"
+                            : stringValue(parser, value, ""));
+                    case "role" -> jwtClaims.setRole(stringValue(parser, value, ""));
+                    case "iss" -> jwtClaims.setIss(stringValue(parser, value, null));
+                    case "aud" -> jwtClaims.setAud(stringValue(parser, value, ""));
+                    case "jti" -> jwtClaims.setJti(stringValue(parser, value, ""));
+                    case "agentFirstName" -> jwtClaims.setAgentFirstName(stringValue(parser, value, ""));
+                    case "agentLastName" -> jwtClaims.setAgentLastName(stringValue(parser, value, ""));
+                    // Handle timestamps
+                    case "exp" -> jwtClaims.setExp(longValue(parser, value));
+                    case "iat" -> jwtClaims.setIat(longValue(parser, value));
+                    case "nbf" -> jwtClaims.setNbf(longValue(parser, value));
+                    default -> parser.skipChildren();
+                }
+            }
         }
+        return jwtClaims;
+    }
 
-        jwtClaims.setRole(jsonObject.optString("role"));
-        jwtClaims.setIss(jsonObject.optString("iss"));
-        jwtClaims.setAud(jsonObject.optString("aud"));
-        jwtClaims.setJti(jsonObject.optString("jti"));
-        jwtClaims.setAgentFirstName(jsonObject.optString("agentFirstName"));
-        jwtClaims.setAgentLastName(jsonObject.optString("agentLastName"));
-
-        // Handle timestamps
-        if (jsonObject.has("exp")) {
-            jwtClaims.setExp(jsonObject.optLong("exp"));
+    private static JsonParser openPart(byte[] token, int offset, int length) throws IOException {
+        JsonParser parser = JSON_FACTORY.createParser(
+                Base64.getUrlDecoder().wrap(new ByteArrayInputStream(token, offset, length)));
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            parser.close();
+            throw new IllegalArgumentException("JWT part is not a JSON object");
         }
-        if (jsonObject.has("iat")) {
-            jwtClaims.setIat(jsonObject.optLong("iat"));
+        return parser;
+    }
+
+    /**
+     * Scalar value as text; null and nested values give the default
+     */
+    private static String stringValue(JsonParser parser, JsonToken value, String defaultValue) throws IOException {
+        if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return defaultValue;
         }
-        if (jsonObject.has("nbf")) {
-            jwtClaims.setNbf(jsonObject.optLong("nbf"));
+        return value == JsonToken.VALUE_NULL ? defaultValue : parser.getText();
+    }
+
+    /**
+     * Numeric (or numeric string) value; anything else counts as 0
+     */
+    private static long longValue(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return 0L;
         }
+        return parser.getValueAsLong(0L);
+    }
 
-        return jwtClaims;
+    private record JwtHeader(String algorithm, String kid) {
     }
 
     /**
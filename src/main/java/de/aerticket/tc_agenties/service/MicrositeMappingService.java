@@ -1,20 +1,153 @@
 package de.aerticket.tc_agenties.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.aerticket.tc_agenties.cache.CacheStats;
+import de.aerticket.tc_agenties.config.MicrositeConfig;
 import de.aerticket.tc_agenties.entity.MicrositeMapping;
 import de.aerticket.tc_agenties.repository.MicrositeMappingRepository;
+import de.aerticket.tc_agenties.snapshot.MicrositeMappingSnapshot;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
-
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Company code to microsite mappings (lmxdb.aer_cockpit_mapping_microsite).
+ *
+ * With microsite.mapping-snapshot-enabled the table is held in memory:
+ * startup loads the last local snapshot and the database is read in the
+ * background (then every mapping-refresh-interval-seconds), each read that
+ * changed the mappings replacing the snapshot file. Until a snapshot or the
+ * first database load is available, lookups query the repository directly.
+ *
+ * In memory, company codes are matched trimmed and case-insensitively, as the
+ * database collation matches them.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class MicrositeMappingService {
 
     private final MicrositeMappingRepository micrositeMappingRepository;
+    private final MicrositeConfig micrositeConfig;
+    private final ObjectMapper objectMapper;
+
+    public static final String CACHE_NAME = "microsite-mappings";
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private volatile Map<String, List<MicrositeMapping>> mappingsByCompanyCode;
+    // Mappings as last read from or written to the snapshot file
+    private volatile Map<String, List<MicrositeMapping>> persistedMappings;
+    private volatile long loadedAt;
+    private ScheduledExecutorService refresher;
+
+    @PostConstruct
+    public void start() {
+        if (!micrositeConfig.isMappingSnapshotEnabled()) {
+            return;
+        }
+        Path file = Path.of(micrositeConfig.getMappingSnapshotPath());
+        try {
+            List<MicrositeMapping> mappings = MicrositeMappingSnapshot.readFrom(file, objectMapper);
+            mappingsByCompanyCode = index(mappings);
+            persistedMappings = mappingsByCompanyCode;
+            loadedAt = Files.getLastModifiedTime(file).toMillis();
+            log.info("Loaded {} microsite mappings from snapshot {}", mappings.size(), file);
+        } catch (NoSuchFileException e) {
+            log.info("No microsite mapping snapshot at {}, waiting for the database", file);
+        } catch (Exception e) {
+            log.warn("Ignoring unreadable microsite mapping snapshot {}: {}", file, e.getMessage());
+        }
+
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "microsite-mapping-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(this::refresh, 0, micrositeConfig.getMappingRefreshIntervalSeconds(),
+                TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    /**
+     * Reload all mappings from the database and replace the snapshot file if
+     * they changed; on failure the current mappings stay in place
+     */
+    public void refresh() {
+        List<MicrositeMapping> mappings;
+        try {
+            mappings = micrositeMappingRepository.findAll();
+        } catch (Exception e) {
+            log.warn("Microsite mappings not refreshed, database unavailable: {}", e.getMessage());
+            return;
+        }
+        Map<String, List<MicrositeMapping>> refreshed = index(mappings);
+        mappingsByCompanyCode = refreshed;
+        loadedAt = System.currentTimeMillis();
+        log.info("Refreshed {} microsite mappings from the database", mappings.size());
+
+        if (refreshed.equals(persistedMappings)) {
+            return;
+        }
+        Path file = Path.of(micrositeConfig.getMappingSnapshotPath());
+        try {
+            MicrositeMappingSnapshot.writeTo(file, mappings, objectMapper);
+            persistedMappings = refreshed;
+        } catch (Exception e) {
+            log.error("Error writing microsite mapping snapshot {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Lookups served from memory count as hits, those sent to the database as misses
+     */
+    public CacheStats stats() {
+        Map<String, List<MicrositeMapping>> cached = mappingsByCompanyCode;
+        return CacheStats.of(CACHE_NAME, cached != null ? cached.size() : 0, hits.sum(), misses.sum(), 0,
+                cached != null ? System.currentTimeMillis() - loadedAt : null);
+    }
+
+    private Map<String, List<MicrositeMapping>> cachedMappings() {
+        Map<String, List<MicrositeMapping>> cached = mappingsByCompanyCode;
+        (cached != null ? hits : misses).increment();
+        return cached;
+    }
+
+    private static Map<String, List<MicrositeMapping>> index(List<MicrositeMapping> mappings) {
+        return mappings.stream()
+                .filter(mapping -> !key(mapping.getCompanyCode()).isEmpty())
+                .sorted(Comparator.comparing(MicrositeMapping::getId,
+                        Comparator.nullsLast(Comparator.naturalOrder())))
+                .collect(Collectors.groupingBy(mapping -> key(mapping.getCompanyCode()),
+                        Collectors.toUnmodifiableList()));
+    }
+
+    private static String key(String companyCode) {
+        return companyCode != null ? companyCode.trim().toUpperCase(Locale.ROOT) : "";
+    }
 
     /**
      * Get microsite URL by company code
@@ -23,7 +156,11 @@ public class MicrositeMappingService {
         log.debug("Fetching microsite URL for company code: {}", companyCode);
 
         try {
-            Optional<String> micrositeUrl = micrositeMappingRepository.findMicrositeUrlByCompanyCode(companyCode);
+            Map<String, List<MicrositeMapping>> cached = cachedMappings();
+            Optional<String> micrositeUrl = cached != null
+                    ? cached.getOrDefault(key(companyCode), List.of()).stream().findFirst()
+                            .map(MicrositeMapping::getMicrositeUrl)
+                    : micrositeMappingRepository.findMicrositeUrlByCompanyCode(companyCode);
 
             if (micrositeUrl.isPresent()) {
                 log.info("Found microsite URL for company code {}: {}", companyCode, micrositeUrl.get());
@@ -46,7 +183,10 @@ public class MicrositeMappingService {
         log.debug("Fetching microsite mapping for company code: {}", companyCode);
 
         try {
-            Optional<MicrositeMapping> mapping = micrositeMappingRepository.findFirstByCompanyCode(companyCode);
+            Map<String, List<MicrositeMapping>> cached = cachedMappings();
+            Optional<MicrositeMapping> mapping = cached != null
+                    ? cached.getOrDefault(key(companyCode), List.of()).stream().findFirst()
+                    : micrositeMappingRepository.findFirstByCompanyCode(companyCode);
 
             if (mapping.isPresent()) {
                 log.info("Found microsite mapping for company code: {}", companyCode);
@@ -69,7 +209,10 @@ public class MicrositeMappingService {
         log.debug("Fetching all microsite mappings for company code: {}", companyCode);
 
         try {
-            List<MicrositeMapping> mappings = micrositeMappingRepository.findByCompanyCode(companyCode);
+            Map<String, List<MicrositeMapping>> cached = cachedMappings();
+            List<MicrositeMapping> mappings = cached != null
+                    ? cached.getOrDefault(key(companyCode), List.of())
+                    : micrositeMappingRepository.findByCompanyCode(companyCode);
             log.info("Found {} microsite mappings for company code: {}", mappings.size(), companyCode);
             return mappings;
 
@@ -86,7 +229,10 @@ public class MicrositeMappingService {
         log.debug("Checking if company code has mapping: {}", companyCode);
 
         try {
-            boolean exists = micrositeMappingRepository.existsByCompanyCode(companyCode);
+            Map<String, List<MicrositeMapping>> cached = cachedMappings();
+            boolean exists = cached != null
+                    ? cached.containsKey(key(companyCode))
+                    : micrositeMappingRepository.existsByCompanyCode(companyCode);
             log.debug("Company code {} mapping exists: {}", companyCode, exists);
             return exists;
 
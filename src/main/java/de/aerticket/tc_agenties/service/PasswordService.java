@@ -4,30 +4,50 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
 @Service
 @Slf4j
 public class PasswordService {
 
     private static final String SECRET_SUFFIX = "_*seCrEt+";
+    private static final byte[] SECRET_SUFFIX_BYTES = SECRET_SUFFIX.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final int MD5_BYTES = 16;
+
+    // MessageDigest is not thread-safe; each request thread keeps its own
+    private static final ThreadLocal<MessageDigest> MD5 = ThreadLocal.withInitial(DigestUtils::getMd5Digest);
+    // Scratch space for identifier bytes, the digest and its hex form
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[64]);
 
     /**
      * Generate encrypted password using the formula:
      * jobId + "_" + agencyNumber + "_*seCrEt+"
      * Then MD5 hash the result
+     *
+     * The parts are fed to a per-thread digest as bytes and hex-encoded
+     * directly, so the only allocation is the returned String.
      */
     public String generateEncryptedPassword(String jobId, String agencyNumber) {
         try {
-            // Trim and convert to string
-            String jobIdStr = jobId != null ? jobId.toString().trim() : "";
-            String agencyNumberStr = agencyNumber != null ? agencyNumber.trim() : "";
-
-            // Build plain password
-            String plainPassword = jobIdStr + "_" + agencyNumberStr + SECRET_SUFFIX;
-
             log.debug("Generating password for jobId: {} and agencyNumber: {}", jobId, agencyNumber);
 
-            // Generate MD5 hash
-            String encryptedPassword = DigestUtils.md5Hex(plainPassword);
+            MessageDigest md5 = MD5.get();
+            md5.reset();
+            byte[] scratch = SCRATCH.get();
+            updateTrimmed(md5, jobId, scratch);
+            md5.update((byte) '_');
+            updateTrimmed(md5, agencyNumber, scratch);
+            md5.update(SECRET_SUFFIX_BYTES);
+            md5.digest(scratch, 0, MD5_BYTES);
+
+            for (int i = MD5_BYTES - 1; i >= 0; i--) {
+                int value = scratch[i] & 0xff;
+                scratch[i * 2] = HEX_DIGITS[value >>> 4];
+                scratch[i * 2 + 1] = HEX_DIGITS[value & 0x0f];
+            }
+            String encryptedPassword = new String(scratch, 0, MD5_BYTES * 2, StandardCharsets.ISO_8859_1);
 
             log.debug("Password generated successfully");
 
@@ -40,6 +60,40 @@ public class PasswordService {
         }
     }
 
+    /**
+     * Digest the UTF-8 bytes of the trimmed value (null counts as empty).
+     * ASCII goes through the scratch buffer; from the first non-ASCII char on
+     * the rest is encoded by the JDK.
+     */
+    private static void updateTrimmed(MessageDigest md5, String value, byte[] scratch) {
+        if (value == null) {
+            return;
+        }
+        int start = 0;
+        int end = value.length();
+        while (start < end && value.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                md5.update(scratch, 0, length);
+                md5.update(value.substring(i, end).getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            if (length == scratch.length) {
+                md5.update(scratch, 0, length);
+                length = 0;
+            }
+            scratch[length++] = (byte) c;
+        }
+        md5.update(scratch, 0, length);
+    }
+
     /**
      * Validate if the provided password matches the expected encrypted password
      */
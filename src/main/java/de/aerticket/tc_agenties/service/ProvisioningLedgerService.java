@@ -0,0 +1,289 @@
+package de.aerticket.tc_agenties.service;
+
+import de.aerticket.tc_agenties.config.ProvisioningConfig;
+import de.aerticket.tc_agenties.entity.ProvisioningLedgerEntry;
+import de.aerticket.tc_agenties.repository.ProvisioningLedgerRepository;
+import de.aerticket.tc_agenties.snapshot.ProvisionedSnapshotService;
+import de.aerticket.tc_agenties.util.Deadline;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local record of agencies and users that exist in TravelCompositor.
+ *
+ * Agency and user rows are both keyed by the microsite TravelCompositor
+ * writes go to (not the microsite API name), so one microsite filter finds
+ * every row of an agency.
+ *
+ * A fresh ledger entry lets a login skip the remote existence check. The
+ * provisioned snapshot is consulted first and kept in step with every write,
+ * so confirmations survive restarts without a query.
+ *
+ * The database never holds up a login: a lookup runs on a ledger thread and
+ * the login waits for it at most ledgerLookupTimeoutMs (and never past its
+ * deadline); database errors and late answers count as a miss, so logins
+ * fall back to TravelCompositor. Confirmations are written by a background
+ * writer; when its queue is full only the snapshot keeps them.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProvisioningLedgerService {
+
+    public static final String ORIGIN_CONFIRMED = "CONFIRMED";
+    public static final String ORIGIN_CREATED = "CREATED";
+    public static final String ORIGIN_UPDATED = "UPDATED";
+    public static final String ORIGIN_PREPROVISIONED = "PREPROVISIONED";
+
+    private final ProvisioningLedgerRepository ledgerRepository;
+    private final ProvisioningConfig provisioningConfig;
+    private final ProvisionedSnapshotService snapshotService;
+    private final AtomicLong droppedWrites = new AtomicLong();
+
+    private ThreadPoolExecutor lookups;
+    private BlockingQueue<PendingWrite> writes;
+    private Thread writer;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        int threads = Math.max(1, provisioningConfig.getLedgerLookupThreads());
+        lookups = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads * 25), runnable -> {
+                    Thread thread = new Thread(runnable, "ledger-lookup-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        writes = new ArrayBlockingQueue<>(Math.max(1, provisioningConfig.getLedgerWriteQueueCapacity()));
+        running = true;
+        writer = new Thread(this::writeQueued, "ledger-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Stop after the queued confirmations have been written
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (lookups != null) {
+            lookups.shutdownNow();
+        }
+        if (writer != null) {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    /**
+     * Check if agency was confirmed in TravelCompositor recently enough
+     */
+    public boolean isAgencyConfirmed(String microsite, String agencyNumber) {
+        return isFresh(microsite, agencyNumber, ProvisioningLedgerEntry.AGENCY_ROW);
+    }
+
+    /**
+     * Check if user was confirmed in TravelCompositor recently enough
+     */
+    public boolean isUserConfirmed(String microsite, String agencyNumber, String jobId) {
+        return jobId != null && isFresh(microsite, agencyNumber, jobId);
+    }
+
+    /**
+     * Record that agency exists in TravelCompositor
+     */
+    public void recordAgency(String microsite, String agencyNumber, String origin, String contentHash) {
+        record(microsite, agencyNumber, ProvisioningLedgerEntry.AGENCY_ROW, origin, contentHash);
+    }
+
+    /**
+     * Record that user exists in TravelCompositor
+     */
+    public void recordUser(String microsite, String agencyNumber, String jobId, String origin) {
+        if (jobId != null) {
+            record(microsite, agencyNumber, jobId, origin, null);
+        }
+    }
+
+    /**
+     * Get the full agency entry, if any
+     */
+    public Optional<ProvisioningLedgerEntry> getAgencyEntry(String microsite, String agencyNumber) {
+        if (!provisioningConfig.isLedgerEnabled() || microsite == null || agencyNumber == null) {
+            return Optional.empty();
+        }
+        try {
+            return ledgerRepository.findByMicrositeAndAgencyNumberAndJobId(microsite, agencyNumber,
+                    ProvisioningLedgerEntry.AGENCY_ROW);
+        } catch (Exception e) {
+            log.error("Error reading provisioning ledger for microsite={}, agency={}: {}", microsite,
+                    agencyNumber, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Agency rows of an agency in every microsite it was provisioned to
+     */
+    public List<ProvisioningLedgerEntry> getAgencyEntries(String agencyNumber) {
+        if (!provisioningConfig.isLedgerEnabled() || agencyNumber == null) {
+            return List.of();
+        }
+        try {
+            return ledgerRepository.findByAgencyNumber(agencyNumber).stream()
+                    .filter(entry -> ProvisioningLedgerEntry.AGENCY_ROW.equals(entry.getJobId()))
+                    .toList();
+        } catch (Exception e) {
+            log.error("Error reading provisioning ledger for agency={}: {}", agencyNumber, e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Forget entries so the next login re-checks TravelCompositor: the agency
+     * and all its users, or only jobId if given. A null microsite matches
+     * every microsite. Returns the number of ledger rows removed.
+     */
+    public int invalidate(String microsite, String agencyNumber, String jobId) {
+        // A confirmation still waiting for the writer would bring the row back
+        if (writes != null) {
+            writes.removeIf(write -> write.agencyNumber().equals(agencyNumber)
+                    && (microsite == null || microsite.equalsIgnoreCase(write.microsite()))
+                    && (jobId == null || jobId.equals(write.jobId())));
+        }
+        // The snapshot must forget them even when the ledger table is unreachable
+        if (microsite != null) {
+            snapshotService.remove(microsite, agencyNumber,
+                    jobId != null ? jobId : ProvisioningLedgerEntry.AGENCY_ROW);
+        } else {
+            snapshotService.revokeAgency(agencyNumber, now().toEpochSecond(ZoneOffset.UTC));
+        }
+        try {
+            List<ProvisioningLedgerEntry> entries = ledgerRepository.findByAgencyNumber(agencyNumber).stream()
+                    .filter(entry -> microsite == null || microsite.equalsIgnoreCase(entry.getMicrosite()))
+                    .filter(entry -> jobId == null || jobId.equals(entry.getJobId()))
+                    .toList();
+            entries.forEach(entry -> snapshotService.remove(entry.getMicrosite(), entry.getAgencyNumber(),
+                    entry.getJobId()));
+            ledgerRepository.deleteAll(entries);
+            log.info("Invalidated {} provisioning ledger entries for microsite={}, agency={}, jobId={}",
+                    entries.size(), microsite, agencyNumber, jobId);
+            return entries.size();
+        } catch (Exception e) {
+            log.error("Error invalidating provisioning ledger for microsite={}, agency={}, jobId={}: {}", microsite,
+                    agencyNumber, jobId, e.getMessage());
+            return 0;
+        }
+    }
+
+    private boolean isFresh(String microsite, String agencyNumber, String jobId) {
+        if (!provisioningConfig.isLedgerEnabled() || microsite == null || agencyNumber == null) {
+            return false;
+        }
+        if (snapshotService.isFresh(microsite, agencyNumber, jobId, provisioningConfig.getLedgerMaxAgeSeconds())) {
+            log.debug("Provisioned snapshot hit microsite={}, agency={}, jobId={}", microsite, agencyNumber, jobId);
+            return true;
+        }
+        long waitMs = Math.min(provisioningConfig.getLedgerLookupTimeoutMs(), Deadline.remainingMillis());
+        if (waitMs <= 0) {
+            return false;
+        }
+        Future<Boolean> lookup;
+        try {
+            lookup = lookups.submit(() -> lookUp(microsite, agencyNumber, jobId));
+        } catch (RejectedExecutionException e) {
+            log.warn("Provisioning ledger lookups saturated, not checking microsite={}, agency={}, jobId={}",
+                    microsite, agencyNumber, jobId);
+            return false;
+        }
+        try {
+            return lookup.get(waitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Left running: a late fresh answer still reaches the snapshot
+            log.warn("Provisioning ledger lookup microsite={}, agency={}, jobId={} took longer than {} ms",
+                    microsite, agencyNumber, jobId, waitMs);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            log.error("Error reading provisioning ledger for microsite={}, agency={}, jobId={}: {}", microsite,
+                    agencyNumber, jobId, e.getCause().getMessage());
+            return false;
+        }
+    }
+
+    private boolean lookUp(String microsite, String agencyNumber, String jobId) {
+        Optional<LocalDateTime> confirmedAt = ledgerRepository.findConfirmedAt(microsite, agencyNumber, jobId);
+        boolean fresh = confirmedAt.isPresent() && confirmedAt.get()
+                .isAfter(now().minusSeconds(provisioningConfig.getLedgerMaxAgeSeconds()));
+        log.debug("Provisioning ledger lookup microsite={}, agency={}, jobId={}: {}", microsite, agencyNumber,
+                jobId, fresh ? "fresh" : confirmedAt.isPresent() ? "stale" : "missing");
+        if (fresh) {
+            snapshotService.record(microsite, agencyNumber, jobId, confirmedAt.get().toEpochSecond(ZoneOffset.UTC));
+        }
+        return fresh;
+    }
+
+    private void record(String microsite, String agencyNumber, String jobId, String origin, String contentHash) {
+        if (!provisioningConfig.isLedgerEnabled() || microsite == null || agencyNumber == null) {
+            return;
+        }
+        LocalDateTime now = now();
+        snapshotService.record(microsite, agencyNumber, jobId, now.toEpochSecond(ZoneOffset.UTC));
+        if (!writes.offer(new PendingWrite(microsite, agencyNumber, jobId, origin, contentHash, now))
+                && droppedWrites.incrementAndGet() % 1000 == 1) {
+            log.warn("Provisioning ledger write queue full, {} confirmations kept in the snapshot only so far",
+                    droppedWrites.get());
+        }
+    }
+
+    private void writeQueued() {
+        while (running || !writes.isEmpty()) {
+            PendingWrite write;
+            try {
+                write = writes.poll(200, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (write == null) {
+                continue;
+            }
+            try {
+                ledgerRepository.upsert(write.microsite(), write.agencyNumber(), write.jobId(), write.origin(),
+                        write.contentHash(), write.confirmedAt());
+            } catch (Exception e) {
+                log.error("Error writing provisioning ledger for microsite={}, agency={}, jobId={}: {}",
+                        write.microsite(), write.agencyNumber(), write.jobId(), e.getMessage());
+            }
+        }
+    }
+
+    private static LocalDateTime now() {
+        return LocalDateTime.now(ZoneOffset.UTC);
+    }
+
+    private record PendingWrite(String microsite, String agencyNumber, String jobId, String origin,
+            String contentHash, LocalDateTime confirmedAt) {
+    }
+}
@@ -0,0 +1,106 @@
+package de.aerticket.tc_agenties.service;
+
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Microsite return URLs: {base}/{language}/home?tripType=..&submit=true&user=..
+ * &password=..&agency=..
+ *
+ * The part up to the query only depends on the microsite URL and the
+ * language, so it is built once with UriComponentsBuilder and kept; the
+ * parameters are appended with the same encoding as UriComponentsBuilder.
+ * Values made of unreserved characters only (the usual case) are appended
+ * as they are.
+ */
+final class ReturnUrlBuilder {
+
+    // Microsite URLs come from the mapping table, languages are two letters
+    private static final int MAX_CACHED_BASES = 256;
+
+    private static final Map<String, Map<String, String>> PREFIXES = new ConcurrentHashMap<>();
+
+    private ReturnUrlBuilder() {
+    }
+
+    static String build(String baseMicrositeUrl, String language, String type, String user,
+            String encryptedPassword, String agency) {
+        if (baseMicrositeUrl == null || baseMicrositeUrl.indexOf('#') >= 0) {
+            return legacyBuild(baseMicrositeUrl, language, type, user, encryptedPassword, agency);
+        }
+        String prefix = prefix(baseMicrositeUrl, language);
+        StringBuilder url = new StringBuilder(prefix.length() + 128).append(prefix);
+        char separator = prefix.indexOf('?') >= 0 ? '&' : '?';
+        appendParam(url, separator, "tripType", type);
+        appendParam(url, '&', "submit", "true");
+        appendParam(url, '&', "user", user);
+        appendParam(url, '&', "password", encryptedPassword);
+        appendParam(url, '&', "agency", agency);
+        return url.toString();
+    }
+
+    /**
+     * The former UriComponentsBuilder chain; the reference for build and
+     * still used for base URLs with a fragment
+     */
+    static String legacyBuild(String baseMicrositeUrl, String language, String type, String user,
+            String encryptedPassword, String agency) {
+        return UriComponentsBuilder
+                .fromUriString(baseMicrositeUrl)
+                .pathSegment(language, "home")
+                .queryParam("tripType", type)
+                .queryParam("submit", true)
+                .queryParam("user", user)
+                .queryParam("password", encryptedPassword)
+                .queryParam("agency", agency)
+                .toUriString();
+    }
+
+    private static String prefix(String baseMicrositeUrl, String language) {
+        Map<String, String> byLanguage = PREFIXES.get(baseMicrositeUrl);
+        if (byLanguage == null) {
+            if (PREFIXES.size() >= MAX_CACHED_BASES) {
+                PREFIXES.clear();
+            }
+            byLanguage = PREFIXES.computeIfAbsent(baseMicrositeUrl, key -> new ConcurrentHashMap<>());
+        }
+        String prefix = byLanguage.get(language);
+        if (prefix == null) {
+            prefix = UriComponentsBuilder.fromUriString(baseMicrositeUrl)
+                    .pathSegment(language, "home")
+                    .toUriString();
+            byLanguage.put(language, prefix);
+        }
+        return prefix;
+    }
+
+    // A null value is written as the bare name, like UriComponentsBuilder does
+    private static void appendParam(StringBuilder url, char separator, String name, String value) {
+        url.append(separator).append(name);
+        if (value == null) {
+            return;
+        }
+        url.append('=');
+        if (isUnreserved(value)) {
+            url.append(value);
+        } else {
+            url.append(UriUtils.encodeQueryParam(value, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static boolean isUnreserved(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            boolean unreserved = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '.' || c == '_' || c == '~';
+            if (!unreserved) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,114 @@
+package de.aerticket.tc_agenties.service;
+
+import de.aerticket.tc_agenties.config.ShadowConfig;
+import de.aerticket.tc_agenties.ratelimit.TokenBucket;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Shadow verification of cached login decisions.
+ *
+ * A sample of the decisions served from a cache (agency status, ledger
+ * confirmations, public keys) is re-checked live on a background thread and
+ * compared with what the login was told. Checks run without a login context,
+ * so TravelCompositor calls are background priority for the rate limiter,
+ * and are capped by their own budget on top of that; samples beyond it are
+ * skipped. Metrics:
+ * - tc.shadow.checks{cache, microsite, result=match|diverged|error|skipped}
+ */
+@Service
+@Slf4j
+public class ShadowVerificationService {
+
+    // Cache tags of the two kinds of provisioning ledger confirmations
+    public static final String LEDGER_AGENCIES = CacheAdminService.PROVISIONING_LEDGER + "/agency";
+    public static final String LEDGER_USERS = CacheAdminService.PROVISIONING_LEDGER + "/user";
+
+    private static final String NO_MICROSITE = "none";
+
+    private final ShadowConfig shadowConfig;
+    private final MeterRegistry meterRegistry;
+    private final TokenBucket budget;
+    private final ExecutorService executor;
+
+    public ShadowVerificationService(ShadowConfig shadowConfig, MeterRegistry meterRegistry) {
+        this.shadowConfig = shadowConfig;
+        this.meterRegistry = meterRegistry;
+        this.budget = new TokenBucket(shadowConfig.getMaxChecksPerSecond(),
+                (int) Math.ceil(shadowConfig.getMaxChecksPerSecond()), 0);
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, shadowConfig.getQueueCapacity())), runnable -> {
+                    Thread thread = new Thread(runnable, "shadow-verification");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Callers check this before building a sample, so a disabled shadow
+     * costs the login path nothing
+     */
+    public boolean isEnabled() {
+        return shadowConfig.isEnabled();
+    }
+
+    /**
+     * Maybe re-check a decision served from a cache. liveCheck runs off the
+     * request path and answers whether the live system agrees with the cached
+     * decision (null if the live call failed).
+     */
+    public void sample(String cache, String microsite, String subject, Supplier<Boolean> liveCheck) {
+        if (!isEnabled() || ThreadLocalRandom.current().nextDouble() >= shadowConfig.getSampleRate()) {
+            return;
+        }
+        String micrositeTag = microsite != null ? microsite.toLowerCase(Locale.ROOT) : NO_MICROSITE;
+        if (budget.reserve(true, 0) != 0) {
+            count(cache, micrositeTag, "skipped");
+            return;
+        }
+        try {
+            executor.execute(() -> verify(cache, micrositeTag, subject, liveCheck));
+        } catch (RejectedExecutionException e) {
+            count(cache, micrositeTag, "skipped");
+        }
+    }
+
+    private void verify(String cache, String microsite, String subject, Supplier<Boolean> liveCheck) {
+        Boolean matches;
+        try {
+            matches = liveCheck.get();
+        } catch (RuntimeException e) {
+            log.debug("Shadow check of {} {} failed: {}", cache, subject, e.getMessage());
+            matches = null;
+        }
+        if (matches == null) {
+            count(cache, microsite, "error");
+        } else if (matches) {
+            count(cache, microsite, "match");
+        } else {
+            log.warn("Shadow check diverged: cache={}, microsite={}, {}", cache, microsite, subject);
+            count(cache, microsite, "diverged");
+        }
+    }
+
+    private void count(String cache, String microsite, String result) {
+        meterRegistry.counter("tc.shadow.checks", "cache", cache, "microsite", microsite, "result", result)
+                .increment();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
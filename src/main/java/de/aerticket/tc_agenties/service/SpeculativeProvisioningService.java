@@ -0,0 +1,117 @@
+package de.aerticket.tc_agenties.service;
+
+import de.aerticket.tc_agenties.config.ProvisioningConfig;
+import de.aerticket.tc_agenties.model.CockpitAgency;
+import de.aerticket.tc_agenties.model.CockpitAgent;
+import de.aerticket.tc_agenties.model.TravelcUserRequest;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pre-creates the other agents of a newly provisioned agency, so their first
+ * logins find a user in TravelCompositor instead of paying for the Cockpit
+ * sync themselves.
+ *
+ * The roster comes from Cockpit. Runs on its own single thread with no login
+ * attached, so every TravelCompositor call is background priority for the
+ * rate limiter and never touches the interactive reserve; batches are spaced
+ * out on top of that. Created users are recorded in the provisioning ledger
+ * as PREPROVISIONED. Failures are logged only: the agent's own login still
+ * creates the user on demand.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SpeculativeProvisioningService {
+
+    private final ProvisioningConfig provisioningConfig;
+    private final CockpitService cockpitService;
+    private final TravelCompositorService travelCompositorService;
+    private final ProvisioningLedgerService provisioningLedgerService;
+
+    private final ExecutorService executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(20), runnable -> {
+                Thread thread = new Thread(runnable, "speculative-provisioning");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /**
+     * Queue pre-creation of the agency's agents in the microsite; the agent
+     * whose login provisioned the agency is left to that login
+     */
+    public void schedule(String microsite, CockpitAgency cockpitAgency, String loginJobId) {
+        if (!provisioningConfig.isSpeculativeEnabled() || cockpitAgency == null) {
+            return;
+        }
+        try {
+            executor.execute(() -> provisionAgents(microsite, cockpitAgency, loginJobId));
+        } catch (RejectedExecutionException e) {
+            log.info("Speculative provisioning queue full, skipping agency {}", cockpitAgency.getAgencyNumber());
+        }
+    }
+
+    void provisionAgents(String microsite, CockpitAgency cockpitAgency, String loginJobId) {
+        String agencyNumber = cockpitAgency.getAgencyNumber();
+        try {
+            List<CockpitAgent> agents = cockpitService.getAgents(agencyNumber);
+            int limit = Math.min(agents.size(), provisioningConfig.getSpeculativeMaxUsers());
+            if (agents.size() > limit) {
+                log.info("Agency {} has {} agents, pre-creating the first {}", agencyNumber, agents.size(), limit);
+            }
+            int batchSize = Math.max(1, provisioningConfig.getSpeculativeBatchSize());
+            int created = 0;
+            int failed = 0;
+            for (int start = 0; start < limit; start += batchSize) {
+                if (start > 0) {
+                    TimeUnit.MILLISECONDS.sleep(provisioningConfig.getSpeculativeBatchPauseMs());
+                }
+                int batchAttempted = 0;
+                int batchFailed = 0;
+                int batchEnd = Math.min(limit, start + batchSize);
+                for (CockpitAgent agent : agents.subList(start, batchEnd)) {
+                    String jobId = agent.getJobId();
+                    if (jobId == null || jobId.isBlank() || jobId.equals(loginJobId)
+                            || provisioningLedgerService.isUserConfirmed(microsite, agencyNumber, jobId)) {
+                        continue;
+                    }
+                    TravelcUserRequest userRequest = cockpitService.convertToTravelcUserRequest(agent, cockpitAgency);
+                    batchAttempted++;
+                    if (Boolean.TRUE.equals(travelCompositorService.createUser(userRequest, microsite))) {
+                        provisioningLedgerService.recordUser(microsite, agencyNumber, jobId,
+                                ProvisioningLedgerService.ORIGIN_PREPROVISIONED);
+                        created++;
+                    } else {
+                        batchFailed++;
+                    }
+                }
+                failed += batchFailed;
+                if (batchAttempted > 0 && batchFailed == batchAttempted) {
+                    // Every create of the batch failed: rate limited or TravelCompositor is unwell, leave the rest to logins
+                    log.warn("Stopping speculative provisioning of agency {} after a failed batch", agencyNumber);
+                    break;
+                }
+            }
+            log.info("Speculative provisioning of agency {} in microsite {}: {} created, {} failed", agencyNumber,
+                    microsite, created, failed);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Error pre-creating agents of agency {}: {}", agencyNumber, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -1,252 +1,283 @@
 package de.aerticket.tc_agenties.service;
 
+import de.aerticket.tc_agenties.cache.CacheNames;
+import de.aerticket.tc_agenties.cache.SharedCache;
+import de.aerticket.tc_agenties.cache.SharedCacheManager;
+import de.aerticket.tc_agenties.client.ClientResult;
+import de.aerticket.tc_agenties.client.TravelcClient;
+import de.aerticket.tc_agenties.config.CacheConfig;
 import de.aerticket.tc_agenties.model.TCAgencydata;
 import de.aerticket.tc_agenties.model.AgencyStatus;
 import de.aerticket.tc_agenties.model.TravelcAgencyRequest;
 import de.aerticket.tc_agenties.model.TravelcUserRequest;
+import de.aerticket.tc_agenties.util.RequestTimings;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.ResourceAccessException;
-import org.springframework.web.util.UriComponentsBuilder;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class TravelCompositorService {
 
-    private final RestTemplate restTemplate;
-    private final TravelcAuthManager authManager;
+    private final TravelcClient travelcClient;
+    private final SharedCacheManager cacheManager;
+    private final CacheConfig cacheConfig;
+    private final ShadowVerificationService shadowVerificationService;
+
+    private static final char STORED_AT_SEPARATOR = '|';
 
-    private static final String TC_API_BASE_URL = "https://kombireisen.suntrips.de/resources";
-    private static final String LANGUAGE = "DE";
+    // Agencies with a background revalidation in flight on this node
+    private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+    private final ExecutorService revalidationExecutor = new ThreadPoolExecutor(1, 2, 30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(100), runnable -> {
+                Thread thread = new Thread(runnable, "agency-status-revalidation");
+                thread.setDaemon(true);
+                return thread;
+            });
 
     /**
-     * Check agency status in TravelCompositor
+     * Check agency status in TravelCompositor. ACTIVE results are kept in the
+     * shared agency status cache (stale-while-revalidate): past the soft TTL
+     * the cached ACTIVE is still returned at once and refreshed by a single
+     * background check; only past the hard TTL does a login wait for
+     * TravelCompositor again.
+     *
+     * The status is asked through micrositeApi but cached under microsite,
+     * the microsite agency writes go to, so createAgency and updateAgency
+     * evict exactly this entry.
      */
-    public AgencyStatus checkAgencyStatus(String microsite, String agencyNumber) {
-        try {
-            log.info("Checking agency status for microsite: {} and agencyNumber: {}", microsite, agencyNumber);
-
-            TCAgencydata agencyData = getAgencyData(microsite, agencyNumber);
-
-            if (agencyData == null) {
-                log.warn("Agency not found in TravelCompositor: microsite={}, agencyNumber={}",
-                        microsite, agencyNumber);
-                return AgencyStatus.NOT_FOUND;
+    public AgencyStatus checkAgencyStatus(String microsite, String micrositeApi, String agencyNumber) {
+        SharedCache statusCache = cacheManager.getCache(CacheNames.AGENCY_STATUS);
+        String cacheKey = agencyCacheKey(microsite, agencyNumber);
+        long activeSince = activeSince(statusCache.get(cacheKey));
+        if (activeSince >= 0) {
+            RequestTimings.hit(RequestTimings.Stage.AGENCY);
+            if (shadowVerificationService.isEnabled()) {
+                shadowVerificationService.sample(CacheNames.AGENCY_STATUS, microsite, "agency=" + agencyNumber,
+                        () -> isAgencyActiveLive(micrositeApi, agencyNumber));
+            }
+            if (System.currentTimeMillis() - activeSince >= cacheConfig.getAgencyStatusTtlSeconds() * 1000L) {
+                log.debug("Serving stale agency status, revalidating: microsite={}, agencyNumber={}", microsite,
+                        agencyNumber);
+                revalidateInBackground(micrositeApi, agencyNumber, cacheKey);
+            } else {
+                log.debug("Agency status served from cache: microsite={}, agencyNumber={}", microsite,
+                        agencyNumber);
             }
+            return AgencyStatus.ACTIVE;
+        }
 
-            if (agencyData.isActive()) {
+        RequestTimings.miss(RequestTimings.Stage.AGENCY);
+        log.info("Checking agency status for microsite: {} and agencyNumber: {}", microsite, agencyNumber);
+
+        return switch (travelcClient.agencyStatus(micrositeApi, agencyNumber)) {
+            case ClientResult.Found<AgencyStatus> found when found.value() == AgencyStatus.ACTIVE -> {
                 log.info("Agency is active in TravelCompositor: microsite={}, agencyNumber={}",
                         microsite, agencyNumber);
-                return AgencyStatus.ACTIVE;
-            } else {
+                cacheActive(statusCache, cacheKey);
+                yield AgencyStatus.ACTIVE;
+            }
+            case ClientResult.Found<AgencyStatus> found -> {
                 log.warn("Agency is inactive in TravelCompositor: microsite={}, agencyNumber={}",
                         microsite, agencyNumber);
-                return AgencyStatus.INACTIVE;
+                yield AgencyStatus.INACTIVE;
+            }
+            case ClientResult.NotFound<AgencyStatus> notFound -> {
+                log.warn("Agency not found in TravelCompositor: microsite={}, agencyNumber={}",
+                        microsite, agencyNumber);
+                yield AgencyStatus.NOT_FOUND;
             }
+            case ClientResult.Failed<AgencyStatus> failed -> {
+                log.error("Error checking agency status for microsite={}, agencyNumber={}: {}",
+                        microsite, agencyNumber, failed.reason());
+                yield AgencyStatus.ERROR;
+            }
+        };
+    }
 
-        } catch (Exception e) {
-            log.error("Error checking agency status for microsite={}, agencyNumber={}: {}",
-                    microsite, agencyNumber, e.getMessage());
-            return AgencyStatus.ERROR;
+    /**
+     * Refresh a stale ACTIVE entry once per node. Errors keep the stale entry
+     * (until its hard TTL); any other status drops it so the next login syncs.
+     */
+    private void revalidateInBackground(String microsite, String agencyNumber, String cacheKey) {
+        if (!revalidating.add(cacheKey)) {
+            return;
         }
+        try {
+            revalidationExecutor.execute(() -> {
+                try {
+                    ClientResult<AgencyStatus> result = travelcClient.agencyStatus(microsite, agencyNumber);
+                    SharedCache statusCache = cacheManager.getCache(CacheNames.AGENCY_STATUS);
+                    if (result instanceof ClientResult.Failed<AgencyStatus> failed) {
+                        log.warn("Agency status revalidation failed, keeping last known status: microsite={}, "
+                                + "agencyNumber={}: {}", microsite, agencyNumber, failed.reason());
+                    } else if (result.orNull() == AgencyStatus.ACTIVE) {
+                        cacheActive(statusCache, cacheKey);
+                    } else {
+                        log.info("Agency no longer active after revalidation: microsite={}, agencyNumber={}",
+                                microsite, agencyNumber);
+                        statusCache.evict(cacheKey);
+                    }
+                } catch (Exception e) {
+                    // Shared cache errors must not escape to the executor thread
+                    log.error("Error revalidating agency status: microsite={}, agencyNumber={}: {}", microsite,
+                            agencyNumber, e.getMessage());
+                } finally {
+                    revalidating.remove(cacheKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            revalidating.remove(cacheKey);
+            log.debug("Revalidation queue full, skipping: {}", cacheKey);
+        }
+    }
+
+    private void cacheActive(SharedCache statusCache, String cacheKey) {
+        statusCache.put(cacheKey, AgencyStatus.ACTIVE.name() + STORED_AT_SEPARATOR + System.currentTimeMillis(),
+                Duration.ofSeconds(cacheConfig.getAgencyStatusHardTtlSeconds()));
     }
 
     /**
-     * Get agency data from TravelCompositor API
+     * When a cached ACTIVE entry was stored, or -1 if there is none. Entries
+     * without a timestamp count as stale.
      */
-    public TCAgencydata getAgencyData(String microsite, String agencyNumber) {
+    private static long activeSince(String cached) {
+        if (cached == null || !cached.startsWith(AgencyStatus.ACTIVE.name())) {
+            return -1;
+        }
+        int separator = cached.indexOf(STORED_AT_SEPARATOR);
+        if (separator < 0) {
+            return 0;
+        }
         try {
-            String url = UriComponentsBuilder.fromHttpUrl(TC_API_BASE_URL)
-                    .pathSegment("agency", microsite, agencyNumber)
-                    .queryParam("lang", LANGUAGE)
-                    .toUriString();
-            log.debug("Making API call to TravelCompositor: {}", url);
+            return Long.parseLong(cached, separator + 1, cached.length(), 10);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
 
-            HttpHeaders headers = createAuthHeaders(microsite);
-            HttpEntity<String> entity = new HttpEntity<>(headers);
+    @PreDestroy
+    public void shutdown() {
+        revalidationExecutor.shutdownNow();
+    }
 
-            ResponseEntity<TCAgencydata> response = restTemplate.exchange(
-                    url, HttpMethod.GET, entity, TCAgencydata.class);
+    /**
+     * Live ACTIVE check bypassing the status cache; null if the call failed
+     */
+    public Boolean isAgencyActiveLive(String microsite, String agencyNumber) {
+        ClientResult<AgencyStatus> result = travelcClient.agencyStatus(microsite, agencyNumber);
+        return result instanceof ClientResult.Failed ? null : result.orNull() == AgencyStatus.ACTIVE;
+    }
 
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                log.debug("Successfully retrieved agency data from TravelCompositor");
-                return response.getBody();
-            } else {
-                log.warn("Empty response from TravelCompositor API");
-                return null;
-            }
+    /**
+     * Live user existence check; null if the call failed
+     */
+    public Boolean userExistsLive(String microsite, String agencyNumber, String userId) {
+        ClientResult<Boolean> result = travelcClient.user(microsite, agencyNumber, userId);
+        return result instanceof ClientResult.Failed ? null : result.isFound();
+    }
 
-        } catch (HttpClientErrorException.NotFound e) {
+    /**
+     * Get agency data from TravelCompositor API (full bind, used to verify syncs)
+     */
+    public TCAgencydata getAgencyData(String microsite, String agencyNumber) {
+        ClientResult<TCAgencydata> result = travelcClient.agency(microsite, agencyNumber);
+        if (result instanceof ClientResult.Failed<TCAgencydata> failed) {
+            log.error("Error calling TravelCompositor API: {}", failed.reason());
+            throw new RuntimeException("TravelCompositor API error: " + failed.reason(), failed.cause());
+        }
+        if (!result.isFound()) {
             log.info("Agency not found in TravelCompositor: microsite={}, agencyNumber={}",
                     microsite, agencyNumber);
             return null;
-        } catch (HttpClientErrorException e) {
-            log.error("HTTP error calling TravelCompositor API: {} - {}",
-                    e.getStatusCode(), e.getMessage());
-            throw new RuntimeException("TravelCompositor API error: " + e.getMessage(), e);
-        } catch (ResourceAccessException e) {
-            log.error("Network error calling TravelCompositor API: {}", e.getMessage());
-            throw new RuntimeException("Network error accessing TravelCompositor: " + e.getMessage(), e);
-        } catch (Exception e) {
-            log.error("Unexpected error calling TravelCompositor API: {}", e.getMessage());
-            throw new RuntimeException("Unexpected error: " + e.getMessage(), e);
         }
+        log.debug("Successfully retrieved agency data from TravelCompositor");
+        return result.orNull();
     }
 
     /**
      * Create new agency in TravelCompositor
      */
     public Boolean createAgency(TravelcAgencyRequest agency, String microsite) {
-        try {
-            String url = UriComponentsBuilder.fromHttpUrl(TC_API_BASE_URL)
-                    .pathSegment("agency", microsite, "")
-                    .queryParam("plainfees", true)
-                    .toUriString();
-            log.info("Creating agency in TravelCompositor: microsite={}, agencyId={}", microsite,
-                    agency.getExternalId());
-
-            HttpHeaders headers = createAuthHeaders(microsite);
-            HttpEntity<TravelcAgencyRequest> entity = new HttpEntity<>(agency, headers);
-
-            ResponseEntity<String> response = restTemplate.exchange(
-                    url, HttpMethod.POST, entity, String.class);
-
-            boolean success = response.getStatusCode() == HttpStatus.OK;
-            log.info("Agency creation result: {}", success ? "SUCCESS" : "FAILED");
-            return success;
-
-        } catch (Exception e) {
-            log.error("Error creating agency in TravelCompositor: {}", e.getMessage());
-            return false;
-        }
+        log.info("Creating agency in TravelCompositor: microsite={}, agencyId={}", microsite,
+                agency.getExternalId());
+        boolean success = succeeded(travelcClient.createAgency(agency, microsite), "creating agency");
+        log.info("Agency creation result: {}", success ? "SUCCESS" : "FAILED");
+        evictAgencyStatus(microsite, agency.getExternalId());
+        return success;
     }
 
     /**
      * Update existing agency in TravelCompositor
      */
     public Boolean updateAgency(TravelcAgencyRequest agency, String microsite) {
-        try {
-            String url = UriComponentsBuilder.fromHttpUrl(TC_API_BASE_URL)
-                    .pathSegment("agency", microsite, "")
-                    .queryParam("plainfees", true)
-                    .toUriString();
-            log.info("Updating agency in TravelCompositor: microsite={}, agencyId={}", microsite,
-                    agency.getExternalId());
-
-            HttpHeaders headers = createAuthHeaders(microsite);
-            HttpEntity<TravelcAgencyRequest> entity = new HttpEntity<>(agency, headers);
-
-            ResponseEntity<String> response = restTemplate.exchange(
-                    url, HttpMethod.PUT, entity, String.class);
-
-            boolean success = response.getStatusCode() == HttpStatus.OK;
-            log.info("Agency update result: {}", success ? "SUCCESS" : "FAILED");
-            return success;
-
-        } catch (Exception e) {
-            log.error("Error updating agency in TravelCompositor: {}", e.getMessage());
-            return false;
-        }
+        log.info("Updating agency in TravelCompositor: microsite={}, agencyId={}", microsite,
+                agency.getExternalId());
+        boolean success = succeeded(travelcClient.updateAgency(agency, microsite), "updating agency");
+        log.info("Agency update result: {}", success ? "SUCCESS" : "FAILED");
+        evictAgencyStatus(microsite, agency.getExternalId());
+        return success;
     }
 
     /**
      * Check if user exists in TravelCompositor
      */
     public Boolean getUser(String microsite, String agencyNumber, String userId) {
-        try {
-            String url = UriComponentsBuilder.fromHttpUrl(TC_API_BASE_URL)
-                    .pathSegment("user", microsite, agencyNumber, userId)
-                    .toUriString();
-            log.debug("Checking user existence: microsite={}, agency={}, userId={}",
-                    microsite, agencyNumber, userId);
-
-            HttpHeaders headers = createAuthHeaders(microsite);
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-
-            ResponseEntity<String> response = restTemplate.exchange(
-                    url, HttpMethod.GET, entity, String.class);
-
-            boolean exists = response.getStatusCode() == HttpStatus.OK;
-            log.debug("User exists: {}", exists);
-            return exists;
-
-        } catch (HttpClientErrorException.NotFound e) {
-            log.debug("User not found: microsite={}, agency={}, userId={}",
-                    microsite, agencyNumber, userId);
-            return false;
-        } catch (Exception e) {
-            log.error("Error checking user existence: {}", e.getMessage());
-            return false;
-        }
+        log.debug("Checking user existence: microsite={}, agency={}, userId={}",
+                microsite, agencyNumber, userId);
+        boolean exists = succeeded(travelcClient.user(microsite, agencyNumber, userId), "checking user existence");
+        log.debug("User exists: {}", exists);
+        return exists;
     }
 
     /**
      * Create new user in TravelCompositor
      */
     public Boolean createUser(TravelcUserRequest user, String microsite) {
-        try {
-            String url = UriComponentsBuilder.fromHttpUrl(TC_API_BASE_URL)
-                    .pathSegment("user", microsite, user.getAgency())
-                    .toUriString();
-            log.info("Creating user in TravelCompositor: microsite={}, agency={}, username={}",
-                    microsite, user.getAgency(), user.getUsername());
-
-            HttpHeaders headers = createAuthHeaders(microsite);
-            HttpEntity<TravelcUserRequest> entity = new HttpEntity<>(user, headers);
-
-            ResponseEntity<String> response = restTemplate.exchange(
-                    url, HttpMethod.POST, entity, String.class);
-
-            boolean success = response.getStatusCode() == HttpStatus.OK;
-            log.info("User creation result: {}", success ? "SUCCESS" : "FAILED");
-            return success;
-
-        } catch (Exception e) {
-            log.error("Error creating user in TravelCompositor: {}", e.getMessage());
-            return false;
-        }
+        log.info("Creating user in TravelCompositor: microsite={}, agency={}, username={}",
+                microsite, user.getAgency(), user.getUsername());
+        boolean success = succeeded(travelcClient.createUser(user, microsite), "creating user");
+        log.info("User creation result: {}", success ? "SUCCESS" : "FAILED");
+        return success;
     }
 
     /**
      * Update existing user in TravelCompositor
      */
     public Boolean updateUser(TravelcUserRequest user, String microsite) {
-        try {
-            String url = UriComponentsBuilder.fromHttpUrl(TC_API_BASE_URL)
-                    .pathSegment("user", microsite, user.getAgency())
-                    .toUriString();
-            log.info("Updating user in TravelCompositor: microsite={}, agency={}, username={}",
-                    microsite, user.getAgency(), user.getUsername());
-
-            HttpHeaders headers = createAuthHeaders(microsite);
-            HttpEntity<TravelcUserRequest> entity = new HttpEntity<>(user, headers);
-
-            ResponseEntity<String> response = restTemplate.exchange(
-                    url, HttpMethod.PUT, entity, String.class);
+        log.info("Updating user in TravelCompositor: microsite={}, agency={}, username={}",
+                microsite, user.getAgency(), user.getUsername());
+        boolean success = succeeded(travelcClient.updateUser(user, microsite), "updating user");
+        log.info("User update result: {}", success ? "SUCCESS" : "FAILED");
+        return success;
+    }
 
-            boolean success = response.getStatusCode() == HttpStatus.OK;
-            log.info("User update result: {}", success ? "SUCCESS" : "FAILED");
-            return success;
+    /**
+     * Drop the cached status of an agency on every node
+     */
+    public void evictAgencyStatus(String microsite, String agencyNumber) {
+        cacheManager.getCache(CacheNames.AGENCY_STATUS).evict(agencyCacheKey(microsite, agencyNumber));
+    }
 
-        } catch (Exception e) {
-            log.error("Error updating user in TravelCompositor: {}", e.getMessage());
-            return false;
+    private static boolean succeeded(ClientResult<Boolean> result, String action) {
+        if (result instanceof ClientResult.Failed<Boolean> failed) {
+            log.error("Error {} in TravelCompositor: {}", action, failed.reason());
         }
+        return result.isFound();
     }
 
-    /**
-     * Create HTTP headers with authentication token
-     */
-    private HttpHeaders createAuthHeaders(String microsite) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.set("Accept", "application/json");
-        headers.set("auth-token", authManager.getToken(microsite));
-        return headers;
-    }
-}
\ No newline at end of file
+    private String agencyCacheKey(String microsite, String agencyNumber) {
+        return microsite + ":" + agencyNumber;
+    }
+}
@@ -1,6 +1,17 @@
 package de.aerticket.tc_agenties.service;
 
-import lombok.RequiredArgsConstructor;
+import de.aerticket.tc_agenties.cache.CacheNames;
+import de.aerticket.tc_agenties.cache.CacheStats;
+import de.aerticket.tc_agenties.cache.SharedCache;
+import de.aerticket.tc_agenties.cache.SharedCacheManager;
+import de.aerticket.tc_agenties.config.TravelcConfig;
+import de.aerticket.tc_agenties.jfr.CacheMissEvent;
+import de.aerticket.tc_agenties.ratelimit.EndpointClass;
+import de.aerticket.tc_agenties.ratelimit.TravelcRateLimiter;
+import de.aerticket.tc_agenties.retry.Idempotency;
+import de.aerticket.tc_agenties.retry.RetryExecutor;
+import de.aerticket.tc_agenties.util.RequestTimings;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
@@ -8,58 +19,215 @@ import org.springframework.web.client.RestTemplate;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
-import java.time.Instant;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TravelCompositor auth tokens, one pool per microsite.
+ *
+ * Every microsite has its own lock, token and refresh schedule: a token is
+ * refreshed in the background shortly before it expires, and a slow or failing
+ * token fetch only blocks callers of that microsite. Tokens are published to
+ * the shared token cache so other nodes reuse them instead of fetching their own.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class TravelcAuthManager {
 
-	private static final String BASE_URL = "https://kombireisen.suntrips.de/resources/";
-	private static final String AUTH_ENDPOINT = "authentication/authenticate";
-	private static final Map<String, TokenInfo> tokens = new ConcurrentHashMap<>();
-	private static final Map<String, Credentials> CREDENTIALS = new ConcurrentHashMap<>();
-	private static final int TOKEN_TIMEOUT_SECONDS = 30 * 60; // 30 minutes
+	public static final String TOKEN_POOLS = "travelc-token-pools";
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private final RestTemplate restTemplate;
+	private final TravelcConfig travelcConfig;
+	private final TravelcCredentialRegistry credentialRegistry;
+	private final SharedCache sharedTokens;
+	private final RetryExecutor retryExecutor;
+	private final TravelcRateLimiter rateLimiter;
+	private final Map<String, TokenPool> tokens = new ConcurrentHashMap<>();
+	private final LongAdder poolHits = new LongAdder();
+	private final LongAdder poolMisses = new LongAdder();
+	private final LongAdder poolEvictions = new LongAdder();
+	private final ScheduledExecutorService refreshScheduler;
+
+	public TravelcAuthManager(RestTemplate restTemplate, TravelcConfig travelcConfig,
+			TravelcCredentialRegistry credentialRegistry, SharedCacheManager cacheManager,
+			RetryExecutor retryExecutor, TravelcRateLimiter rateLimiter) {
+		this.restTemplate = restTemplate;
+		this.travelcConfig = travelcConfig;
+		this.credentialRegistry = credentialRegistry;
+		this.sharedTokens = cacheManager.getCache(CacheNames.TRAVELC_TOKENS);
+		this.retryExecutor = retryExecutor;
+		this.rateLimiter = rateLimiter;
+		AtomicInteger threadCount = new AtomicInteger();
+		this.refreshScheduler = Executors.newScheduledThreadPool(2, runnable -> {
+			Thread thread = new Thread(runnable, "travelc-token-refresh-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
 
-	static {
-		// Initialize credentials for different microsites
-		CREDENTIALS.put("aer360", new Credentials("Rocket_API_user", "6^ODD^Jb^3sZe^Sd"));
+	public String getToken(String microsite) {
+		long startedAt = System.nanoTime();
+		try {
+			return acquireToken(microsite);
+		} finally {
+			RequestTimings.record(RequestTimings.Stage.TOKEN, startedAt);
+		}
 	}
 
-	public static String getToken(String microsite) {
+	private String acquireToken(String microsite) {
 		if (microsite == null) {
 			log.warn("Microsite is null, cannot get token");
 			return null;
 		}
 
-		String key = microsite.toLowerCase();
+		String key = microsite.toLowerCase(Locale.ROOT);
 		log.debug("Getting token for microsite: {}", key);
 
-		TokenInfo tokenInfo = tokens.get(key);
+		TravelcCredentialRegistry.Tenant tenant = credentialRegistry.getTenant(key);
+		if (tenant == null) {
+			log.error("No credentials found for microsite: {}", key);
+			return null;
+		}
+
+		TokenPool pool = tokens.computeIfAbsent(key, TokenPool::new);
+		TokenInfo tokenInfo = pool.current;
 		if (tokenInfo != null && !tokenInfo.isExpired()) {
 			log.debug("Token found and valid for microsite: {}", key);
+			RequestTimings.hit(RequestTimings.Stage.TOKEN);
+			poolHits.increment();
 			return tokenInfo.getToken();
 		}
 
-		log.debug("Token expired or not found. Requesting new one for microsite: {}", key);
-		Credentials creds = CREDENTIALS.get(key);
-		if (creds == null) {
-			log.error("No credentials found for microsite: {}", key);
-			return null;
+		synchronized (pool) {
+			// Another caller of this microsite may have fetched it while we waited
+			tokenInfo = pool.current;
+			if (tokenInfo != null && !tokenInfo.isExpired()) {
+				RequestTimings.hit(RequestTimings.Stage.TOKEN);
+				poolHits.increment();
+				return tokenInfo.getToken();
+			}
+			// Another node may already have fetched one
+			tokenInfo = readShared(key);
+			if (tokenInfo != null && !tokenInfo.isExpired()) {
+				log.debug("Token found in shared cache for microsite: {}", key);
+				adopt(pool, tokenInfo);
+				RequestTimings.hit(RequestTimings.Stage.TOKEN);
+				poolHits.increment();
+				return tokenInfo.getToken();
+			}
+			log.debug("Token expired or not found. Requesting new one for microsite: {}", key);
+			RequestTimings.miss(RequestTimings.Stage.TOKEN);
+			poolMisses.increment();
+			CacheMissEvent event = CacheMissEvent.start();
+			String token = renew(pool, tenant);
+			event.finish(CacheNames.TRAVELC_TOKENS, key, key, token != null);
+			return token;
 		}
+	}
 
-		String token = fetchTokenFromApi(key, creds.username, creds.password);
+	/**
+	 * Fetch a new token for the pool and schedule its next refresh. Caller holds
+	 * the pool lock.
+	 */
+	private String renew(TokenPool pool, TravelcCredentialRegistry.Tenant tenant) {
+		String token = fetchTokenFromApi(pool.microsite, tenant.getUsername(), tenant.getPassword());
 		if (token != null) {
-			tokens.put(key, new TokenInfo(token));
-			log.info("New token obtained and cached for microsite: {}", key);
+			if (tenant.getTokenTimeoutSeconds() <= travelcConfig.getTokenRefreshAheadSeconds()
+					&& !pool.lifetimeWarned) {
+				pool.lifetimeWarned = true;
+				log.warn("Token lifetime of microsite {} ({} s) is not longer than travelc.token-refresh-ahead-seconds"
+						+ " ({} s); refreshing after at most {} s or half the lifetime instead", pool.microsite,
+						tenant.getTokenTimeoutSeconds(), travelcConfig.getTokenRefreshAheadSeconds(),
+						travelcConfig.getTokenMinRefreshSeconds());
+			}
+			TokenInfo tokenInfo = new TokenInfo(token,
+					System.currentTimeMillis() + tenant.getTokenTimeoutSeconds() * 1000L);
+			sharedTokens.put(pool.microsite, tokenInfo.encode(),
+					Duration.ofSeconds(tenant.getTokenTimeoutSeconds()));
+			log.info("New token obtained and cached for microsite: {}", pool.microsite);
+			adopt(pool, tokenInfo);
+		} else if (pool.current != null && !pool.current.isExpired()) {
+			// Keep serving the old token and try again soon
+			scheduleRefresh(pool, travelcConfig.getTokenRetrySeconds());
 		}
-
 		return token;
 	}
 
-	private static String fetchTokenFromApi(String microsite, String username, String password) {
+	/**
+	 * Use the token on this node and schedule a refresh ahead of its expiry
+	 */
+	private void adopt(TokenPool pool, TokenInfo tokenInfo) {
+		pool.current = tokenInfo;
+		long remainingSeconds = (tokenInfo.expiresAt - System.currentTimeMillis()) / 1000;
+		scheduleRefresh(pool, refreshDelaySeconds(remainingSeconds, travelcConfig.getTokenRefreshAheadSeconds(),
+				travelcConfig.getTokenMinRefreshSeconds()));
+	}
+
+	/**
+	 * Seconds until a token with remainingSeconds left is refreshed:
+	 * refreshAheadSeconds before it expires, but not sooner than
+	 * minRefreshSeconds or half its remaining lifetime, whichever is shorter.
+	 * Without the floor a lifetime at or below the refresh-ahead margin would
+	 * re-authenticate every second.
+	 */
+	static long refreshDelaySeconds(long remainingSeconds, long refreshAheadSeconds, long minRefreshSeconds) {
+		long floor = Math.max(1, Math.min(minRefreshSeconds, remainingSeconds / 2));
+		return Math.max(floor, remainingSeconds - refreshAheadSeconds);
+	}
+
+	private TokenInfo readShared(String microsite) {
+		try {
+			return TokenInfo.decode(sharedTokens.get(microsite));
+		} catch (Exception e) {
+			log.warn("Error reading shared token for microsite {}: {}", microsite, e.getMessage());
+			return null;
+		}
+	}
+
+	private void scheduleRefresh(TokenPool pool, long delaySeconds) {
+		if (pool.refreshTask != null) {
+			pool.refreshTask.cancel(false);
+		}
+		pool.refreshTask = refreshScheduler.schedule(() -> refreshInBackground(pool), delaySeconds,
+				TimeUnit.SECONDS);
+	}
+
+	private void refreshInBackground(TokenPool pool) {
+		if (tokens.get(pool.microsite) != pool) {
+			return; // pool was cleared in the meantime
+		}
+		TravelcCredentialRegistry.Tenant tenant = credentialRegistry.getTenant(pool.microsite);
+		if (tenant == null) {
+			log.warn("Credentials removed for microsite {}, stopping token refresh", pool.microsite);
+			tokens.remove(pool.microsite, pool);
+			return;
+		}
+		log.debug("Refreshing token ahead of expiry for microsite: {}", pool.microsite);
+		synchronized (pool) {
+			// Skip the fetch if another node refreshed it already
+			TokenInfo shared = readShared(pool.microsite);
+			if (shared != null && shared.expiresAt - System.currentTimeMillis()
+					> travelcConfig.getTokenRefreshAheadSeconds() * 1000L) {
+				log.debug("Using token refreshed by another node for microsite: {}", pool.microsite);
+				adopt(pool, shared);
+				return;
+			}
+			renew(pool, tenant);
+		}
+	}
+
+	private String fetchTokenFromApi(String microsite, String username, String password) {
 		log.info("Fetching token for user: {} microsite: {}", username, microsite);
 
 		if (username == null || password == null || microsite == null) {
@@ -68,20 +236,27 @@ public class TravelcAuthManager {
 		}
 
 		try {
-			RestTemplate restTemplate = new RestTemplate();
-			String apiUrl = BASE_URL + AUTH_ENDPOINT;
+			String apiUrl = travelcConfig.getBaseUrl() + "/" + travelcConfig.getAuthEndpoint();
 
 			HttpHeaders headers = new HttpHeaders();
 			headers.setContentType(MediaType.APPLICATION_JSON);
 			headers.set("Accept", "application/json");
 
 			// Create request body
-			String requestBody = String.format("{\"username\":\"%s\",\"password\":\"%s\",\"micrositeId\":\"%s\"}",
-					username, password, microsite);
+			Map<String, String> requestBody = new LinkedHashMap<>();
+			requestBody.put("username", username);
+			requestBody.put("password", password);
+			requestBody.put("micrositeId", microsite);
 
-			HttpEntity<String> entity = new HttpEntity<>(requestBody, headers);
+			HttpEntity<String> entity = new HttpEntity<>(MAPPER.writeValueAsString(requestBody), headers);
 
-			ResponseEntity<String> response = restTemplate.exchange(apiUrl, HttpMethod.POST, entity, String.class);
+			// Authenticating twice only yields another token, so it is safe to repeat
+			ResponseEntity<String> response = retryExecutor.execute(RetryExecutor.CLIENT_TRAVELC,
+					Idempotency.IDEMPOTENT,
+					() -> {
+						rateLimiter.acquire(microsite, EndpointClass.AUTH);
+						return restTemplate.exchange(apiUrl, HttpMethod.POST, entity, String.class);
+					});
 
 			if (response.getStatusCode() != HttpStatus.OK) {
 				log.error("Token fetch failed. HTTP: {}", response.getStatusCode());
@@ -89,8 +264,7 @@ public class TravelcAuthManager {
 			}
 
 			// Parse response to extract token
-			ObjectMapper mapper = new ObjectMapper();
-			JsonNode root = mapper.readTree(response.getBody());
+			JsonNode root = MAPPER.readTree(response.getBody());
 			JsonNode tokenNode = root.get("token");
 
 			if (tokenNode == null || tokenNode.isNull()) {
@@ -128,35 +302,93 @@ public class TravelcAuthManager {
 	public String refreshToken(String microsite) {
 		log.info("Refreshing auth token for microsite: {}", microsite);
 		// Remove existing token to force refresh
-		if (microsite != null) {
-			tokens.remove(microsite.toLowerCase());
-		}
+		evictToken(microsite);
 		return getToken(microsite);
 	}
 
+	/**
+	 * Drop the token of a microsite on every node; the next call fetches a new
+	 * one. Returns the number of tokens removed: the token pool of this node
+	 * and the shared entry, each if present.
+	 */
+	public int evictToken(String microsite) {
+		if (microsite == null) {
+			return 0;
+		}
+		String key = microsite.toLowerCase(Locale.ROOT);
+		int removed = 0;
+		TokenPool pool = tokens.remove(key);
+		if (pool != null) {
+			cancelRefresh(pool);
+			poolEvictions.increment();
+			removed++;
+		}
+		if (sharedTokens.evict(key)) {
+			removed++;
+		}
+		return removed;
+	}
+
 	/**
 	 * Clear all cached tokens
 	 */
 	public void clearAllTokens() {
 		log.info("Clearing all cached tokens");
+		tokens.values().forEach(this::cancelRefresh);
+		poolEvictions.add(tokens.size());
 		tokens.clear();
+		sharedTokens.clear();
+	}
+
+	/**
+	 * Statistics of the per-microsite token pools on this node
+	 */
+	public CacheStats tokenPoolStats() {
+		long now = System.currentTimeMillis();
+		long held = tokens.values().stream()
+				.filter(pool -> pool.current != null && pool.current.expiresAt > now)
+				.count();
+		return CacheStats.of(TOKEN_POOLS, held, poolHits.sum(), poolMisses.sum(), poolEvictions.sum(), null);
 	}
 
 	/**
 	 * Check if credentials exist for microsite
 	 */
 	public boolean hasCredentials(String microsite) {
-		return microsite != null && CREDENTIALS.containsKey(microsite.toLowerCase());
+		return credentialRegistry.hasCredentials(microsite);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		refreshScheduler.shutdownNow();
+	}
+
+	private void cancelRefresh(TokenPool pool) {
+		if (pool != null && pool.refreshTask != null) {
+			pool.refreshTask.cancel(false);
+		}
 	}
 
 	// Inner static classes
+	private static class TokenPool {
+		private final String microsite;
+		private volatile TokenInfo current;
+		private ScheduledFuture<?> refreshTask;
+		// Lifetime misconfiguration logged once per pool
+		private boolean lifetimeWarned;
+
+		TokenPool(String microsite) {
+			this.microsite = microsite;
+		}
+	}
+
 	private static class TokenInfo {
 		private final String token;
-		private final Instant issuedAt;
+		private final long expiresAt;
 
-		public TokenInfo(String token) {
+		public TokenInfo(String token, long expiresAt) {
 			this.token = token;
-			this.issuedAt = Instant.now();
+			this.expiresAt = expiresAt;
 		}
 
 		public String getToken() {
@@ -164,17 +396,25 @@ public class TravelcAuthManager {
 		}
 
 		public boolean isExpired() {
-			return Instant.now().isAfter(issuedAt.plusSeconds(TOKEN_TIMEOUT_SECONDS));
+			return System.currentTimeMillis() >= expiresAt;
 		}
-	}
 
-	private static class Credentials {
-		public final String username;
-		public final String password;
+		/**
+		 * Shared cache format: expiresAtMillis|token
+		 */
+		String encode() {
+			return expiresAt + "|" + token;
+		}
 
-		public Credentials(String username, String password) {
-			this.username = username;
-			this.password = password;
+		static TokenInfo decode(String value) {
+			if (value == null) {
+				return null;
+			}
+			int separator = value.indexOf('|');
+			if (separator < 0) {
+				return null;
+			}
+			return new TokenInfo(value.substring(separator + 1), Long.parseLong(value.substring(0, separator)));
 		}
 	}
-}
\ No newline at end of file
+}
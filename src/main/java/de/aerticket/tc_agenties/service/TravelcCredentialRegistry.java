@@ -0,0 +1,180 @@
+package de.aerticket.tc_agenties.service;
+
+import de.aerticket.tc_agenties.config.TravelcConfig;
+import de.aerticket.tc_agenties.entity.TravelcCredential;
+import de.aerticket.tc_agenties.repository.TravelcCredentialRepository;
+import de.aerticket.tc_agenties.util.Deadline;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Registry of TravelCompositor credentials and connection limits per microsite.
+ *
+ * Credentials come from travelc.microsites.* and, when enabled, from the
+ * aer_tc_microsite_credentials table (database entries win). Each microsite
+ * gets its own concurrency permits so that one busy or failing tenant cannot
+ * use up every connection.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TravelcCredentialRegistry {
+
+    private final TravelcConfig travelcConfig;
+    private final TravelcCredentialRepository credentialRepository;
+
+    private volatile Map<String, Tenant> tenants = Collections.emptyMap();
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    /**
+     * Reload credentials from configuration and (optionally) the database
+     */
+    public synchronized void reload() {
+        Map<String, Tenant> loaded = new LinkedHashMap<>();
+
+        travelcConfig.getMicrosites().forEach((microsite, settings) -> {
+            if (!StringUtils.hasText(settings.getUsername()) || settings.getPassword() == null) {
+                log.warn("Incomplete TravelCompositor credentials configured for microsite: {}", microsite);
+                return;
+            }
+            put(loaded, microsite, settings.getUsername(), settings.getPassword(),
+                    settings.getMaxConcurrentRequests(), settings.getTokenTimeoutSeconds());
+        });
+
+        if (travelcConfig.isCredentialsFromDatabase()) {
+            try {
+                for (TravelcCredential credential : credentialRepository.findByActiveTrue()) {
+                    put(loaded, credential.getMicrosite(), credential.getUsername(), credential.getPassword(),
+                            credential.getMaxConcurrentRequests(), credential.getTokenTimeoutSeconds());
+                }
+            } catch (Exception e) {
+                log.error("Error loading TravelCompositor credentials from database: {}", e.getMessage());
+            }
+        }
+
+        tenants = Collections.unmodifiableMap(loaded);
+        log.info("Loaded TravelCompositor credentials for microsites: {}", loaded.keySet());
+    }
+
+    /**
+     * Get tenant settings for microsite, or null if no credentials are known
+     */
+    public Tenant getTenant(String microsite) {
+        return microsite == null ? null : tenants.get(microsite.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Check if credentials exist for microsite
+     */
+    public boolean hasCredentials(String microsite) {
+        return getTenant(microsite) != null;
+    }
+
+    /**
+     * All microsites with known credentials
+     */
+    public Set<String> getMicrosites() {
+        return tenants.keySet();
+    }
+
+    /**
+     * Run a TravelCompositor call within the microsite's concurrency limit
+     */
+    public <T> T callWithinLimit(String microsite, Supplier<T> call) {
+        Tenant tenant = getTenant(microsite);
+        Semaphore permits = tenant != null ? tenant.permits : null;
+        if (permits == null) {
+            return call.get();
+        }
+
+        Deadline.check("TravelCompositor call");
+        boolean acquired;
+        try {
+            long timeoutMs = Math.min(travelcConfig.getPermitTimeoutMs(), Math.max(0, Deadline.remainingMillis()));
+            acquired = permits.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for TravelCompositor permit", e);
+        }
+        if (!acquired) {
+            log.warn("TravelCompositor connection limit reached for microsite: {}", tenant.microsite);
+            throw new IllegalStateException("TravelCompositor connection limit reached for microsite: "
+                    + tenant.microsite);
+        }
+
+        try {
+            return call.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void put(Map<String, Tenant> target, String microsite, String username, String password,
+            Integer maxConcurrentRequests, Integer tokenTimeoutSeconds) {
+        if (!StringUtils.hasText(microsite)) {
+            return;
+        }
+        int limit = maxConcurrentRequests != null ? maxConcurrentRequests : travelcConfig.getMaxConcurrentRequests();
+        int timeout = tokenTimeoutSeconds != null ? tokenTimeoutSeconds : travelcConfig.getTokenTimeoutSeconds();
+        String key = microsite.toLowerCase(Locale.ROOT);
+        target.put(key, new Tenant(key, username, password, limit, timeout));
+    }
+
+    /**
+     * Credentials and limits of a single microsite
+     */
+    public static class Tenant {
+        private final String microsite;
+        private final String username;
+        private final String password;
+        private final int maxConcurrentRequests;
+        private final int tokenTimeoutSeconds;
+        private final Semaphore permits;
+
+        Tenant(String microsite, String username, String password, int maxConcurrentRequests,
+                int tokenTimeoutSeconds) {
+            this.microsite = microsite;
+            this.username = username;
+            this.password = password;
+            this.maxConcurrentRequests = maxConcurrentRequests;
+            this.tokenTimeoutSeconds = tokenTimeoutSeconds;
+            this.permits = maxConcurrentRequests > 0 ? new Semaphore(maxConcurrentRequests) : null;
+        }
+
+        public String getMicrosite() {
+            return microsite;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public int getMaxConcurrentRequests() {
+            return maxConcurrentRequests;
+        }
+
+        public int getTokenTimeoutSeconds() {
+            return tokenTimeoutSeconds;
+        }
+    }
+}
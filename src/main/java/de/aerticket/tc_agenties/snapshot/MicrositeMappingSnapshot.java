@@ -0,0 +1,46 @@
+package de.aerticket.tc_agenties.snapshot;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.aerticket.tc_agenties.entity.MicrositeMapping;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * Local JSON copy of aer_cockpit_mapping_microsite, so mapping lookups can be
+ * served before (or without) the database.
+ */
+public final class MicrositeMappingSnapshot {
+
+    private static final TypeReference<List<MicrositeMapping>> MAPPINGS = new TypeReference<>() {
+    };
+
+    private MicrositeMappingSnapshot() {
+    }
+
+    public static List<MicrositeMapping> readFrom(Path file, ObjectMapper objectMapper) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return objectMapper.readValue(in, MAPPINGS);
+        }
+    }
+
+    /**
+     * Write to a temp file and move it over the target, so a crash never
+     * leaves a partial snapshot
+     */
+    public static void writeTo(Path file, List<MicrositeMapping> mappings, ObjectMapper objectMapper)
+            throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        objectMapper.writeValue(temp.toFile(), mappings);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,312 @@
+package de.aerticket.tc_agenties.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Compact index of provisioned (microsite, agency, jobId) entries.
+ *
+ * Entries are 64-bit hashes in an open-addressing table (linear probing,
+ * power-of-two capacity) next to the second they were last confirmed: 12
+ * bytes per slot and no objects per entry. A hash collision would skip one
+ * remote existence check; at 64 bits that is negligible for our volumes.
+ * The table is written to and loaded from a memory-mapped file as is, so a
+ * restart reads it back with two bulk copies instead of rehashing.
+ */
+public class ProvisionedIndex {
+
+    private static final int MAGIC = 0x54435049; // "TCPI"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int MIN_CAPACITY = 1024;
+    private static final long EMPTY = 0L;
+
+    // Confirmation times are stored as int seconds since this epoch (good until 2088)
+    private static final long EPOCH_SECONDS = 1_577_836_800L; // 2020-01-01T00:00:00Z
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final StampedLock lock = new StampedLock();
+    private long[] keys;
+    private int[] confirmedAt;
+    private int size;
+    private long modifications;
+
+    public ProvisionedIndex(int expectedEntries) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 0.7 < expectedEntries) {
+            capacity <<= 1;
+        }
+        this.keys = new long[capacity];
+        this.confirmedAt = new int[capacity];
+    }
+
+    private ProvisionedIndex(long[] keys, int[] confirmedAt, int size) {
+        this.keys = keys;
+        this.confirmedAt = confirmedAt;
+        this.size = size;
+    }
+
+    /**
+     * 64-bit key of an entry; the microsite is case-insensitive
+     */
+    public static long key(String microsite, String agencyNumber, String jobId) {
+        long hash = FNV_OFFSET;
+        hash = mix(hash, microsite.toLowerCase(Locale.ROOT));
+        hash = mix((hash ^ '|') * FNV_PRIME, agencyNumber);
+        hash = mix((hash ^ '|') * FNV_PRIME, jobId);
+        // Final avalanche (murmur3 fmix64) so linear probing sees well-spread low bits
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == EMPTY ? 1 : hash;
+    }
+
+    private static long mix(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Epoch second the entry was last confirmed, or -1 if it is not indexed
+     */
+    public long confirmedAt(long key) {
+        long stamp = lock.tryOptimisticRead();
+        long result = find(keys, confirmedAt, key);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                result = find(keys, confirmedAt, key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Index the entry as confirmed at the given epoch second
+     */
+    public void put(long key, long epochSeconds) {
+        int seconds = (int) Math.max(0, Math.min(Integer.MAX_VALUE, epochSeconds - EPOCH_SECONDS));
+        long stamp = lock.writeLock();
+        try {
+            if ((size + 1) > keys.length * 0.7) {
+                resize(keys.length << 1);
+            }
+            int mask = keys.length - 1;
+            int slot = (int) key & mask;
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == EMPTY) {
+                keys[slot] = key;
+                size++;
+            }
+            confirmedAt[slot] = seconds;
+            modifications++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Remove the entry; returns false if it was not indexed
+     */
+    public boolean remove(long key) {
+        long stamp = lock.writeLock();
+        try {
+            int mask = keys.length - 1;
+            int hole = (int) key & mask;
+            while (keys[hole] != key) {
+                if (keys[hole] == EMPTY) {
+                    return false;
+                }
+                hole = (hole + 1) & mask;
+            }
+            // Backward-shift deletion: pull later entries of the probe chain
+            // into the hole so lookups never stop early at it
+            for (int next = (hole + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+                int home = (int) keys[next] & mask;
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    confirmedAt[hole] = confirmedAt[next];
+                    hole = next;
+                }
+            }
+            keys[hole] = EMPTY;
+            confirmedAt[hole] = 0;
+            size--;
+            modifications++;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            Arrays.fill(keys, EMPTY);
+            Arrays.fill(confirmedAt, 0);
+            size = 0;
+            modifications++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Bytes held by the table (the file is the same plus a small header)
+     */
+    public long tableBytes() {
+        long stamp = lock.readLock();
+        try {
+            return (long) keys.length * (Long.BYTES + Integer.BYTES);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Counter that changes with every put; lets callers skip unchanged writes
+     */
+    public long modifications() {
+        long stamp = lock.readLock();
+        try {
+            return modifications;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Write the table to a memory-mapped temp file and move it over the
+     * target, so readers never see a partial snapshot
+     */
+    public void writeTo(Path file) throws IOException {
+        long[] keysCopy;
+        int[] confirmedCopy;
+        int sizeCopy;
+        long stamp = lock.readLock();
+        try {
+            keysCopy = keys.clone();
+            confirmedCopy = confirmedAt.clone();
+            sizeCopy = size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        long length = HEADER_BYTES + (long) keysCopy.length * (Long.BYTES + Integer.BYTES);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(keysCopy.length).putInt(sizeCopy);
+            buffer.asLongBuffer().put(keysCopy);
+            buffer.position(HEADER_BYTES + keysCopy.length * Long.BYTES);
+            buffer.asIntBuffer().put(confirmedCopy);
+            buffer.force();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Load a snapshot written by writeTo; throws IOException if the file is
+     * not a valid snapshot
+     */
+    public static ProvisionedIndex readFrom(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_BYTES) {
+                throw new IOException("Snapshot too short: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            int magic = buffer.getInt();
+            int version = buffer.getInt();
+            int capacity = buffer.getInt();
+            int size = buffer.getInt();
+            if (magic != MAGIC || version != VERSION) {
+                throw new IOException("Not a provisioned index snapshot: " + file);
+            }
+            if (capacity < MIN_CAPACITY || Integer.bitCount(capacity) != 1 || size < 0 || size > capacity
+                    || length != HEADER_BYTES + (long) capacity * (Long.BYTES + Integer.BYTES)) {
+                throw new IOException("Corrupt provisioned index snapshot: " + file);
+            }
+            long[] keys = new long[capacity];
+            int[] confirmedAt = new int[capacity];
+            buffer.asLongBuffer().get(keys);
+            buffer.position(HEADER_BYTES + capacity * Long.BYTES);
+            buffer.asIntBuffer().get(confirmedAt);
+            return new ProvisionedIndex(keys, confirmedAt, size);
+        }
+    }
+
+    // May run against a table being resized; the caller validates and retries
+    private static long find(long[] keys, int[] confirmedAt, long key) {
+        if (keys.length != confirmedAt.length) {
+            return -1;
+        }
+        int mask = keys.length - 1;
+        int slot = (int) key & mask;
+        for (int probes = 0; probes < keys.length; probes++) {
+            long candidate = keys[slot];
+            if (candidate == key) {
+                return EPOCH_SECONDS + (confirmedAt[slot] & 0xffffffffL);
+            }
+            if (candidate == EMPTY) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void resize(int capacity) {
+        long[] newKeys = new long[capacity];
+        int[] newConfirmedAt = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < keys.length; i++) {
+            long key = keys[i];
+            if (key != EMPTY) {
+                int slot = (int) key & mask;
+                while (newKeys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                newKeys[slot] = key;
+                newConfirmedAt[slot] = confirmedAt[i];
+            }
+        }
+        keys = newKeys;
+        confirmedAt = newConfirmedAt;
+    }
+}
@@ -0,0 +1,181 @@
+package de.aerticket.tc_agenties.snapshot;
+
+import de.aerticket.tc_agenties.cache.CacheStats;
+import de.aerticket.tc_agenties.config.ProvisioningConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Warm-restart index in front of the provisioning ledger.
+ *
+ * Confirmed agencies and users are kept in a ProvisionedIndex that is
+ * persisted to provisioning.snapshot-path every snapshot-interval-seconds
+ * and on shutdown, and loaded again at startup. After a deploy, logins of
+ * known agents are answered from memory instead of the ledger table or
+ * TravelCompositor. A missing or unreadable snapshot starts an empty index.
+ *
+ * The index holds hashes only, so it cannot list the entries of an agency.
+ * Revoking an agency instead records when it was revoked; entries of that
+ * agency confirmed up to then no longer count as fresh.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProvisionedSnapshotService {
+
+    public static final String CACHE_NAME = "provisioned-index";
+
+    private final ProvisioningConfig provisioningConfig;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    // Agency number -> epoch second it was revoked at
+    private final Map<String, Long> revokedAgencies = new ConcurrentHashMap<>();
+
+    private volatile ProvisionedIndex index;
+    private ScheduledExecutorService persister;
+    private long persistedModifications = -1;
+
+    @PostConstruct
+    public void start() {
+        if (!provisioningConfig.isSnapshotEnabled()) {
+            log.info("Provisioned snapshot disabled");
+            return;
+        }
+        index = load(Path.of(provisioningConfig.getSnapshotPath()));
+        persistedModifications = index.modifications();
+        persister = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "provisioned-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = provisioningConfig.getSnapshotIntervalSeconds();
+        persister.scheduleWithFixedDelay(this::persist, interval, interval, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (persister != null) {
+            persister.shutdown();
+            persister.awaitTermination(5, TimeUnit.SECONDS);
+            persist();
+        }
+    }
+
+    /**
+     * Check if the entry was confirmed within maxAgeSeconds
+     */
+    public boolean isFresh(String microsite, String agencyNumber, String jobId, long maxAgeSeconds) {
+        ProvisionedIndex current = index;
+        if (current == null) {
+            return false;
+        }
+        long confirmedAt = current.confirmedAt(ProvisionedIndex.key(microsite, agencyNumber, jobId));
+        Long revokedAt = revokedAgencies.get(agencyNumber);
+        boolean fresh = confirmedAt >= 0 && confirmedAt > Instant.now().getEpochSecond() - maxAgeSeconds
+                && (revokedAt == null || confirmedAt > revokedAt);
+        (fresh ? hits : misses).increment();
+        return fresh;
+    }
+
+    /**
+     * Drop the entry so the next login checks the ledger and TravelCompositor
+     */
+    public boolean remove(String microsite, String agencyNumber, String jobId) {
+        ProvisionedIndex current = index;
+        boolean removed = current != null && current.remove(ProvisionedIndex.key(microsite, agencyNumber, jobId));
+        if (removed) {
+            evictions.increment();
+        }
+        return removed;
+    }
+
+    /**
+     * Treat every entry of the agency, in any microsite and for any user,
+     * confirmed up to the given epoch second as gone
+     */
+    public void revokeAgency(String agencyNumber, long revokedAtEpochSecond) {
+        revokedAgencies.merge(agencyNumber, revokedAtEpochSecond, Math::max);
+        evictions.increment();
+        // Older revocations only hide entries that are stale anyway
+        long horizon = revokedAtEpochSecond - provisioningConfig.getLedgerMaxAgeSeconds();
+        revokedAgencies.values().removeIf(revoked -> revoked < horizon);
+    }
+
+    public void clear() {
+        ProvisionedIndex current = index;
+        if (current != null) {
+            evictions.add(current.size());
+            current.clear();
+        }
+    }
+
+    public CacheStats stats() {
+        ProvisionedIndex current = index;
+        return CacheStats.of(CACHE_NAME, current != null ? current.size() : 0, hits.sum(), misses.sum(),
+                evictions.sum(), null);
+    }
+
+    /**
+     * Index the entry as confirmed at the given epoch second
+     */
+    public void record(String microsite, String agencyNumber, String jobId, long confirmedAtEpochSecond) {
+        ProvisionedIndex current = index;
+        if (current != null) {
+            current.put(ProvisionedIndex.key(microsite, agencyNumber, jobId), confirmedAtEpochSecond);
+        }
+    }
+
+    /**
+     * Write the index if it changed since the last write
+     */
+    synchronized void persist() {
+        ProvisionedIndex current = index;
+        if (current == null) {
+            return;
+        }
+        long modifications = current.modifications();
+        if (modifications == persistedModifications) {
+            return;
+        }
+        Path file = Path.of(provisioningConfig.getSnapshotPath());
+        try {
+            long startedAt = System.nanoTime();
+            current.writeTo(file);
+            persistedModifications = modifications;
+            log.debug("Persisted {} provisioned entries to {} in {} ms", current.size(), file,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        } catch (IOException | RuntimeException e) {
+            log.error("Error persisting provisioned snapshot to {}: {}", file, e.getMessage());
+        }
+    }
+
+    private ProvisionedIndex load(Path file) {
+        long startedAt = System.nanoTime();
+        try {
+            ProvisionedIndex loaded = ProvisionedIndex.readFrom(file);
+            log.info("Loaded {} provisioned entries from {} in {} ms", loaded.size(), file,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+            return loaded;
+        } catch (NoSuchFileException e) {
+            log.info("No provisioned snapshot at {}, starting empty", file);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable provisioned snapshot {}: {}", file, e.getMessage());
+        }
+        return new ProvisionedIndex(provisioningConfig.getSnapshotExpectedEntries());
+    }
+}
@@ -0,0 +1,91 @@
+package de.aerticket.tc_agenties.util;
+
+import de.aerticket.tc_agenties.exception.DeadlineExceededException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time budget of the request running on the current thread.
+ *
+ * Set once at the controller; every downstream call derives its connect and
+ * read timeout from what is left via timeoutFor, and the login pipeline
+ * checks it between steps. Without an active deadline (background refreshes,
+ * scheduled jobs) configured timeouts apply unchanged.
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final long expiresAtNanos;
+
+    private Deadline(long budgetMillis) {
+        this.expiresAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+    }
+
+    /**
+     * Start a deadline of budgetMillis for this thread
+     */
+    public static Deadline begin(long budgetMillis) {
+        Deadline deadline = new Deadline(budgetMillis);
+        CURRENT.set(deadline);
+        return deadline;
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Deadline of the request running on this thread, or null
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Make a request's deadline current on another thread; pair with end()
+     */
+    public static void attach(Deadline deadline) {
+        if (deadline != null) {
+            CURRENT.set(deadline);
+        }
+    }
+
+    /**
+     * Milliseconds left on this thread's deadline, Long.MAX_VALUE without one
+     */
+    public static long remainingMillis() {
+        Deadline deadline = CURRENT.get();
+        return deadline == null ? Long.MAX_VALUE : deadline.remaining();
+    }
+
+    /**
+     * Throw if this thread's deadline has passed
+     */
+    public static void check(String step) {
+        if (remainingMillis() <= 0) {
+            throw new DeadlineExceededException("Request deadline exceeded before " + step);
+        }
+    }
+
+    /**
+     * Timeout for the next blocking call: the configured one, cut down to the
+     * remaining budget. Throws if nothing is left.
+     */
+    public static int timeoutFor(String step, int configuredMillis) {
+        long remaining = remainingMillis();
+        if (remaining <= 0) {
+            throw new DeadlineExceededException("Request deadline exceeded before " + step);
+        }
+        // 0 would mean "no timeout" for HttpURLConnection
+        return (int) Math.max(1, Math.min(configuredMillis, remaining));
+    }
+
+    public long remaining() {
+        return TimeUnit.NANOSECONDS.toMillis(expiresAtNanos - System.nanoTime());
+    }
+
+    public boolean isExpired() {
+        return expiresAtNanos - System.nanoTime() <= 0;
+    }
+}
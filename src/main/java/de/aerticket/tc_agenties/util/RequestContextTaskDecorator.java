@@ -0,0 +1,42 @@
+package de.aerticket.tc_agenties.util;
+
+import org.slf4j.MDC;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.Map;
+
+/**
+ * Carries the login's context onto executor threads.
+ *
+ * The Deadline is immutable and shared as is; a task may begin its own.
+ * RequestTimings are per thread and not thread-safe, so the worker starts its
+ * own instance: that keeps the task interactive for the rate limiter without
+ * touching the caller's timings (a task can hand back a copy for the caller
+ * to merge). The logging MDC (agency, microsite) is copied so the worker's
+ * lines are attributed and sampled like the login's own.
+ */
+public class RequestContextTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        Deadline deadline = Deadline.current();
+        boolean interactive = RequestTimings.current() != null;
+        Map<String, String> logContext = MDC.getCopyOfContextMap();
+        return () -> {
+            Deadline.attach(deadline);
+            if (logContext != null) {
+                MDC.setContextMap(logContext);
+            }
+            if (interactive) {
+                RequestTimings.begin();
+            }
+            try {
+                runnable.run();
+            } finally {
+                RequestTimings.end();
+                Deadline.end();
+                MDC.clear();
+            }
+        };
+    }
+}
@@ -0,0 +1,191 @@
+package de.aerticket.tc_agenties.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request stopwatch for the login pipeline.
+ *
+ * One instance per thread is reused across requests, so recording costs a
+ * thread-local lookup and an array write. The static methods are no-ops when
+ * no request is active (e.g. background jobs), so services can record
+ * unconditionally. Stages may be recorded more than once per request (token
+ * acquisition happens inside agency and user checks); durations add up.
+ */
+public final class RequestTimings {
+
+    /**
+     * Login stages, in Server-Timing order
+     */
+    public enum Stage {
+        JWT("jwt"),
+        MAPPING("mapping"),
+        AGENCY("agency"),
+        USER("user"),
+        TOKEN("token");
+
+        private final String metricName;
+
+        Stage(String metricName) {
+            this.metricName = metricName;
+        }
+
+        public String getMetricName() {
+            return metricName;
+        }
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+    private static final ThreadLocal<RequestTimings> PER_THREAD = ThreadLocal.withInitial(RequestTimings::new);
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+
+    private final long[] durations = new long[STAGES.length];
+    private final boolean[] recorded = new boolean[STAGES.length];
+    private final int[] hits = new int[STAGES.length];
+    private final int[] misses = new int[STAGES.length];
+    private long startedAt;
+
+    private RequestTimings() {
+    }
+
+    /**
+     * Start timing a request on this thread
+     */
+    public static RequestTimings begin() {
+        RequestTimings timings = PER_THREAD.get();
+        timings.reset();
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    /**
+     * Stop timing on this thread
+     */
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Timings of the request running on this thread, or null
+     */
+    public static RequestTimings current() {
+        return CURRENT.get();
+    }
+
+
+    /**
+     * Add the time since startedAtNanos to a stage
+     */
+    public static void record(Stage stage, long startedAtNanos) {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.add(stage, System.nanoTime() - startedAtNanos);
+        }
+    }
+
+    /**
+     * Mark that a stage was answered from a cache
+     */
+    public static void hit(Stage stage) {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.hits[stage.ordinal()]++;
+        }
+    }
+
+    /**
+     * Mark that a stage had to go to the remote system
+     */
+    public static void miss(Stage stage) {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.misses[stage.ordinal()]++;
+        }
+    }
+
+    /**
+     * Detached copy, safe to hand to another thread once this one is done
+     * recording
+     */
+    public RequestTimings copy() {
+        RequestTimings copy = new RequestTimings();
+        copy.merge(this);
+        copy.startedAt = startedAt;
+        return copy;
+    }
+
+    /**
+     * Add the stages recorded by other (e.g. a copy made on an executor
+     * thread) to this request
+     */
+    public void merge(RequestTimings other) {
+        for (int i = 0; i < STAGES.length; i++) {
+            durations[i] += other.durations[i];
+            recorded[i] |= other.recorded[i];
+            hits[i] += other.hits[i];
+            misses[i] += other.misses[i];
+        }
+    }
+
+    /**
+     * Duration of a stage in milliseconds, or -1 if it was not reached
+     */
+    public int millis(Stage stage) {
+        return recorded[stage.ordinal()] ? (int) TimeUnit.NANOSECONDS.toMillis(durations[stage.ordinal()]) : -1;
+    }
+
+    /**
+     * True if the stage was answered from a cache only, false if it went to
+     * the remote system, null if neither was marked
+     */
+    public Boolean cached(Stage stage) {
+        int i = stage.ordinal();
+        if (hits[i] == 0 && misses[i] == 0) {
+            return null;
+        }
+        return misses[i] == 0;
+    }
+
+    /**
+     * Server-Timing header value, e.g. jwt;dur=1.2;desc="hit", total;dur=80.4
+     */
+    public String toServerTimingHeader() {
+        StringBuilder header = new StringBuilder(160);
+        for (Stage stage : STAGES) {
+            int i = stage.ordinal();
+            if (!recorded[i]) {
+                continue;
+            }
+            header.append(stage.metricName).append(";dur=");
+            appendMillis(header, durations[i]);
+            if (hits[i] > 0 || misses[i] > 0) {
+                header.append(";desc=\"").append(misses[i] == 0 ? "hit" : hits[i] == 0 ? "miss" : "partial")
+                        .append('"');
+            }
+            header.append(", ");
+        }
+        header.append("total;dur=");
+        appendMillis(header, System.nanoTime() - startedAt);
+        return header.toString();
+    }
+
+    private void add(Stage stage, long nanos) {
+        durations[stage.ordinal()] += nanos;
+        recorded[stage.ordinal()] = true;
+    }
+
+    private void reset() {
+        for (int i = 0; i < STAGES.length; i++) {
+            durations[i] = 0;
+            recorded[i] = false;
+            hits[i] = 0;
+            misses[i] = 0;
+        }
+        startedAt = System.nanoTime();
+    }
+
+    // Milliseconds with one decimal, without String.format
+    private static void appendMillis(StringBuilder target, long nanos) {
+        long tenths = nanos / 100_000;
+        target.append(tenths / 10).append('.').append(tenths % 10);
+    }
+}
@@ -0,0 +1,22 @@
+-- One row per authentication attempt, written in batches by LoginAuditWriter
+CREATE TABLE IF NOT EXISTS lmxdb.aer_tc_login_audit (
+    id             BIGINT       NOT NULL AUTO_INCREMENT,
+    occurred_at    DATETIME(3)  NOT NULL,
+    outcome        VARCHAR(10)  NOT NULL,
+    failure_reason VARCHAR(255) NULL,
+    microsite      VARCHAR(100) NULL,
+    company_code   VARCHAR(50)  NULL,
+    agency_number  VARCHAR(50)  NULL,
+    job_id         VARCHAR(50)  NULL,
+    agency_status  VARCHAR(20)  NULL,
+    agency_action  VARCHAR(20)  NOT NULL,
+    user_action    VARCHAR(20)  NOT NULL,
+    jwt_ms         INT          NOT NULL,
+    mapping_ms     INT          NOT NULL,
+    agency_ms      INT          NOT NULL,
+    user_ms        INT          NOT NULL,
+    total_ms       INT          NOT NULL,
+    PRIMARY KEY (id),
+    KEY idx_login_audit_agency (agency_number, occurred_at),
+    KEY idx_login_audit_time (occurred_at)
+);
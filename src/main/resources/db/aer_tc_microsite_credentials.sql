@@ -0,0 +1,12 @@
+-- TravelCompositor API credentials per microsite (read when travelc.credentials-from-database=true)
+CREATE TABLE IF NOT EXISTS lmxdb.aer_tc_microsite_credentials (
+    id                      BIGINT       NOT NULL AUTO_INCREMENT,
+    microsite               VARCHAR(100) NOT NULL,
+    username                VARCHAR(255) NOT NULL,
+    password                VARCHAR(255) NOT NULL,
+    max_concurrent_requests INT          NULL,
+    token_timeout_seconds   INT          NULL,
+    active                  TINYINT(1)   NOT NULL DEFAULT 1,
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_tc_credentials_microsite (microsite)
+);
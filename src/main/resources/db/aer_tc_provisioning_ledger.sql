@@ -0,0 +1,20 @@
+-- Agencies (job_id = '') and users confirmed or created in TravelCompositor
+CREATE TABLE IF NOT EXISTS lmxdb.aer_tc_provisioning_ledger (
+    id            BIGINT       NOT NULL AUTO_INCREMENT,
+    microsite     VARCHAR(100) NOT NULL,
+    agency_number VARCHAR(50)  NOT NULL,
+    job_id        VARCHAR(50)  NOT NULL DEFAULT '',
+    origin        VARCHAR(20)  NOT NULL,
+    content_hash  CHAR(64)     NULL,
+    created_at    DATETIME(3)  NOT NULL,
+    confirmed_at  DATETIME(3)  NOT NULL,
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_ledger_entry (microsite, agency_number, job_id),
+    -- covering index for the login lookup (SELECT confirmed_at ... WHERE microsite, agency_number, job_id)
+    KEY idx_ledger_lookup (microsite, agency_number, job_id, confirmed_at),
+    -- agency events and invalidation (WHERE agency_number = ?) across all microsites
+    KEY idx_ledger_agency (agency_number)
+);
+
+-- Tables created before idx_ledger_agency existed:
+-- ALTER TABLE lmxdb.aer_tc_provisioning_ledger ADD KEY idx_ledger_agency (agency_number);
@@ -0,0 +1,130 @@
+package de.aerticket.tc_agenties.audit;
+
+import de.aerticket.tc_agenties.config.AuditConfig;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Throughput of the login audit pipeline (mvn -Pbenchmark test).
+ *
+ * Producers call LoginAuditService.record as fast as they can while the
+ * writer drains into a store that either discards batches or simulates a
+ * database round trip per batch.
+ */
+class LoginAuditBenchmark {
+
+	private static final int PRODUCERS = 8;
+	private static final long DURATION_MS = 2000;
+	private static final LoginAuditEvent EVENT = LoginAuditEvent.builder()
+			.occurredAt(Instant.now())
+			.outcome(LoginAuditEvent.OUTCOME_SUCCESS)
+			.microsite("aer360")
+			.agencyNumber("123456")
+			.jobId("42")
+			.build();
+
+	@Test
+	void ringBufferWithFastStore() throws Exception {
+		run("fast store, DROP", AuditConfig.OverflowPolicy.DROP, 0);
+	}
+
+	@Test
+	void ringBufferWithSlowStoreDropping() throws Exception {
+		run("slow store (2ms/batch), DROP", AuditConfig.OverflowPolicy.DROP, 2);
+	}
+
+	@Test
+	void ringBufferWithSlowStoreBlocking() throws Exception {
+		run("slow store (2ms/batch), BLOCK", AuditConfig.OverflowPolicy.BLOCK, 2);
+	}
+
+	@Test
+	void arrayBlockingQueueBaseline() throws Exception {
+		ArrayBlockingQueue<LoginAuditEvent> queue = new ArrayBlockingQueue<>(8192);
+		Thread consumer = new Thread(() -> {
+			while (!Thread.currentThread().isInterrupted()) {
+				queue.clear();
+			}
+		});
+		consumer.start();
+		AtomicLong accepted = new AtomicLong();
+		long offered = produce(event -> {
+			if (queue.offer(event)) {
+				accepted.incrementAndGet();
+			}
+		});
+		consumer.interrupt();
+		consumer.join();
+		report("ArrayBlockingQueue baseline", offered, accepted.get(), offered - accepted.get());
+	}
+
+	private void run(String name, AuditConfig.OverflowPolicy policy, long storeDelayMs) throws Exception {
+		AuditConfig config = new AuditConfig();
+		config.setOverflowPolicy(policy);
+		AtomicLong stored = new AtomicLong();
+		LoginAuditStore store = events -> {
+			if (storeDelayMs > 0) {
+				sleep(storeDelayMs);
+			}
+			stored.addAndGet(events.size());
+		};
+		LoginAuditService service = new LoginAuditService(config, store);
+		service.start();
+
+		long offered = produce(service::record);
+		service.stop();
+
+		report(name, offered, stored.get(), service.getDropped());
+		assertEquals(offered, stored.get() + service.getDropped());
+	}
+
+	private long produce(Consumer<LoginAuditEvent> sink) throws InterruptedException {
+		AtomicLong offered = new AtomicLong();
+		CountDownLatch start = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(PRODUCERS);
+		for (int i = 0; i < PRODUCERS; i++) {
+			Thread producer = new Thread(() -> {
+				try {
+					start.await();
+					long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURATION_MS);
+					long count = 0;
+					while (System.nanoTime() < end) {
+						sink.accept(EVENT);
+						count++;
+					}
+					offered.addAndGet(count);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} finally {
+					done.countDown();
+				}
+			});
+			producer.start();
+		}
+		start.countDown();
+		done.await();
+		return offered.get();
+	}
+
+	private static void report(String name, long offered, long accepted, long dropped) {
+		double seconds = DURATION_MS / 1000.0;
+		System.out.printf("%-32s offered %,12.0f/s  stored %,12.0f/s  dropped %5.1f%%  (%d producers)%n", name,
+				offered / seconds, accepted / seconds, offered == 0 ? 0 : 100.0 * dropped / offered, PRODUCERS);
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
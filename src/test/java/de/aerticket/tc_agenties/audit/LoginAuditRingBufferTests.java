@@ -0,0 +1,138 @@
+package de.aerticket.tc_agenties.audit;
+
+import de.aerticket.tc_agenties.config.AuditConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoginAuditRingBufferTests {
+
+	@Test
+	void capacityIsRoundedUpToPowerOfTwo() {
+		assertEquals(8, new LoginAuditRingBuffer(5).capacity());
+		assertEquals(2, new LoginAuditRingBuffer(0).capacity());
+	}
+
+	@Test
+	void keepsOrderAcrossWrapAround() {
+		LoginAuditRingBuffer buffer = new LoginAuditRingBuffer(4);
+		List<LoginAuditEvent> drained = new ArrayList<>();
+		int next = 0;
+		for (int round = 0; round < 50; round++) {
+			for (int i = 0; i < 3; i++) {
+				assertTrue(buffer.offer(event(next++)));
+			}
+			assertEquals(3, buffer.drainTo(drained, 3));
+		}
+		buffer.drainTo(drained, Integer.MAX_VALUE);
+
+		assertEquals(next, drained.size());
+		for (int i = 0; i < drained.size(); i++) {
+			assertEquals("job" + i, drained.get(i).getJobId());
+		}
+		assertEquals(0, buffer.size());
+	}
+
+	@Test
+	void fullBufferRejectsUntilDrained() {
+		LoginAuditRingBuffer buffer = new LoginAuditRingBuffer(4);
+		for (int i = 0; i < 4; i++) {
+			assertTrue(buffer.offer(event(i)));
+		}
+		assertFalse(buffer.offer(event(4)));
+
+		assertEquals(1, buffer.drainTo(new ArrayList<>(), 1));
+		assertTrue(buffer.offer(event(4)));
+		assertEquals(4, buffer.size());
+	}
+
+	@Test
+	void droppedEventsAreCounted() throws Exception {
+		CountDownLatch storeEntered = new CountDownLatch(1);
+		CountDownLatch releaseStore = new CountDownLatch(1);
+		LoginAuditService service = service(2, 1, 60_000, events -> {
+			storeEntered.countDown();
+			await(releaseStore);
+		});
+		service.start();
+		try {
+			service.record(event(0));
+			// Writer now blocks in the store holding event 0; two slots left
+			assertTrue(storeEntered.await(5, TimeUnit.SECONDS));
+			for (int i = 1; i <= 10; i++) {
+				service.record(event(i));
+			}
+
+			assertEquals(8, service.getDropped());
+			assertEquals(2, service.getPending());
+		} finally {
+			releaseStore.countDown();
+			service.stop();
+		}
+	}
+
+	@Test
+	void fullBatchIsWrittenWithoutWaitingForFlushInterval() throws Exception {
+		List<LoginAuditEvent> stored = new CopyOnWriteArrayList<>();
+		CountDownLatch written = new CountDownLatch(1);
+		LoginAuditService service = service(64, 3, 60_000, events -> {
+			stored.addAll(events);
+			written.countDown();
+		});
+		service.start();
+		try {
+			for (int i = 0; i < 3; i++) {
+				service.record(event(i));
+			}
+
+			assertTrue(written.await(5, TimeUnit.SECONDS));
+			assertEquals(3, stored.size());
+		} finally {
+			service.stop();
+		}
+	}
+
+	@Test
+	void pendingEventsAreFlushedOnShutdown() throws Exception {
+		List<LoginAuditEvent> stored = new CopyOnWriteArrayList<>();
+		LoginAuditService service = service(64, 100, 60_000, stored::addAll);
+		service.start();
+		for (int i = 0; i < 5; i++) {
+			service.record(event(i));
+		}
+
+		service.stop();
+
+		assertEquals(5, stored.size());
+		assertEquals(5, service.getWritten());
+	}
+
+	private static LoginAuditService service(int capacity, int batchSize, long flushIntervalMs,
+			LoginAuditStore store) {
+		AuditConfig config = new AuditConfig();
+		config.setCapacity(capacity);
+		config.setBatchSize(batchSize);
+		config.setFlushIntervalMs(flushIntervalMs);
+		return new LoginAuditService(config, store);
+	}
+
+	private static LoginAuditEvent event(int i) {
+		return LoginAuditEvent.builder().jobId("job" + i).build();
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package de.aerticket.tc_agenties.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemorySharedCacheTests {
+
+	@Test
+	void expiredEntriesAreMissesNotEvictions() throws Exception {
+		InMemorySharedCache cache = new InMemorySharedCache("test");
+		cache.put("a", "1", Duration.ofMillis(1));
+		TimeUnit.MILLISECONDS.sleep(5);
+
+		assertNull(cache.get("a"));
+
+		CacheStats stats = cache.stats();
+		assertEquals(0, stats.size());
+		assertEquals(1, stats.misses());
+		assertEquals(0, stats.evictions());
+	}
+
+	@Test
+	void evictReportsWhetherTheKeyWasPresent() {
+		InMemorySharedCache cache = new InMemorySharedCache("test");
+		cache.put("a", "1", null);
+
+		assertTrue(cache.evict("a"));
+		assertFalse(cache.evict("a"));
+		assertEquals(1, cache.stats().evictions());
+	}
+
+	@Test
+	void clearAndEvictMatchingCountRemovedEntries() {
+		InMemorySharedCache cache = new InMemorySharedCache("test");
+		cache.put("aer360:1", "ACTIVE", null);
+		cache.put("aer360:2", "ACTIVE", null);
+		cache.put("b2b:1", "ACTIVE", null);
+
+		assertEquals(2, cache.evictMatching(key -> key.startsWith("aer360:")));
+		cache.clear();
+
+		assertEquals(3, cache.stats().evictions());
+		assertEquals(0, cache.stats().size());
+	}
+}
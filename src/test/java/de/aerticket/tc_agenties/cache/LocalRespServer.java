@@ -0,0 +1,214 @@
+package de.aerticket.tc_agenties.cache;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+/**
+ * In-process stand-in for a Redis server, supporting only the commands the
+ * shared cache uses.
+ */
+class LocalRespServer implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final Map<String, Entry> data = new ConcurrentHashMap<>();
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final List<Socket> clients = new CopyOnWriteArrayList<>();
+
+    LocalRespServer() throws IOException {
+        this.serverSocket = new ServerSocket(0);
+        Thread acceptor = new Thread(this::acceptLoop, "local-resp-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket client : clients) {
+            client.close();
+        }
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                clients.add(socket);
+                Thread handler = new Thread(() -> handle(socket), "local-resp-client");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket) {
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = socket.getOutputStream();
+            while (true) {
+                List<String> command = readCommand(in);
+                if (command == null) {
+                    return;
+                }
+                synchronized (out) {
+                    execute(command, out);
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            // client went away
+        }
+    }
+
+    private void execute(List<String> command, OutputStream out) throws IOException {
+        String name = command.get(0).toUpperCase();
+        switch (name) {
+            case "PING", "AUTH", "SELECT" -> simple(out, "OK");
+            case "GET" -> {
+                Entry entry = data.get(command.get(1));
+                if (entry != null && entry.expiresAt < System.currentTimeMillis()) {
+                    data.remove(command.get(1));
+                    entry = null;
+                }
+                bulk(out, entry == null ? null : entry.value);
+            }
+            case "SET" -> {
+                long expiresAt = Long.MAX_VALUE;
+                if (command.size() == 5 && "PX".equalsIgnoreCase(command.get(3))) {
+                    expiresAt = System.currentTimeMillis() + Long.parseLong(command.get(4));
+                }
+                data.put(command.get(1), new Entry(command.get(2), expiresAt));
+                simple(out, "OK");
+            }
+            case "DEL" -> {
+                long removed = 0;
+                for (String key : command.subList(1, command.size())) {
+                    removed += data.remove(key) != null ? 1 : 0;
+                }
+                integer(out, removed);
+            }
+            case "SCAN" -> {
+                Pattern pattern = Pattern.compile(Pattern.quote(command.get(3)).replace("*", "\\E.*\\Q"));
+                List<String> keys = new ArrayList<>();
+                data.keySet().stream().filter(k -> pattern.matcher(k).matches()).forEach(keys::add);
+                out.write("*2\r\n".getBytes(StandardCharsets.UTF_8));
+                bulk(out, "0");
+                array(out, keys);
+            }
+            case "PUBLISH" -> {
+                int delivered = 0;
+                for (Subscriber subscriber : subscribers) {
+                    if (subscriber.channel.equals(command.get(1)) && subscriber.send(command.get(2))) {
+                        delivered++;
+                    }
+                }
+                integer(out, delivered);
+            }
+            case "SUBSCRIBE" -> {
+                subscribers.add(new Subscriber(command.get(1), out));
+                out.write("*3\r\n".getBytes(StandardCharsets.UTF_8));
+                bulk(out, "subscribe");
+                bulk(out, command.get(1));
+                integer(out, 1);
+            }
+            default -> out.write(("-ERR unknown command " + name + "\r\n").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static List<String> readCommand(InputStream in) throws IOException {
+        int type = in.read();
+        if (type == -1) {
+            return null;
+        }
+        int count = Integer.parseInt(readLine(in));
+        List<String> args = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            in.read(); // '$'
+            int length = Integer.parseInt(readLine(in));
+            args.add(new String(in.readNBytes(length), StandardCharsets.UTF_8));
+            in.readNBytes(2);
+        }
+        return args;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\r') {
+            if (c == -1) {
+                throw new IOException("closed");
+            }
+            line.append((char) c);
+        }
+        in.read();
+        return line.toString();
+    }
+
+    private static void simple(OutputStream out, String value) throws IOException {
+        out.write(("+" + value + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void integer(OutputStream out, long value) throws IOException {
+        out.write((":" + value + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void bulk(OutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.write("$-1\r\n".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.write(("$" + bytes.length + "\r\n").getBytes(StandardCharsets.UTF_8));
+        out.write(bytes);
+        out.write("\r\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void array(OutputStream out, List<String> values) throws IOException {
+        out.write(("*" + values.size() + "\r\n").getBytes(StandardCharsets.UTF_8));
+        for (String value : values) {
+            bulk(out, value);
+        }
+    }
+
+    private record Entry(String value, long expiresAt) {
+    }
+
+    private record Subscriber(String channel, OutputStream out) {
+
+        boolean send(String message) {
+            try {
+                synchronized (out) {
+                    out.write("*3\r\n".getBytes(StandardCharsets.UTF_8));
+                    bulk(out, "message");
+                    bulk(out, channel);
+                    bulk(out, message);
+                    out.flush();
+                }
+                return true;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+    }
+}
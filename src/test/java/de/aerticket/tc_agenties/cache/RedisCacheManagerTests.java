@@ -0,0 +1,129 @@
+package de.aerticket.tc_agenties.cache;
+
+import de.aerticket.tc_agenties.config.CacheConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RedisCacheManagerTests {
+
+	private LocalRespServer server;
+	private RedisCacheManager nodeA;
+	private RedisCacheManager nodeB;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		server = new LocalRespServer();
+		nodeA = new RedisCacheManager(config(server.getPort())).start();
+		nodeB = new RedisCacheManager(config(server.getPort())).start();
+		assertTrue(eventually(() -> server.getSubscriberCount() == 2));
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		nodeA.close();
+		nodeB.close();
+		server.close();
+	}
+
+	@Test
+	void valueWrittenOnOneNodeIsReadOnAnother() {
+		nodeA.getCache(CacheNames.TRAVELC_TOKENS).put("aer360", "token-1", Duration.ofMinutes(5));
+
+		assertEquals("token-1", nodeB.getCache(CacheNames.TRAVELC_TOKENS).get("aer360"));
+	}
+
+	@Test
+	void evictionInvalidatesNearCopyOnOtherNodes() {
+		SharedCache cacheA = nodeA.getCache(CacheNames.AGENCY_STATUS);
+		SharedCache cacheB = nodeB.getCache(CacheNames.AGENCY_STATUS);
+		cacheA.put("aer360:12345", "ACTIVE", Duration.ofMinutes(5));
+		assertEquals("ACTIVE", cacheB.get("aer360:12345"));
+
+		cacheA.evict("aer360:12345");
+
+		assertTrue(eventually(() -> cacheB.get("aer360:12345") == null));
+	}
+
+	@Test
+	void clearRemovesAllKeysOfCache() {
+		SharedCache cacheA = nodeA.getCache(CacheNames.PUBLIC_KEYS);
+		SharedCache cacheB = nodeB.getCache(CacheNames.PUBLIC_KEYS);
+		cacheA.put("k1", "v1", null);
+		cacheA.put("k2", "v2", null);
+		nodeA.getCache(CacheNames.AGENCY_STATUS).put("k1", "ACTIVE", null);
+		assertEquals("v2", cacheB.get("k2"));
+
+		cacheA.clear();
+
+		assertTrue(eventually(() -> cacheB.get("k1") == null && cacheB.get("k2") == null));
+		assertEquals("ACTIVE", nodeB.getCache(CacheNames.AGENCY_STATUS).get("k1"));
+	}
+
+	@Test
+	void evictMatchingRemovesOnlySelectedKeysOnEveryNode() {
+		SharedCache cacheA = nodeA.getCache(CacheNames.AGENCY_STATUS);
+		SharedCache cacheB = nodeB.getCache(CacheNames.AGENCY_STATUS);
+		cacheA.put("aer360:1", "ACTIVE", null);
+		cacheA.put("aer360:2", "ACTIVE", null);
+		cacheA.put("other:1", "ACTIVE", null);
+		assertEquals("ACTIVE", cacheB.get("aer360:1"));
+
+		assertEquals(2, cacheA.evictMatching(key -> key.startsWith("aer360:")));
+
+		assertTrue(eventually(() -> cacheB.get("aer360:1") == null && cacheB.get("aer360:2") == null));
+		assertEquals("ACTIVE", cacheB.get("other:1"));
+		assertEquals(2, cacheA.stats().evictions());
+	}
+
+	@Test
+	void entriesExpireAfterTtl() throws InterruptedException {
+		SharedCache cache = nodeA.getCache(CacheNames.AGENCY_STATUS);
+		cache.put("aer360:1", "ACTIVE", Duration.ofMillis(100));
+
+		Thread.sleep(200);
+
+		assertNull(cache.get("aer360:1"));
+		assertNull(nodeB.getCache(CacheNames.AGENCY_STATUS).get("aer360:1"));
+	}
+
+	@Test
+	void unreachableServerDegradesToMisses() throws Exception {
+		server.close();
+		SharedCache cache = nodeA.getCache(CacheNames.TRAVELC_TOKENS);
+
+		cache.put("aer360", "token-1", Duration.ofMinutes(5));
+
+		assertNull(nodeB.getCache(CacheNames.TRAVELC_TOKENS).get("aer360"));
+	}
+
+	private static CacheConfig.Redis config(int port) {
+		CacheConfig.Redis redis = new CacheConfig.Redis();
+		redis.setPort(port);
+		redis.setNearCacheTtlMs(60_000);
+		return redis;
+	}
+
+	private static boolean eventually(Supplier<Boolean> condition) {
+		long deadline = System.currentTimeMillis() + 2000;
+		while (System.currentTimeMillis() < deadline) {
+			if (condition.get()) {
+				return true;
+			}
+			try {
+				Thread.sleep(20);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+		return false;
+	}
+}
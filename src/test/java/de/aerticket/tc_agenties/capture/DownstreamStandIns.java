@@ -0,0 +1,240 @@
+package de.aerticket.tc_agenties.capture;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.aerticket.tc_agenties.audit.ProvisioningAction;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local stand-ins for TravelCompositor, Cockpit and the JWT key servers,
+ * seeded from a capture trace so every login meets the state it met in
+ * production: agencies and users that existed, inactive or unknown agencies,
+ * and agencies Cockpit did not know. Writes change the state like the real
+ * systems would. Every call is counted per endpoint and answered after a
+ * fixed simulated latency.
+ *
+ * Paths below baseUrl(): /keys/{env}/{kid}.pub, /travelc/..., /cockpit/{agency},
+ * /cockpit?agencyNumber=a,b,c (batched agency lookups)
+ */
+final class DownstreamStandIns implements AutoCloseable {
+
+	private static final Set<ProvisioningAction> EXISTING = Set.of(ProvisioningAction.LEDGER,
+			ProvisioningAction.CONFIRMED);
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final KeyPair signingKey;
+	private final String publicKeyPem;
+	private final long latencyMs;
+	private final HttpServer server;
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+	// TravelCompositor agencies by microsite|agency: true = active, false = inactive
+	private final Map<String, Boolean> agencies = new ConcurrentHashMap<>();
+	// TravelCompositor users by microsite|agency|jobId
+	private final Set<String> users = ConcurrentHashMap.newKeySet();
+	private final Set<String> cockpitAgencies = ConcurrentHashMap.newKeySet();
+	private final Map<String, LongAdder> calls = new ConcurrentHashMap<>();
+
+	DownstreamStandIns(List<CapturedLogin> trace, long latencyMs) throws Exception {
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+		generator.initialize(new ECGenParameterSpec("secp256r1"));
+		this.signingKey = generator.generateKeyPair();
+		this.publicKeyPem = "-----BEGIN PUBLIC KEY-----\n"
+				+ Base64.getMimeEncoder().encodeToString(signingKey.getPublic().getEncoded())
+				+ "\n-----END PUBLIC KEY-----\n";
+		this.latencyMs = latencyMs;
+		seed(trace);
+
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", this::handle);
+		server.setExecutor(executor);
+		server.start();
+	}
+
+	String baseUrl() {
+		return "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	KeyPair signingKey() {
+		return signingKey;
+	}
+
+	/**
+	 * Calls per endpoint so far, sorted by endpoint
+	 */
+	Map<String, Long> calls() {
+		Map<String, Long> snapshot = new TreeMap<>();
+		calls.forEach((endpoint, count) -> snapshot.put(endpoint, count.sum()));
+		return snapshot;
+	}
+
+	void resetCalls() {
+		calls.clear();
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	/**
+	 * State as the first login of each agency and user found it
+	 */
+	private void seed(List<CapturedLogin> trace) {
+		Set<String> seenAgencies = ConcurrentHashMap.newKeySet();
+		Set<String> seenUsers = ConcurrentHashMap.newKeySet();
+		for (CapturedLogin login : trace) {
+			if (login.getToken() != CapturedLogin.TokenShape.VALID || login.getAgencyNumber() == null) {
+				continue;
+			}
+			String agencyKey = login.getMicrosite() + '|' + login.getAgencyNumber();
+			if (login.getAgencyAction() != ProvisioningAction.NONE && seenAgencies.add(agencyKey)) {
+				String status = login.getAgencyStatus();
+				if (EXISTING.contains(login.getAgencyAction()) || "ACTIVE".equals(status)) {
+					agencies.put(agencyKey, true);
+				} else if ("INACTIVE".equals(status)) {
+					agencies.put(agencyKey, false);
+				}
+				if (login.getAgencyAction() != ProvisioningAction.FAILED) {
+					cockpitAgencies.add(login.getAgencyNumber());
+				}
+			}
+			String userKey = agencyKey + '|' + login.getJobId();
+			if (login.getUserAction() != ProvisioningAction.NONE && seenUsers.add(userKey)) {
+				if (EXISTING.contains(login.getUserAction())) {
+					users.add(userKey);
+				}
+				// Users are created from the agency's Cockpit data
+				if (login.getUserAction() == ProvisioningAction.CREATED) {
+					cockpitAgencies.add(login.getAgencyNumber());
+				}
+			}
+		}
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			if (latencyMs > 0) {
+				Thread.sleep(latencyMs);
+			}
+			String method = exchange.getRequestMethod();
+			String[] path = Arrays.stream(exchange.getRequestURI().getPath().split("/"))
+					.filter(segment -> !segment.isEmpty())
+					.toArray(String[]::new);
+			switch (path.length > 0 ? path[0] : "") {
+				case "keys" -> {
+					count("keys " + method);
+					respond(exchange, 200, publicKeyPem);
+				}
+				case "cockpit" -> cockpit(exchange, method, path);
+				case "travelc" -> travelc(exchange, method, path);
+				default -> respond(exchange, 404, "");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			respond(exchange, 503, "");
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private void cockpit(HttpExchange exchange, String method, String[] path) throws IOException {
+		if (path.length == 1) {
+			count("cockpit " + method + " agencies");
+			String query = exchange.getRequestURI().getQuery();
+			List<Map<String, String>> found = new ArrayList<>();
+			if (query != null && query.startsWith("agencyNumber=")) {
+				for (String agencyNumber : query.substring("agencyNumber=".length()).split(",")) {
+					if (cockpitAgencies.contains(agencyNumber)) {
+						found.add(cockpitAgency(agencyNumber));
+					}
+				}
+			}
+			respond(exchange, 200, objectMapper.writeValueAsString(found));
+			return;
+		}
+		count("cockpit " + method + (path.length > 2 ? " agents" : " agency"));
+		if (path.length == 2 && cockpitAgencies.contains(path[1])) {
+			respond(exchange, 200, objectMapper.writeValueAsString(cockpitAgency(path[1])));
+		} else if (path.length == 3) {
+			respond(exchange, 200, "[]");
+		} else {
+			respond(exchange, 404, "");
+		}
+	}
+
+	private static Map<String, String> cockpitAgency(String agencyNumber) {
+		return Map.of(
+				"agencyNumber", agencyNumber,
+				"companyName", "Replay " + agencyNumber,
+				"city", "Frankfurt",
+				"zip", "60311",
+				"country", "DE",
+				"email", agencyNumber + "@replay.invalid");
+	}
+
+	private void travelc(HttpExchange exchange, String method, String[] path) throws IOException {
+		String resource = path.length > 1 ? path[1] : "";
+		count("travelc " + method + " " + resource);
+		if ("authentication".equals(resource)) {
+			respond(exchange, 200, "{\"token\":\"replay-token\"}");
+			return;
+		}
+		String microsite = path.length > 2 ? path[2] : "";
+		if ("agency".equals(resource)) {
+			if ("GET".equals(method) && path.length == 4) {
+				Boolean active = agencies.get(microsite + '|' + path[3]);
+				respond(exchange, active == null ? 404 : 200, active == null ? ""
+						: "{\"externalId\":\"" + path[3] + "\",\"active\":\"" + active + "\"}");
+			} else {
+				JsonNode agency = objectMapper.readTree(exchange.getRequestBody());
+				agencies.put(microsite + '|' + agency.path("externalId").asText(), true);
+				respond(exchange, 200, "{}");
+			}
+		} else if ("user".equals(resource) && path.length >= 4) {
+			String agencyKey = microsite + '|' + path[3];
+			if ("GET".equals(method) && path.length == 5) {
+				respond(exchange, users.contains(agencyKey + '|' + path[4]) ? 200 : 404, "{}");
+			} else {
+				JsonNode user = objectMapper.readTree(exchange.getRequestBody());
+				users.add(agencyKey + '|' + user.path("username").asText());
+				respond(exchange, 200, "{}");
+			}
+		} else {
+			respond(exchange, 404, "");
+		}
+	}
+
+	private void count(String endpoint) {
+		calls.computeIfAbsent(endpoint, key -> new LongAdder()).increment();
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+		if (bytes.length > 0) {
+			exchange.getResponseBody().write(bytes);
+		}
+	}
+}
@@ -0,0 +1,212 @@
+package de.aerticket.tc_agenties.capture;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import de.aerticket.tc_agenties.audit.ProvisioningAction;
+import de.aerticket.tc_agenties.entity.MicrositeMapping;
+import de.aerticket.tc_agenties.snapshot.MicrositeMappingSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.interfaces.ECPrivateKey;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Time from process start to the first successful authenticate, for the
+ * packagings the build offers (mvn -Pbenchmark test -Dtest=StartupBenchmark).
+ *
+ * Build the artifacts first: mvn package for the WAR and mvn -Pfaststart
+ * package for the extracted JAR with its CDS archive. Each variant is
+ * started startup.runs times (default 3) against the local stand-ins; the
+ * median is reported. Variants whose artifact is missing are skipped.
+ *
+ * System properties:
+ * - startup.war: executable WAR (default target/tc_agenties-0.0.1-SNAPSHOT.war)
+ * - startup.dir: extracted faststart JAR (default target/faststart)
+ */
+class StartupBenchmark {
+
+	private static final String MICROSITE = "aer360";
+	private static final String AGENCY = "100001";
+	private static final String JOB_ID = "4711";
+	private static final String COMPANY_CODE = "AER";
+	private static final String JAR_NAME = "tc_agenties-0.0.1-SNAPSHOT.jar";
+	private static final Duration MAX_STARTUP = Duration.ofMinutes(2);
+
+	private final HttpClient client = HttpClient.newBuilder()
+			.connectTimeout(Duration.ofMillis(500))
+			.followRedirects(HttpClient.Redirect.NEVER)
+			.build();
+
+	@Test
+	void warAsBuiltToday() throws Exception {
+		Path war = Path.of(System.getProperty("startup.war", "target/tc_agenties-0.0.1-SNAPSHOT.war"));
+		assumeTrue(Files.isRegularFile(war), "build the WAR first: mvn package");
+		measure("war (java -jar)", war.toAbsolutePath().getParent(), List.of("-jar", war.toAbsolutePath().toString()));
+	}
+
+	@Test
+	void extractedJar() throws Exception {
+		Path dir = faststartDirectory();
+		measure("extracted jar", dir, List.of("-jar", JAR_NAME));
+	}
+
+	@Test
+	void extractedJarWithAot() throws Exception {
+		Path dir = faststartDirectory();
+		measure("extracted jar + AOT", dir, List.of("-Dspring.aot.enabled=true", "-jar", JAR_NAME));
+	}
+
+	@Test
+	void extractedJarWithAotAndCds() throws Exception {
+		Path dir = faststartDirectory();
+		assumeTrue(Files.isRegularFile(dir.resolve("application.jsa")), "no CDS archive in " + dir);
+		measure("extracted jar + AOT + CDS", dir, List.of("-XX:SharedArchiveFile=application.jsa",
+				"-Xlog:cds=off", "-Dspring.aot.enabled=true", "-jar", JAR_NAME));
+	}
+
+	private static Path faststartDirectory() {
+		Path dir = Path.of(System.getProperty("startup.dir", "target/faststart")).toAbsolutePath();
+		assumeTrue(Files.isRegularFile(dir.resolve(JAR_NAME)), "build the JAR first: mvn -Pfaststart package");
+		return dir;
+	}
+
+	private void measure(String name, Path workingDirectory, List<String> launch) throws Exception {
+		int runs = Integer.getInteger("startup.runs", 3);
+		long[] millis = new long[runs];
+		try (DownstreamStandIns standIns = new DownstreamStandIns(List.of(existingLogin()), 0)) {
+			Path workDir = Files.createTempDirectory("tc-startup-");
+			Path mappings = workDir.resolve("microsite-mappings.json");
+			MicrositeMappingSnapshot.writeTo(mappings, List.of(new MicrositeMapping(1L, COMPANY_CODE,
+					"Startup " + COMPANY_CODE, MICROSITE, MICROSITE, "https://" + MICROSITE + ".startup.invalid/")),
+					new ObjectMapper());
+			String token = token(standIns);
+			for (int run = 0; run < runs; run++) {
+				millis[run] = timeToFirstLogin(workingDirectory, launch, standIns, mappings, token,
+						workDir.resolve("run-" + run + ".log"));
+			}
+		}
+		Arrays.sort(millis);
+		System.out.printf("%-28s first successful authenticate after %,6d ms (median of %d, min %,d, max %,d)%n",
+				name, millis[runs / 2], runs, millis[0], millis[runs - 1]);
+	}
+
+	private long timeToFirstLogin(Path workingDirectory, List<String> launch, DownstreamStandIns standIns,
+			Path mappings, String token, Path log) throws Exception {
+		int port;
+		try (ServerSocket socket = new ServerSocket(0)) {
+			port = socket.getLocalPort();
+		}
+		String base = standIns.baseUrl();
+		List<String> command = new ArrayList<>();
+		command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+		command.addAll(launch);
+		command.addAll(List.of(
+				"--server.port=" + port,
+				"--jwt.qa-public-key-url=" + base + "/keys/qa/{kid}.pub",
+				"--travelc.base-url=" + base + "/travelc",
+				"--travelc.microsites." + MICROSITE + ".username=startup",
+				"--travelc.microsites." + MICROSITE + ".password=startup",
+				"--cockpit.base-url=" + base + "/cockpit",
+				"--microsite.mapping-snapshot-path=" + mappings,
+				"--provisioning.ledger-enabled=false",
+				"--provisioning.snapshot-enabled=false",
+				"--audit.enabled=false",
+				"--cache.backend=memory"));
+
+		URI authenticate = URI.create("http://127.0.0.1:" + port + "/aerwebservice/user/authenticatetest?jwt="
+				+ URLEncoder.encode(token, StandardCharsets.UTF_8) + "&lang=DE&type=agent");
+		long startedAt = System.nanoTime();
+		Process process = new ProcessBuilder(command)
+				.directory(workingDirectory.toFile())
+				.redirectErrorStream(true)
+				.redirectOutput(log.toFile())
+				.start();
+		try {
+			while (System.nanoTime() - startedAt < MAX_STARTUP.toNanos()) {
+				if (!process.isAlive()) {
+					throw new IllegalStateException("Application exited early, see " + log);
+				}
+				if (authenticated(authenticate)) {
+					return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+				}
+				Thread.sleep(10);
+			}
+			throw new IllegalStateException("No successful authenticate within " + MAX_STARTUP + ", see " + log);
+		} finally {
+			process.destroy();
+			if (!process.waitFor(30, TimeUnit.SECONDS)) {
+				process.destroyForcibly();
+			}
+		}
+	}
+
+	private boolean authenticated(URI authenticate) throws InterruptedException {
+		try {
+			HttpResponse<String> response = client.send(HttpRequest.newBuilder(authenticate)
+					.timeout(Duration.ofSeconds(20))
+					.build(), HttpResponse.BodyHandlers.ofString());
+			return response.statusCode() == 200 && response.body().contains("\"success\":true");
+		} catch (IOException e) {
+			// Not listening yet
+			return false;
+		}
+	}
+
+	/**
+	 * Agency and user that already exist, so the login is the steady-state path
+	 */
+	private static CapturedLogin existingLogin() {
+		return CapturedLogin.builder()
+				.token(CapturedLogin.TokenShape.VALID)
+				.mapped(true)
+				.companyCode(COMPANY_CODE)
+				.microsite(MICROSITE)
+				.agencyNumber(AGENCY)
+				.jobId(JOB_ID)
+				.agencyStatus("ACTIVE")
+				.agencyAction(ProvisioningAction.CONFIRMED)
+				.userAction(ProvisioningAction.CONFIRMED)
+				.build();
+	}
+
+	private static String token(DownstreamStandIns standIns) throws Exception {
+		JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.ES256).type(JOSEObjectType.JWT)
+				.keyID("startup")
+				.build();
+		JWTClaimsSet claims = new JWTClaimsSet.Builder()
+				.issuer("qa-cockpit")
+				.subject(JOB_ID)
+				.issueTime(new Date())
+				.claim("agencyNumber", AGENCY)
+				.claim("companyCode", COMPANY_CODE)
+				.claim("jobId", JOB_ID)
+				.claim("agentFirstName", "Startup")
+				.claim("agentLastName", "Agent")
+				.build();
+		SignedJWT jwt = new SignedJWT(header, claims);
+		jwt.sign(new ECDSASigner((ECPrivateKey) standIns.signingKey().getPrivate()));
+		return jwt.serialize();
+	}
+}
@@ -0,0 +1,82 @@
+package de.aerticket.tc_agenties.capture;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.aerticket.tc_agenties.audit.LoginAuditEvent;
+import de.aerticket.tc_agenties.config.CaptureConfig;
+import de.aerticket.tc_agenties.service.MicrositeMappingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TrafficCaptureServiceTests {
+
+	@TempDir
+	Path dir;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final MicrositeMappingService micrositeMappingService = mock(MicrositeMappingService.class);
+	private final CaptureConfig captureConfig = new CaptureConfig();
+	private TrafficCaptureService service;
+
+	@BeforeEach
+	void setUp() {
+		captureConfig.setPath(dir.resolve("trace.jsonl").toString());
+		service = new TrafficCaptureService(captureConfig, micrositeMappingService, objectMapper);
+	}
+
+	@Test
+	void mappingIsReadWhenTheLoginIsRecorded() throws Exception {
+		// Mapped at login time, removed before the writer gets to it
+		when(micrositeMappingService.hasCompanyCodeMapping("AER")).thenReturn(true, false);
+
+		service.start();
+		service.record("", "de", "B2B", event("AER"), null);
+		service.stop();
+
+		List<JsonNode> lines = trace();
+		assertEquals(1, lines.size());
+		assertTrue(lines.get(0).path("mapped").asBoolean());
+	}
+
+	@Test
+	void restartAfterStopStartsAFreshTrace() throws Exception {
+		service.start();
+		service.record("", "de", "B2B", event("AER"), null);
+		service.record("", "de", "B2B", event("AER"), null);
+		service.stop();
+		assertEquals(2, trace().size());
+
+		service.start();
+		service.record("", "de", "B2B", event("XYZ"), null);
+		service.stop();
+
+		assertEquals(1, trace().size());
+		assertEquals("STOPPED", service.status().get("state"));
+	}
+
+	private List<JsonNode> trace() throws Exception {
+		return Files.readAllLines(service.trace()).stream()
+				.map(line -> {
+					try {
+						return objectMapper.readTree(line);
+					} catch (Exception e) {
+						throw new IllegalStateException(e);
+					}
+				})
+				.toList();
+	}
+
+	private static LoginAuditEvent event(String companyCode) {
+		return LoginAuditEvent.builder().outcome("SUCCESS").companyCode(companyCode).build();
+	}
+}
@@ -0,0 +1,305 @@
+package de.aerticket.tc_agenties.capture;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import de.aerticket.tc_agenties.audit.LoginAuditEvent;
+import de.aerticket.tc_agenties.audit.ProvisioningAction;
+import de.aerticket.tc_agenties.entity.MicrositeMapping;
+import de.aerticket.tc_agenties.snapshot.MicrositeMappingSnapshot;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
+import java.security.interfaces.ECPrivateKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Deterministic replay of a captured authenticate trace against the full
+ * application and local stand-ins for TravelCompositor, Cockpit and the key
+ * servers (mvn -Pbenchmark test -Dtest=TrafficReplayBenchmark).
+ *
+ * System properties:
+ * - replay.trace: trace file (default: the bundled sample trace)
+ * - replay.speed: 1 replays at the captured pace, 10 ten times faster, 0 as
+ *   fast as replay.concurrency allows
+ * - replay.concurrency: client threads at speed 0 (default 64); paced replays
+ *   send every login on its own virtual thread, like independent browsers
+ * - replay.downstreamLatencyMs: stand-in response time (default 20)
+ * - replay.cockpitBatch: true batches concurrent Cockpit agency lookups
+ *   (cockpit.batch-enabled)
+ *
+ * Latency is measured from the captured send time (scaled by the speed), so
+ * queueing behind slow logins counts, and reported per traffic class with
+ * the downstream calls the replay caused. The provisioning ledger and the
+ * login audit are off: both need the database.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class TrafficReplayBenchmark {
+
+	private static final String DEFAULT_TRACE = "/capture/sample-trace.jsonl";
+	// MicrositeConfig default for unmapped company codes
+	private static final String FALLBACK_MICROSITE = "aer360";
+
+	private static List<CapturedLogin> trace;
+	private static DownstreamStandIns standIns;
+	private static Path workDir;
+
+	@LocalServerPort
+	private int port;
+
+	@DynamicPropertySource
+	static void replayEnvironment(DynamicPropertyRegistry registry) throws Exception {
+		trace = readTrace();
+		standIns = new DownstreamStandIns(trace, Long.getLong("replay.downstreamLatencyMs", 20));
+		workDir = Files.createTempDirectory("tc-replay-");
+		Path mappings = workDir.resolve("microsite-mappings.json");
+		MicrositeMappingSnapshot.writeTo(mappings, mappings(trace), new ObjectMapper());
+
+		String base = standIns.baseUrl();
+		registry.add("jwt.qa-public-key-url", () -> base + "/keys/qa/{kid}.pub");
+		registry.add("jwt.stg-public-key-url", () -> base + "/keys/stg/{kid}.pub");
+		registry.add("jwt.prod-public-key-url", () -> base + "/keys/prod/{kid}.pub");
+		registry.add("travelc.base-url", () -> base + "/travelc");
+		registry.add("cockpit.base-url", () -> base + "/cockpit");
+		registry.add("cockpit.batch-enabled", () -> Boolean.getBoolean("replay.cockpitBatch"));
+		for (String microsite : microsites(trace)) {
+			registry.add("travelc.microsites." + microsite + ".username", () -> "replay");
+			registry.add("travelc.microsites." + microsite + ".password", () -> "replay");
+		}
+		registry.add("microsite.mapping-snapshot-path", mappings::toString);
+		registry.add("provisioning.ledger-enabled", () -> "false");
+		registry.add("provisioning.snapshot-enabled", () -> "false");
+		registry.add("audit.enabled", () -> "false");
+		registry.add("cache.backend", () -> "memory");
+		registry.add("logging.level.de.aerticket.tc_agenties", () -> "WARN");
+	}
+
+	@AfterAll
+	static void stopStandIns() throws IOException {
+		standIns.close();
+		try (var files = Files.walk(workDir)) {
+			files.sorted((a, b) -> b.compareTo(a)).forEach(file -> file.toFile().delete());
+		}
+	}
+
+	@Test
+	void replay() throws Exception {
+		double speed = Double.parseDouble(System.getProperty("replay.speed", "1"));
+		int concurrency = Integer.getInteger("replay.concurrency", 64);
+		List<String> urls = requestUrls(trace);
+		standIns.resetCalls();
+
+		HttpClient client = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NEVER).build();
+		ExecutorService senders = speed > 0 ? Executors.newVirtualThreadPerTaskExecutor()
+				: Executors.newFixedThreadPool(concurrency);
+		Map<String, List<Long>> latencies = new ConcurrentHashMap<>();
+		AtomicInteger outcomeMismatches = new AtomicInteger();
+		AtomicInteger errors = new AtomicInteger();
+
+		long startedAt = System.nanoTime();
+		long firstOffset = trace.get(0).getOffsetMs();
+		for (int i = 0; i < trace.size(); i++) {
+			CapturedLogin login = trace.get(i);
+			long due = speed > 0
+					? startedAt + (long) (TimeUnit.MILLISECONDS.toNanos(login.getOffsetMs() - firstOffset) / speed)
+					: 0;
+			for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+				LockSupport.parkNanos(wait);
+			}
+			HttpRequest request = HttpRequest.newBuilder(URI.create(urls.get(i))).GET().build();
+			senders.execute(() -> {
+				long sentAt = due > 0 ? due : System.nanoTime();
+				try {
+					int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+					boolean succeeded = status == 200;
+					if (succeeded != LoginAuditEvent.OUTCOME_SUCCESS.equals(login.getOutcome())) {
+						outcomeMismatches.incrementAndGet();
+					}
+				} catch (IOException | InterruptedException e) {
+					errors.incrementAndGet();
+				}
+				latencies.computeIfAbsent(trafficClass(login), key -> Collections.synchronizedList(
+						new ArrayList<>())).add(System.nanoTime() - sentAt);
+			});
+		}
+		senders.shutdown();
+		senders.awaitTermination(10, TimeUnit.MINUTES);
+		long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+		System.out.printf("Replayed %,d logins in %,d ms (speed %s)%n", trace.size(), elapsedMs,
+				speed > 0 ? speed + "x" : "max, " + concurrency + " threads");
+		System.out.printf("%-22s %7s %9s %9s %9s %9s%n", "class", "count", "p50 ms", "p90 ms", "p99 ms", "max ms");
+		List<Long> all = new ArrayList<>();
+		new TreeMap<>(latencies).forEach((name, values) -> {
+			all.addAll(values);
+			print(name, values);
+		});
+		print("all", all);
+		System.out.printf("Outcome differs from capture: %d, client errors: %d%n", outcomeMismatches.get(),
+				errors.get());
+		System.out.println("Downstream calls:");
+		standIns.calls().forEach((endpoint, count) -> System.out.printf("  %-28s %,8d%n", endpoint, count));
+		assertFalse(all.isEmpty());
+	}
+
+	/**
+	 * Coarse traffic class of a captured login, for the latency report
+	 */
+	private static String trafficClass(CapturedLogin login) {
+		if (login.getToken() != CapturedLogin.TokenShape.VALID) {
+			return "token " + login.getToken().name().toLowerCase();
+		}
+		if (!login.isMapped()) {
+			return "unmapped company";
+		}
+		if (login.getAgencyAction() == ProvisioningAction.CREATED
+				|| login.getAgencyAction() == ProvisioningAction.UPDATED) {
+			return "agency sync";
+		}
+		if (login.getUserAction() == ProvisioningAction.CREATED) {
+			return "new user";
+		}
+		return LoginAuditEvent.OUTCOME_SUCCESS.equals(login.getOutcome()) ? "repeat login" : "other failure";
+	}
+
+	private static void print(String name, List<Long> nanos) {
+		long[] sorted = nanos.stream().mapToLong(Long::longValue).sorted().toArray();
+		System.out.printf("%-22s %7d %9.1f %9.1f %9.1f %9.1f%n", name, sorted.length, percentile(sorted, 0.50),
+				percentile(sorted, 0.90), percentile(sorted, 0.99), sorted[sorted.length - 1] / 1e6);
+	}
+
+	private static double percentile(long[] sorted, double quantile) {
+		int index = (int) Math.ceil(quantile * sorted.length) - 1;
+		return sorted[Math.max(0, index)] / 1e6;
+	}
+
+	private static List<CapturedLogin> readTrace() throws IOException {
+		String file = System.getProperty("replay.trace");
+		try (InputStream in = file != null ? Files.newInputStream(Path.of(file))
+				: TrafficReplayBenchmark.class.getResourceAsStream(DEFAULT_TRACE);
+				MappingIterator<CapturedLogin> lines = new ObjectMapper().readerFor(CapturedLogin.class)
+						.readValues(in)) {
+			List<CapturedLogin> logins = new ArrayList<>(lines.readAll());
+			logins.sort((a, b) -> Long.compare(a.getOffsetMs(), b.getOffsetMs()));
+			return logins;
+		}
+	}
+
+	private static Set<String> microsites(List<CapturedLogin> trace) {
+		Set<String> microsites = new LinkedHashSet<>();
+		microsites.add(FALLBACK_MICROSITE);
+		trace.stream().map(CapturedLogin::getMicrosite).filter(microsite -> microsite != null)
+				.forEach(microsites::add);
+		return microsites;
+	}
+
+	/**
+	 * Mapping rows for the company codes that were mapped during the capture
+	 */
+	private static List<MicrositeMapping> mappings(List<CapturedLogin> trace) {
+		Map<String, MicrositeMapping> byCompanyCode = new LinkedHashMap<>();
+		for (CapturedLogin login : trace) {
+			if (login.isMapped() && login.getCompanyCode() != null && login.getMicrosite() != null) {
+				byCompanyCode.computeIfAbsent(login.getCompanyCode(), code -> new MicrositeMapping(
+						(long) byCompanyCode.size() + 1, code, "Replay " + code, login.getMicrosite(),
+						login.getMicrosite(), "https://" + login.getMicrosite() + ".replay.invalid/"));
+			}
+		}
+		return new ArrayList<>(byCompanyCode.values());
+	}
+
+	/**
+	 * Authenticate URL per login, with a token of the captured shape; tokens
+	 * are signed up front so signing does not count as latency
+	 */
+	private List<String> requestUrls(List<CapturedLogin> trace) throws Exception {
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+		generator.initialize(new ECGenParameterSpec("secp256r1"));
+		ECDSASigner validSigner = new ECDSASigner((ECPrivateKey) standIns.signingKey().getPrivate());
+		ECDSASigner foreignSigner = new ECDSASigner((ECPrivateKey) generator.generateKeyPair().getPrivate());
+		byte[] secret = new byte[32];
+		new SecureRandom().nextBytes(secret);
+		MACSigner macSigner = new MACSigner(secret);
+
+		List<String> urls = new ArrayList<>(trace.size());
+		for (CapturedLogin login : trace) {
+			String token = switch (login.getToken()) {
+				case EMPTY -> "";
+				case MALFORMED -> "malformed-token";
+				case UNSUPPORTED_ALG -> sign(login, JWSAlgorithm.HS256, macSigner);
+				case REJECTED -> sign(login, JWSAlgorithm.ES256, foreignSigner);
+				case VALID -> sign(login, JWSAlgorithm.ES256, validSigner);
+			};
+			urls.add("http://127.0.0.1:" + port + "/aerwebservice/user/authenticatetest?jwt="
+					+ URLEncoder.encode(token, StandardCharsets.UTF_8)
+					+ "&lang=" + URLEncoder.encode(valueOr(login.getLanguage(), "DE"), StandardCharsets.UTF_8)
+					+ "&type=" + URLEncoder.encode(valueOr(login.getType(), "agent"), StandardCharsets.UTF_8));
+		}
+		return urls;
+	}
+
+	private static String sign(CapturedLogin login, JWSAlgorithm algorithm, JWSSigner signer)
+			throws Exception {
+		String environment = valueOr(login.getIssuer(), "prod");
+		JWSHeader header = new JWSHeader.Builder(algorithm).type(JOSEObjectType.JWT)
+				.keyID(valueOr(login.getKid(), "replay"))
+				.build();
+		JWTClaimsSet claims = new JWTClaimsSet.Builder()
+				.issuer("prod".equals(environment) ? "cockpit" : environment + "-cockpit")
+				.subject(valueOr(login.getJobId(), "0"))
+				.issueTime(new Date())
+				.claim("agencyNumber", valueOr(login.getAgencyNumber(), "0"))
+				.claim("companyCode", valueOr(login.getCompanyCode(), "0"))
+				.claim("jobId", valueOr(login.getJobId(), "0"))
+				.claim("agentFirstName", "Replay")
+				.claim("agentLastName", "Agent")
+				.build();
+		SignedJWT jwt = new SignedJWT(header, claims);
+		jwt.sign(signer);
+		return jwt.serialize();
+	}
+
+	private static String valueOr(String value, String fallback) {
+		return value != null && !value.isEmpty() ? value : fallback;
+	}
+}
@@ -0,0 +1,199 @@
+package de.aerticket.tc_agenties.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.aerticket.tc_agenties.config.CockpitConfig;
+import de.aerticket.tc_agenties.config.RetryConfig;
+import de.aerticket.tc_agenties.model.CockpitAgency;
+import de.aerticket.tc_agenties.retry.RetryExecutor;
+import de.aerticket.tc_agenties.util.JwtTokenGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Concurrent Cockpit agency lookups against a local Cockpit stand-in, one
+ * request per lookup against micro-batched (mvn -Pbenchmark test
+ * -Dtest=CockpitAgencyBatcherBenchmark). The stand-in answers every request
+ * after a fixed latency and counts single and collection requests.
+ * CockpitAgencyBatcherTests covers the results.
+ */
+class CockpitAgencyBatcherBenchmark {
+
+	private static final int CALLERS = 64;
+	private static final int LOOKUPS_PER_CALLER = 100;
+	private static final int AGENCIES = 5_000;
+	private static final long LATENCY_MS = 20;
+
+	private final AtomicInteger singleRequests = new AtomicInteger();
+	private final AtomicInteger collectionRequests = new AtomicInteger();
+	private HttpServer server;
+	private ExecutorService serverThreads;
+	private CockpitConfig cockpitConfig;
+	private CockpitAgencyBatcher batcher;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		serverThreads = Executors.newVirtualThreadPerTaskExecutor();
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/agencies", this::handle);
+		server.setExecutor(serverThreads);
+		server.start();
+
+		cockpitConfig = new CockpitConfig();
+		cockpitConfig.setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/agencies");
+		RetryExecutor retryExecutor = new RetryExecutor(new RetryConfig(), new SimpleMeterRegistry());
+		CockpitClient client = new CockpitClient(RestClient.create(), cockpitConfig, new JwtTokenGenerator(),
+				retryExecutor);
+		batcher = new CockpitAgencyBatcher(cockpitConfig, client, new SimpleMeterRegistry());
+	}
+
+	@AfterEach
+	void tearDown() {
+		batcher.stop();
+		server.stop(0);
+		serverThreads.shutdownNow();
+	}
+
+	@Test
+	void requestPerLookup() throws Exception {
+		cockpitConfig.setBatchEnabled(false);
+		run("request per lookup");
+	}
+
+	@Test
+	void microBatched() throws Exception {
+		cockpitConfig.setBatchEnabled(true);
+		run("micro-batched, 10 ms window");
+	}
+
+	private void run(String name) throws Exception {
+		// Warm up client, server and JIT
+		lookUpConcurrently(randomAgencyNumbers(CALLERS * 20));
+		resetCounts();
+
+		List<String> agencyNumbers = randomAgencyNumbers(CALLERS * LOOKUPS_PER_CALLER);
+		long startedAt = System.nanoTime();
+		lookUpConcurrently(agencyNumbers);
+		long elapsed = System.nanoTime() - startedAt;
+		System.out.printf("%-30s %,6d lookups  %,6d requests  %,8.0f lookups/s  %6.1f ms/lookup%n", name,
+				agencyNumbers.size(), singleRequests.get() + collectionRequests.get(),
+				agencyNumbers.size() * 1e9 / elapsed, elapsed / 1e6 / LOOKUPS_PER_CALLER);
+	}
+
+	/**
+	 * Every CALLERS-th lookup on one caller thread, each caller sequential
+	 * like the logins it stands for; agencies Cockpit does not know map to null
+	 */
+	private Map<String, CockpitAgency> lookUpConcurrently(List<String> agencyNumbers) throws Exception {
+		ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+		try {
+			List<Future<Map<String, CockpitAgency>>> results = new ArrayList<>();
+			for (int caller = 0; caller < CALLERS; caller++) {
+				int first = caller;
+				results.add(callers.submit(() -> {
+					Map<String, CockpitAgency> found = new HashMap<>();
+					for (int i = first; i < agencyNumbers.size(); i += CALLERS) {
+						ClientResult<CockpitAgency> result = batcher.agency(agencyNumbers.get(i));
+						assertTrue(!(result instanceof ClientResult.Failed), result::toString);
+						found.put(agencyNumbers.get(i), result.orNull());
+					}
+					return found;
+				}));
+			}
+			Map<String, CockpitAgency> found = new HashMap<>();
+			for (Future<Map<String, CockpitAgency>> result : results) {
+				found.putAll(result.get());
+			}
+			return found;
+		} finally {
+			callers.shutdownNow();
+		}
+	}
+
+	private void resetCounts() {
+		singleRequests.set(0);
+		collectionRequests.set(0);
+	}
+
+	private static List<String> randomAgencyNumbers(int count) {
+		List<String> agencyNumbers = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			agencyNumbers.add(agencyNumber(ThreadLocalRandom.current().nextInt(AGENCIES)));
+		}
+		return agencyNumbers;
+	}
+
+	private static String agencyNumber(int i) {
+		return Integer.toString(100_000 + i);
+	}
+
+	/**
+	 * Cockpit knows every agency except those ending in 7
+	 */
+	private static boolean known(String agencyNumber) {
+		return !agencyNumber.endsWith("7");
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			Thread.sleep(LATENCY_MS);
+			String path = exchange.getRequestURI().getPath();
+			String query = exchange.getRequestURI().getQuery();
+			if (path.equals("/agencies")) {
+				collectionRequests.incrementAndGet();
+				if (query == null || !query.startsWith("agencyNumber=")) {
+					respond(exchange, 400, "");
+					return;
+				}
+				StringBuilder body = new StringBuilder("[");
+				for (String agencyNumber : query.substring("agencyNumber=".length()).split(",")) {
+					if (known(agencyNumber)) {
+						body.append(body.length() > 1 ? "," : "").append(agency(agencyNumber));
+					}
+				}
+				respond(exchange, 200, body.append(']').toString());
+			} else {
+				singleRequests.incrementAndGet();
+				String agencyNumber = path.substring("/agencies/".length());
+				respond(exchange, known(agencyNumber) ? 200 : 404, known(agencyNumber) ? agency(agencyNumber) : "");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			respond(exchange, 503, "");
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private static String agency(String agencyNumber) {
+		return "{\"agencyNumber\":\"" + agencyNumber + "\",\"companyName\":\"Agency " + agencyNumber
+				+ "\",\"city\":\"Frankfurt\",\"country\":\"DE\",\"email\":\"" + agencyNumber + "@bench.invalid\"}";
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+		if (bytes.length > 0) {
+			exchange.getResponseBody().write(bytes);
+		}
+	}
+}
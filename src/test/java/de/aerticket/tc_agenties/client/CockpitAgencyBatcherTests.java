@@ -0,0 +1,225 @@
+package de.aerticket.tc_agenties.client;
+
+import de.aerticket.tc_agenties.config.CockpitConfig;
+import de.aerticket.tc_agenties.config.RetryConfig;
+import de.aerticket.tc_agenties.model.CockpitAgency;
+import de.aerticket.tc_agenties.retry.RetryExecutor;
+import de.aerticket.tc_agenties.util.Deadline;
+import de.aerticket.tc_agenties.util.JwtTokenGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestClient;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CockpitAgencyBatcherTests {
+
+	private static final String FILTER = "agencyNumber=";
+
+	private StubServer server;
+	private CockpitConfig cockpitConfig;
+	private CockpitClient client;
+	private CockpitAgencyBatcher batcher;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		server = new StubServer(CockpitAgencyBatcherTests::cockpit);
+		cockpitConfig = new CockpitConfig();
+		cockpitConfig.setBaseUrl(server.url("/agencies"));
+		cockpitConfig.setBatchEnabled(true);
+		cockpitConfig.setBatchWindowMs(200);
+		RetryConfig retryConfig = new RetryConfig();
+		retryConfig.setInitialBackoffMs(1);
+		retryConfig.setMaxBackoffMs(2);
+		client = new CockpitClient(RestClient.create(), cockpitConfig, new JwtTokenGenerator(),
+				new RetryExecutor(retryConfig, new SimpleMeterRegistry()));
+		batcher = new CockpitAgencyBatcher(cockpitConfig, client, new SimpleMeterRegistry());
+	}
+
+	@AfterEach
+	void tearDown() {
+		batcher.stop();
+		server.close();
+	}
+
+	@Test
+	void concurrentLookupsShareOneCollectionRequest() throws Exception {
+		List<ClientResult<CockpitAgency>> results = lookUpConcurrently("100001", "100002", "100003", "100004");
+
+		assertFound(results, "100001", "100002", "100003", "100004");
+		assertEquals(1, collectionRequests().size());
+		assertEquals(Set.of("100001", "100002", "100003", "100004"), filter(collectionRequests().get(0)));
+		assertEquals(0, singleRequests().size());
+	}
+
+	@Test
+	void lookupsOfTheSameAgencyShareASlot() throws Exception {
+		List<ClientResult<CockpitAgency>> results = lookUpConcurrently("100001", "100002", "100001", "100001");
+
+		assertFound(results, "100001", "100002", "100001", "100001");
+		assertEquals(1, collectionRequests().size());
+		assertEquals(Set.of("100001", "100002"), filter(collectionRequests().get(0)));
+		// Each agency once in the filter
+		assertEquals(2, collectionRequests().get(0).getQuery().split(",").length);
+	}
+
+	@Test
+	void fullBatchIsSentWithoutWaitingForTheWindow() throws Exception {
+		cockpitConfig.setBatchWindowMs(10_000);
+		cockpitConfig.setBatchMaxSize(3);
+		long startedAt = System.nanoTime();
+
+		List<ClientResult<CockpitAgency>> results = lookUpConcurrently("100001", "100002", "100003");
+
+		assertFound(results, "100001", "100002", "100003");
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt) < 5_000);
+		assertEquals(1, collectionRequests().size());
+	}
+
+	@Test
+	void rejectedCollectionRequestFallsBackToSingleLookups() throws Exception {
+		server.setHandler((method, uri) -> uri.getPath().equals("/agencies") ? new StubServer.Response(400, "")
+				: cockpit(method, uri));
+
+		List<ClientResult<CockpitAgency>> results = lookUpConcurrently("100001", "100002", "100007");
+
+		assertFound(results.subList(0, 2), "100001", "100002");
+		assertInstanceOf(ClientResult.NotFound.class, results.get(2));
+		assertEquals(1, collectionRequests().size());
+		assertEquals(3, singleRequests().size());
+	}
+
+	@Test
+	void agenciesMissingFromTheAnswerAreLookedUpSingly() throws Exception {
+		// The collection leaves out 100003 although Cockpit has it, and does not know 100007
+		server.setHandler((method, uri) -> uri.getPath().equals("/agencies")
+				? new StubServer.Response(200, "[" + agency("100001") + "]")
+				: cockpit(method, uri));
+
+		List<ClientResult<CockpitAgency>> results = lookUpConcurrently("100001", "100003", "100007");
+
+		assertFound(results.subList(0, 2), "100001", "100003");
+		assertInstanceOf(ClientResult.NotFound.class, results.get(2));
+		assertEquals(Set.of("/agencies/100003", "/agencies/100007"),
+				Set.copyOf(singleRequests().stream().map(URI::getPath).toList()));
+	}
+
+	@Test
+	void agencyNumberWithACommaIsNeverBatched() throws Exception {
+		List<ClientResult<CockpitAgency>> results = lookUpConcurrently("100001,100002", "100003");
+
+		assertInstanceOf(ClientResult.NotFound.class, results.get(0));
+		assertFound(results.subList(1, 2), "100003");
+		assertEquals(0, collectionRequests().size());
+		assertInstanceOf(ClientResult.Failed.class, client.agencies(List.of("100001,100002", "100003")));
+		assertEquals(0, collectionRequests().size());
+	}
+
+	@Test
+	void lookupGivesUpAtTheLoginDeadline() throws Exception {
+		server.setHandler((method, uri) -> {
+			TimeUnit.SECONDS.sleep(2);
+			return cockpit(method, uri);
+		});
+		long startedAt = System.nanoTime();
+
+		List<ClientResult<CockpitAgency>> results = lookUpConcurrently(300, "100001", "100002");
+
+		for (ClientResult<CockpitAgency> result : results) {
+			ClientResult.Failed<?> failed = assertInstanceOf(ClientResult.Failed.class, result);
+			assertTrue(failed.reason().contains("timed out"), failed.reason());
+		}
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt) < 1_500);
+	}
+
+	private List<ClientResult<CockpitAgency>> lookUpConcurrently(String... agencyNumbers) throws Exception {
+		return lookUpConcurrently(0, agencyNumbers);
+	}
+
+	/**
+	 * One caller per agency number, each under a login deadline of
+	 * deadlineMs if that is positive
+	 */
+	private List<ClientResult<CockpitAgency>> lookUpConcurrently(long deadlineMs, String... agencyNumbers)
+			throws Exception {
+		try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+			List<Callable<ClientResult<CockpitAgency>>> lookups = new ArrayList<>();
+			for (String agencyNumber : agencyNumbers) {
+				lookups.add(() -> {
+					if (deadlineMs > 0) {
+						Deadline.begin(deadlineMs);
+					}
+					try {
+						return batcher.agency(agencyNumber);
+					} finally {
+						Deadline.end();
+					}
+				});
+			}
+			List<ClientResult<CockpitAgency>> results = new ArrayList<>();
+			for (Future<ClientResult<CockpitAgency>> result : callers.invokeAll(lookups)) {
+				results.add(result.get());
+			}
+			return results;
+		}
+	}
+
+	private static void assertFound(List<ClientResult<CockpitAgency>> results, String... agencyNumbers) {
+		for (int i = 0; i < agencyNumbers.length; i++) {
+			ClientResult.Found<?> found = assertInstanceOf(ClientResult.Found.class, results.get(i));
+			assertEquals(agencyNumbers[i], ((CockpitAgency) found.value()).getAgencyNumber());
+		}
+	}
+
+	private List<URI> collectionRequests() {
+		return server.requests("/agencies").stream().filter(uri -> uri.getPath().equals("/agencies")).toList();
+	}
+
+	private List<URI> singleRequests() {
+		return server.requests("/agencies/");
+	}
+
+	private static Set<String> filter(URI collectionRequest) {
+		return Set.of(collectionRequest.getQuery().substring(FILTER.length()).split(","));
+	}
+
+	/**
+	 * Cockpit knows every agency except those ending in 7
+	 */
+	private static StubServer.Response cockpit(String method, URI uri) {
+		if (uri.getPath().equals("/agencies")) {
+			String query = uri.getQuery();
+			if (query == null || !query.startsWith(FILTER)) {
+				return new StubServer.Response(400, "");
+			}
+			List<String> agencies = new ArrayList<>();
+			for (String agencyNumber : query.substring(FILTER.length()).split(",")) {
+				if (!agencyNumber.endsWith("7")) {
+					agencies.add(agency(agencyNumber));
+				}
+			}
+			return new StubServer.Response(200, "[" + String.join(",", agencies) + "]");
+		}
+		String agencyNumber = uri.getPath().substring("/agencies/".length());
+		return agencyNumber.endsWith("7") || agencyNumber.contains(",") ? new StubServer.Response(404, "")
+				: new StubServer.Response(200, agency(agencyNumber));
+	}
+
+	private static String agency(String agencyNumber) {
+		return "{\"agencyNumber\":\"" + agencyNumber + "\",\"companyName\":\"Agency " + agencyNumber + "\"}";
+	}
+}
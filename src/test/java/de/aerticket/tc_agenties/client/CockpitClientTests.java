@@ -0,0 +1,78 @@
+package de.aerticket.tc_agenties.client;
+
+import de.aerticket.tc_agenties.config.CockpitConfig;
+import de.aerticket.tc_agenties.config.RetryConfig;
+import de.aerticket.tc_agenties.model.CockpitAgency;
+import de.aerticket.tc_agenties.model.CockpitAgent;
+import de.aerticket.tc_agenties.retry.RetryExecutor;
+import de.aerticket.tc_agenties.util.JwtTokenGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestClient;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+class CockpitClientTests {
+
+	private StubServer server;
+	private CockpitClient client;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		server = new StubServer((method, uri) -> switch (uri.getPath()) {
+			case "/agencies/123456" -> new StubServer.Response(200,
+					"{\"agencyNumber\":\"123456\",\"companyName\":\"Reisebuero\",\"city\":\"Frankfurt\"}");
+			case "/agencies/123456/agents" -> new StubServer.Response(200,
+					"[{\"jobId\":\"4711\",\"firstName\":\"Erika\"},{\"jobId\":\"4712\"}]");
+			case "/agencies/500000" -> new StubServer.Response(503, "");
+			default -> new StubServer.Response(404, "");
+		});
+		CockpitConfig cockpitConfig = new CockpitConfig();
+		cockpitConfig.setBaseUrl(server.url("/agencies"));
+		RetryConfig retryConfig = new RetryConfig();
+		retryConfig.setInitialBackoffMs(1);
+		retryConfig.setMaxBackoffMs(2);
+		client = new CockpitClient(RestClient.create(), cockpitConfig, new JwtTokenGenerator(),
+				new RetryExecutor(retryConfig, new SimpleMeterRegistry()));
+	}
+
+	@AfterEach
+	void tearDown() {
+		server.close();
+	}
+
+	@Test
+	void knownAgencyIsFound() {
+		CockpitAgency agency = client.agency("123456").orNull();
+
+		assertEquals("123456", agency.getAgencyNumber());
+		assertEquals("Frankfurt", agency.getCity());
+	}
+
+	@Test
+	void unknownAgencyIsNotFound() {
+		assertInstanceOf(ClientResult.NotFound.class, client.agency("999999"));
+		assertEquals(1, server.requests("/agencies/999999").size());
+	}
+
+	@Test
+	void unavailableCockpitIsFailedAfterRetries() {
+		ClientResult.Failed<?> failed = assertInstanceOf(ClientResult.Failed.class, client.agency("500000"));
+
+		assertEquals("Cockpit returned 503", failed.reason());
+		assertEquals(new RetryConfig().getMaxAttempts(), server.requests("/agencies/500000").size());
+	}
+
+	@Test
+	void agentRosterIsRead() {
+		List<CockpitAgent> agents = client.agents("123456").orNull();
+
+		assertEquals(List.of("4711", "4712"), agents.stream().map(CockpitAgent::getJobId).toList());
+		assertInstanceOf(ClientResult.NotFound.class, client.agents("999999"));
+	}
+}
@@ -0,0 +1,80 @@
+package de.aerticket.tc_agenties.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local HTTP stand-in for client tests: answers every request through the
+ * current handler and records the requested URIs.
+ */
+class StubServer implements AutoCloseable {
+
+	record Response(int status, String body) {
+	}
+
+	interface Handler {
+		Response handle(String method, URI uri) throws Exception;
+	}
+
+	private final HttpServer server;
+	private final ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor();
+	private final List<URI> requests = new CopyOnWriteArrayList<>();
+	private volatile Handler handler;
+
+	StubServer(Handler handler) throws IOException {
+		this.handler = handler;
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", this::handle);
+		server.setExecutor(threads);
+		server.start();
+	}
+
+	void setHandler(Handler handler) {
+		this.handler = handler;
+	}
+
+	String url(String path) {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+	}
+
+	/**
+	 * Requests received so far whose path starts with the prefix
+	 */
+	List<URI> requests(String pathPrefix) {
+		return requests.stream().filter(uri -> uri.getPath().startsWith(pathPrefix)).toList();
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		threads.shutdownNow();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			URI uri = exchange.getRequestURI();
+			requests.add(uri);
+			Response response;
+			try {
+				response = handler.handle(exchange.getRequestMethod(), uri);
+			} catch (Exception e) {
+				response = new Response(500, "");
+			}
+			byte[] bytes = response.body().getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "application/json");
+			exchange.sendResponseHeaders(response.status(), bytes.length == 0 ? -1 : bytes.length);
+			if (bytes.length > 0) {
+				exchange.getResponseBody().write(bytes);
+			}
+		}
+	}
+}
@@ -0,0 +1,134 @@
+package de.aerticket.tc_agenties.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.aerticket.tc_agenties.cache.InMemoryCacheManager;
+import de.aerticket.tc_agenties.config.RateLimitConfig;
+import de.aerticket.tc_agenties.config.RetryConfig;
+import de.aerticket.tc_agenties.config.TravelcConfig;
+import de.aerticket.tc_agenties.model.AgencyStatus;
+import de.aerticket.tc_agenties.ratelimit.TravelcRateLimiter;
+import de.aerticket.tc_agenties.retry.RetryExecutor;
+import de.aerticket.tc_agenties.service.TravelcAuthManager;
+import de.aerticket.tc_agenties.service.TravelcCredentialRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+/**
+ * NOT_FOUND handling of the typed TravelCompositor client against a local
+ * stub, compared with the former exception-based RestTemplate path
+ * (mvn -Pbenchmark test).
+ */
+class TravelcClientBenchmark {
+
+	private static final int WARMUP = 2_000;
+	private static final int ITERATIONS = 10_000;
+	private static final String MICROSITE = "bench";
+
+	private HttpServer server;
+	private String baseUrl;
+	private RestTemplate restTemplate;
+	private TravelcClient client;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/resources/authentication/authenticate",
+				exchange -> respond(exchange, 200, "{\"token\":\"bench-token\"}"));
+		server.createContext("/resources/agency", exchange -> respond(exchange, 404, ""));
+		server.start();
+		baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/resources";
+
+		TravelcConfig travelcConfig = new TravelcConfig();
+		travelcConfig.setBaseUrl(baseUrl);
+		TravelcConfig.Tenant tenant = new TravelcConfig.Tenant();
+		tenant.setUsername("bench");
+		tenant.setPassword("bench");
+		travelcConfig.getMicrosites().put(MICROSITE, tenant);
+
+		TravelcCredentialRegistry registry = new TravelcCredentialRegistry(travelcConfig, null);
+		registry.reload();
+		restTemplate = new RestTemplate();
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		RetryExecutor retryExecutor = new RetryExecutor(new RetryConfig(), meterRegistry);
+		RateLimitConfig rateLimitConfig = new RateLimitConfig();
+		rateLimitConfig.setEnabled(false);
+		TravelcRateLimiter rateLimiter = new TravelcRateLimiter(rateLimitConfig, meterRegistry);
+		TravelcAuthManager authManager = new TravelcAuthManager(restTemplate, travelcConfig, registry,
+				new InMemoryCacheManager(), retryExecutor, rateLimiter);
+		client = new TravelcClient(RestClient.create(restTemplate), travelcConfig, authManager, registry,
+				retryExecutor, rateLimiter);
+	}
+
+	@AfterEach
+	void tearDown() {
+		server.stop(0);
+	}
+
+	@Test
+	void notFoundAsResult() {
+		assertInstanceOf(ClientResult.NotFound.class, client.agencyStatus(MICROSITE, "404"));
+		run("typed client, NotFound result", () -> client.agencyStatus(MICROSITE, "404").orNull());
+	}
+
+	@Test
+	void notFoundAsException() {
+		String url = baseUrl + "/agency/" + MICROSITE + "/404?lang=DE";
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("auth-token", "bench-token");
+		HttpEntity<String> entity = new HttpEntity<>(headers);
+		Supplier<AgencyStatus> call = () -> {
+			try {
+				restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
+				return AgencyStatus.ACTIVE;
+			} catch (HttpClientErrorException.NotFound e) {
+				return AgencyStatus.NOT_FOUND;
+			}
+		};
+		assertEquals(AgencyStatus.NOT_FOUND, call.get());
+		run("RestTemplate, NotFound exception", call);
+	}
+
+	private static void run(String name, Supplier<?> call) {
+		for (int i = 0; i < WARMUP; i++) {
+			call.get();
+		}
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		long thread = Thread.currentThread().threadId();
+		long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+		long startedAt = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			call.get();
+		}
+		long elapsed = System.nanoTime() - startedAt;
+		long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+		System.out.printf("%-34s %8.1f us/call  %,10d bytes/call%n", name, elapsed / 1000.0 / ITERATIONS,
+				allocated / ITERATIONS);
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+		exchange.getResponseBody().write(bytes);
+		exchange.close();
+	}
+}
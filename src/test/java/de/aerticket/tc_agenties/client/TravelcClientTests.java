@@ -0,0 +1,152 @@
+package de.aerticket.tc_agenties.client;
+
+import de.aerticket.tc_agenties.cache.InMemoryCacheManager;
+import de.aerticket.tc_agenties.config.RateLimitConfig;
+import de.aerticket.tc_agenties.config.RetryConfig;
+import de.aerticket.tc_agenties.config.TravelcConfig;
+import de.aerticket.tc_agenties.exception.DeadlineExceededException;
+import de.aerticket.tc_agenties.model.AgencyStatus;
+import de.aerticket.tc_agenties.ratelimit.TravelcRateLimiter;
+import de.aerticket.tc_agenties.retry.RetryExecutor;
+import de.aerticket.tc_agenties.service.TravelcAuthManager;
+import de.aerticket.tc_agenties.service.TravelcCredentialRegistry;
+import de.aerticket.tc_agenties.util.Deadline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TravelcClientTests {
+
+	private static final String MICROSITE = "aer360";
+	private static final String AGENCY = "123456";
+	private static final String AGENCY_PATH = "/resources/agency/" + MICROSITE + "/" + AGENCY;
+
+	private StubServer server;
+	private TravelcClient client;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		server = new StubServer((method, uri) -> new StubServer.Response(404, ""));
+
+		TravelcConfig travelcConfig = new TravelcConfig();
+		travelcConfig.setBaseUrl(server.url("/resources"));
+		TravelcConfig.Tenant tenant = new TravelcConfig.Tenant();
+		tenant.setUsername("test");
+		tenant.setPassword("test");
+		// A concurrency limit makes every call check the request deadline first
+		tenant.setMaxConcurrentRequests(4);
+		travelcConfig.getMicrosites().put(MICROSITE, tenant);
+		TravelcCredentialRegistry registry = new TravelcCredentialRegistry(travelcConfig, null);
+		registry.reload();
+
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		RetryConfig retryConfig = new RetryConfig();
+		retryConfig.setInitialBackoffMs(1);
+		retryConfig.setMaxBackoffMs(2);
+		RetryExecutor retryExecutor = new RetryExecutor(retryConfig, meterRegistry);
+		RateLimitConfig rateLimitConfig = new RateLimitConfig();
+		rateLimitConfig.setEnabled(false);
+		TravelcRateLimiter rateLimiter = new TravelcRateLimiter(rateLimitConfig, meterRegistry);
+		RestTemplate restTemplate = new RestTemplate();
+		TravelcAuthManager authManager = new TravelcAuthManager(restTemplate, travelcConfig, registry,
+				new InMemoryCacheManager(), retryExecutor, rateLimiter);
+		client = new TravelcClient(RestClient.create(restTemplate), travelcConfig, authManager, registry,
+				retryExecutor, rateLimiter);
+	}
+
+	@AfterEach
+	void tearDown() {
+		Deadline.end();
+		server.close();
+	}
+
+	@Test
+	void activeFlagIsReadPastNestedObjects() {
+		answerAgency(200, "{\"id\":1,\"fees\":{\"active\":false,\"items\":[1,2]},\"active\":true,\"name\":\"x\"}");
+		assertEquals(AgencyStatus.ACTIVE, client.agencyStatus(MICROSITE, AGENCY).orNull());
+
+		answerAgency(200, "{\"externalId\":\"123456\",\"active\":false}");
+		assertEquals(AgencyStatus.INACTIVE, client.agencyStatus(MICROSITE, AGENCY).orNull());
+
+		// Mirrors TCAgencydata: a missing flag is INACTIVE
+		answerAgency(200, "{\"externalId\":\"123456\"}");
+		assertEquals(AgencyStatus.INACTIVE, client.agencyStatus(MICROSITE, AGENCY).orNull());
+	}
+
+	@Test
+	void unknownAgencyIsNotFound() {
+		answerAgency(404, "");
+
+		assertInstanceOf(ClientResult.NotFound.class, client.agencyStatus(MICROSITE, AGENCY));
+		assertInstanceOf(ClientResult.NotFound.class, client.agency(MICROSITE, AGENCY));
+		assertEquals(2, server.requests(AGENCY_PATH).size());
+	}
+
+	@Test
+	void serverErrorIsRetriedThenFailed() {
+		answerAgency(503, "");
+
+		ClientResult<AgencyStatus> result = client.agencyStatus(MICROSITE, AGENCY);
+
+		ClientResult.Failed<?> failed = assertInstanceOf(ClientResult.Failed.class, result);
+		assertEquals("TravelCompositor returned 503", failed.reason());
+		assertEquals(new RetryConfig().getMaxAttempts(), server.requests(AGENCY_PATH).size());
+	}
+
+	@Test
+	void clientErrorFailsWithoutRetry() {
+		answerAgency(400, "");
+
+		ClientResult.Failed<?> failed = assertInstanceOf(ClientResult.Failed.class,
+				client.agency(MICROSITE, AGENCY));
+
+		assertEquals("TravelCompositor returned 400", failed.reason());
+		assertEquals(1, server.requests(AGENCY_PATH).size());
+	}
+
+	@Test
+	void existingUserIsFoundAndMissingUserNotFound() {
+		server.setHandler((method, uri) -> uri.getPath().endsWith("/4711")
+				? new StubServer.Response(200, "{}")
+				: answerToken(uri));
+
+		assertTrue(client.user(MICROSITE, AGENCY, "4711").isFound());
+		assertInstanceOf(ClientResult.NotFound.class, client.user(MICROSITE, AGENCY, "4712"));
+	}
+
+	@Test
+	void spentDeadlineIsFailedResultNotException() throws Exception {
+		answerAgency(200, "{\"active\":true}");
+		Deadline.begin(1);
+		TimeUnit.MILLISECONDS.sleep(5);
+
+		ClientResult.Failed<?> failed = assertInstanceOf(ClientResult.Failed.class,
+				client.agencyStatus(MICROSITE, AGENCY));
+
+		assertInstanceOf(DeadlineExceededException.class, failed.cause());
+		assertTrue(failed.reason().startsWith("TravelCompositor call abandoned"), failed.reason());
+		assertTrue(server.requests(AGENCY_PATH).isEmpty());
+	}
+
+	private void answerAgency(int status, String body) {
+		server.setHandler((method, uri) -> uri.getPath().equals(AGENCY_PATH)
+				? new StubServer.Response(status, body)
+				: answerToken(uri));
+	}
+
+	private static StubServer.Response answerToken(URI uri) {
+		return uri.getPath().endsWith("/authentication/authenticate")
+				? new StubServer.Response(200, "{\"token\":\"test-token\"}")
+				: new StubServer.Response(404, "");
+	}
+}
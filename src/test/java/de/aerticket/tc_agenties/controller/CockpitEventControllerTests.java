@@ -0,0 +1,63 @@
+package de.aerticket.tc_agenties.controller;
+
+import de.aerticket.tc_agenties.config.CockpitConfig;
+import de.aerticket.tc_agenties.model.AgencyChangeEvent;
+import de.aerticket.tc_agenties.service.AgencyEventService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class CockpitEventControllerTests {
+
+	private static final AgencyChangeEvent EVENT = AgencyChangeEvent.builder()
+			.type(AgencyChangeEvent.Type.AGENCY_CHANGED)
+			.agencyNumber("123456")
+			.build();
+
+	private final AgencyEventService agencyEventService = mock(AgencyEventService.class);
+	private final CockpitConfig cockpitConfig = new CockpitConfig();
+	private CockpitEventController controller;
+
+	@BeforeEach
+	void setUp() {
+		controller = new CockpitEventController(agencyEventService, cockpitConfig);
+	}
+
+	@Test
+	void eventsAreUnavailableWithoutConfiguredToken() {
+		cockpitConfig.setEventsToken("");
+
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, controller.agencyChanged("secret", EVENT).getStatusCode());
+		verify(agencyEventService, never()).accept(any());
+	}
+
+	@Test
+	void missingOrWrongTokenIsUnauthorized() {
+		cockpitConfig.setEventsToken("secret");
+
+		assertEquals(HttpStatus.UNAUTHORIZED, controller.agencyChanged(null, EVENT).getStatusCode());
+		assertEquals(HttpStatus.UNAUTHORIZED, controller.agencyChanged("secret2", EVENT).getStatusCode());
+		assertEquals(HttpStatus.UNAUTHORIZED, controller.agencyChanged("", EVENT).getStatusCode());
+		verify(agencyEventService, never()).accept(any());
+	}
+
+	@Test
+	void eventWithValidTokenIsAccepted() {
+		cockpitConfig.setEventsToken("secret");
+
+		assertEquals(HttpStatus.ACCEPTED, controller.agencyChanged("secret", EVENT).getStatusCode());
+		verify(agencyEventService).accept(EVENT);
+	}
+
+	@Test
+	void invalidEventIsBadRequest() {
+		assertEquals(HttpStatus.BAD_REQUEST,
+				controller.badRequest(new IllegalArgumentException("Event needs a type")).getStatusCode());
+	}
+}
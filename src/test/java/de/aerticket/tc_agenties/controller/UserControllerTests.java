@@ -0,0 +1,64 @@
+package de.aerticket.tc_agenties.controller;
+
+import de.aerticket.tc_agenties.config.DeadlineConfig;
+import de.aerticket.tc_agenties.exception.DeadlineExceededException;
+import de.aerticket.tc_agenties.model.AuthenticationResponse;
+import de.aerticket.tc_agenties.service.AuthenticationService;
+import de.aerticket.tc_agenties.util.RequestTimings;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserControllerTests {
+
+	private static final String TOKEN = "jwt";
+
+	private final AuthenticationService authenticationService = mock(AuthenticationService.class);
+	private UserController controller;
+
+	@BeforeEach
+	void setUp() {
+		controller = new UserController(authenticationService, new DeadlineConfig());
+	}
+
+	@Test
+	void loginExposesItsStageTimings() {
+		when(authenticationService.authenticateUser(TOKEN, "de", "flight")).thenAnswer(invocation -> {
+			RequestTimings.hit(RequestTimings.Stage.JWT);
+			RequestTimings.record(RequestTimings.Stage.JWT, System.nanoTime());
+			RequestTimings.miss(RequestTimings.Stage.AGENCY);
+			RequestTimings.record(RequestTimings.Stage.AGENCY, System.nanoTime());
+			return AuthenticationResponse.builder().success(true).micrositeUrl("https://aer360").build();
+		});
+		MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+
+		assertEquals(HttpStatus.FOUND,
+				controller.authenticate(TOKEN, "de", "flight", servletResponse).getStatusCode());
+
+		String header = servletResponse.getHeader("Server-Timing");
+		assertTrue(header.matches("jwt;dur=\\d+\\.\\d;desc=\"hit\", agency;dur=\\d+\\.\\d;desc=\"miss\", "
+				+ "total;dur=\\d+\\.\\d"), header);
+		assertNull(RequestTimings.current());
+	}
+
+	@Test
+	void abortedLoginStillExposesItsTotal() {
+		when(authenticationService.authenticateUser(TOKEN, "de", "flight"))
+				.thenThrow(new DeadlineExceededException("Request deadline exceeded before agency check"));
+		MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+
+		assertEquals(HttpStatus.GATEWAY_TIMEOUT,
+				controller.authenticateTest(TOKEN, "de", "flight", servletResponse).getStatusCode());
+
+		String header = servletResponse.getHeader("Server-Timing");
+		assertTrue(header.matches("total;dur=\\d+\\.\\d"), header);
+		assertNull(RequestTimings.current());
+	}
+}
@@ -0,0 +1,115 @@
+package de.aerticket.tc_agenties.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonLogEncoderTests {
+
+	private static final Instant AT = Instant.parse("2025-10-01T08:15:30.123Z");
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final Logger logger = new LoggerContext()
+			.getLogger("de.aerticket.tc_agenties.service.AuthenticationService");
+	private JsonLogEncoder encoder;
+
+	@BeforeEach
+	void setUp() {
+		encoder = new JsonLogEncoder();
+		encoder.setServiceName("tc-agencies");
+		encoder.start();
+	}
+
+	@Test
+	void eventIsOneEcsLine() throws Exception {
+		Map<String, String> mdc = new LinkedHashMap<>();
+		mdc.put(LoginLogContext.AGENCY, "123456");
+		mdc.put(LoginLogContext.MICROSITE, "aer360");
+
+		String line = encode(event(Level.INFO, "Agency {} is {}", new Object[] { "123456", "ACTIVE" }, null, mdc));
+
+		assertTrue(line.endsWith("\n"));
+		assertEquals(1, line.lines().count());
+		JsonNode json = objectMapper.readTree(line);
+		assertEquals("2025-10-01T08:15:30.123Z", json.path("@timestamp").asText());
+		assertEquals("INFO", json.path("log").path("level").asText());
+		assertEquals("de.aerticket.tc_agenties.service.AuthenticationService",
+				json.path("log").path("logger").asText());
+		assertEquals("login-1", json.path("process").path("thread").path("name").asText());
+		assertEquals("tc-agencies", json.path("service").path("name").asText());
+		assertEquals("Agency 123456 is ACTIVE", json.path("message").asText());
+		assertEquals("123456", json.path("agency").asText());
+		assertEquals("aer360", json.path("microsite").asText());
+		assertEquals("8.11", json.path("ecs").path("version").asText());
+		assertFalse(json.has("error"));
+	}
+
+	@Test
+	void throwableIsWrittenAsError() throws Exception {
+		IllegalStateException failure = new IllegalStateException("TravelCompositor down");
+
+		JsonNode json = objectMapper.readTree(encode(event(Level.ERROR, "Login failed", null, failure, Map.of())));
+
+		assertEquals("java.lang.IllegalStateException", json.path("error").path("type").asText());
+		assertEquals("TravelCompositor down", json.path("error").path("message").asText());
+		assertTrue(json.path("error").path("stack_trace").asText()
+				.startsWith("java.lang.IllegalStateException: TravelCompositor down"));
+		assertTrue(json.path("error").path("stack_trace").asText().contains("JsonLogEncoderTests"));
+	}
+
+	@Test
+	void controlCharactersAndQuotesAreEscaped() throws Exception {
+		String message = "line one\nline \"two\"\t\\ Jürgen 李";
+
+		String line = encode(event(Level.WARN, message, null, null, Map.of("jobId", "47\n11")));
+
+		assertEquals(1, line.lines().count());
+		JsonNode json = objectMapper.readTree(line);
+		assertEquals(message, json.path("message").asText());
+		assertEquals("47\n11", json.path("jobId").asText());
+	}
+
+	@Test
+	void reusedEncoderStartsEveryLineFresh() throws Exception {
+		encoder.setServiceName(null);
+
+		String first = encode(event(Level.INFO, "first", null, new IllegalStateException("boom"), Map.of("a", "1")));
+		String second = encode(event(Level.DEBUG, "second", null, null, Map.of()));
+
+		assertEquals("first", objectMapper.readTree(first).path("message").asText());
+		JsonNode json = objectMapper.readTree(second);
+		assertEquals(1, second.lines().count());
+		assertEquals("second", json.path("message").asText());
+		assertEquals("DEBUG", json.path("log").path("level").asText());
+		assertFalse(json.has("service"));
+		assertFalse(json.has("a"));
+		assertFalse(json.has("error"));
+	}
+
+	private String encode(LoggingEvent event) {
+		return new String(encoder.encode(event), StandardCharsets.UTF_8);
+	}
+
+	private LoggingEvent event(Level level, String message, Object[] arguments, Throwable t,
+			Map<String, String> mdc) {
+		LoggingEvent event = new LoggingEvent(Logger.class.getName(), logger, level, message, t, arguments);
+		event.setInstant(AT);
+		event.setThreadName("login-1");
+		event.setMDCPropertyMap(mdc);
+		return event;
+	}
+}
@@ -0,0 +1,243 @@
+package de.aerticket.tc_agenties.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import ch.qos.logback.core.encoder.Encoder;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.boot.logging.logback.StructuredLogEncoder;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Caller-side cost of the log lines of a cache-served login (mvn -Pbenchmark
+ * test): the former synchronous text console at DEBUG against the async JSON
+ * pipeline of logback-spring.xml, with and without agency sampling. The
+ * synchronous JSON variants compare JsonLogEncoder with Spring Boot's
+ * StructuredLogEncoder.
+ *
+ * Logins are paced at 5,000/s, well above production peaks but within
+ * what one writer thread sustains, and only the time in the logging calls
+ * is counted. Lines go to a temp file with a flush per event, like a
+ * console.
+ */
+class LoggingBenchmark {
+
+	private static final int WARMUP = 25_000;
+	private static final int LOGINS = 50_000;
+	private static final int LOGINS_PER_SECOND = 5_000;
+	private static final int AGENCIES = 1_000;
+	private static final int QUEUE_SIZE = 8192;
+	private static final String TEXT_PATTERN = "%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p 4242 --- [%15.15t] "
+			+ "%-40.40logger{39} : %m%n";
+
+	@Test
+	void synchronousTextAtDebug() throws Exception {
+		run("sync text, DEBUG", LoggingBenchmark::textEncoder, Level.DEBUG, false, 100);
+	}
+
+	@Test
+	void synchronousStructuredLogEncoderAtDebug() throws Exception {
+		run("sync Boot ecs encoder, DEBUG", LoggingBenchmark::structuredLogEncoder, Level.DEBUG, false, 100);
+	}
+
+	@Test
+	void synchronousJsonAtDebug() throws Exception {
+		run("sync json, DEBUG", LoggingBenchmark::jsonEncoder, Level.DEBUG, false, 100);
+	}
+
+	@Test
+	void asyncJsonAtDebug() throws Exception {
+		run("async json, DEBUG", LoggingBenchmark::jsonEncoder, Level.DEBUG, true, 100);
+	}
+
+	@Test
+	void asyncJsonAtInfoSampled() throws Exception {
+		run("async json, INFO, 10% sampled", LoggingBenchmark::jsonEncoder, Level.INFO, true, 10);
+	}
+
+	private static void run(String name, Function<LoggerContext, Encoder<ILoggingEvent>> encoder, Level level,
+			boolean async, int samplePercent) throws Exception {
+		Path file = Files.createTempFile("logging-benchmark", ".log");
+		LineCountingStream sink = new LineCountingStream(new FileOutputStream(file.toFile()));
+		LoggerContext context = new LoggerContext();
+		context.putObject(Environment.class.getName(), new StandardEnvironment());
+		context.setMDCAdapter(MDC.getMDCAdapter());
+
+		LoginLogSampler sampler = new LoginLogSampler();
+		sampler.setContext(context);
+		sampler.setPercent(samplePercent);
+		sampler.start();
+		context.addTurboFilter(sampler);
+
+		OutputStreamAppender<ILoggingEvent> output = new OutputStreamAppender<>();
+		output.setContext(context);
+		output.setEncoder(encoder.apply(context));
+		output.setOutputStream(sink);
+		output.setImmediateFlush(true);
+		output.start();
+
+		Logger root = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+		root.setLevel(Level.INFO);
+		context.getLogger("de.aerticket.tc_agenties").setLevel(level);
+		if (async) {
+			AsyncAppender asyncAppender = new AsyncAppender();
+			asyncAppender.setContext(context);
+			asyncAppender.setQueueSize(QUEUE_SIZE);
+			asyncAppender.addAppender(output);
+			asyncAppender.start();
+			root.addAppender(asyncAppender);
+		} else {
+			root.addAppender(output);
+		}
+
+		SimulatedLogin login = new SimulatedLogin(context);
+		run(login, WARMUP);
+		long linesBefore = sink.lines.get();
+
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		long thread = Thread.currentThread().threadId();
+		long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+		long loggingNanos = run(login, LOGINS);
+		long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+
+		// Stopping drains the async queue
+		context.stop();
+		System.out.printf("%-30s %6.2f us/login  %,7d bytes/login  %5.2f lines/login%n", name,
+				loggingNanos / 1000.0 / LOGINS, allocated / LOGINS,
+				(sink.lines.get() - linesBefore) / (double) LOGINS);
+		Files.deleteIfExists(file);
+	}
+
+	/**
+	 * Logins at LOGINS_PER_SECOND; returns the time spent in the logging calls
+	 */
+	private static long run(SimulatedLogin login, int logins) {
+		long intervalNanos = 1_000_000_000L / LOGINS_PER_SECOND;
+		long next = System.nanoTime();
+		long loggingNanos = 0;
+		for (int i = 0; i < logins; i++) {
+			next += intervalNanos;
+			long startedAt = System.nanoTime();
+			login.run(i);
+			long finishedAt = System.nanoTime();
+			loggingNanos += finishedAt - startedAt;
+			if (next > finishedAt) {
+				LockSupport.parkNanos(next - finishedAt);
+			}
+		}
+		return loggingNanos;
+	}
+
+	private static Encoder<ILoggingEvent> textEncoder(LoggerContext context) {
+		PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+		encoder.setContext(context);
+		encoder.setPattern(TEXT_PATTERN);
+		encoder.start();
+		return encoder;
+	}
+
+	private static Encoder<ILoggingEvent> jsonEncoder(LoggerContext context) {
+		JsonLogEncoder encoder = new JsonLogEncoder();
+		encoder.setContext(context);
+		encoder.setServiceName("tc_agenties");
+		encoder.start();
+		return encoder;
+	}
+
+	private static Encoder<ILoggingEvent> structuredLogEncoder(LoggerContext context) {
+		StructuredLogEncoder encoder = new StructuredLogEncoder();
+		encoder.setContext(context);
+		encoder.setFormat("ecs");
+		encoder.start();
+		return encoder;
+	}
+
+	/**
+	 * Log lines of a ledger-confirmed login, with the loggers and levels the
+	 * services use
+	 */
+	private static final class SimulatedLogin {
+
+		private final org.slf4j.Logger authentication;
+		private final org.slf4j.Logger jwt;
+		private final org.slf4j.Logger mapping;
+		private final org.slf4j.Logger password;
+		private final org.slf4j.Logger controller;
+
+		SimulatedLogin(LoggerContext context) {
+			authentication = context.getLogger("de.aerticket.tc_agenties.service.AuthenticationService");
+			jwt = context.getLogger("de.aerticket.tc_agenties.service.JwtService");
+			mapping = context.getLogger("de.aerticket.tc_agenties.service.MicrositeMappingService");
+			password = context.getLogger("de.aerticket.tc_agenties.service.PasswordService");
+			controller = context.getLogger("de.aerticket.tc_agenties.controller.UserController");
+		}
+
+		void run(int i) {
+			String agency = Integer.toString(100_000 + i % AGENCIES);
+			try {
+				controller.info("Authentication request received - lang: {}, type: {}", "DE", "flight");
+				authentication.info("Authenticating user - lang={}, type={}", "DE", "flight");
+				jwt.debug("JWT alg={}, kid={}, iss={} detected", "ES256", "key-1", "qa-cockpit");
+				jwt.info("ES256 JWT token validation successful");
+				MDC.put(LoginLogContext.AGENCY, agency);
+				authentication.info("JWT validated - agent: {} {}, company: {}", "Erika", "Musterfrau", "AER");
+				mapping.debug("Microsite mapping served from snapshot for company {}", "AER");
+				MDC.put(LoginLogContext.MICROSITE, "aer360");
+				password.debug("Generating password for jobId: {} and agencyNumber: {}", "4711", agency);
+				password.debug("Password generated successfully");
+				authentication.debug("Agency {} confirmed by provisioning ledger", agency);
+				authentication.debug("User {} confirmed by provisioning ledger", "4711");
+				if (i % 100 == 0) {
+					authentication.warn("Failed to synchronize agency {} from Cockpit", agency);
+				}
+			} finally {
+				LoginLogContext.clear();
+			}
+		}
+	}
+
+	private static final class LineCountingStream extends FilterOutputStream {
+
+		private final AtomicLong lines = new AtomicLong();
+
+		LineCountingStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) throws IOException {
+			for (int i = offset; i < offset + length; i++) {
+				if (bytes[i] == '\n') {
+					lines.incrementAndGet();
+				}
+			}
+			out.write(bytes, offset, length);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			if (b == '\n') {
+				lines.incrementAndGet();
+			}
+			out.write(b);
+		}
+	}
+}
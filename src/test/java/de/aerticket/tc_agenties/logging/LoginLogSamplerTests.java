@@ -0,0 +1,102 @@
+package de.aerticket.tc_agenties.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoginLogSamplerTests {
+
+	private final LoggerContext loggerContext = new LoggerContext();
+	private final Logger applicationLogger = loggerContext
+			.getLogger("de.aerticket.tc_agenties.service.AuthenticationService");
+	private final LoginLogSampler sampler = new LoginLogSampler();
+
+	@AfterEach
+	void tearDown() {
+		MDC.clear();
+	}
+
+	@Test
+	void everythingPassesAtOneHundredPercent() {
+		LoginLogContext.agency(unsampledAgency(50));
+
+		assertEquals(FilterReply.NEUTRAL, decide(applicationLogger, Level.DEBUG, null));
+		sampler.setPercent(150);
+		assertEquals(FilterReply.NEUTRAL, decide(applicationLogger, Level.DEBUG, null));
+	}
+
+	@Test
+	void successDetailOfUnsampledAgenciesIsDenied() {
+		sampler.setPercent(0);
+		LoginLogContext.agency("123456");
+
+		assertEquals(FilterReply.DENY, decide(applicationLogger, Level.INFO, null));
+		assertEquals(FilterReply.DENY, decide(applicationLogger, Level.DEBUG, null));
+		assertEquals(FilterReply.DENY, decide(applicationLogger, Level.TRACE, null));
+
+		sampler.setPercent(-5);
+		assertEquals(FilterReply.DENY, decide(applicationLogger, Level.INFO, null));
+	}
+
+	@Test
+	void warningsErrorsAndThrowablesAlwaysPass() {
+		sampler.setPercent(0);
+		LoginLogContext.agency("123456");
+
+		assertEquals(FilterReply.NEUTRAL, decide(applicationLogger, Level.WARN, null));
+		assertEquals(FilterReply.NEUTRAL, decide(applicationLogger, Level.ERROR, null));
+		assertEquals(FilterReply.NEUTRAL, decide(applicationLogger, Level.INFO, new IllegalStateException()));
+		// Logger.isEnabledFor-style checks come without a level
+		assertEquals(FilterReply.NEUTRAL, decide(applicationLogger, null, null));
+	}
+
+	@Test
+	void linesOutsideALoginOrTheApplicationPass() {
+		sampler.setPercent(0);
+
+		assertEquals(FilterReply.NEUTRAL, decide(applicationLogger, Level.INFO, null));
+
+		LoginLogContext.agency("123456");
+		assertEquals(FilterReply.NEUTRAL,
+				decide(loggerContext.getLogger("org.springframework.web.client.RestClient"), Level.INFO, null));
+	}
+
+	@Test
+	void decisionIsStablePerAgencyAndFollowsThePercentage() {
+		sampler.setPercent(50);
+		int sampled = 0;
+		for (int i = 0; i < 10_000; i++) {
+			String agencyNumber = Integer.toString(100_000 + i);
+			LoginLogContext.agency(agencyNumber);
+			FilterReply reply = decide(applicationLogger, Level.INFO, null);
+			assertEquals(reply, decide(applicationLogger, Level.DEBUG, null), agencyNumber);
+			if (reply == FilterReply.NEUTRAL) {
+				sampled++;
+			}
+		}
+		assertTrue(sampled > 4_500 && sampled < 5_500, sampled + " of 10000 agencies sampled");
+
+		LoginLogContext.agency(unsampledAgency(50));
+		assertEquals(FilterReply.DENY, decide(applicationLogger, Level.INFO, null));
+	}
+
+	private FilterReply decide(Logger logger, Level level, Throwable t) {
+		return sampler.decide(null, logger, level, "Agency {} is {}", new Object[] { "123456", "ACTIVE" }, t);
+	}
+
+	private static String unsampledAgency(int percent) {
+		for (int i = 0; ; i++) {
+			String agencyNumber = Integer.toString(100_000 + i);
+			if (!LoginLogContext.isSampled(agencyNumber, percent)) {
+				return agencyNumber;
+			}
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package de.aerticket.tc_agenties.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTests {
+
+	private static final long NO_WAIT = 0;
+	private static final long ONE_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	@Test
+	void burstIsAvailableImmediately() {
+		TokenBucket bucket = new TokenBucket(1, 5, 0);
+
+		for (int i = 0; i < 5; i++) {
+			assertEquals(0, bucket.reserve(true, NO_WAIT));
+		}
+		assertEquals(-1, bucket.reserve(true, NO_WAIT));
+	}
+
+	@Test
+	void rejectedReservationTakesNothing() {
+		TokenBucket bucket = new TokenBucket(0.001, 1, 0);
+		bucket.reserve(true, NO_WAIT);
+		double before = bucket.available();
+
+		assertEquals(-1, bucket.reserve(true, NO_WAIT));
+
+		assertEquals(before, bucket.available(), 0.01);
+	}
+
+	@Test
+	void reservationBeyondBurstWaitsForRefill() {
+		TokenBucket bucket = new TokenBucket(10, 1, 0);
+		bucket.reserve(true, NO_WAIT);
+
+		long first = bucket.reserve(true, ONE_SECOND);
+		long second = bucket.reserve(true, ONE_SECOND);
+
+		// 10 permits/s: the next token in ~100 ms, the one after queued behind it
+		assertTrue(first > TimeUnit.MILLISECONDS.toNanos(50) && first <= TimeUnit.MILLISECONDS.toNanos(100),
+				"waited " + first);
+		assertTrue(second > first + TimeUnit.MILLISECONDS.toNanos(50), "waited " + second);
+		assertTrue(bucket.available() < 0);
+	}
+
+	@Test
+	void refillIsCappedAtBurst() throws Exception {
+		TokenBucket bucket = new TokenBucket(1_000, 3, 0);
+		for (int i = 0; i < 3; i++) {
+			bucket.reserve(true, NO_WAIT);
+		}
+
+		TimeUnit.MILLISECONDS.sleep(50);
+
+		assertEquals(3, bucket.available(), 0.0);
+	}
+
+	@Test
+	void backgroundCallersLeaveTheReserve() {
+		TokenBucket bucket = new TokenBucket(0.001, 4, 0.5);
+
+		assertEquals(0, bucket.reserve(false, NO_WAIT));
+		assertEquals(0, bucket.reserve(false, NO_WAIT));
+		assertEquals(-1, bucket.reserve(false, NO_WAIT));
+
+		assertEquals(0, bucket.reserve(true, NO_WAIT));
+		assertEquals(0, bucket.reserve(true, NO_WAIT));
+		assertEquals(-1, bucket.reserve(true, NO_WAIT));
+	}
+}
@@ -0,0 +1,97 @@
+package de.aerticket.tc_agenties.ratelimit;
+
+import de.aerticket.tc_agenties.config.RateLimitConfig;
+import de.aerticket.tc_agenties.exception.RateLimitExceededException;
+import de.aerticket.tc_agenties.util.RequestTimings;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TravelcRateLimiterTests {
+
+	private static final String MICROSITE = "aer360";
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private RateLimitConfig rateLimitConfig;
+	private TravelcRateLimiter rateLimiter;
+
+	@BeforeEach
+	void setUp() {
+		rateLimitConfig = new RateLimitConfig();
+		// Four reads per microsite and practically no refill; half of them kept for logins
+		rateLimitConfig.setReads(new RateLimitConfig.Budget(0.001, 4));
+		rateLimitConfig.setInteractiveReserve(0.5);
+		rateLimitConfig.setInteractiveMaxWaitMs(0);
+		rateLimitConfig.setBackgroundMaxWaitMs(0);
+		rateLimiter = new TravelcRateLimiter(rateLimitConfig, meterRegistry);
+	}
+
+	@AfterEach
+	void tearDown() {
+		RequestTimings.end();
+		Thread.interrupted();
+	}
+
+	@Test
+	void backgroundCallsCannotUseTheInteractiveReserve() {
+		rateLimiter.acquire(MICROSITE, EndpointClass.READ);
+		rateLimiter.acquire(MICROSITE, EndpointClass.READ);
+		assertThrows(RateLimitExceededException.class, () -> rateLimiter.acquire(MICROSITE, EndpointClass.READ));
+
+		// A login in progress on the thread makes the call interactive
+		RequestTimings.begin();
+		rateLimiter.acquire(MICROSITE, EndpointClass.READ);
+		rateLimiter.acquire(MICROSITE, EndpointClass.READ);
+		assertThrows(RateLimitExceededException.class, () -> rateLimiter.acquire(MICROSITE, EndpointClass.READ));
+
+		assertEquals(1, rejected("background"), 0.0);
+		assertEquals(1, rejected("interactive"), 0.0);
+	}
+
+	@Test
+	void bucketsAreSeparatePerMicrositeAndEndpoint() {
+		for (int i = 0; i < 2; i++) {
+			rateLimiter.acquire(MICROSITE, EndpointClass.READ);
+		}
+
+		rateLimiter.acquire("AER360-B2B", EndpointClass.READ);
+		rateLimiter.acquire(MICROSITE, EndpointClass.WRITE);
+		// Microsite keys are case-insensitive
+		assertThrows(RateLimitExceededException.class,
+				() -> rateLimiter.acquire(MICROSITE.toUpperCase(), EndpointClass.READ));
+	}
+
+	@Test
+	void disabledLimiterNeverRejects() {
+		rateLimitConfig.setEnabled(false);
+
+		for (int i = 0; i < 10; i++) {
+			rateLimiter.acquire(MICROSITE, EndpointClass.READ);
+		}
+	}
+
+	@Test
+	void interruptedWaitFailsTheCallAndKeepsTheFlag() {
+		rateLimitConfig.setReads(new RateLimitConfig.Budget(0.5, 1));
+		rateLimitConfig.setInteractiveReserve(0);
+		rateLimitConfig.setBackgroundMaxWaitMs(5_000);
+		rateLimiter.acquire(MICROSITE, EndpointClass.READ);
+
+		Thread.currentThread().interrupt();
+		long startedAt = System.nanoTime();
+		assertThrows(IllegalStateException.class, () -> rateLimiter.acquire(MICROSITE, EndpointClass.READ));
+
+		assertTrue(Thread.currentThread().isInterrupted());
+		assertTrue(System.nanoTime() - startedAt < 1_000_000_000L, "waited for the permit despite interrupt");
+	}
+
+	private double rejected(String priority) {
+		return meterRegistry.counter("tc.ratelimit.rejected", "microsite", MICROSITE, "endpoint", "read",
+				"priority", priority).count();
+	}
+}
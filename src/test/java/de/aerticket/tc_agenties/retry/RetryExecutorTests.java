@@ -0,0 +1,132 @@
+package de.aerticket.tc_agenties.retry;
+
+import de.aerticket.tc_agenties.config.RetryConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryExecutorTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void transientFailureIsRetriedUntilSuccess() {
+		RetryExecutor executor = executor(3, 10);
+		AtomicInteger calls = new AtomicInteger();
+
+		String result = executor.execute(RetryExecutor.CLIENT_TRAVELC, Idempotency.IDEMPOTENT, () -> {
+			if (calls.incrementAndGet() < 3) {
+				throw new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+			}
+			return "ok";
+		});
+
+		assertEquals("ok", result);
+		assertEquals(3, calls.get());
+		assertEquals(1, meterRegistry.counter("tc.downstream.attempts", "client", RetryExecutor.CLIENT_TRAVELC,
+				"attempt", "retry", "outcome", "success").count(), 0.0);
+	}
+
+	@Test
+	void clientErrorIsNotRetried() {
+		RetryExecutor executor = executor(3, 10);
+		AtomicInteger calls = new AtomicInteger();
+
+		assertThrows(HttpClientErrorException.class, () -> executor.execute(RetryExecutor.CLIENT_TRAVELC,
+				Idempotency.IDEMPOTENT, () -> {
+					calls.incrementAndGet();
+					throw new HttpClientErrorException(HttpStatus.BAD_REQUEST);
+				}));
+		assertEquals(1, calls.get());
+	}
+
+	@Test
+	void attemptsAreCappedAndLastFailureRethrown() {
+		RetryExecutor executor = executor(2, 10);
+		AtomicInteger calls = new AtomicInteger();
+
+		HttpServerErrorException thrown = assertThrows(HttpServerErrorException.class,
+				() -> executor.execute(RetryExecutor.CLIENT_COCKPIT, Idempotency.IDEMPOTENT, () -> {
+					throw new HttpServerErrorException(HttpStatus.BAD_GATEWAY, "attempt " + calls.incrementAndGet());
+				}));
+		assertEquals(2, calls.get());
+		assertTrue(thrown.getMessage().contains("attempt 2"));
+	}
+
+	@Test
+	void exhaustedBudgetStopsRetries() {
+		RetryExecutor executor = executor(3, 1);
+		AtomicInteger calls = new AtomicInteger();
+		Runnable failing = () -> assertThrows(HttpServerErrorException.class,
+				() -> executor.execute(RetryExecutor.CLIENT_TRAVELC, Idempotency.IDEMPOTENT, () -> {
+					calls.incrementAndGet();
+					throw new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+				}));
+
+		failing.run();
+		assertEquals(2, calls.get());
+		calls.set(0);
+		failing.run();
+
+		assertEquals(1, calls.get());
+		// Once when the first call wanted its second retry, once on the second call
+		assertEquals(2, meterRegistry.counter("tc.downstream.retry.budget.exhausted", "client",
+				RetryExecutor.CLIENT_TRAVELC).count(), 0.0);
+	}
+
+	@Test
+	void nonIdempotentCallsOnlyRetryConnectFailures() {
+		ResourceAccessException refused = new ResourceAccessException("refused", new ConnectException());
+		ResourceAccessException timedOut = new ResourceAccessException("timeout", new SocketTimeoutException());
+		HttpServerErrorException unavailable = new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+
+		assertTrue(RetryExecutor.isRetryable(refused, Idempotency.NON_IDEMPOTENT));
+		assertFalse(RetryExecutor.isRetryable(timedOut, Idempotency.NON_IDEMPOTENT));
+		assertFalse(RetryExecutor.isRetryable(unavailable, Idempotency.NON_IDEMPOTENT));
+		assertTrue(RetryExecutor.isRetryable(timedOut, Idempotency.IDEMPOTENT));
+		assertTrue(RetryExecutor.isRetryable(new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS),
+				Idempotency.IDEMPOTENT));
+		assertFalse(RetryExecutor.isRetryable(new HttpClientErrorException(HttpStatus.NOT_FOUND),
+				Idempotency.IDEMPOTENT));
+	}
+
+	@Test
+	void budgetRefillsWithTrafficUpToItsCapacity() {
+		RetryBudget budget = new RetryBudget(0.5, 2);
+		assertTrue(budget.tryAcquireRetry());
+		assertTrue(budget.tryAcquireRetry());
+		assertFalse(budget.tryAcquireRetry());
+
+		budget.onCall();
+		assertFalse(budget.tryAcquireRetry());
+		budget.onCall();
+		assertTrue(budget.tryAcquireRetry());
+
+		for (int i = 0; i < 100; i++) {
+			budget.onCall();
+		}
+		assertEquals(2.0, budget.available());
+	}
+
+	private RetryExecutor executor(int maxAttempts, int budgetTokens) {
+		RetryConfig config = new RetryConfig();
+		config.setMaxAttempts(maxAttempts);
+		config.setInitialBackoffMs(1);
+		config.setMaxBackoffMs(2);
+		config.setBudgetMaxTokens(budgetTokens);
+		config.setBudgetRatio(0);
+		return new RetryExecutor(config, meterRegistry);
+	}
+}
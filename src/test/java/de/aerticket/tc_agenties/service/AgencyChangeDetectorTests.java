@@ -0,0 +1,88 @@
+package de.aerticket.tc_agenties.service;
+
+import de.aerticket.tc_agenties.model.TCAgencydata;
+import de.aerticket.tc_agenties.model.TravelcAgencyRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AgencyChangeDetectorTests {
+
+	private final AgencyChangeDetector detector = new AgencyChangeDetector();
+
+	@Test
+	void contentHashIsStableAndCoversEveryField() {
+		assertEquals(detector.contentHash(request().build()), detector.contentHash(request().build()));
+		assertNotEquals(detector.contentHash(request().build()), detector.contentHash(request().active("false").build()));
+		assertNotEquals(detector.contentHash(request().build()), detector.contentHash(request().chain("other").build()));
+	}
+
+	@Test
+	void contentHashSeparatesFieldsAndNulls() {
+		assertNotEquals(detector.contentHash(request().companyname("ab").city("c").build()),
+				detector.contentHash(request().companyname("a").city("bc").build()));
+		assertNotEquals(detector.contentHash(request().city(null).build()),
+				detector.contentHash(request().city("").build()));
+	}
+
+	@Test
+	void diffIgnoresPaddingAndMissingValues() {
+		TCAgencydata current = current();
+		current.setCity(" Frankfurt ");
+		current.setActive("TRUE");
+
+		assertTrue(detector.diff(request().phoneNumber(null).build(), current).isEmpty());
+		current.setPhoneNumber("");
+		assertTrue(detector.diff(request().phoneNumber(null).build(), current).isEmpty());
+	}
+
+	@Test
+	void diffNamesChangedFieldsIncludingActive() {
+		TCAgencydata current = current();
+		current.setName("Old name");
+		current.setActive("false");
+
+		assertEquals(List.of("companyname", "active"), detector.diff(request().build(), current));
+	}
+
+	static TravelcAgencyRequest.TravelcAgencyRequestBuilder request() {
+		return TravelcAgencyRequest.builder()
+				.externalId("123456")
+				.companyname("Reisebuero Muster")
+				.addressText("Hauptstrasse 1")
+				.city("Frankfurt")
+				.postalCode("60311")
+				.country("DE")
+				.email("info@muster.invalid")
+				.taxes("0")
+				.active("true")
+				.invoiceType("NET")
+				.documentNumber("-")
+				.contactPersonName("-")
+				.contactPersonLastName("-")
+				.businessName("AERTiCKET Conso GmbH Grenzenlos Reisen")
+				.chain("chain");
+	}
+
+	static TCAgencydata current() {
+		TCAgencydata current = new TCAgencydata();
+		current.setName("Reisebuero Muster");
+		current.setAddressText("Hauptstrasse 1");
+		current.setCity("Frankfurt");
+		current.setPostalCode("60311");
+		current.setCountry("DE");
+		current.setEmail("info@muster.invalid");
+		current.setTaxes("0");
+		current.setInvoiceType("NET");
+		current.setDocumentNumber("-");
+		current.setContactPersonName("-");
+		current.setContactPersonLastName("-");
+		current.setBusinessName("AERTiCKET Conso GmbH Grenzenlos Reisen");
+		current.setActive("true");
+		return current;
+	}
+}
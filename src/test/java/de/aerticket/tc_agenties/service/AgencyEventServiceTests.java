@@ -0,0 +1,141 @@
+package de.aerticket.tc_agenties.service;
+
+import de.aerticket.tc_agenties.cache.CacheNames;
+import de.aerticket.tc_agenties.cache.InMemoryCacheManager;
+import de.aerticket.tc_agenties.cache.SharedCache;
+import de.aerticket.tc_agenties.entity.ProvisioningLedgerEntry;
+import de.aerticket.tc_agenties.model.AgencyChangeEvent;
+import de.aerticket.tc_agenties.model.CockpitAgency;
+import de.aerticket.tc_agenties.model.TravelcAgencyRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AgencyEventServiceTests {
+
+	private static final String AGENCY = "123456";
+
+	private final InMemoryCacheManager cacheManager = new InMemoryCacheManager();
+	private final ProvisioningLedgerService ledger = mock(ProvisioningLedgerService.class);
+	private final CockpitService cockpitService = mock(CockpitService.class);
+	private final TravelCompositorService travelCompositorService = mock(TravelCompositorService.class);
+	private final AgencyChangeDetector agencyChangeDetector = new AgencyChangeDetector();
+	private final ThreadPoolTaskExecutor provisioningExecutor = mock(ThreadPoolTaskExecutor.class);
+	private final TravelcAgencyRequest request = AgencyChangeDetectorTests.request().build();
+	private SharedCache statusCache;
+	private AgencyEventService agencyEventService;
+
+	@BeforeEach
+	void setUp() {
+		// Run provisioning tasks inline
+		doAnswer(invocation -> {
+			invocation.<Runnable>getArgument(0).run();
+			return null;
+		}).when(provisioningExecutor).execute(any(Runnable.class));
+		agencyEventService = new AgencyEventService(cacheManager, ledger, cockpitService, travelCompositorService,
+				agencyChangeDetector, provisioningExecutor);
+
+		statusCache = cacheManager.getCache(CacheNames.AGENCY_STATUS);
+		statusCache.put("aer360:" + AGENCY, "ACTIVE|0", null);
+		statusCache.put("b2b:" + AGENCY, "ACTIVE|0", null);
+		statusCache.put("aer360:654321", "ACTIVE|0", null);
+
+		CockpitAgency cockpitAgency = CockpitAgency.builder().agencyNumber(AGENCY).build();
+		when(cockpitService.getAgency(AGENCY)).thenReturn(cockpitAgency);
+		when(cockpitService.convertToTravelcRequest(cockpitAgency)).thenAnswer(
+				invocation -> AgencyChangeDetectorTests.request().build());
+		when(travelCompositorService.updateAgency(any(), anyString())).thenReturn(true);
+	}
+
+	@Test
+	void changedAgencyIsPushedToMicrositesWhereItsDataDiffers() {
+		when(ledger.getAgencyEntries(AGENCY)).thenReturn(List.of(entry("aer360", "old-hash"),
+				entry("b2b", agencyChangeDetector.contentHash(request))));
+
+		agencyEventService.accept(event(AgencyChangeEvent.Type.AGENCY_CHANGED));
+
+		assertNull(statusCache.get("aer360:" + AGENCY));
+		assertNull(statusCache.get("b2b:" + AGENCY));
+		assertNotNull(statusCache.get("aer360:654321"));
+		verify(travelCompositorService).updateAgency(request, "aer360");
+		verify(travelCompositorService, never()).updateAgency(any(), eq("b2b"));
+		verify(ledger).recordAgency("aer360", AGENCY, ProvisioningLedgerService.ORIGIN_UPDATED,
+				agencyChangeDetector.contentHash(request));
+		verify(ledger, never()).invalidate(any(), anyString(), any());
+	}
+
+	@Test
+	void deactivatedAgencyIsSetInactiveInEveryMicrositeAndForgotten() {
+		when(ledger.getAgencyEntries(AGENCY)).thenReturn(List.of(entry("aer360", "hash"), entry("b2b", "hash")));
+
+		agencyEventService.accept(event(AgencyChangeEvent.Type.AGENCY_DEACTIVATED));
+
+		ArgumentCaptor<TravelcAgencyRequest> pushed = ArgumentCaptor.forClass(TravelcAgencyRequest.class);
+		verify(travelCompositorService, times(2)).updateAgency(pushed.capture(), anyString());
+		pushed.getAllValues().forEach(update -> assertEquals("false", update.getActive()));
+		assertNull(statusCache.get("aer360:" + AGENCY));
+		// Once on the event and once after the update, in case a login confirmed it in between
+		verify(ledger, times(2)).invalidate(null, AGENCY, null);
+		verify(ledger, never()).recordAgency(anyString(), anyString(), anyString(), any());
+	}
+
+	@Test
+	void changedAgencyIsWrittenToTheLedgerMicrositeNotTheApiName() {
+		// Login checked the status through "b2b-api" but provisioned the agency in "b2b"
+		statusCache.put("b2b-api:" + AGENCY, "ACTIVE|0", null);
+		when(ledger.getAgencyEntries(AGENCY)).thenReturn(List.of(entry("b2b", "old-hash")));
+
+		agencyEventService.accept(event(AgencyChangeEvent.Type.AGENCY_CHANGED));
+
+		assertNull(statusCache.get("b2b-api:" + AGENCY));
+		verify(travelCompositorService).updateAgency(request, "b2b");
+		verify(travelCompositorService, never()).updateAgency(any(), eq("b2b-api"));
+		verify(ledger).recordAgency("b2b", AGENCY, ProvisioningLedgerService.ORIGIN_UPDATED,
+				agencyChangeDetector.contentHash(request));
+	}
+
+	@Test
+	void deactivationOfUnprovisionedAgencyOnlyForgetsIt() {
+		when(ledger.getAgencyEntries(AGENCY)).thenReturn(List.of());
+
+		agencyEventService.accept(event(AgencyChangeEvent.Type.AGENCY_DEACTIVATED));
+
+		verify(ledger).invalidate(null, AGENCY, null);
+		verify(travelCompositorService, never()).updateAgency(any(), anyString());
+	}
+
+	@Test
+	void eventWithoutTypeOrAgencyIsRejected() {
+		assertThrows(IllegalArgumentException.class, () -> agencyEventService.accept(
+				AgencyChangeEvent.builder().agencyNumber(AGENCY).build()));
+		assertThrows(IllegalArgumentException.class, () -> agencyEventService.accept(
+				AgencyChangeEvent.builder().type(AgencyChangeEvent.Type.AGENCY_CHANGED).agencyNumber(" ").build()));
+	}
+
+	private static AgencyChangeEvent event(AgencyChangeEvent.Type type) {
+		return AgencyChangeEvent.builder().type(type).agencyNumber(" " + AGENCY + " ").eventId("e-1").build();
+	}
+
+	private static ProvisioningLedgerEntry entry(String microsite, String contentHash) {
+		return new ProvisioningLedgerEntry(1L, microsite, AGENCY, ProvisioningLedgerEntry.AGENCY_ROW,
+				ProvisioningLedgerService.ORIGIN_CREATED, contentHash, LocalDateTime.now(), LocalDateTime.now());
+	}
+}
@@ -0,0 +1,262 @@
+package de.aerticket.tc_agenties.service;
+
+import de.aerticket.tc_agenties.audit.LoginAuditEvent;
+import de.aerticket.tc_agenties.audit.LoginAuditService;
+import de.aerticket.tc_agenties.audit.ProvisioningAction;
+import de.aerticket.tc_agenties.capture.TrafficCaptureService;
+import de.aerticket.tc_agenties.config.MicrositeConfig;
+import de.aerticket.tc_agenties.config.ProvisioningConfig;
+import de.aerticket.tc_agenties.entity.MicrositeMapping;
+import de.aerticket.tc_agenties.entity.ProvisioningLedgerEntry;
+import de.aerticket.tc_agenties.exception.DeadlineExceededException;
+import de.aerticket.tc_agenties.exception.JwtValidationException;
+import de.aerticket.tc_agenties.model.AgencyStatus;
+import de.aerticket.tc_agenties.model.CockpitAgency;
+import de.aerticket.tc_agenties.model.JwtClaims;
+import de.aerticket.tc_agenties.model.TCAgencydata;
+import de.aerticket.tc_agenties.model.TravelcAgencyRequest;
+import de.aerticket.tc_agenties.util.Deadline;
+import de.aerticket.tc_agenties.util.RequestContextTaskDecorator;
+import de.aerticket.tc_agenties.util.RequestTimings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuthenticationServiceTests {
+
+	private static final String TOKEN = "header.payload.signature";
+	private static final String AGENCY = "123456";
+	private static final String JOB_ID = "4711";
+	private static final String MICROSITE = "aer360";
+
+	private final JwtService jwtService = mock(JwtService.class);
+	private final MicrositeMappingService micrositeMappingService = mock(MicrositeMappingService.class);
+	private final PasswordService passwordService = new PasswordService();
+	private final TravelCompositorService travelCompositorService = mock(TravelCompositorService.class);
+	private final CockpitService cockpitService = mock(CockpitService.class);
+	private final ProvisioningLedgerService ledger = mock(ProvisioningLedgerService.class);
+	private final AgencyChangeDetector agencyChangeDetector = new AgencyChangeDetector();
+	private final LoginAuditService loginAuditService = mock(LoginAuditService.class);
+	private final ThreadPoolTaskExecutor provisioningExecutor = new ThreadPoolTaskExecutor();
+	private final ProvisioningConfig provisioningConfig = new ProvisioningConfig();
+	private AuthenticationService authenticationService;
+
+	@BeforeEach
+	void setUp() {
+		provisioningExecutor.setTaskDecorator(new RequestContextTaskDecorator());
+		provisioningExecutor.initialize();
+		authenticationService = new AuthenticationService(jwtService, micrositeMappingService, new MicrositeConfig(),
+				passwordService, travelCompositorService, cockpitService, ledger, agencyChangeDetector,
+				loginAuditService, provisioningExecutor, provisioningConfig,
+				mock(SpeculativeProvisioningService.class), mock(TrafficCaptureService.class),
+				mock(ShadowVerificationService.class));
+
+		JwtClaims claims = new JwtClaims();
+		claims.setAgencyNumber(AGENCY);
+		claims.setCompanyCode("AER");
+		claims.setJobId(JOB_ID);
+		when(jwtService.parseJwtToken(TOKEN)).thenReturn(claims);
+		when(jwtService.isTokenValid(claims)).thenReturn(true);
+		when(micrositeMappingService.getMicrositeMappingByCompanyCode("AER")).thenReturn(Optional.empty());
+		when(travelCompositorService.getUser(anyString(), anyString(), anyString())).thenReturn(true);
+	}
+
+	@AfterEach
+	void tearDown() {
+		provisioningExecutor.shutdown();
+		RequestTimings.end();
+		Deadline.end();
+	}
+
+	@Test
+	void inactiveAgencyIsReactivatedEvenIfCockpitDataIsUnchangedSinceLastSync() {
+		TravelcAgencyRequest request = AgencyChangeDetectorTests.request().build();
+		inactiveAgencyWithCockpitRequest(request);
+		// Ledger holds the hash of exactly this request from an earlier sync
+		ProvisioningLedgerEntry entry = new ProvisioningLedgerEntry(1L, MICROSITE, AGENCY, "", "UPDATED",
+				agencyChangeDetector.contentHash(request), LocalDateTime.now(), LocalDateTime.now());
+		when(ledger.getAgencyEntry(MICROSITE, AGENCY)).thenReturn(Optional.of(entry));
+		TCAgencydata deactivated = AgencyChangeDetectorTests.current();
+		deactivated.setActive("false");
+		when(travelCompositorService.getAgencyData(MICROSITE, AGENCY)).thenReturn(deactivated);
+		when(travelCompositorService.updateAgency(request, MICROSITE)).thenReturn(true);
+
+		authenticationService.authenticateUser(TOKEN, "de", "flight");
+
+		verify(travelCompositorService).updateAgency(request, MICROSITE);
+	}
+
+	@Test
+	void inactiveAgencyMatchingTravelCompositorIsNotWritten() {
+		TravelcAgencyRequest request = AgencyChangeDetectorTests.request().build();
+		inactiveAgencyWithCockpitRequest(request);
+		when(travelCompositorService.getAgencyData(MICROSITE, AGENCY)).thenReturn(AgencyChangeDetectorTests.current());
+
+		authenticationService.authenticateUser(TOKEN, "de", "flight");
+
+		verify(travelCompositorService, never()).updateAgency(any(), anyString());
+		verify(ledger).recordAgency(eq(MICROSITE), eq(AGENCY), eq(ProvisioningLedgerService.ORIGIN_CONFIRMED),
+				eq(agencyChangeDetector.contentHash(request)));
+	}
+
+	@Test
+	void agencyDeactivatedInCockpitIsNotReactivated() {
+		TravelcAgencyRequest request = AgencyChangeDetectorTests.request().active("false").build();
+		inactiveAgencyWithCockpitRequest(request);
+
+		authenticationService.authenticateUser(TOKEN, "de", "flight");
+
+		verify(travelCompositorService, never()).updateAgency(any(), anyString());
+		verify(travelCompositorService, never()).createAgency(any(), anyString());
+		assertEquals(ProvisioningAction.UNCHANGED, recordedAudit().getAgencyAction());
+	}
+
+	@Test
+	void provisioningThatOutlivesTheWaitIsPendingAndStillReachesTheLedger() {
+		TravelcAgencyRequest request = AgencyChangeDetectorTests.request().build();
+		notFoundAgencyWithCockpitRequest(request);
+		provisioningConfig.setMaxWaitMs(50);
+		when(travelCompositorService.createAgency(request, MICROSITE)).thenAnswer(invocation -> {
+			TimeUnit.MILLISECONDS.sleep(300);
+			// Runs under the task's own budget, not the login's spent one
+			Deadline.check("create agency");
+			return true;
+		});
+		when(travelCompositorService.getAgencyData(MICROSITE, AGENCY)).thenReturn(AgencyChangeDetectorTests.current());
+		Deadline.begin(200);
+
+		authenticationService.authenticateUser(TOKEN, "de", "flight");
+
+		assertEquals(ProvisioningAction.PENDING, recordedAudit().getAgencyAction());
+		verify(ledger, timeout(2_000)).recordAgency(eq(MICROSITE), eq(AGENCY),
+				eq(ProvisioningLedgerService.ORIGIN_CREATED), anyString());
+	}
+
+	@Test
+	void stageTimingsOfTheProvisioningTaskAreMergedIntoTheLogin() {
+		TravelcAgencyRequest request = AgencyChangeDetectorTests.request().build();
+		notFoundAgencyWithCockpitRequest(request);
+		when(travelCompositorService.createAgency(request, MICROSITE)).thenAnswer(invocation -> {
+			// Token acquisition on the worker thread
+			RequestTimings.miss(RequestTimings.Stage.TOKEN);
+			RequestTimings.record(RequestTimings.Stage.TOKEN, System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(5));
+			return true;
+		});
+		when(travelCompositorService.getAgencyData(MICROSITE, AGENCY)).thenReturn(AgencyChangeDetectorTests.current());
+		RequestTimings timings = RequestTimings.begin();
+
+		authenticationService.authenticateUser(TOKEN, "de", "flight");
+
+		assertEquals(ProvisioningAction.CREATED, recordedAudit().getAgencyAction());
+		assertTrue(timings.millis(RequestTimings.Stage.TOKEN) >= 5, timings.toServerTimingHeader());
+		assertFalse(timings.cached(RequestTimings.Stage.TOKEN));
+	}
+
+	@Test
+	void agencyAndUserRowsAreKeyedByTheWriteMicrositeWhenItDiffersFromTheApiName() {
+		when(micrositeMappingService.getMicrositeMappingByCompanyCode("AER"))
+				.thenReturn(Optional.of(new MicrositeMapping(1L, "AER", "AER", "b2b", "b2b-api", "https://b2b")));
+		when(travelCompositorService.checkAgencyStatus("b2b", "b2b-api", AGENCY)).thenReturn(AgencyStatus.ACTIVE);
+
+		authenticationService.authenticateUser(TOKEN, "de", "flight");
+
+		verify(ledger).isAgencyConfirmed("b2b", AGENCY);
+		verify(ledger).recordAgency(eq("b2b"), eq(AGENCY), eq(ProvisioningLedgerService.ORIGIN_CONFIRMED), any());
+		verify(ledger).isUserConfirmed("b2b", AGENCY, JOB_ID);
+		verify(ledger).recordUser("b2b", AGENCY, JOB_ID, ProvisioningLedgerService.ORIGIN_CONFIRMED);
+	}
+
+	private LoginAuditEvent recordedAudit() {
+		ArgumentCaptor<LoginAuditEvent> event = ArgumentCaptor.forClass(LoginAuditEvent.class);
+		verify(loginAuditService).record(event.capture());
+		return event.getValue();
+	}
+
+	@Test
+	void stageEventsCarryTheOutcomeOfEachStage(@TempDir Path dir) throws Exception {
+		when(travelCompositorService.checkAgencyStatus(MICROSITE, MICROSITE, AGENCY)).thenReturn(AgencyStatus.ACTIVE);
+
+		List<String> stages = recordStages(dir, () -> authenticationService.authenticateUser(TOKEN, "de", "flight"));
+
+		assertEquals(List.of("JWT=VALID", "MAPPING=RESOLVED", "AGENCY=ACTIVE", "USER=EXISTS"), stages);
+	}
+
+	@Test
+	void failingStagesAreRecordedWithTheirOutcome(@TempDir Path dir) throws Exception {
+		when(jwtService.isTokenValid(any())).thenReturn(false);
+		List<String> stages = recordStages(dir, () -> assertThrows(JwtValidationException.class,
+				() -> authenticationService.authenticateUser(TOKEN, "de", "flight")));
+		assertEquals(List.of("JWT=INVALID"), stages);
+
+		when(jwtService.isTokenValid(any())).thenReturn(true);
+		when(travelCompositorService.checkAgencyStatus(MICROSITE, MICROSITE, AGENCY))
+				.thenThrow(new DeadlineExceededException("Request deadline exceeded before agency check"));
+		stages = recordStages(dir, () -> assertThrows(DeadlineExceededException.class,
+				() -> authenticationService.authenticateUser(TOKEN, "de", "flight")));
+		assertEquals(List.of("JWT=VALID", "MAPPING=RESOLVED", "AGENCY=DEADLINE"), stages);
+
+		doThrow(new IllegalStateException()).when(travelCompositorService).checkAgencyStatus(MICROSITE, MICROSITE, AGENCY);
+		stages = recordStages(dir, () -> assertThrows(IllegalStateException.class,
+				() -> authenticationService.authenticateUser(TOKEN, "de", "flight")));
+		assertEquals(List.of("JWT=VALID", "MAPPING=RESOLVED", "AGENCY=ERROR"), stages);
+	}
+
+	/**
+	 * Login stage events committed while running the login, as "STAGE=STATUS"
+	 */
+	private static List<String> recordStages(Path dir, Runnable login) throws Exception {
+		Path file = Files.createTempFile(dir, "login", ".jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable("de.aerticket.tc_agenties.LoginStage");
+			recording.start();
+			login.run();
+			recording.stop();
+			recording.dump(file);
+		}
+		return RecordingFile.readAllEvents(file).stream()
+				.sorted(Comparator.comparing(RecordedEvent::getStartTime))
+				.map(event -> event.getString("stage") + "=" + event.getString("status"))
+				.toList();
+	}
+
+	private void notFoundAgencyWithCockpitRequest(TravelcAgencyRequest request) {
+		inactiveAgencyWithCockpitRequest(request);
+		when(travelCompositorService.checkAgencyStatus(MICROSITE, MICROSITE, AGENCY)).thenReturn(AgencyStatus.NOT_FOUND);
+	}
+
+	private void inactiveAgencyWithCockpitRequest(TravelcAgencyRequest request) {
+		CockpitAgency cockpitAgency = CockpitAgency.builder().agencyNumber(AGENCY).build();
+		when(travelCompositorService.checkAgencyStatus(MICROSITE, MICROSITE, AGENCY)).thenReturn(AgencyStatus.INACTIVE);
+		when(cockpitService.getAgency(AGENCY)).thenReturn(cockpitAgency);
+		when(cockpitService.convertToTravelcRequest(cockpitAgency)).thenReturn(request);
+	}
+}
@@ -0,0 +1,85 @@
+package de.aerticket.tc_agenties.service;
+
+import de.aerticket.tc_agenties.cache.CacheNames;
+import de.aerticket.tc_agenties.cache.CacheStats;
+import de.aerticket.tc_agenties.cache.InMemoryCacheManager;
+import de.aerticket.tc_agenties.config.JwtConfig;
+import de.aerticket.tc_agenties.config.RateLimitConfig;
+import de.aerticket.tc_agenties.config.RetryConfig;
+import de.aerticket.tc_agenties.config.TravelcConfig;
+import de.aerticket.tc_agenties.ratelimit.TravelcRateLimiter;
+import de.aerticket.tc_agenties.retry.RetryExecutor;
+import de.aerticket.tc_agenties.snapshot.ProvisionedSnapshotService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CacheAdminServiceTests {
+
+	private final InMemoryCacheManager cacheManager = new InMemoryCacheManager();
+	private final JwtService jwtService = mock(JwtService.class);
+	private TravelcAuthManager authManager;
+	private CacheAdminService cacheAdminService;
+
+	@BeforeEach
+	void setUp() {
+		TravelcConfig travelcConfig = new TravelcConfig();
+		TravelcCredentialRegistry registry = new TravelcCredentialRegistry(travelcConfig, null);
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		authManager = new TravelcAuthManager(new RestTemplate(), travelcConfig, registry, cacheManager,
+				new RetryExecutor(new RetryConfig(), meterRegistry),
+				new TravelcRateLimiter(new RateLimitConfig(), meterRegistry));
+		ProvisionedSnapshotService snapshotService = mock(ProvisionedSnapshotService.class);
+		when(snapshotService.stats()).thenReturn(CacheStats.of(ProvisionedSnapshotService.CACHE_NAME, 0, 0, 0, 0,
+				null));
+		MicrositeMappingService micrositeMappingService = mock(MicrositeMappingService.class);
+		when(micrositeMappingService.stats()).thenReturn(CacheStats.of(MicrositeMappingService.CACHE_NAME, 0, 0, 0,
+				0, null));
+		when(jwtService.verifierStats()).thenReturn(CacheStats.of(JwtService.VERIFIER_CACHE, 2, 5, 2, 0, null));
+		cacheAdminService = new CacheAdminService(cacheManager, authManager, mock(ProvisioningLedgerService.class),
+				snapshotService, micrositeMappingService, jwtService, new JwtConfig());
+	}
+
+	@AfterEach
+	void tearDown() {
+		authManager.shutdown();
+	}
+
+	@Test
+	void invalidatingAMicrositeReportsTheTokensActuallyRemoved() {
+		cacheManager.getCache(CacheNames.TRAVELC_TOKENS).put("aer360", "token", null);
+
+		assertEquals(1, cacheAdminService.invalidate("AER360", null, null, null).get(CacheNames.TRAVELC_TOKENS));
+		assertEquals(0, cacheAdminService.invalidate("AER360", null, null, null).get(CacheNames.TRAVELC_TOKENS));
+	}
+
+	@Test
+	void jwtVerifiersAreListedAndClearable() {
+		assertTrue(cacheAdminService.listCaches().stream()
+				.anyMatch(stats -> stats.name().equals(JwtService.VERIFIER_CACHE) && stats.size() == 2));
+
+		cacheAdminService.clear(JwtService.VERIFIER_CACHE);
+
+		verify(jwtService).clearVerifiers();
+	}
+
+	@Test
+	void invalidatingAKidAlsoDropsTheVerifiers() {
+		when(jwtService.clearVerifiers()).thenReturn(2);
+
+		Map<String, Integer> removed = cacheAdminService.invalidate(null, null, "kid-1", null);
+
+		assertEquals(2, removed.get(JwtService.VERIFIER_CACHE));
+		assertEquals(0, removed.get(CacheNames.PUBLIC_KEYS));
+	}
+}
@@ -0,0 +1,26 @@
+package de.aerticket.tc_agenties.service;
+
+import de.aerticket.tc_agenties.client.CockpitAgencyBatcher;
+import de.aerticket.tc_agenties.client.CockpitClient;
+import de.aerticket.tc_agenties.model.CockpitAgency;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+class CockpitServiceTests {
+
+	private final CockpitService cockpitService = new CockpitService(mock(CockpitClient.class),
+			mock(CockpitAgencyBatcher.class));
+
+	@Test
+	void agencyIsActiveUnlessCockpitReportsItDeactivated() {
+		assertEquals("true", cockpitService.convertToTravelcRequest(agency(null)).getActive());
+		assertEquals("true", cockpitService.convertToTravelcRequest(agency(true)).getActive());
+		assertEquals("false", cockpitService.convertToTravelcRequest(agency(false)).getActive());
+	}
+
+	private static CockpitAgency agency(Boolean active) {
+		return CockpitAgency.builder().agencyNumber("123456").companyName("Reisebuero").active(active).build();
+	}
+}
@@ -0,0 +1,105 @@
+package de.aerticket.tc_agenties.service;
+
+import com.nimbusds.jose.JWSObject;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jwt.JWTParser;
+import de.aerticket.tc_agenties.model.JwtClaims;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.json.JSONObject;
+import org.springframework.util.StringUtils;
+
+import java.security.KeyFactory;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * The former implementations of the CPU-bound login steps, the reference
+ * for LoginPathTests and the baseline of LoginPathBenchmark
+ */
+final class LegacyLoginPath {
+
+	private static final Pattern LANGUAGE_PATTERN = Pattern.compile("^[A-Za-z]{2}$");
+	private static final Pattern TYPE_PATTERN = Pattern.compile("^[A-Za-z0-9_-]{1,30}$");
+
+	private LegacyLoginPath() {
+	}
+
+	static JwtClaims parse(String token, String publicKeyPem) {
+		try {
+			String[] tokenParts = token.split("\\.");
+			JSONObject header = new JSONObject(new String(Base64.getUrlDecoder().decode(tokenParts[0])));
+			JSONObject body = new JSONObject(new String(Base64.getUrlDecoder().decode(tokenParts[1])));
+			if (!"ES256".equalsIgnoreCase(header.optString("alg")) || header.optString("kid", null) == null
+					|| body.optString("iss", null) == null) {
+				throw new IllegalArgumentException("Unsupported JWT");
+			}
+			String cleanedPem = publicKeyPem.replaceAll("-----BEGIN PUBLIC KEY-----", "")
+					.replaceAll("-----END PUBLIC KEY-----", "")
+					.replaceAll("\\s", "");
+			ECPublicKey publicKey = (ECPublicKey) KeyFactory.getInstance("EC")
+					.generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(cleanedPem)));
+			if (!JWSObject.parse(token).verify(new ECDSAVerifier(publicKey))) {
+				throw new IllegalArgumentException("Invalid JWT token");
+			}
+			JWTParser.parse(token).getJWTClaimsSet().getExpirationTime();
+
+			JwtClaims claims = new JwtClaims();
+			claims.setSub(body.optString("sub"));
+			claims.setAgencyNumber(body.optString("agencyNumber"));
+			claims.setCompanyCode(body.optString("companyCode"));
+			if (body.has("jobId")) {
+				claims.setJobId(body.get("jobId").toString());
+			}
+			claims.setRole(body.optString("role"));
+			claims.setIss(body.optString("iss"));
+			claims.setAud(body.optString("aud"));
+			claims.setJti(body.optString("jti"));
+			claims.setAgentFirstName(body.optString("agentFirstName"));
+			claims.setAgentLastName(body.optString("agentLastName"));
+			if (body.has("exp")) {
+				claims.setExp(body.optLong("exp"));
+			}
+			if (body.has("iat")) {
+				claims.setIat(body.optLong("iat"));
+			}
+			if (body.has("nbf")) {
+				claims.setNbf(body.optLong("nbf"));
+			}
+			return claims;
+		} catch (Exception e) {
+			throw new IllegalArgumentException("Invalid JWT token", e);
+		}
+	}
+
+	static String password(String jobId, String agencyNumber) {
+		String cleanJobId = jobId != null ? jobId.trim() : "";
+		String cleanAgencyNumber = agencyNumber != null ? agencyNumber.trim() : "";
+		return DigestUtils.md5Hex(cleanJobId + "_" + cleanAgencyNumber + "_*seCrEt+");
+	}
+
+	static String language(String language) {
+		if (!StringUtils.hasText(language)) {
+			return "DE";
+		}
+		String candidate = language.trim();
+		if (candidate.length() > 2) {
+			candidate = candidate.substring(0, 2);
+		}
+		candidate = candidate.toUpperCase(Locale.ROOT);
+		return LANGUAGE_PATTERN.matcher(candidate).matches() ? candidate : "DE";
+	}
+
+	static String type(String type) {
+		if (!StringUtils.hasText(type)) {
+			return "";
+		}
+		String candidate = type.trim();
+		if (!TYPE_PATTERN.matcher(candidate).matches()) {
+			candidate = candidate.replaceAll("[^A-Za-z0-9]", "");
+		}
+		return candidate;
+	}
+}
@@ -0,0 +1,114 @@
+package de.aerticket.tc_agenties.service;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSObject;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import de.aerticket.tc_agenties.config.JwtConfig;
+import de.aerticket.tc_agenties.model.JwtClaims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPrivateKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+import java.util.function.Supplier;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Allocation of the CPU-bound part of a login (JWT parse and verify,
+ * input normalization, password, return URL), compared with the former
+ * implementations in LegacyLoginPath (mvn -Pbenchmark test). LoginPathTests
+ * checks that both give the same results.
+ */
+class LoginPathBenchmark {
+
+	private static final int WARMUP = 5_000;
+	private static final int ITERATIONS = 20_000;
+	private static final String MICROSITE_URL = "https://aer360.travelc.net";
+
+	private String token;
+	private String publicKeyPem;
+	private JwtService jwtService;
+	private PasswordService passwordService;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+		generator.initialize(new ECGenParameterSpec("secp256r1"));
+		KeyPair keyPair = generator.generateKeyPair();
+		publicKeyPem = "-----BEGIN PUBLIC KEY-----\n"
+				+ Base64.getMimeEncoder(64, "\n".getBytes()).encodeToString(keyPair.getPublic().getEncoded())
+				+ "\n-----END PUBLIC KEY-----\n";
+
+		JWSObject jws = new JWSObject(new JWSHeader.Builder(JWSAlgorithm.ES256).keyID("bench-key").build(),
+				new Payload("{\"sub\":\"agent\",\"iss\":\"qa-cockpit\",\"aud\":\"tc-agencies\",\"jti\":\"7f3a\","
+						+ "\"companyCode\":\"AER\",\"agencyNumber\":\"123456\",\"jobId\":4711,\"role\":\"AGENT\","
+						+ "\"agentFirstName\":\"Erika\",\"agentLastName\":\"Musterfrau\","
+						+ "\"iat\":1760000000,\"exp\":1760003600}"));
+		jws.sign(new ECDSASigner((ECPrivateKey) keyPair.getPrivate()));
+		token = jws.serialize();
+
+		HttpClientService httpClientService = mock(HttpClientService.class);
+		when(httpClientService.getPublicKey(anyString())).thenReturn(publicKeyPem);
+		jwtService = new JwtService(new JwtConfig(), httpClientService);
+		passwordService = new PasswordService();
+	}
+
+	@Test
+	void loginPath() {
+		run("login path", () -> {
+			JwtClaims claims = jwtService.parseJwtToken(token);
+			String language = AuthenticationService.normalizeLanguage("de");
+			String type = AuthenticationService.normalizeType("flight");
+			String password = passwordService.generateEncryptedPassword(claims.getJobId(), claims.getAgencyNumber());
+			return ReturnUrlBuilder.build(MICROSITE_URL, language, type, claims.getJobId(), password,
+					claims.getAgencyNumber());
+		});
+		run("  jwt parse + verify", () -> jwtService.parseJwtToken(token));
+		run("  password", () -> passwordService.generateEncryptedPassword("4711", "123456"));
+		run("  return url", () -> ReturnUrlBuilder.build(MICROSITE_URL, "DE", "flight", "4711",
+				"5d41402abc4b2a76b9719d911017c592", "123456"));
+	}
+
+	@Test
+	void legacyLoginPath() {
+		run("legacy login path", () -> {
+			JwtClaims claims = LegacyLoginPath.parse(token, publicKeyPem);
+			String language = LegacyLoginPath.language("de");
+			String type = LegacyLoginPath.type("flight");
+			String password = LegacyLoginPath.password(claims.getJobId(), claims.getAgencyNumber());
+			return ReturnUrlBuilder.legacyBuild(MICROSITE_URL, language, type, claims.getJobId(), password,
+					claims.getAgencyNumber());
+		});
+		run("  jwt parse + verify", () -> LegacyLoginPath.parse(token, publicKeyPem));
+		run("  password", () -> LegacyLoginPath.password("4711", "123456"));
+		run("  return url", () -> ReturnUrlBuilder.legacyBuild(MICROSITE_URL, "DE", "flight", "4711",
+				"5d41402abc4b2a76b9719d911017c592", "123456"));
+	}
+
+	private static void run(String name, Supplier<?> call) {
+		for (int i = 0; i < WARMUP; i++) {
+			call.get();
+		}
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		long thread = Thread.currentThread().threadId();
+		long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+		long startedAt = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			call.get();
+		}
+		long elapsed = System.nanoTime() - startedAt;
+		long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+		System.out.printf("%-34s %8.1f us/login  %,10d bytes/login%n", name, elapsed / 1000.0 / ITERATIONS,
+				allocated / ITERATIONS);
+	}
+}
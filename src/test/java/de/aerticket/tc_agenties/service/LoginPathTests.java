@@ -0,0 +1,133 @@
+package de.aerticket.tc_agenties.service;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSObject;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import de.aerticket.tc_agenties.config.JwtConfig;
+import de.aerticket.tc_agenties.model.JwtClaims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPrivateKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The CPU-bound login steps give the same results as the former
+ * implementations in LegacyLoginPath
+ */
+class LoginPathTests {
+
+	private static final String MICROSITE_URL = "https://aer360.travelc.net";
+
+	private KeyPair keyPair;
+	private String publicKeyPem;
+	private JwtService jwtService;
+	private final PasswordService passwordService = new PasswordService();
+
+	@BeforeEach
+	void setUp() throws Exception {
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+		generator.initialize(new ECGenParameterSpec("secp256r1"));
+		keyPair = generator.generateKeyPair();
+		publicKeyPem = "-----BEGIN PUBLIC KEY-----\n"
+				+ Base64.getMimeEncoder(64, "\n".getBytes()).encodeToString(keyPair.getPublic().getEncoded())
+				+ "\n-----END PUBLIC KEY-----\n";
+
+		HttpClientService httpClientService = mock(HttpClientService.class);
+		when(httpClientService.getPublicKey(anyString())).thenReturn(publicKeyPem);
+		jwtService = new JwtService(new JwtConfig(), httpClientService);
+	}
+
+	@Test
+	void claimsMatchTheFormerParser() throws Exception {
+		for (String claims : new String[] {
+				"\"iss\":\"qa-cockpit\",\"agencyNumber\":\"123456\",\"jobId\":4711,\"iat\":1760000000,"
+						+ "\"exp\":1760003600",
+				"\"iss\":\"prod\",\"agencyNumber\":\" 123456 \",\"jobId\":\" 4711 \"",
+				"\"iss\":\"stg-cockpit\",\"agentFirstName\":\"Jürgen\",\"agentLastName\":\"Ğüneş 李\","
+						+ "\"jobId\":\"Jürgen\"",
+				"\"iss\":\"qa-cockpit\",\"jobId\":null,\"companyCode\":null",
+				"\"iss\":\"qa-cockpit\",\"sub\":\"agent\"" }) {
+			String token = token("{" + claims + "}");
+			JwtClaims parsed = jwtService.parseJwtToken(token);
+			assertEquals(LegacyLoginPath.parse(token, publicKeyPem), parsed, claims);
+		}
+	}
+
+	@Test
+	void tokensWithoutIssuerAreRejectedLikeBefore() throws Exception {
+		for (String claims : new String[] { "{\"jobId\":4711}", "{\"iss\":null,\"jobId\":4711}" }) {
+			String token = token(claims);
+			assertEquals(outcome(() -> LegacyLoginPath.parse(token, publicKeyPem)),
+					outcome(() -> jwtService.parseJwtToken(token)), claims);
+			assertEquals(IllegalArgumentException.class, outcome(() -> jwtService.parseJwtToken(token)));
+		}
+	}
+
+	@Test
+	void passwordsMatchTheFormerDigest() {
+		for (String[] ids : new String[][] { { "4711", "123456" }, { " 4711 ", "123456\n" }, { "\t4711", " 1 " },
+				{ null, "1" }, { "4711", null }, { null, null }, { "Jürgen", "ä1" }, { "李", "Ğ" },
+				{ "x".repeat(100), "9" } }) {
+			assertEquals(LegacyLoginPath.password(ids[0], ids[1]),
+					passwordService.generateEncryptedPassword(ids[0], ids[1]), ids[0] + "/" + ids[1]);
+		}
+	}
+
+	@Test
+	void languageAndTypeMatchTheFormerNormalization() {
+		for (String language : new String[] { null, "", " de ", "\tEN\n", "DE", "en-GB", "e", "1x", "ıt", "ßx" }) {
+			assertEquals(LegacyLoginPath.language(language), AuthenticationService.normalizeLanguage(language),
+					language);
+		}
+		for (String type : new String[] { null, " ", "flight", " hotel_1 ", "a b&c", "x".repeat(31), "ümlaut",
+				"%41" }) {
+			assertEquals(LegacyLoginPath.type(type), AuthenticationService.normalizeType(type), type);
+		}
+	}
+
+	@Test
+	void returnUrlsMatchTheUriComponentsBuilderChain() {
+		for (String base : new String[] { MICROSITE_URL, MICROSITE_URL + "/", MICROSITE_URL + "/de?x=1",
+				MICROSITE_URL + "/?x=a%20b&y", MICROSITE_URL + "/shop#top", "https://aer360.travelc.net:8443/a b" }) {
+			for (String value : new String[] { "4711", null, "", " 4711 ", "a b+c&d=é", "%41", "x?y#z", "Jürgen",
+					"李" }) {
+				assertEquals(ReturnUrlBuilder.legacyBuild(base, "DE", value, value, "0af", value),
+						ReturnUrlBuilder.build(base, "DE", value, value, "0af", value), base + " / " + value);
+			}
+		}
+	}
+
+	@Test
+	void returnUrlParametersAreEncoded() {
+		assertEquals("https://aer360.travelc.net/de/DE/home?x=1&tripType=a%20b+c%26d%3D%C3%A9&submit=true"
+				+ "&user&password=0af&agency=123456",
+				ReturnUrlBuilder.build(MICROSITE_URL + "/de?x=1", "DE", "a b+c&d=é", null, "0af", "123456"));
+	}
+
+	private String token(String claims) throws Exception {
+		JWSObject jws = new JWSObject(new JWSHeader.Builder(JWSAlgorithm.ES256).keyID("test-key").build(),
+				new Payload(claims));
+		jws.sign(new ECDSASigner((ECPrivateKey) keyPair.getPrivate()));
+		return jws.serialize();
+	}
+
+	private static Object outcome(Supplier<?> call) {
+		try {
+			return call.get();
+		} catch (RuntimeException e) {
+			return e.getClass();
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package de.aerticket.tc_agenties.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.aerticket.tc_agenties.config.MicrositeConfig;
+import de.aerticket.tc_agenties.entity.MicrositeMapping;
+import de.aerticket.tc_agenties.repository.MicrositeMappingRepository;
+import de.aerticket.tc_agenties.snapshot.MicrositeMappingSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MicrositeMappingServiceTests {
+
+	@TempDir
+	Path dir;
+
+	private final MicrositeMappingRepository repository = mock(MicrositeMappingRepository.class);
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final MicrositeConfig micrositeConfig = new MicrositeConfig();
+	private Path snapshot;
+	private MicrositeMappingService service;
+
+	@BeforeEach
+	void setUp() {
+		snapshot = dir.resolve("microsite-mappings.json");
+		micrositeConfig.setMappingSnapshotPath(snapshot.toString());
+		micrositeConfig.setMappingRefreshIntervalSeconds(3600);
+		service = new MicrositeMappingService(repository, micrositeConfig, objectMapper);
+	}
+
+	@AfterEach
+	void tearDown() {
+		service.stop();
+	}
+
+	@Test
+	void snapshotIsServedWhileTheDatabaseIsUnavailable() throws Exception {
+		MicrositeMappingSnapshot.writeTo(snapshot, List.of(mapping(1L, "AER", "aer360")), objectMapper);
+		when(repository.findAll()).thenThrow(new IllegalStateException("database down"));
+
+		service.start();
+
+		assertEquals("aer360", service.getMicrositeMappingByCompanyCode("AER").orElseThrow().getMicrosite());
+		verify(repository, never()).findFirstByCompanyCode(anyString());
+	}
+
+	@Test
+	void refreshReplacesMappingsAndSnapshot() throws Exception {
+		when(repository.findAll()).thenReturn(List.of(mapping(1L, "AER", "aer360")));
+		service.refresh();
+		when(repository.findAll()).thenReturn(List.of(mapping(1L, "AER", "aer360-b2b")));
+
+		service.refresh();
+
+		assertEquals("aer360-b2b", service.getMicrositeMappingByCompanyCode("AER").orElseThrow().getMicrosite());
+		assertEquals("aer360-b2b", MicrositeMappingSnapshot.readFrom(snapshot, objectMapper).get(0).getMicrosite());
+	}
+
+	@Test
+	void unchangedMappingsAreNotWrittenAgain() throws Exception {
+		when(repository.findAll()).thenReturn(List.of(mapping(2L, "XYZ", "xyz"), mapping(1L, "AER", "aer360")));
+		service.refresh();
+		FileTime old = FileTime.fromMillis(0);
+		Files.setLastModifiedTime(snapshot, old);
+
+		// Same rows in another order
+		when(repository.findAll()).thenReturn(List.of(mapping(1L, "AER", "aer360"), mapping(2L, "XYZ", "xyz")));
+		service.refresh();
+		assertEquals(old, Files.getLastModifiedTime(snapshot));
+
+		when(repository.findAll()).thenReturn(List.of(mapping(1L, "AER", "aer360")));
+		service.refresh();
+		assertNotEquals(old, Files.getLastModifiedTime(snapshot));
+	}
+
+	@Test
+	void failedRefreshKeepsCurrentMappings() {
+		when(repository.findAll()).thenReturn(List.of(mapping(1L, "AER", "aer360")));
+		service.refresh();
+		when(repository.findAll()).thenThrow(new IllegalStateException("database down"));
+
+		service.refresh();
+
+		assertTrue(service.hasCompanyCodeMapping("AER"));
+	}
+
+	@Test
+	void companyCodesMatchTrimmedAndCaseInsensitively() {
+		when(repository.findAll()).thenReturn(List.of(mapping(2L, " aer ", "aer360-b2b"), mapping(1L, "AER", "aer360"),
+				mapping(3L, null, "none")));
+		service.refresh();
+
+		assertEquals("aer360", service.getMicrositeMappingByCompanyCode("aer").orElseThrow().getMicrosite());
+		assertEquals(Optional.of("https://aer360.example"), service.getMicrositeUrlByCompanyCode(" Aer"));
+		assertEquals(2, service.getAllMicrositeMappingsByCompanyCode("AER ").size());
+		assertTrue(service.hasCompanyCodeMapping("aer"));
+		assertFalse(service.hasCompanyCodeMapping("XYZ"));
+		assertFalse(service.hasCompanyCodeMapping(null));
+	}
+
+	@Test
+	void withoutSnapshotOrDatabaseLoadLookupsGoToTheRepository() {
+		MicrositeMapping mapping = mapping(1L, "AER", "aer360");
+		when(repository.findFirstByCompanyCode("AER")).thenReturn(Optional.of(mapping));
+
+		assertEquals(Optional.of(mapping), service.getMicrositeMappingByCompanyCode("AER"));
+		assertEquals(1, service.stats().misses());
+	}
+
+	private static MicrositeMapping mapping(Long id, String companyCode, String microsite) {
+		return new MicrositeMapping(id, companyCode, microsite, microsite, microsite,
+				"https://" + microsite + ".example");
+	}
+}
@@ -0,0 +1,190 @@
+package de.aerticket.tc_agenties.service;
+
+import de.aerticket.tc_agenties.config.ProvisioningConfig;
+import de.aerticket.tc_agenties.entity.ProvisioningLedgerEntry;
+import de.aerticket.tc_agenties.repository.ProvisioningLedgerRepository;
+import de.aerticket.tc_agenties.snapshot.ProvisionedSnapshotService;
+import de.aerticket.tc_agenties.util.Deadline;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ProvisioningLedgerServiceTests {
+
+	private static final String MICROSITE = "aer360";
+	private static final String AGENCY = "123456";
+	private static final String JOB_ID = "4711";
+	private static final String AGENCY_ROW = ProvisioningLedgerEntry.AGENCY_ROW;
+
+	private final ProvisioningLedgerRepository repository = mock(ProvisioningLedgerRepository.class);
+	private final ProvisionedSnapshotService snapshotService = mock(ProvisionedSnapshotService.class);
+	private final ProvisioningConfig provisioningConfig = new ProvisioningConfig();
+	private ProvisioningLedgerService ledger;
+
+	@BeforeEach
+	void setUp() {
+		ledger = new ProvisioningLedgerService(repository, provisioningConfig, snapshotService);
+		ledger.start();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		ledger.stop();
+		Deadline.end();
+	}
+
+	@Test
+	void freshEntryIsConfirmedAndIndexed() {
+		LocalDateTime confirmedAt = now().minusMinutes(5);
+		when(repository.findConfirmedAt(MICROSITE, AGENCY, AGENCY_ROW)).thenReturn(Optional.of(confirmedAt));
+
+		assertTrue(ledger.isAgencyConfirmed(MICROSITE, AGENCY));
+
+		verify(snapshotService).record(MICROSITE, AGENCY, AGENCY_ROW, confirmedAt.toEpochSecond(ZoneOffset.UTC));
+	}
+
+	@Test
+	void staleOrMissingEntryIsNotConfirmed() {
+		when(repository.findConfirmedAt(MICROSITE, AGENCY, AGENCY_ROW))
+				.thenReturn(Optional.of(now().minusSeconds(provisioningConfig.getLedgerMaxAgeSeconds() + 60)));
+		when(repository.findConfirmedAt(MICROSITE, AGENCY, JOB_ID)).thenReturn(Optional.empty());
+
+		assertFalse(ledger.isAgencyConfirmed(MICROSITE, AGENCY));
+		assertFalse(ledger.isUserConfirmed(MICROSITE, AGENCY, JOB_ID));
+
+		verify(snapshotService, never()).record(anyString(), anyString(), anyString(), anyLong());
+	}
+
+	@Test
+	void snapshotHitSkipsTheDatabase() {
+		when(snapshotService.isFresh(MICROSITE, AGENCY, JOB_ID, provisioningConfig.getLedgerMaxAgeSeconds()))
+				.thenReturn(true);
+
+		assertTrue(ledger.isUserConfirmed(MICROSITE, AGENCY, JOB_ID));
+
+		verifyNoInteractions(repository);
+	}
+
+	@Test
+	void databaseErrorCountsAsMiss() {
+		doThrow(new IllegalStateException("lmxdb down")).when(repository)
+				.findConfirmedAt(MICROSITE, AGENCY, AGENCY_ROW);
+
+		assertFalse(ledger.isAgencyConfirmed(MICROSITE, AGENCY));
+	}
+
+	@Test
+	void slowLookupIsNotAwaitedPastTheDeadlineButStillReachesTheSnapshot() {
+		LocalDateTime confirmedAt = now().minusMinutes(5);
+		when(repository.findConfirmedAt(MICROSITE, AGENCY, AGENCY_ROW)).thenAnswer(invocation -> {
+			TimeUnit.MILLISECONDS.sleep(500);
+			return Optional.of(confirmedAt);
+		});
+		Deadline.begin(50);
+
+		long startedAt = System.nanoTime();
+		assertFalse(ledger.isAgencyConfirmed(MICROSITE, AGENCY));
+		assertTrue(Duration.ofNanos(System.nanoTime() - startedAt).toMillis() < 400);
+
+		verify(snapshotService, timeout(2_000)).record(MICROSITE, AGENCY, AGENCY_ROW,
+				confirmedAt.toEpochSecond(ZoneOffset.UTC));
+	}
+
+	@Test
+	void spentDeadlineSkipsTheLookup() {
+		Deadline.begin(0);
+
+		assertFalse(ledger.isAgencyConfirmed(MICROSITE, AGENCY));
+
+		verifyNoInteractions(repository);
+	}
+
+	@Test
+	void recordWritesThroughTheSnapshotAndUpsertsInTheBackground() throws Exception {
+		ledger.recordAgency(MICROSITE, AGENCY, ProvisioningLedgerService.ORIGIN_CREATED, "hash");
+
+		verify(snapshotService).record(eq(MICROSITE), eq(AGENCY), eq(AGENCY_ROW), anyLong());
+		ledger.stop();
+		verify(repository).upsert(eq(MICROSITE), eq(AGENCY), eq(AGENCY_ROW),
+				eq(ProvisioningLedgerService.ORIGIN_CREATED), eq("hash"), any());
+	}
+
+	@Test
+	void invalidateRemovesOnlyMatchingRowsAndQueuedWrites() throws Exception {
+		// Hold the writer on a first write so the next ones stay queued
+		CountDownLatch writing = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(repository.upsert(eq("other"), anyString(), anyString(), anyString(), any(), any()))
+				.thenAnswer(invocation -> {
+					writing.countDown();
+					release.await(5, TimeUnit.SECONDS);
+					return 1;
+				});
+		ledger.recordAgency("other", "654321", ProvisioningLedgerService.ORIGIN_CONFIRMED, null);
+		assertTrue(writing.await(5, TimeUnit.SECONDS));
+		ledger.recordUser(MICROSITE, AGENCY, JOB_ID, ProvisioningLedgerService.ORIGIN_CONFIRMED);
+		ledger.recordAgency("b2b", AGENCY, ProvisioningLedgerService.ORIGIN_CONFIRMED, null);
+		when(repository.findByAgencyNumber(AGENCY)).thenReturn(List.of(entry(MICROSITE, AGENCY_ROW),
+				entry("AER360", JOB_ID), entry("b2b", AGENCY_ROW)));
+
+		assertEquals(1, ledger.invalidate(MICROSITE, AGENCY, JOB_ID));
+		release.countDown();
+		ledger.stop();
+
+		ArgumentCaptor<List<ProvisioningLedgerEntry>> deleted = deletedEntries();
+		assertEquals(List.of(entry("AER360", JOB_ID)), deleted.getValue());
+		verify(snapshotService).remove(MICROSITE, AGENCY, JOB_ID);
+		verify(repository, never()).upsert(eq(MICROSITE), anyString(), anyString(), anyString(), any(), any());
+		verify(repository).upsert(eq("b2b"), eq(AGENCY), eq(AGENCY_ROW), anyString(), any(), any());
+	}
+
+	@Test
+	void invalidateAcrossMicrositesRevokesTheSnapshotEvenWhenTheDatabaseFails() {
+		doThrow(new IllegalStateException("lmxdb down")).when(repository).findByAgencyNumber(AGENCY);
+
+		assertEquals(0, ledger.invalidate(null, AGENCY, null));
+
+		verify(snapshotService).revokeAgency(eq(AGENCY), anyLong());
+	}
+
+	@SuppressWarnings("unchecked")
+	private ArgumentCaptor<List<ProvisioningLedgerEntry>> deletedEntries() {
+		ArgumentCaptor<List<ProvisioningLedgerEntry>> deleted = ArgumentCaptor.forClass(List.class);
+		verify(repository).deleteAll(deleted.capture());
+		return deleted;
+	}
+
+	private static ProvisioningLedgerEntry entry(String microsite, String jobId) {
+		LocalDateTime at = LocalDateTime.of(2026, 1, 1, 0, 0);
+		return new ProvisioningLedgerEntry(1L, microsite, AGENCY, jobId, ProvisioningLedgerService.ORIGIN_CONFIRMED,
+				null, at, at);
+	}
+
+	private static LocalDateTime now() {
+		return LocalDateTime.now(ZoneOffset.UTC);
+	}
+}
@@ -0,0 +1,115 @@
+package de.aerticket.tc_agenties.service;
+
+import de.aerticket.tc_agenties.config.ShadowConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShadowVerificationServiceTests {
+
+	private static final String CACHE = "agency-status";
+
+	private final ShadowConfig shadowConfig = new ShadowConfig();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private ShadowVerificationService service;
+
+	@AfterEach
+	void tearDown() {
+		if (service != null) {
+			service.shutdown();
+		}
+	}
+
+	@Test
+	void disabledShadowNeverChecks() throws Exception {
+		start(false, 1, 100);
+		AtomicInteger checks = new AtomicInteger();
+
+		assertFalse(service.isEnabled());
+		service.sample(CACHE, "aer360", "agency=1", () -> checks.incrementAndGet() > 0);
+
+		TimeUnit.MILLISECONDS.sleep(50);
+		assertEquals(0, checks.get());
+		assertTrue(meterRegistry.find("tc.shadow.checks").counters().isEmpty());
+	}
+
+	@Test
+	void sampleRateSelectsTheShareThatIsChecked() throws Exception {
+		start(true, 0, 100);
+		AtomicInteger checks = new AtomicInteger();
+		for (int i = 0; i < 50; i++) {
+			service.sample(CACHE, "aer360", "agency=1", () -> checks.incrementAndGet() > 0);
+		}
+		TimeUnit.MILLISECONDS.sleep(50);
+		assertEquals(0, checks.get());
+
+		shadowConfig.setSampleRate(1);
+		for (int i = 0; i < 5; i++) {
+			service.sample(CACHE, "aer360", "agency=1", () -> checks.incrementAndGet() > 0);
+		}
+		awaitCount("match", 5);
+		assertEquals(5, checks.get());
+	}
+
+	@Test
+	void samplesBeyondTheBudgetAreSkipped() throws Exception {
+		start(true, 1, 1);
+		AtomicInteger checks = new AtomicInteger();
+
+		for (int i = 0; i < 3; i++) {
+			service.sample(CACHE, "AER360", "agency=1", () -> checks.incrementAndGet() > 0);
+		}
+
+		awaitCount("match", 1);
+		assertEquals(2, count("skipped"));
+		assertEquals(1, checks.get());
+	}
+
+	@Test
+	void outcomesAreCountedPerResult() throws Exception {
+		start(true, 1, 100);
+
+		service.sample(CACHE, "aer360", "agency=1", () -> true);
+		service.sample(CACHE, "aer360", "agency=2", () -> false);
+		service.sample(CACHE, "aer360", "agency=3", () -> false);
+		service.sample(CACHE, "aer360", "agency=4", () -> null);
+		service.sample(CACHE, "aer360", "agency=5", () -> {
+			throw new IllegalStateException("TravelCompositor down");
+		});
+
+		awaitCount("error", 2);
+		assertEquals(1, count("match"));
+		assertEquals(2, count("diverged"));
+		assertEquals(0, count("skipped"));
+	}
+
+	private void start(boolean enabled, double sampleRate, double maxChecksPerSecond) {
+		shadowConfig.setEnabled(enabled);
+		shadowConfig.setSampleRate(sampleRate);
+		shadowConfig.setMaxChecksPerSecond(maxChecksPerSecond);
+		service = new ShadowVerificationService(shadowConfig, meterRegistry);
+	}
+
+	private void awaitCount(String result, int expected) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+		while (count(result) < expected && System.nanoTime() < deadline) {
+			TimeUnit.MILLISECONDS.sleep(5);
+		}
+		assertEquals(expected, count(result));
+	}
+
+	private int count(String result) {
+		Counter counter = meterRegistry.find("tc.shadow.checks")
+				.tags("cache", CACHE, "microsite", "aer360", "result", result)
+				.counter();
+		return counter != null ? (int) counter.count() : 0;
+	}
+}
@@ -0,0 +1,151 @@
+package de.aerticket.tc_agenties.service;
+
+import de.aerticket.tc_agenties.config.ProvisioningConfig;
+import de.aerticket.tc_agenties.model.CockpitAgency;
+import de.aerticket.tc_agenties.model.CockpitAgent;
+import de.aerticket.tc_agenties.model.TravelcUserRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SpeculativeProvisioningServiceTests {
+
+	private static final String MICROSITE = "aer360";
+	private static final String AGENCY = "123456";
+	private static final String LOGIN_JOB_ID = "4711";
+
+	private final ProvisioningConfig provisioningConfig = new ProvisioningConfig();
+	private final CockpitService cockpitService = mock(CockpitService.class);
+	private final TravelCompositorService travelCompositorService = mock(TravelCompositorService.class);
+	private final ProvisioningLedgerService ledger = mock(ProvisioningLedgerService.class);
+	private final CockpitAgency cockpitAgency = CockpitAgency.builder().agencyNumber(AGENCY).build();
+	private SpeculativeProvisioningService service;
+
+	@BeforeEach
+	void setUp() {
+		provisioningConfig.setSpeculativeEnabled(true);
+		provisioningConfig.setSpeculativeBatchPauseMs(0);
+		service = new SpeculativeProvisioningService(provisioningConfig, cockpitService, travelCompositorService,
+				ledger);
+		when(cockpitService.convertToTravelcUserRequest(any(CockpitAgent.class), eq(cockpitAgency)))
+				.thenAnswer(invocation -> TravelcUserRequest.builder()
+						.username(invocation.<CockpitAgent>getArgument(0).getJobId())
+						.agency(AGENCY)
+						.build());
+	}
+
+	@AfterEach
+	void tearDown() {
+		service.shutdown();
+	}
+
+	@Test
+	void nothingIsScheduledWhenDisabled() throws Exception {
+		provisioningConfig.setSpeculativeEnabled(false);
+
+		service.schedule(MICROSITE, cockpitAgency, LOGIN_JOB_ID);
+
+		TimeUnit.MILLISECONDS.sleep(50);
+		verify(cockpitService, never()).getAgents(anyString());
+	}
+
+	@Test
+	void agenciesBeyondTheQueueAreSkippedWhenSaturated() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(cockpitService.getAgents(AGENCY)).thenAnswer(invocation -> {
+			started.countDown();
+			release.await();
+			return List.of();
+		});
+
+		// One running, 20 queued, 5 rejected
+		for (int i = 0; i < 26; i++) {
+			service.schedule(MICROSITE, cockpitAgency, LOGIN_JOB_ID);
+			if (i == 0) {
+				started.await();
+			}
+		}
+		release.countDown();
+
+		verify(cockpitService, timeout(2_000).times(21)).getAgents(AGENCY);
+		TimeUnit.MILLISECONDS.sleep(50);
+		verify(cockpitService, times(21)).getAgents(AGENCY);
+	}
+
+	@Test
+	void otherAgentsAreCreatedAndRecorded() {
+		when(cockpitService.getAgents(AGENCY)).thenReturn(List.of(agent(LOGIN_JOB_ID), agent("4712"), agent(" "),
+				agent("4713"), agent("4714")));
+		when(ledger.isUserConfirmed(MICROSITE, AGENCY, "4713")).thenReturn(true);
+		when(travelCompositorService.createUser(any(), eq(MICROSITE))).thenReturn(true);
+
+		service.provisionAgents(MICROSITE, cockpitAgency, LOGIN_JOB_ID);
+
+		verify(travelCompositorService, times(2)).createUser(any(), eq(MICROSITE));
+		verify(ledger).recordUser(MICROSITE, AGENCY, "4712", ProvisioningLedgerService.ORIGIN_PREPROVISIONED);
+		verify(ledger).recordUser(MICROSITE, AGENCY, "4714", ProvisioningLedgerService.ORIGIN_PREPROVISIONED);
+	}
+
+	@Test
+	void rosterIsCappedAndStopsAfterAFailedBatch() {
+		provisioningConfig.setSpeculativeMaxUsers(6);
+		provisioningConfig.setSpeculativeBatchSize(2);
+		when(cockpitService.getAgents(AGENCY)).thenReturn(IntStream.range(0, 10)
+				.mapToObj(i -> agent(Integer.toString(5000 + i)))
+				.toList());
+		when(travelCompositorService.createUser(any(), eq(MICROSITE))).thenReturn(true, true, false, false);
+
+		service.provisionAgents(MICROSITE, cockpitAgency, LOGIN_JOB_ID);
+
+		// First batch created, second failed completely, third never tried
+		verify(travelCompositorService, times(4)).createUser(any(), eq(MICROSITE));
+		verify(ledger, times(2)).recordUser(eq(MICROSITE), eq(AGENCY), anyString(),
+				eq(ProvisioningLedgerService.ORIGIN_PREPROVISIONED));
+	}
+
+	@Test
+	void batchWithSkippedAgentsStopsWhenEveryAttemptFails() {
+		provisioningConfig.setSpeculativeBatchSize(2);
+		// Batches: [login agent, 5001], [5002, 5003]
+		when(cockpitService.getAgents(AGENCY)).thenReturn(List.of(agent(LOGIN_JOB_ID), agent("5001"),
+				agent("5002"), agent("5003")));
+		when(travelCompositorService.createUser(any(), eq(MICROSITE))).thenReturn(false);
+
+		service.provisionAgents(MICROSITE, cockpitAgency, LOGIN_JOB_ID);
+
+		verify(travelCompositorService).createUser(any(), eq(MICROSITE));
+		verify(ledger, never()).recordUser(anyString(), anyString(), anyString(), anyString());
+	}
+
+	@Test
+	void batchOfSkippedAgentsOnlyDoesNotStopProvisioning() {
+		provisioningConfig.setSpeculativeBatchSize(2);
+		when(cockpitService.getAgents(AGENCY)).thenReturn(List.of(agent(LOGIN_JOB_ID), agent(" "),
+				agent("5002"), agent("5003")));
+		when(travelCompositorService.createUser(any(), eq(MICROSITE))).thenReturn(true);
+
+		service.provisionAgents(MICROSITE, cockpitAgency, LOGIN_JOB_ID);
+
+		verify(travelCompositorService, times(2)).createUser(any(), eq(MICROSITE));
+	}
+
+	private static CockpitAgent agent(String jobId) {
+		return CockpitAgent.builder().jobId(jobId).build();
+	}
+}
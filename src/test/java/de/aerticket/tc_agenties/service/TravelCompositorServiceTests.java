@@ -0,0 +1,154 @@
+package de.aerticket.tc_agenties.service;
+
+import de.aerticket.tc_agenties.cache.CacheNames;
+import de.aerticket.tc_agenties.cache.InMemoryCacheManager;
+import de.aerticket.tc_agenties.cache.SharedCache;
+import de.aerticket.tc_agenties.client.ClientResult;
+import de.aerticket.tc_agenties.client.TravelcClient;
+import de.aerticket.tc_agenties.config.CacheConfig;
+import de.aerticket.tc_agenties.model.AgencyStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TravelCompositorServiceTests {
+
+	private static final String MICROSITE = "aer360";
+	private static final String AGENCY = "123456";
+	private static final String KEY = MICROSITE + ":" + AGENCY;
+
+	private final TravelcClient travelcClient = mock(TravelcClient.class);
+	private final InMemoryCacheManager cacheManager = new InMemoryCacheManager();
+	private final SharedCache statusCache = cacheManager.getCache(CacheNames.AGENCY_STATUS);
+	private TravelCompositorService service;
+
+	@BeforeEach
+	void setUp() {
+		service = new TravelCompositorService(travelcClient, cacheManager, new CacheConfig(),
+				mock(ShadowVerificationService.class));
+	}
+
+	@AfterEach
+	void tearDown() {
+		service.shutdown();
+	}
+
+	@Test
+	void activeStatusIsCachedAfterTheFirstCheck() {
+		when(travelcClient.agencyStatus(MICROSITE, AGENCY)).thenReturn(ClientResult.found(AgencyStatus.ACTIVE));
+
+		assertEquals(AgencyStatus.ACTIVE, service.checkAgencyStatus(MICROSITE, MICROSITE, AGENCY));
+		assertEquals(AgencyStatus.ACTIVE, service.checkAgencyStatus(MICROSITE, MICROSITE, AGENCY));
+
+		verify(travelcClient).agencyStatus(MICROSITE, AGENCY);
+	}
+
+	@Test
+	void inactiveAndFailedStatusesAreNotCached() {
+		when(travelcClient.agencyStatus(MICROSITE, AGENCY)).thenReturn(ClientResult.found(AgencyStatus.INACTIVE));
+		assertEquals(AgencyStatus.INACTIVE, service.checkAgencyStatus(MICROSITE, MICROSITE, AGENCY));
+		when(travelcClient.agencyStatus(MICROSITE, AGENCY)).thenReturn(ClientResult.failed("down", null));
+		assertEquals(AgencyStatus.ERROR, service.checkAgencyStatus(MICROSITE, MICROSITE, AGENCY));
+
+		assertNull(statusCache.get(KEY));
+	}
+
+	@Test
+	void staleActiveIsServedAndRefreshedInBackground() {
+		storeActive(System.currentTimeMillis() - Duration.ofHours(1).toMillis() + 1_000);
+		when(travelcClient.agencyStatus(MICROSITE, AGENCY)).thenReturn(ClientResult.found(AgencyStatus.ACTIVE));
+
+		assertEquals(AgencyStatus.ACTIVE, service.checkAgencyStatus(MICROSITE, MICROSITE, AGENCY));
+
+		verify(travelcClient, timeout(5_000)).agencyStatus(MICROSITE, AGENCY);
+		assertTrue(eventually(() -> storedAt() > System.currentTimeMillis() - 60_000));
+	}
+
+	@Test
+	void staleActiveIsDroppedWhenRevalidationFindsItInactive() {
+		storeActive(System.currentTimeMillis() - Duration.ofMinutes(10).toMillis());
+		when(travelcClient.agencyStatus(MICROSITE, AGENCY)).thenReturn(ClientResult.found(AgencyStatus.INACTIVE));
+
+		assertEquals(AgencyStatus.ACTIVE, service.checkAgencyStatus(MICROSITE, MICROSITE, AGENCY));
+
+		assertTrue(eventually(() -> statusCache.get(KEY) == null));
+	}
+
+	@Test
+	void failedRevalidationKeepsTheStaleEntry() {
+		long storedAt = System.currentTimeMillis() - Duration.ofMinutes(10).toMillis();
+		storeActive(storedAt);
+		when(travelcClient.agencyStatus(MICROSITE, AGENCY)).thenReturn(ClientResult.failed("down", null));
+
+		assertEquals(AgencyStatus.ACTIVE, service.checkAgencyStatus(MICROSITE, MICROSITE, AGENCY));
+
+		verify(travelcClient, timeout(5_000)).agencyStatus(MICROSITE, AGENCY);
+		assertEquals(storedAt, storedAt());
+	}
+
+	@Test
+	void freshActiveIsNotRevalidated() {
+		storeActive(System.currentTimeMillis());
+
+		assertEquals(AgencyStatus.ACTIVE, service.checkAgencyStatus(MICROSITE, MICROSITE, AGENCY));
+
+		verify(travelcClient, never()).agencyStatus(MICROSITE, AGENCY);
+	}
+
+	@Test
+	void agencyWritesEvictTheStatusCachedUnderTheWriteMicrosite() {
+		when(travelcClient.agencyStatus("b2b-api", AGENCY)).thenReturn(ClientResult.found(AgencyStatus.ACTIVE));
+		when(travelcClient.updateAgency(any(), eq("b2b"))).thenReturn(ClientResult.found(true));
+		when(travelcClient.createAgency(any(), eq("b2b"))).thenReturn(ClientResult.found(true));
+
+		assertEquals(AgencyStatus.ACTIVE, service.checkAgencyStatus("b2b", "b2b-api", AGENCY));
+		assertNotNull(statusCache.get("b2b:" + AGENCY));
+		service.updateAgency(AgencyChangeDetectorTests.request().build(), "b2b");
+		assertNull(statusCache.get("b2b:" + AGENCY));
+
+		assertEquals(AgencyStatus.ACTIVE, service.checkAgencyStatus("b2b", "b2b-api", AGENCY));
+		service.createAgency(AgencyChangeDetectorTests.request().build(), "b2b");
+		assertNull(statusCache.get("b2b:" + AGENCY));
+		assertNull(statusCache.get("b2b-api:" + AGENCY));
+	}
+
+	private void storeActive(long storedAt) {
+		statusCache.put(KEY, "ACTIVE|" + storedAt, Duration.ofHours(1));
+	}
+
+	private long storedAt() {
+		String cached = statusCache.get(KEY);
+		return cached == null ? -1 : Long.parseLong(cached.substring(cached.indexOf('|') + 1));
+	}
+
+	private static boolean eventually(Supplier<Boolean> condition) {
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (System.currentTimeMillis() < deadline) {
+			if (condition.get()) {
+				return true;
+			}
+			try {
+				Thread.sleep(10);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+		return condition.get();
+	}
+}
@@ -0,0 +1,25 @@
+package de.aerticket.tc_agenties.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TravelcAuthManagerTests {
+
+	@Test
+	void refreshesAheadOfExpiry() {
+		assertEquals(1_500, TravelcAuthManager.refreshDelaySeconds(1_800, 300, 30));
+	}
+
+	@Test
+	void lifetimeWithinRefreshMarginIsNotRefreshedEverySecond() {
+		assertEquals(30, TravelcAuthManager.refreshDelaySeconds(300, 300, 30));
+		assertEquals(30, TravelcAuthManager.refreshDelaySeconds(120, 300, 30));
+	}
+
+	@Test
+	void shortLifetimeIsRefreshedAtHalfOfIt() {
+		assertEquals(10, TravelcAuthManager.refreshDelaySeconds(20, 300, 30));
+		assertEquals(1, TravelcAuthManager.refreshDelaySeconds(1, 300, 30));
+	}
+}
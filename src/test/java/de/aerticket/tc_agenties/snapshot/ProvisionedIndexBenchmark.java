@@ -0,0 +1,87 @@
+package de.aerticket.tc_agenties.snapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Lookup cost, memory and load time of the provisioned index at one million
+ * entries (mvn -Pbenchmark test).
+ */
+class ProvisionedIndexBenchmark {
+
+	private static final int ENTRIES = 1_000_000;
+	private static final int LOOKUPS = 5_000_000;
+	private static final long CONFIRMED_AT = 1_790_000_000L;
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void millionEntries() throws Exception {
+		long[] hits = new long[ENTRIES];
+		long[] misses = new long[ENTRIES];
+		for (int i = 0; i < ENTRIES; i++) {
+			hits[i] = ProvisionedIndex.key("aer360", "A" + (i / 20), "job" + i);
+			misses[i] = ProvisionedIndex.key("aer360", "B" + (i / 20), "job" + i);
+		}
+
+		long startedAt = System.nanoTime();
+		ProvisionedIndex index = new ProvisionedIndex(0);
+		for (long key : hits) {
+			index.put(key, CONFIRMED_AT);
+		}
+		report("insert (with resizes)", System.nanoTime() - startedAt, ENTRIES);
+		assertEquals(ENTRIES, index.size());
+
+		report("lookup hit", lookups(index, hits), LOOKUPS);
+		report("lookup miss", lookups(index, misses), LOOKUPS);
+
+		long keyNanos = System.nanoTime();
+		long sink = 0;
+		for (int i = 0; i < ENTRIES; i++) {
+			sink += ProvisionedIndex.key("aer360", "A" + (i / 20), "job" + i);
+		}
+		report("key hash incl. strings", System.nanoTime() - keyNanos, ENTRIES);
+
+		Path file = dir.resolve("provisioned.idx");
+		startedAt = System.nanoTime();
+		index.writeTo(file);
+		report("persist", System.nanoTime() - startedAt, 1);
+		startedAt = System.nanoTime();
+		ProvisionedIndex loaded = ProvisionedIndex.readFrom(file);
+		report("load", System.nanoTime() - startedAt, 1);
+		assertEquals(CONFIRMED_AT, loaded.confirmedAt(hits[ENTRIES / 2]));
+
+		System.out.printf("%-26s %,10d bytes table, %,d bytes file, %.1f bytes/entry%n", "memory",
+				index.tableBytes(), Files.size(file), (double) index.tableBytes() / ENTRIES);
+		assertTrue(sink != 42);
+	}
+
+	private static long lookups(ProvisionedIndex index, long[] keys) {
+		long found = 0;
+		for (int i = 0; i < LOOKUPS; i++) {
+			found += index.confirmedAt(keys[i % ENTRIES]) > 0 ? 1 : 0;
+		}
+		long startedAt = System.nanoTime();
+		for (int i = 0; i < LOOKUPS; i++) {
+			found += index.confirmedAt(keys[(int) ((i * 7919L) % ENTRIES)]) > 0 ? 1 : 0;
+		}
+		long elapsed = System.nanoTime() - startedAt;
+		assertTrue(found >= 0);
+		return elapsed;
+	}
+
+	private static void report(String name, long elapsedNanos, int operations) {
+		if (operations == 1) {
+			System.out.printf("%-26s %10.2f ms%n", name, elapsedNanos / 1_000_000.0);
+		} else {
+			System.out.printf("%-26s %10.1f ns/op%n", name, (double) elapsedNanos / operations);
+		}
+	}
+}
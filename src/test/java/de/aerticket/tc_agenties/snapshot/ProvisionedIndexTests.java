@@ -0,0 +1,72 @@
+package de.aerticket.tc_agenties.snapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProvisionedIndexTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void entriesSurviveResizeAndSnapshot() throws Exception {
+		ProvisionedIndex index = new ProvisionedIndex(0);
+		for (int i = 0; i < 5_000; i++) {
+			index.put(ProvisionedIndex.key("aer360", "A" + i, ""), 1_790_000_000L + i);
+		}
+		Path file = dir.resolve("provisioned.idx");
+		index.writeTo(file);
+
+		ProvisionedIndex loaded = ProvisionedIndex.readFrom(file);
+
+		assertEquals(5_000, loaded.size());
+		assertEquals(1_790_000_042L, loaded.confirmedAt(ProvisionedIndex.key("AER360", "A42", "")));
+		assertEquals(-1, loaded.confirmedAt(ProvisionedIndex.key("aer360", "A42", "job1")));
+	}
+
+	@Test
+	void putRefreshesExistingEntry() {
+		ProvisionedIndex index = new ProvisionedIndex(10);
+		long key = ProvisionedIndex.key("aer360", "A1", "job1");
+		index.put(key, 1_790_000_000L);
+		index.put(key, 1_790_000_100L);
+
+		assertEquals(1, index.size());
+		assertEquals(1_790_000_100L, index.confirmedAt(key));
+	}
+
+	@Test
+	void removeKeepsCollidingEntriesReachable() {
+		ProvisionedIndex index = new ProvisionedIndex(0);
+		for (int i = 0; i < 700; i++) {
+			index.put(ProvisionedIndex.key("aer360", "A" + i, ""), 1_790_000_000L + i);
+		}
+		for (int i = 0; i < 700; i += 2) {
+			assertTrue(index.remove(ProvisionedIndex.key("aer360", "A" + i, "")));
+		}
+
+		assertEquals(350, index.size());
+		for (int i = 0; i < 700; i++) {
+			long expected = i % 2 == 0 ? -1 : 1_790_000_000L + i;
+			assertEquals(expected, index.confirmedAt(ProvisionedIndex.key("aer360", "A" + i, "")));
+		}
+		assertFalse(index.remove(ProvisionedIndex.key("aer360", "A0", "")));
+	}
+
+	@Test
+	void corruptSnapshotIsRejected() throws Exception {
+		Path file = dir.resolve("provisioned.idx");
+		Files.write(file, new byte[64]);
+
+		assertThrows(IOException.class, () -> ProvisionedIndex.readFrom(file));
+	}
+}
@@ -0,0 +1,53 @@
+package de.aerticket.tc_agenties.snapshot;
+
+import de.aerticket.tc_agenties.config.ProvisioningConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProvisionedSnapshotServiceTests {
+
+	private static final long MAX_AGE = 3_600;
+
+	@TempDir
+	Path dir;
+
+	private ProvisionedSnapshotService snapshotService;
+
+	@BeforeEach
+	void setUp() {
+		ProvisioningConfig config = new ProvisioningConfig();
+		config.setSnapshotPath(dir.resolve("provisioned.idx").toString());
+		snapshotService = new ProvisionedSnapshotService(config);
+		snapshotService.start();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		snapshotService.stop();
+	}
+
+	@Test
+	void revokedAgencyIsNotFreshInAnyMicrositeUntilConfirmedAgain() {
+		long now = Instant.now().getEpochSecond();
+		snapshotService.record("aer360", "123456", "", now - 10);
+		snapshotService.record("b2b", "123456", "4711", now - 10);
+		snapshotService.record("aer360", "654321", "", now - 10);
+
+		snapshotService.revokeAgency("123456", now - 5);
+
+		assertFalse(snapshotService.isFresh("aer360", "123456", "", MAX_AGE));
+		assertFalse(snapshotService.isFresh("b2b", "123456", "4711", MAX_AGE));
+		assertTrue(snapshotService.isFresh("aer360", "654321", "", MAX_AGE));
+
+		snapshotService.record("aer360", "123456", "", now);
+		assertTrue(snapshotService.isFresh("aer360", "123456", "", MAX_AGE));
+	}
+}
@@ -0,0 +1,76 @@
+package de.aerticket.tc_agenties.util;
+
+import de.aerticket.tc_agenties.exception.DeadlineExceededException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeadlineTests {
+
+	@AfterEach
+	void tearDown() {
+		Deadline.end();
+	}
+
+	@Test
+	void withoutDeadlineConfiguredTimeoutsApply() {
+		assertEquals(Long.MAX_VALUE, Deadline.remainingMillis());
+		assertEquals(5_000, Deadline.timeoutFor("call", 5_000));
+		Deadline.check("call");
+	}
+
+	@Test
+	void timeoutIsCutToRemainingBudget() {
+		Deadline.begin(200);
+
+		int timeout = Deadline.timeoutFor("call", 5_000);
+
+		assertTrue(timeout > 0 && timeout <= 200, "timeout " + timeout);
+		assertEquals(100, Deadline.timeoutFor("call", 100));
+	}
+
+	@Test
+	void expiredDeadlineFailsChecksAndCalls() throws Exception {
+		Deadline deadline = Deadline.begin(1);
+		TimeUnit.MILLISECONDS.sleep(5);
+
+		assertTrue(deadline.isExpired());
+		DeadlineExceededException thrown = assertThrows(DeadlineExceededException.class,
+				() -> Deadline.check("user check"));
+		assertTrue(thrown.getMessage().contains("user check"));
+		assertThrows(DeadlineExceededException.class, () -> Deadline.timeoutFor("call", 5_000));
+	}
+
+	@Test
+	void endClearsTheThreadsDeadline() {
+		Deadline.begin(1_000);
+		Deadline.end();
+
+		assertNull(Deadline.current());
+	}
+
+	@Test
+	void decoratedTaskRunsUnderTheCallersDeadlineAndCleansUp() throws Exception {
+		Deadline deadline = Deadline.begin(10_000);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			CompletableFuture<Deadline> seen = new CompletableFuture<>();
+			executor.execute(new RequestContextTaskDecorator().decorate(() -> seen.complete(Deadline.current())));
+
+			assertSame(deadline, seen.get(5, TimeUnit.SECONDS));
+			assertNull(executor.submit(Deadline::current).get(5, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package de.aerticket.tc_agenties.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestTimingsTests {
+
+	// One metric, e.g. agency;dur=12.3;desc="hit"
+	private static final String METRIC = "[a-z]+;dur=\\d+\\.\\d(;desc=\"(hit|miss|partial)\")?";
+
+	@AfterEach
+	void tearDown() {
+		RequestTimings.end();
+	}
+
+	@Test
+	void stagesAreListedInPipelineOrderWithTheirCacheOutcome() {
+		RequestTimings timings = RequestTimings.begin();
+		RequestTimings.record(RequestTimings.Stage.TOKEN, System.nanoTime());
+		RequestTimings.miss(RequestTimings.Stage.USER);
+		RequestTimings.record(RequestTimings.Stage.USER, System.nanoTime());
+		RequestTimings.hit(RequestTimings.Stage.AGENCY);
+		RequestTimings.miss(RequestTimings.Stage.AGENCY);
+		RequestTimings.record(RequestTimings.Stage.AGENCY, System.nanoTime());
+		RequestTimings.hit(RequestTimings.Stage.JWT);
+		RequestTimings.record(RequestTimings.Stage.JWT, System.nanoTime());
+
+		String header = timings.toServerTimingHeader();
+
+		assertTrue(header.matches("jwt;dur=\\d+\\.\\d;desc=\"hit\", agency;dur=\\d+\\.\\d;desc=\"partial\", "
+				+ "user;dur=\\d+\\.\\d;desc=\"miss\", token;dur=\\d+\\.\\d, total;dur=\\d+\\.\\d"), header);
+	}
+
+	@Test
+	void durationsAddUpAndAreWrittenAsMillisWithOneDecimal() {
+		RequestTimings timings = RequestTimings.begin();
+		RequestTimings.record(RequestTimings.Stage.TOKEN, System.nanoTime() - TimeUnit.MICROSECONDS.toNanos(1_250));
+		RequestTimings.record(RequestTimings.Stage.TOKEN, System.nanoTime() - TimeUnit.MICROSECONDS.toNanos(1_250));
+
+		String header = timings.toServerTimingHeader();
+
+		Matcher token = Pattern.compile("token;dur=(\\d+)\\.(\\d), ").matcher(header);
+		assertTrue(token.lookingAt(), header);
+		long tenths = Long.parseLong(token.group(1)) * 10 + Long.parseLong(token.group(2));
+		assertTrue(tenths >= 25, header);
+		assertTrue(timings.millis(RequestTimings.Stage.TOKEN) >= 2);
+		assertEquals(-1, timings.millis(RequestTimings.Stage.JWT));
+	}
+
+	@Test
+	void totalIsAlwaysPresent() {
+		RequestTimings timings = RequestTimings.begin();
+
+		assertTrue(timings.toServerTimingHeader().matches("total;dur=\\d+\\.\\d"), timings.toServerTimingHeader());
+	}
+
+	@Test
+	void outsideARequestNothingIsRecorded() {
+		RequestTimings.hit(RequestTimings.Stage.JWT);
+		RequestTimings.record(RequestTimings.Stage.JWT, System.nanoTime());
+
+		assertNull(RequestTimings.current());
+		RequestTimings timings = RequestTimings.begin();
+		assertNull(timings.cached(RequestTimings.Stage.JWT));
+		assertEquals(-1, timings.millis(RequestTimings.Stage.JWT));
+	}
+
+	@Test
+	void stagesRecordedOnAnotherThreadAreMergedIntoTheRequest() {
+		RequestTimings timings = RequestTimings.begin();
+		RequestTimings.hit(RequestTimings.Stage.AGENCY);
+		RequestTimings.record(RequestTimings.Stage.AGENCY, System.nanoTime());
+
+		RequestTimings worker = CompletableFuture.supplyAsync(() -> {
+			RequestTimings own = RequestTimings.begin();
+			RequestTimings.miss(RequestTimings.Stage.AGENCY);
+			RequestTimings.miss(RequestTimings.Stage.TOKEN);
+			RequestTimings.record(RequestTimings.Stage.TOKEN, System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(5));
+			RequestTimings copy = own.copy();
+			// The copy is detached from the worker's reused instance
+			RequestTimings.begin();
+			RequestTimings.end();
+			return copy;
+		}).join();
+		timings.merge(worker);
+
+		assertTrue(timings.millis(RequestTimings.Stage.TOKEN) >= 5);
+		assertFalse(timings.cached(RequestTimings.Stage.TOKEN));
+		assertFalse(timings.cached(RequestTimings.Stage.AGENCY));
+		String header = timings.toServerTimingHeader();
+		assertTrue(header.contains("agency;dur=") && header.contains(";desc=\"partial\", token;dur="), header);
+		for (String metric : header.split(", ")) {
+			assertTrue(metric.matches(METRIC), header);
+		}
+	}
+}